@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
+import edu.cornell.cs.nlp.spf.mr.lambda.FlexibleTypeComparator;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.language.type.TypeRepository;
+
+/**
+ * Shared setup for benchmarks that use the GeoQuery domain. Paths are relative
+ * to the repository root (the working directory of the 'benchmarks' Ant
+ * target). Set the system property 'spf.root' to run from elsewhere.
+ *
+ * @author Yoav Artzi
+ */
+public class GeoQueryBenchmarkServices {
+
+	public static final File	ROOT_DIR		= new File(
+			System.getProperty("spf.root", "."));
+	public static final File	DATA_DIR		= new File(ROOT_DIR,
+			"geoquery/experiments/data");
+	public static final File	RESOURCES_DIR	= new File(ROOT_DIR,
+			"geoquery/resources");
+
+	private static boolean		initialized		= false;
+
+	private GeoQueryBenchmarkServices() {
+		// Private ctor. Service class.
+	}
+
+	/**
+	 * Init the logical expression type system with the GeoQuery types and
+	 * ontology. The ontology is left open, so new constants may be read.
+	 */
+	public static synchronized void init() {
+		if (initialized) {
+			return;
+		}
+
+		final List<File> ontologyFiles = new LinkedList<File>();
+		ontologyFiles.add(new File(RESOURCES_DIR, "geo.consts.ont"));
+		ontologyFiles.add(new File(RESOURCES_DIR, "geo.preds.ont"));
+
+		try {
+			LogicLanguageServices
+					.setInstance(new LogicLanguageServices.Builder(
+							new TypeRepository(
+									new File(RESOURCES_DIR, "geo.types")),
+							new FlexibleTypeComparator()).closeOntology(false)
+							.setUseOntology(true)
+							.addConstantsToOntology(ontologyFiles)
+							.setNumeralTypeName("i").build());
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		initialized = true;
+	}
+
+	/**
+	 * Read the logical form labels of a GeoQuery data file (e.g., "fold0").
+	 * Requires the logical expression type system to be initialized.
+	 */
+	public static List<LogicalExpression> readLabels(String name) {
+		final List<LogicalExpression> labels = new ArrayList<LogicalExpression>();
+		for (final SingleSentence sentence : readSentences(name)) {
+			labels.add(sentence.getLabel());
+		}
+		return labels;
+	}
+
+	public static SingleSentenceCollection readSentences(String name) {
+		return SingleSentenceCollection
+				.read(new File(DATA_DIR, name + ".ccg"));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.cornell.cs.nlp.spf.benchmarks.GeoQueryBenchmarkServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.exec.naive.Evaluation;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetVariables;
+import edu.cornell.cs.nlp.spf.mr.language.type.Type;
+
+/**
+ * Benchmarks {@link Evaluation} of GeoQuery logical forms against a synthetic
+ * world over the GeoQuery ontology (see
+ * {@link SyntheticGeoEvaluationServices}). Evaluating a lambda term enumerates
+ * the cartesian product of the denotations of its variables, so only labels
+ * with a small number of variables are used. Each invocation evaluates all
+ * these labels with a fresh (empty) evaluation cache.
+ *
+ * @author Yoav Artzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+	@Param({ "fold0" })
+	public String								data;
+
+	/**
+	 * Number of denotations of each variable.
+	 */
+	@Param({ "20", "100" })
+	public int									domainSize;
+
+	@Param({ "2" })
+	public int									maxVariables;
+
+	private Map<Type, List<LogicalConstant>>	domains;
+
+	private LogicalExpression[]					labels;
+
+	@Benchmark
+	public void evaluate(Blackhole blackhole) {
+		for (final LogicalExpression label : labels) {
+			blackhole.consume(Evaluation.of(label,
+					new SyntheticGeoEvaluationServices(domainSize, domains)));
+		}
+	}
+
+	@Setup
+	public void setup() {
+		GeoQueryBenchmarkServices.init();
+
+		final List<LogicalExpression> labelList = new ArrayList<LogicalExpression>();
+		for (final LogicalExpression label : GeoQueryBenchmarkServices
+				.readLabels(data)) {
+			if (GetVariables.of(label).size() <= maxVariables) {
+				labelList.add(label);
+			}
+		}
+		labels = labelList.toArray(new LogicalExpression[labelList.size()]);
+		domains = SyntheticGeoEvaluationServices.createDomains();
+	}
+
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.exec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+import edu.cornell.cs.nlp.spf.mr.lambda.exec.naive.AbstractEvaluationServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.exec.naive.LambdaResult;
+import edu.cornell.cs.nlp.spf.mr.language.type.RecursiveComplexType;
+import edu.cornell.cs.nlp.spf.mr.language.type.Type;
+
+/**
+ * Deterministic synthetic world over the constants of the GeoQuery ontology.
+ * The repository doesn't include the GeoQuery database, so the truth value (or
+ * value) of each literal is derived from a hash of its predicate and evaluated
+ * arguments. The denotations of each variable are the first entities (by name)
+ * of its type in the ontology. This exercises the evaluation machinery
+ * (SELECT enumeration, short-circuiting and caching) with realistic logical
+ * forms, but the results have no meaning.
+ *
+ * @author Yoav Artzi
+ */
+class SyntheticGeoEvaluationServices extends AbstractEvaluationServices<Object> {
+
+	private static final Object						STATE	= new Object();
+
+	/**
+	 * Denotations of each primitive type. Shared between service objects.
+	 */
+	private final Map<Type, List<LogicalConstant>>	domains;
+	private final int								domainSize;
+
+	public SyntheticGeoEvaluationServices(int domainSize,
+			Map<Type, List<LogicalConstant>> domains) {
+		this.domainSize = domainSize;
+		this.domains = domains;
+	}
+
+	public static Map<Type, List<LogicalConstant>> createDomains() {
+		return new ConcurrentHashMap<Type, List<LogicalConstant>>();
+	}
+
+	private static Type getFinalRange(Type type) {
+		Type current = type;
+		while (current.isComplex()) {
+			current = current instanceof RecursiveComplexType
+					? ((RecursiveComplexType) current).getFinalRange()
+					: current.getRange();
+		}
+		return current;
+	}
+
+	private static int hash(Object denotation) {
+		if (denotation instanceof LambdaResult) {
+			// Tuples are stored in a hash set, so only use the size.
+			return ((LambdaResult) denotation).size();
+		} else if (denotation instanceof LogicalConstant) {
+			return ((LogicalConstant) denotation).getName().hashCode();
+		} else {
+			return denotation.hashCode();
+		}
+	}
+
+	@Override
+	public Object evaluateConstant(LogicalConstant logicalConstant) {
+		final Object value = super.evaluateConstant(logicalConstant);
+		if (value == null && !logicalConstant.getType().isComplex()) {
+			// Entities denote themselves.
+			return logicalConstant;
+		}
+		return value;
+	}
+
+	@Override
+	public Object evaluateLiteral(LogicalExpression predicate, Object[] args) {
+		int hash = predicate instanceof LogicalConstant
+				? ((LogicalConstant) predicate).getName().hashCode()
+				: predicate.hashCode();
+		for (final Object arg : args) {
+			hash = 31 * hash + hash(arg);
+		}
+		// Spread the bits.
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+
+		final Type range = getFinalRange(predicate.getType());
+		if (range.equals(LogicLanguageServices.getTypeRepository()
+				.getTruthValueType())) {
+			return (hash & 3) == 0;
+		} else if (range.isExtending(LogicLanguageServices.getNumeralType())) {
+			return Double.valueOf(Math.abs(hash % 1000));
+		} else {
+			final List<LogicalConstant> domain = getDomain(range);
+			return domain.isEmpty() ? null
+					: domain.get(Math.abs(hash % domain.size()));
+		}
+	}
+
+	@Override
+	public List<?> getAllDenotations(Variable variable) {
+		return getDomain(variable.getType());
+	}
+
+	@Override
+	public boolean isDenotable(Variable variable) {
+		return !variable.getType().isComplex();
+	}
+
+	private List<LogicalConstant> getDomain(Type type) {
+		return domains.computeIfAbsent(type, t -> {
+			final List<LogicalConstant> domain = new ArrayList<LogicalConstant>();
+			for (final LogicalConstant constant : LogicLanguageServices
+					.getOntology()) {
+				if (!constant.getType().isComplex()
+						&& constant.getType().isExtending(t)) {
+					domain.add(constant);
+				}
+			}
+			Collections.sort(domain,
+					Comparator.comparing(LogicalConstant::getName));
+			return Collections.unmodifiableList(new ArrayList<LogicalConstant>(
+					domain.subList(0, Math.min(domainSize, domain.size()))));
+		});
+	}
+
+	@Override
+	protected Object currentState() {
+		return STATE;
+	}
+
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.hashvector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+
+/**
+ * Compares the general-purpose {@link IHashVector} implementations on the
+ * operations used during parsing and learning: scoring a small feature vector
+ * against a large parameter vector, updating the parameters, and building,
+ * querying and iterating over vectors. Keys are structured like lexical
+ * features (e.g., FACLEX#LEX#id#id).
+ *
+ * @author Yoav Artzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashVectorBenchmark {
+
+	/**
+	 * Number of features in a feature vector of a single parse step.
+	 */
+	@Param({ "20" })
+	public int						featuresSize;
+
+	/**
+	 * Number of features in the parameter vector.
+	 */
+	@Param({ "50000" })
+	public int						thetaSize;
+
+	@Param({ "FAST_TREE", "OPEN", "OPEN_SORTED", "TREE", "TROVE" })
+	public HashVectorFactory.Type	type;
+
+	private IHashVector				features;
+
+	private KeyArgs[]				keys;
+
+	private IHashVector				theta;
+
+	private static KeyArgs createKey(Random random, int range) {
+		return new KeyArgs("FACLEX", random.nextBoolean() ? "LEX" : "XEME",
+				String.valueOf(random.nextInt(range)),
+				String.valueOf(random.nextInt(100)));
+	}
+
+	@Benchmark
+	public IHashVector build() {
+		final IHashVector vector = HashVectorFactory.create();
+		for (final KeyArgs key : keys) {
+			vector.add(key, 1.0);
+		}
+		return vector;
+	}
+
+	@Benchmark
+	public double dotProduct() {
+		return features.dotProduct(theta);
+	}
+
+	@Benchmark
+	public double get() {
+		double sum = 0.0;
+		for (final KeyArgs key : keys) {
+			sum += theta.get(key);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public void iterate(Blackhole blackhole) {
+		theta.iterate((key, value) -> blackhole.consume(value));
+	}
+
+	@Setup
+	public void setup() {
+		HashVectorFactory.DEFAULT = type;
+		final Random random = new Random(1);
+
+		theta = HashVectorFactory.create();
+		while (theta.size() < thetaSize) {
+			theta.set(createKey(random, thetaSize), random.nextGaussian());
+		}
+
+		features = HashVectorFactory.create();
+		while (features.size() < featuresSize) {
+			features.set(createKey(random, thetaSize), 1.0);
+		}
+
+		keys = new KeyArgs[1000];
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = createKey(random, thetaSize);
+		}
+	}
+
+	@Benchmark
+	public IHashVector update() {
+		// Perceptron-style update. The second update reverts the first, so
+		// theta stays the same across invocations.
+		features.addTimesInto(1.0, theta);
+		features.addTimesInto(-1.0, theta);
+		return theta;
+	}
+
+}
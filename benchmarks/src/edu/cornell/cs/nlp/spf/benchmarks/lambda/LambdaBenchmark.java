@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.lambda;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.cornell.cs.nlp.spf.benchmarks.GeoQueryBenchmarkServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
+import edu.cornell.cs.nlp.spf.mr.lambda.Literal;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ApplyAndSimplify;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.BetaReduce;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetApplicationFunction;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetConstantsSet;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReplaceExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.Simplify;
+import edu.cornell.cs.nlp.utils.collections.ArrayUtils;
+
+/**
+ * Benchmarks the core lambda calculus operations on GeoQuery logical forms.
+ * For each label, the first entity constant (in lexicographic order) is
+ * abstracted to create a function-argument pair. Applying the function to the
+ * argument gives back the label, and the reverse operation
+ * ({@link GetApplicationFunction}) recovers the function. Each benchmark
+ * invocation processes all the labels of the data file.
+ *
+ * @author Yoav Artzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LambdaBenchmark {
+
+	@Param({ "fold0" })
+	public String					data;
+
+	/**
+	 * Same default as the reversible application rules.
+	 */
+	@Param({ "3" })
+	public int						maxSubsetSize;
+
+	private LogicalExpression[]		arguments;
+
+	/**
+	 * Structurally equal, but distinct, copies of the labels.
+	 */
+	private LogicalExpression[]		copies;
+
+	private LogicalExpression[]		functions;
+
+	private LogicalExpression[]		labels;
+
+	/**
+	 * The applications of the functions to their arguments as un-simplified
+	 * literals.
+	 */
+	private LogicalExpression[]		unsimplified;
+
+	private static LogicalConstant getFirstEntityConstant(
+			LogicalExpression exp) {
+		return GetConstantsSet.of(exp).stream()
+				.filter(constant -> !constant.getType().isComplex())
+				.min(Comparator.comparing(LogicalConstant::toString))
+				.orElse(null);
+	}
+
+	@Benchmark
+	public void applyAndSimplify(Blackhole blackhole) {
+		for (int i = 0; i < functions.length; ++i) {
+			blackhole.consume(ApplyAndSimplify.of(functions[i], arguments[i]));
+		}
+	}
+
+	@Benchmark
+	public void betaReduce(Blackhole blackhole) {
+		for (int i = 0; i < functions.length; ++i) {
+			blackhole.consume(BetaReduce.of(functions[i], arguments[i]));
+		}
+	}
+
+	@Benchmark
+	public void equals(Blackhole blackhole) {
+		for (int i = 0; i < labels.length; ++i) {
+			blackhole.consume(labels[i].equals(copies[i]));
+		}
+	}
+
+	@Benchmark
+	public void getApplicationFunction(Blackhole blackhole) {
+		for (int i = 0; i < labels.length; ++i) {
+			blackhole.consume(GetApplicationFunction.of(labels[i],
+					arguments[i], maxSubsetSize));
+		}
+	}
+
+	@Setup
+	public void setup() {
+		GeoQueryBenchmarkServices.init();
+
+		final List<LogicalExpression> labelList = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> argumentList = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> functionList = new ArrayList<LogicalExpression>();
+		for (final LogicalExpression label : GeoQueryBenchmarkServices
+				.readLabels(data)) {
+			final LogicalConstant argument = getFirstEntityConstant(label);
+			if (argument != null) {
+				final Variable variable = new Variable(argument.getType());
+				labelList.add(label);
+				argumentList.add(argument);
+				functionList.add(new Lambda(variable,
+						ReplaceExpression.of(label, argument, variable)));
+			}
+		}
+
+		labels = labelList.toArray(new LogicalExpression[labelList.size()]);
+		arguments = argumentList
+				.toArray(new LogicalExpression[argumentList.size()]);
+		functions = functionList
+				.toArray(new LogicalExpression[functionList.size()]);
+		copies = new LogicalExpression[labels.length];
+		unsimplified = new LogicalExpression[labels.length];
+		for (int i = 0; i < labels.length; ++i) {
+			copies[i] = LogicalExpression.read(labels[i].toString());
+			unsimplified[i] = new Literal(functions[i],
+					ArrayUtils.create(arguments[i]));
+			if (!labels[i].equals(ApplyAndSimplify.of(functions[i],
+					arguments[i]))) {
+				throw new IllegalStateException(
+						"Application doesn't recover label: " + labels[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	public void simplify(Blackhole blackhole) {
+		for (final LogicalExpression exp : unsimplified) {
+			blackhole.consume(Simplify.of(exp));
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.lambda;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.cornell.cs.nlp.spf.benchmarks.GeoQueryBenchmarkServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetApplicationArgument;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetApplicationFunction;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetConstantsSet;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReplaceExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReverseApplicationMemo;
+
+/**
+ * Compares direct reverse application ({@link GetApplicationFunction} and
+ * {@link GetApplicationArgument}) to {@link ReverseApplicationMemo}. The pairs
+ * are created from GeoQuery logical forms: each entity constant of each label
+ * is abstracted to create a function-argument pair. In addition, each label is
+ * paired with the argument and function of the next label, which usually
+ * can't be reversed. Each pair is processed 'repeat' times in each invocation
+ * (using copies of the expressions), to simulate the repeated calls made when
+ * parsing with the reversible rules. Each invocation of the memoized
+ * benchmarks starts with an empty memo.
+ *
+ * @author Yoav Artzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReverseApplicationBenchmark {
+
+	@Param({ "fold0" })
+	public String					data;
+
+	/**
+	 * Same default as the reversible application rules.
+	 */
+	@Param({ "3" })
+	public int						maxSubsetSize;
+
+	@Param({ "1", "4" })
+	public int						repeat;
+
+	private LogicalExpression[]		arguments;
+
+	private LogicalExpression[]		functions;
+
+	private LogicalExpression[]		results;
+
+	private static LogicalExpression copy(LogicalExpression exp) {
+		return LogicalExpression.read(exp.toString());
+	}
+
+	@Benchmark
+	public void getArgument(Blackhole blackhole) {
+		for (int i = 0; i < results.length; ++i) {
+			blackhole.consume(
+					GetApplicationArgument.of(functions[i], results[i]));
+		}
+	}
+
+	@Benchmark
+	public void getArgumentMemo(Blackhole blackhole) {
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo();
+		for (int i = 0; i < results.length; ++i) {
+			blackhole.consume(memo.getArgument(functions[i], results[i]));
+		}
+	}
+
+	@Benchmark
+	public void getFunction(Blackhole blackhole) {
+		for (int i = 0; i < results.length; ++i) {
+			blackhole.consume(GetApplicationFunction.of(results[i],
+					arguments[i], maxSubsetSize));
+		}
+	}
+
+	@Benchmark
+	public void getFunctionMemo(Blackhole blackhole) {
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo();
+		for (int i = 0; i < results.length; ++i) {
+			blackhole.consume(memo.getFunction(results[i], arguments[i],
+					maxSubsetSize, Integer.MAX_VALUE));
+		}
+	}
+
+	@Setup
+	public void setup() {
+		GeoQueryBenchmarkServices.init();
+
+		final List<LogicalExpression> labels = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> labelArguments = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> labelFunctions = new ArrayList<LogicalExpression>();
+		for (final LogicalExpression label : GeoQueryBenchmarkServices
+				.readLabels(data)) {
+			for (final LogicalConstant argument : GetConstantsSet.of(label)) {
+				if (!argument.getType().isComplex()) {
+					final Variable variable = new Variable(argument.getType());
+					labels.add(label);
+					labelArguments.add(argument);
+					labelFunctions.add(new Lambda(variable,
+							ReplaceExpression.of(label, argument, variable)));
+				}
+			}
+		}
+
+		// Matching pairs followed by mismatched pairs, all repeated.
+		final int numPairs = labels.size();
+		final List<LogicalExpression> resultList = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> argumentList = new ArrayList<LogicalExpression>();
+		final List<LogicalExpression> functionList = new ArrayList<LogicalExpression>();
+		for (int r = 0; r < repeat; ++r) {
+			for (int i = 0; i < numPairs; ++i) {
+				resultList.add(copy(labels.get(i)));
+				argumentList.add(labelArguments.get(i));
+				functionList.add(copy(labelFunctions.get(i)));
+			}
+			for (int i = 0; i < numPairs; ++i) {
+				resultList.add(copy(labels.get(i)));
+				argumentList.add(labelArguments.get((i + 1) % numPairs));
+				functionList.add(copy(labelFunctions.get((i + 1) % numPairs)));
+			}
+		}
+		results = resultList.toArray(new LogicalExpression[resultList.size()]);
+		arguments = argumentList
+				.toArray(new LogicalExpression[argumentList.size()]);
+		functions = functionList
+				.toArray(new LogicalExpression[functionList.size()]);
+	}
+
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.benchmarks.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.cornell.cs.nlp.spf.benchmarks.GeoQueryBenchmarkServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.geoquery.GeoExp;
+import edu.cornell.cs.nlp.spf.geoquery.GeoResourceRepo;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.AbstractCKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelInit;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.utils.log.LogLevel;
+
+/**
+ * Compares single-threaded CKY parsing ({@link CKYParser}) to multi-threaded
+ * parsing (MultiCKYParser) of GeoQuery sentences at several beam sizes. Also
+ * benchmarks computing the expected features from the complete chart
+ * (Chart.logExpectedFeatures). The parsers and the model are created from
+ * 'benchmarks/resources/parser.exp', which mirrors the GeoQuery experiment
+ * setup. The model is initialized, but not trained.
+ *
+ * @author Yoav Artzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	private static final Map<String, String>					PARSER_IDS	= new HashMap<String, String>();
+
+	@Param({ "10", "50", "100" })
+	public int													beam;
+
+	@Param({ "fold0" })
+	public String												data;
+
+	/**
+	 * Number of sentences parsed in each invocation.
+	 */
+	@Param({ "10" })
+	public int													numSentences;
+
+	@Param({ "single", "multi" })
+	public String												parser;
+
+	private final List<IDataItemModel<LogicalExpression>>		dataItemModels	= new ArrayList<IDataItemModel<LogicalExpression>>();
+
+	private GeoExp												experiment;
+
+	private final List<CKYParserOutput<LogicalExpression>>		outputs			= new ArrayList<CKYParserOutput<LogicalExpression>>();
+
+	private AbstractCKYParser<Sentence, LogicalExpression>		parserObject;
+
+	private final List<Sentence>								sentences		= new ArrayList<Sentence>();
+
+	static {
+		PARSER_IDS.put("single", "singleParser");
+		PARSER_IDS.put("multi", "parser");
+	}
+
+	@Benchmark
+	public void logExpectedFeatures(Blackhole blackhole) {
+		for (final CKYParserOutput<LogicalExpression> output : outputs) {
+			blackhole.consume(output.logExpectedFeatures());
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (int i = 0; i < sentences.size(); ++i) {
+			blackhole.consume(
+					parserObject.parse(sentences.get(i), dataItemModels.get(i)));
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		final Map<String, String> envParams = new HashMap<String, String>();
+		envParams.put("gBeam", String.valueOf(beam));
+		final GeoResourceRepo repo = new GeoResourceRepo();
+		repo.registerResourceCreator(
+				new CKYParser.Creator<Sentence, LogicalExpression>());
+		experiment = new GeoExp(new File(GeoQueryBenchmarkServices.ROOT_DIR,
+				"benchmarks/resources/parser.exp"), envParams, repo);
+		LogLevel.WARN.set();
+
+		final Model<Sentence, LogicalExpression> model = experiment
+				.get("model");
+		for (final String id : new String[] { "initWeights", "initSeedLex",
+				"initNPs", "initSeedLexWeights", "initNPsLexWeights",
+				"initSeedXemeWeights", "initNPsXemeWeights" }) {
+			experiment.<IModelInit<Sentence, LogicalExpression>> get(id)
+					.init(model);
+		}
+
+		parserObject = experiment.get(PARSER_IDS.get(parser));
+		for (final SingleSentence dataItem : GeoQueryBenchmarkServices
+				.readSentences(data)) {
+			if (sentences.size() == numSentences) {
+				break;
+			}
+			final IDataItemModel<LogicalExpression> dataItemModel = model
+					.createDataItemModel(dataItem.getSample());
+			sentences.add(dataItem.getSample());
+			dataItemModels.add(dataItemModel);
+			outputs.add(parserObject.parse(dataItem.getSample(),
+					dataItemModel));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		experiment.end();
+	}
+
+}
@@ -47,18 +47,18 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 	/**
 	 * Lexemes are grouped by their strings, for quick indexing.
 	 */
-	private final Map<TokenSeq, Set<Lexeme>>					lexemes						= new HashMap<TokenSeq, Set<Lexeme>>();
+	private Map<TokenSeq, Set<Lexeme>>							lexemes						= new HashMap<TokenSeq, Set<Lexeme>>();
 
 	/**
 	 * Maintain all lexemes indexed by type for quick access given template.
 	 */
-	private final Map<FactoringSignature, Set<Lexeme>>			lexemesByType				= new HashMap<FactoringSignature, Set<Lexeme>>();
+	private Map<FactoringSignature, Set<Lexeme>>				lexemesByType				= new HashMap<FactoringSignature, Set<Lexeme>>();
 
 	/**
 	 * Templates are group by the types of their input arguments, for quick
 	 * indexing.
 	 */
-	private final Map<FactoringSignature, Set<LexicalTemplate>>	templates					= new HashMap<FactoringSignature, Set<LexicalTemplate>>();
+	private Map<FactoringSignature, Set<LexicalTemplate>>		templates					= new HashMap<FactoringSignature, Set<LexicalTemplate>>();
 
 	public FactoredLexicon() {
 	}
@@ -84,6 +84,20 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 						template.getProperties()));
 	}
 
+	/**
+	 * Re-create an index, skipping empty keys.
+	 */
+	private static <K, V> Map<K, Set<V>> compact(Map<K, Set<V>> index) {
+		final Map<K, Set<V>> compacted = new HashMap<K, Set<V>>();
+		for (final Entry<K, Set<V>> entry : index.entrySet()) {
+			if (!entry.getValue().isEmpty()) {
+				compacted.put(entry.getKey(),
+						new HashSet<V>(entry.getValue()));
+			}
+		}
+		return compacted;
+	}
+
 	@Override
 	public Set<LexicalEntry<LogicalExpression>> add(
 			LexicalEntry<LogicalExpression> entry) {
@@ -186,6 +200,13 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 		}
 	}
 
+	@Override
+	public void compact() {
+		lexemes = compact(lexemes);
+		lexemesByType = compact(lexemesByType);
+		templates = compact(templates);
+	}
+
 	public boolean contains(Lexeme lexeme) {
 		final TokenSeq tokens = lexeme.getTokens();
 		return lexemes.containsKey(tokens)
@@ -357,7 +378,7 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 							|| somethingRemoved;
 				} else {
 					// Case unknown signature, remove all its lexemes.
-					lexemeIterator.remove();
+					lexemeTypeIterator.remove();
 					somethingRemoved = true;
 				}
 			}
@@ -134,7 +134,7 @@ public class FactoringServices {
 			if (left == complex.getLeft() && right == complex.getRight()) {
 				return syntax;
 			} else {
-				return new ComplexSyntax(left, right, complex.getSlash());
+				return ComplexSyntax.create(left, right, complex.getSlash());
 			}
 		} else if (syntax instanceof SimpleSyntax) {
 			final SimpleSyntax simple = (SimpleSyntax) syntax;
@@ -246,7 +246,8 @@ public class LexicalTemplate implements Serializable {
 					&& right == complexSyntax.getRight()) {
 				return syntax;
 			} else {
-				return new ComplexSyntax(left, right, complexSyntax.getSlash());
+				return ComplexSyntax.create(left, right,
+						complexSyntax.getSlash());
 			}
 		} else if (syntax instanceof SimpleSyntax) {
 			final SimpleSyntax simpleSyntax = (SimpleSyntax) syntax;
@@ -173,6 +173,12 @@ public class PartiallyFactoredLexicon implements ILexicon<LogicalExpression> {
 		}
 	}
 
+	@Override
+	public void compact() {
+		factored.compact();
+		nonFactored.compact();
+	}
+
 	@Override
 	public boolean contains(LexicalEntry<LogicalExpression> lex) {
 		return nonFactored.contains(lex) || factored.contains(lex);
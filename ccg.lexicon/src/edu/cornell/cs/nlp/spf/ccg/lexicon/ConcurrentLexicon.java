@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.ccg.lexicon;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cornell.cs.nlp.spf.base.string.IStringFilter;
+import edu.cornell.cs.nlp.spf.base.string.StubStringFilter;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.utils.collections.SetUtils;
+
+/**
+ * Lexicon that can be read by many threads while it's updated. Same contract
+ * as {@link Lexicon}. Entries are indexed by their tokens in a concurrent map.
+ * The set of entries of each token sequence is immutable, and is replaced on
+ * every update (copy-on-write) using compare-and-set operations. Therefore,
+ * reads never block and always observe a consistent set of entries, and
+ * updates don't take locks. Updates of the same token sequence are retried
+ * when they race, so this lexicon is best when each token sequence has few
+ * entries, which is usually the case.
+ *
+ * @author Yoav Artzi
+ */
+public class ConcurrentLexicon<MR> implements ILexicon<MR> {
+
+	private static final long										serialVersionUID	= 2541297906624355428L;
+
+	private final ConcurrentMap<TokenSeq, Set<LexicalEntry<MR>>>	entries				= new ConcurrentHashMap<TokenSeq, Set<LexicalEntry<MR>>>();
+
+	private final AtomicInteger										size				= new AtomicInteger();
+
+	public ConcurrentLexicon() {
+	}
+
+	public ConcurrentLexicon(ILexicon<MR> lexicon) {
+		addAll(lexicon);
+	}
+
+	@Override
+	public Set<LexicalEntry<MR>> add(LexicalEntry<MR> lex) {
+		final TokenSeq tokens = lex.getTokens();
+		while (true) {
+			final Set<LexicalEntry<MR>> current = entries.get(tokens);
+			if (current == null) {
+				if (entries.putIfAbsent(tokens,
+						Collections.singleton(lex)) == null) {
+					size.incrementAndGet();
+					return SetUtils.createSingleton(lex);
+				}
+			} else if (current.contains(lex)) {
+				return Collections.emptySet();
+			} else {
+				final Set<LexicalEntry<MR>> updated = new HashSet<LexicalEntry<MR>>(
+						current);
+				updated.add(lex);
+				if (entries.replace(tokens, current,
+						Collections.unmodifiableSet(updated))) {
+					size.incrementAndGet();
+					return SetUtils.createSingleton(lex);
+				}
+			}
+			// Raced with another update of the same tokens, retry.
+		}
+	}
+
+	@Override
+	public Set<LexicalEntry<MR>> addAll(
+			Collection<LexicalEntry<MR>> newEntries) {
+		final Set<LexicalEntry<MR>> added = new HashSet<LexicalEntry<MR>>();
+		for (final LexicalEntry<MR> entry : newEntries) {
+			added.addAll(add(entry));
+		}
+		return added;
+	}
+
+	@Override
+	public Set<LexicalEntry<MR>> addAll(ILexicon<MR> lexicon) {
+		return addAll(lexicon.toCollection());
+	}
+
+	@Override
+	public Set<LexicalEntry<MR>> addEntriesFromFile(File file,
+			ICategoryServices<MR> categoryServices, String origin) {
+		return addEntriesFromFile(file, new StubStringFilter(),
+				categoryServices, origin);
+	}
+
+	@Override
+	public Set<LexicalEntry<MR>> addEntriesFromFile(File file,
+			IStringFilter textFilter, ICategoryServices<MR> categoryServices,
+			String origin) {
+		// Re-use the reading code of the conventional lexicon.
+		final Lexicon<MR> read = new Lexicon<MR>();
+		read.addEntriesFromFile(file, textFilter, categoryServices, origin);
+		return addAll(read.toCollection());
+	}
+
+	@Override
+	public boolean contains(LexicalEntry<MR> lex) {
+		final Set<LexicalEntry<MR>> set = entries.get(lex.getTokens());
+		return set != null && set.contains(lex);
+	}
+
+	/**
+	 * Get all lexical entries that match a given sequence of words. The
+	 * iterator is over a snapshot, and is not affected by later updates.
+	 */
+	@Override
+	public Iterator<LexicalEntry<MR>> get(TokenSeq tokens) {
+		final Set<LexicalEntry<MR>> set = entries.get(tokens);
+		if (set != null) {
+			return set.iterator();
+		} else {
+			return Collections.emptyIterator();
+		}
+	}
+
+	@Override
+	public boolean retainAll(Collection<LexicalEntry<MR>> toKeepEntries) {
+		boolean changed = false;
+		for (final Entry<TokenSeq, Set<LexicalEntry<MR>>> entry : entries
+				.entrySet()) {
+			changed = retainAll(entry.getKey(), toKeepEntries) || changed;
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean retainAll(ILexicon<MR> lexicon) {
+		return retainAll(lexicon.toCollection());
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public Collection<LexicalEntry<MR>> toCollection() {
+		final Set<LexicalEntry<MR>> all = new HashSet<LexicalEntry<MR>>();
+		for (final Set<LexicalEntry<MR>> set : entries.values()) {
+			all.addAll(set);
+		}
+		return Collections.unmodifiableCollection(all);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder result = new StringBuilder();
+		final Iterator<Set<LexicalEntry<MR>>> i = entries.values().iterator();
+		while (i.hasNext()) {
+			final Iterator<LexicalEntry<MR>> j = i.next().iterator();
+			while (j.hasNext()) {
+				result.append(j.next());
+				if (j.hasNext()) {
+					result.append("\n");
+				}
+			}
+			if (i.hasNext()) {
+				result.append("\n");
+			}
+		}
+		return result.toString();
+	}
+
+	private boolean retainAll(TokenSeq tokens,
+			Collection<LexicalEntry<MR>> toKeepEntries) {
+		while (true) {
+			final Set<LexicalEntry<MR>> current = entries.get(tokens);
+			if (current == null) {
+				return false;
+			}
+			final Set<LexicalEntry<MR>> updated = new HashSet<LexicalEntry<MR>>(
+					current);
+			if (!updated.retainAll(toKeepEntries)) {
+				return false;
+			}
+			if (updated.isEmpty() ? entries.remove(tokens, current)
+					: entries.replace(tokens, current,
+							Collections.unmodifiableSet(updated))) {
+				size.addAndGet(updated.size() - current.size());
+				return true;
+			}
+			// Raced with another update of the same tokens, retry.
+		}
+	}
+
+	public static class Creator<MR>
+			implements IResourceObjectCreator<ConcurrentLexicon<MR>> {
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public ConcurrentLexicon<MR> create(Parameters params,
+				IResourceRepository repo) {
+			final ConcurrentLexicon<MR> lexicon = new ConcurrentLexicon<MR>();
+			if (params.contains("files")) {
+				for (final File file : params.getAsFiles("files")) {
+					lexicon.addEntriesFromFile(file,
+							(ICategoryServices<MR>) repo.get(
+									ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE),
+							params.get("origin"));
+				}
+			}
+			return lexicon;
+		}
+
+		@Override
+		public String type() {
+			return "lexicon.concurrent";
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return new ResourceUsage.Builder(type(), ConcurrentLexicon.class)
+					.addParam("files", File.class,
+							"List of files to read entries from")
+					.addParam("origin", String.class,
+							"Origin to assign to lexical entries read from files")
+					.setDescription(
+							"Collection of lexical entries that supports reads concurrent with updates")
+					.build();
+		}
+
+	}
+
+}
@@ -43,6 +43,15 @@ public interface ILexicon<MR> extends ILexiconImmutable<MR> {
 			IStringFilter textFilter, ICategoryServices<MR> categoryServices,
 			String origin);
 
+	/**
+	 * Rebuild the internal indices to release the memory held for removed
+	 * entries (e.g., following {@link #retainAll(Collection)}). The content of
+	 * the lexicon is not modified.
+	 */
+	default void compact() {
+		// Nothing to compact by default.
+	}
+
 	boolean retainAll(Collection<LexicalEntry<MR>> entries);
 
 	boolean retainAll(ILexicon<MR> entries);
@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.base.string.IStringFilter;
@@ -50,7 +51,7 @@ public class Lexicon<MR> implements ILexicon<MR> {
 
 	private static final long							serialVersionUID		= -6246827857469875399L;
 
-	private final Map<TokenSeq, Set<LexicalEntry<MR>>>	entries					= new HashMap<TokenSeq, Set<LexicalEntry<MR>>>();
+	private Map<TokenSeq, Set<LexicalEntry<MR>>>		entries					= new HashMap<TokenSeq, Set<LexicalEntry<MR>>>();
 
 	public Lexicon() {
 	}
@@ -141,6 +142,23 @@ public class Lexicon<MR> implements ILexicon<MR> {
 		}
 	}
 
+	/**
+	 * Hash maps and sets don't shrink when entries are removed, so re-create
+	 * the index, skipping empty token sequences.
+	 */
+	@Override
+	public void compact() {
+		final Map<TokenSeq, Set<LexicalEntry<MR>>> compacted = new HashMap<TokenSeq, Set<LexicalEntry<MR>>>();
+		for (final Entry<TokenSeq, Set<LexicalEntry<MR>>> entry : entries
+				.entrySet()) {
+			if (!entry.getValue().isEmpty()) {
+				compacted.put(entry.getKey(),
+						new HashSet<LexicalEntry<MR>>(entry.getValue()));
+			}
+		}
+		entries = compacted;
+	}
+
 	@Override
 	public boolean contains(LexicalEntry<MR> lex) {
 		final Set<LexicalEntry<MR>> set = entries.get(lex.getTokens());
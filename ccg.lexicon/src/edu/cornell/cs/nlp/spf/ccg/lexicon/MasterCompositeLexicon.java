@@ -93,6 +93,15 @@ public class MasterCompositeLexicon<MR> implements ILexicon<MR> {
 				categoryServices, origin);
 	}
 
+	/**
+	 * Only the master lexicon is compacted, since the other lexicons can't be
+	 * modified.
+	 */
+	@Override
+	public void compact() {
+		masterLexicon.compact();
+	}
+
 	@Override
 	public boolean contains(LexicalEntry<MR> lex) {
 		if (masterLexicon.contains(lex)) {
@@ -138,11 +138,11 @@ public abstract class AbstractCategoryServices<MR> implements
 			} else {
 				// Create the composed syntax. Pop from the stack to
 				// gradually create the new syntax object.
-				ComplexSyntax newSyntax = new ComplexSyntax(newYieldSyntax,
+				ComplexSyntax newSyntax = ComplexSyntax.create(newYieldSyntax,
 						secondarySyntaxStack[order - 1],
 						secondarySlashStack[order - 1]);
 				for (int i = order - 2; i >= 0; --i) {
-					newSyntax = new ComplexSyntax(newSyntax,
+					newSyntax = ComplexSyntax.create(newSyntax,
 							secondarySyntaxStack[i], secondarySlashStack[i]);
 				}
 
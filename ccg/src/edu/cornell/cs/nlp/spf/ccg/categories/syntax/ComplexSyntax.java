@@ -16,6 +16,7 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.ccg.categories.syntax;
 
+import java.io.ObjectStreamException;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.utils.collections.SetUtils;
@@ -39,7 +40,7 @@ public class ComplexSyntax extends Syntax {
 	private final Syntax		right;
 	private final Slash			slash;
 
-	public ComplexSyntax(Syntax left, Syntax right, Slash slash) {
+	private ComplexSyntax(Syntax left, Syntax right, Slash slash) {
 		assert left != null : "Missing left component";
 		assert right != null : "Missing right component";
 		assert slash != null : "Missing slash";
@@ -50,6 +51,13 @@ public class ComplexSyntax extends Syntax {
 		this.hashCode = calcHashCode();
 	}
 
+	/**
+	 * Returns the canonical complex syntax object with the given components.
+	 */
+	public static ComplexSyntax create(Syntax left, Syntax right, Slash slash) {
+		return intern(new ComplexSyntax(left, right, slash));
+	}
+
 	/**
 	 * Reads {@link ComplexSyntax} from {@link String}.
 	 */
@@ -101,7 +109,7 @@ public class ComplexSyntax extends Syntax {
 					+ currentString);
 		}
 
-		return new ComplexSyntax(Syntax.read(currentString.substring(0,
+		return create(Syntax.read(currentString.substring(0,
 				latestSlashPosition)), Syntax.read(currentString.substring(
 				latestSlashPosition + 1, currentString.length())), latestSlash);
 	}
@@ -218,7 +226,7 @@ public class ComplexSyntax extends Syntax {
 		if (strippedLeft == left && strippedRight == right) {
 			return this;
 		} else {
-			return new ComplexSyntax(strippedLeft, strippedRight, slash);
+			return create(strippedLeft, strippedRight, slash);
 		}
 	}
 
@@ -231,7 +239,7 @@ public class ComplexSyntax extends Syntax {
 		} else if (setLeft == null || setRight == null) {
 			return null;
 		} else {
-			return new ComplexSyntax(setLeft, setRight, slash);
+			return create(setLeft, setRight, slash);
 		}
 	}
 
@@ -244,7 +252,7 @@ public class ComplexSyntax extends Syntax {
 		} else if (setLeft == null || setRight == null) {
 			return null;
 		} else {
-			return new ComplexSyntax(setLeft, setRight, slash);
+			return create(setLeft, setRight, slash);
 		}
 	}
 
@@ -255,7 +263,7 @@ public class ComplexSyntax extends Syntax {
 		if (strippedLeft == left && strippedRight == right) {
 			return this;
 		} else {
-			return new ComplexSyntax(strippedLeft, strippedRight, slash);
+			return create(strippedLeft, strippedRight, slash);
 		}
 	}
 
@@ -266,7 +274,7 @@ public class ComplexSyntax extends Syntax {
 		if (strippedLeft == left && strippedRight == right) {
 			return this;
 		} else {
-			return new ComplexSyntax(strippedLeft, strippedRight, slash);
+			return create(strippedLeft, strippedRight, slash);
 		}
 	}
 
@@ -292,6 +300,15 @@ public class ComplexSyntax extends Syntax {
 		return result;
 	}
 
+	/**
+	 * Resolve to the canonical instance.
+	 *
+	 * @throws ObjectStreamException
+	 */
+	protected Object readResolve() throws ObjectStreamException {
+		return intern(this);
+	}
+
 	@Override
 	protected UnificationHelper unify(Syntax other, UnificationHelper helper) {
 		if (other instanceof ComplexSyntax
@@ -307,7 +324,7 @@ public class ComplexSyntax extends Syntax {
 						leftHelper.result = this;
 						return leftHelper;
 					} else {
-						leftHelper.result = new ComplexSyntax(
+						leftHelper.result = create(
 								leftHelper.result, rightUnification, slash);
 						return leftHelper;
 					}
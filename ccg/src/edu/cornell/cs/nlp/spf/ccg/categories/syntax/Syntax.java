@@ -24,6 +24,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 import edu.cornell.cs.nlp.utils.collections.SetUtils;
 import edu.cornell.cs.nlp.utils.log.ILogger;
 import edu.cornell.cs.nlp.utils.log.LoggerFactory;
@@ -31,7 +34,12 @@ import jregex.Matcher;
 import jregex.Pattern;
 
 /**
- * Syntax symbol.
+ * Syntax symbol. Syntax objects are interned: {@link ComplexSyntax} objects are
+ * only created through {@link ComplexSyntax#create(Syntax, Syntax, Slash)},
+ * and {@link SimpleSyntax} objects that are read, registered or created from
+ * other simple syntax objects are canonical. Therefore, equal syntax objects
+ * are usually identical, and comparing them stops at the reference equality
+ * check.
  *
  * @author Yoav Artzi
  */
@@ -68,6 +76,13 @@ public abstract class Syntax implements Serializable {
 
 	private static final long						serialVersionUID	= -3852094966016976417L;
 
+	/**
+	 * Weak table of canonical syntax objects. Entries are reclaimed once the
+	 * syntax object is not referenced anymore.
+	 */
+	private static final Interner<Syntax>			INTERNER			= Interners
+																				.newWeakInterner();
+
 	private static final Map<String, SimpleSyntax>	STRING_MAPPING		= new HashMap<String, SimpleSyntax>();
 
 	static {
@@ -104,7 +119,16 @@ public abstract class Syntax implements Serializable {
 		if (STRING_MAPPING.containsKey(syntax.toString())) {
 			throw new IllegalStateException("Can't overwrite a syntactic type");
 		}
-		STRING_MAPPING.put(syntax.toString(), syntax);
+		STRING_MAPPING.put(syntax.toString(), intern(syntax));
+	}
+
+	/**
+	 * Returns the canonical instance of the given syntax object.
+	 */
+	@SuppressWarnings("unchecked")
+	static <S extends Syntax> S intern(S syntax) {
+		// Equal syntax objects are always of the same class.
+		return (S) INTERNER.intern(syntax);
 	}
 
 	private static Syntax valueOf(String string) {
@@ -226,7 +250,7 @@ public abstract class Syntax implements Serializable {
 						throw new IllegalStateException(
 								"Invalid attributes placements: " + syntax);
 					}
-					return syntax;
+					return intern(syntax);
 				} else {
 					return STRING_MAPPING.get(matcher.group("name"));
 				}
@@ -237,7 +261,8 @@ public abstract class Syntax implements Serializable {
 
 		public SimpleSyntax cloneWithAttribute(String newAttribute) {
 			final SimpleSyntax syntax = new SimpleSyntax(label, newAttribute);
-			return SyntaxAttributeTyping.isWellTyped(syntax) ? syntax : null;
+			return SyntaxAttributeTyping.isWellTyped(syntax) ? intern(syntax)
+					: null;
 		}
 
 		@Override
@@ -367,7 +392,7 @@ public abstract class Syntax implements Serializable {
 		}
 
 		/**
-		 * Resolve to one of the static members.
+		 * Resolve to one of the static members, or to the canonical instance.
 		 *
 		 * @throws ObjectStreamException
 		 */
@@ -375,7 +400,7 @@ public abstract class Syntax implements Serializable {
 			if (attribute.equals(NO_ATTRIBUTE)) {
 				return valueOf(getLabel());
 			} else {
-				return this;
+				return intern(this);
 			}
 		}
 
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.data.singlesentence;
+
+import java.io.File;
+
+import edu.cornell.cs.nlp.spf.base.string.IStringFilter;
+import edu.cornell.cs.nlp.spf.base.string.StubStringFilter;
+import edu.cornell.cs.nlp.spf.data.collection.MappedDataCollection;
+import edu.cornell.cs.nlp.spf.data.sentence.ITokenizer;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+
+/**
+ * Memory-mapped collection of {@link SingleSentence}. Same file format as
+ * {@link SingleSentenceCollection}, but items are parsed lazily when accessed
+ * (see {@link MappedDataCollection}).
+ *
+ * @author Yoav Artzi
+ */
+public class MappedSingleSentenceCollection
+		extends MappedDataCollection<SingleSentence> {
+
+	private static final long serialVersionUID = 2390153282963000478L;
+
+	public MappedSingleSentenceCollection(File file, IStringFilter textFilter,
+			ITokenizer tokenizer, int prefetch) {
+		super(file, new SingleSentenceFormat(textFilter, tokenizer), prefetch);
+	}
+
+	public static MappedSingleSentenceCollection read(File f) {
+		return new MappedSingleSentenceCollection(f, new StubStringFilter(),
+				null, 0);
+	}
+
+	public static class Creator
+			implements IResourceObjectCreator<MappedSingleSentenceCollection> {
+
+		@Override
+		public MappedSingleSentenceCollection create(Parameters params,
+				IResourceRepository repo) {
+			return new MappedSingleSentenceCollection(params.getAsFile("file"),
+					(IStringFilter) (params.contains("filter")
+							? repo.get(params.get("filter"))
+							: new StubStringFilter()),
+					(ITokenizer) (params.contains("tokenizer")
+							? repo.get(params.get("tokenizer")) : null),
+					params.getAsInteger("prefetch", 0));
+		}
+
+		@Override
+		public String type() {
+			return "data.single.mapped";
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return new ResourceUsage.Builder(type(),
+					MappedSingleSentenceCollection.class)
+							.setDescription(
+									"Memory-mapped collection for pairs of sentences and logical forms. Items are parsed lazily when accessed")
+							.addParam("tokenizer", ITokenizer.class,
+									"Tokenizer to process the sentence string (default: default tokenizer)")
+							.addParam("filter", IStringFilter.class,
+									"Filter to process input strings (default: identify filter)")
+							.addParam("file", "file",
+									"File with pairs of sentences and logical forms, in the same format as data.single")
+							.addParam("prefetch", Integer.class,
+									"Number of items to parse ahead in a background thread when iterating (default: 0, no background thread)")
+							.build();
+		}
+
+	}
+}
@@ -19,31 +19,28 @@ package edu.cornell.cs.nlp.spf.data.singlesentence;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import edu.cornell.cs.nlp.spf.base.exceptions.FileReadingException;
-import edu.cornell.cs.nlp.spf.base.properties.Properties;
 import edu.cornell.cs.nlp.spf.base.string.IStringFilter;
 import edu.cornell.cs.nlp.spf.base.string.StubStringFilter;
 import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
+import edu.cornell.cs.nlp.spf.data.collection.IRecordFormat.ISplitter;
+import edu.cornell.cs.nlp.spf.data.collection.IRecordFormat.Line;
 import edu.cornell.cs.nlp.spf.data.sentence.ITokenizer;
-import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
-import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
-import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionRuntimeException;
-import edu.cornell.cs.nlp.spf.mr.lambda.visitor.IsTypeConsistent;
-import edu.cornell.cs.nlp.spf.mr.lambda.visitor.Simplify;
-import edu.cornell.cs.nlp.utils.composites.Pair;
 
 /**
- * Collection of {@link SingleSentence}.
+ * Collection of {@link SingleSentence}. The file format is described in
+ * {@link SingleSentenceFormat}. See {@link MappedSingleSentenceCollection} for
+ * large files.
  *
  * @author Yoav Artzi
  */
@@ -78,74 +75,23 @@ public class SingleSentenceCollection
 		int readLineCounter = 0;
 		try {
 			// Open the file
+			final SingleSentenceFormat format = new SingleSentenceFormat(
+					textFilter, tokenizer);
+			final ISplitter splitter = format.createSplitter();
 			final List<SingleSentence> data = new LinkedList<SingleSentence>();
 			try (final BufferedReader in = new BufferedReader(
 					new FileReader(f))) {
 				String line;
-				String currentSentence = null;
-				Map<String, String> currentProperties = null;
+				List<String> record = new ArrayList<String>();
 				while ((line = in.readLine()) != null) {
 					++readLineCounter;
-					if (line.startsWith("//") || line.equals("")) {
-						// Case comment or empty line, skip
-						continue;
+					final Line type = splitter.next(line);
+					if (type != Line.SKIP) {
+						record.add(line);
 					}
-					line = line.trim();
-					if (currentSentence == null) {
-						// Case we don't have a sentence, so we are supposed to
-						// get a sentence.
-						currentSentence = textFilter.filter(line);
-					} else if (currentProperties == null
-							&& Properties.isPropertiesLine(line)) {
-						currentProperties = Properties.readProperties(line);
-					} else {
-						// Case we don't have a logical expression, so we are
-						// supposed to get it and create the data item
-						final LogicalExpression exp;
-
-						// Get the logical expression string. Consume lines
-						// until we have balanced parentheses. In case we have a
-						// indented expression.
-						final StringBuilder expString = new StringBuilder(line);
-						int paranthesisCount = countParanthesis(line);
-						while (paranthesisCount > 0) {
-							line = in.readLine();
-							++readLineCounter;
-							paranthesisCount += countParanthesis(line);
-							expString.append("\n").append(line);
-						}
-
-						try {
-							exp = Simplify.of(LogicalExpression
-									.read(expString.toString()));
-						} catch (final LogicalExpressionRuntimeException e) {
-							// Wrap with a dataset exception and throw.
-							throw new FileReadingException(e, readLineCounter,
-									f.getName());
-						}
-						final Pair<Boolean, String> typeChecking = IsTypeConsistent
-								.ofVerbose(exp);
-						if (!typeChecking.first()) {
-							// Throw exception
-							throw new FileReadingException(
-									"Expression not well-typed ["
-											+ typeChecking.second() + "]:"
-											+ exp,
-									readLineCounter, f.getName());
-						}
-						final SingleSentence dataItem;
-						final Sentence sentence = tokenizer == null
-								? new Sentence(currentSentence)
-								: new Sentence(currentSentence, tokenizer);
-						if (currentProperties != null) {
-							dataItem = new SingleSentence(sentence, exp,
-									currentProperties);
-						} else {
-							dataItem = new SingleSentence(sentence, exp);
-						}
-						data.add(dataItem);
-						currentSentence = null;
-						currentProperties = null;
+					if (type == Line.END) {
+						data.add(format.parse(record));
+						record = new ArrayList<String>();
 					}
 				}
 			}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.data.singlesentence;
+
+import java.util.List;
+import java.util.Map;
+
+import edu.cornell.cs.nlp.spf.base.properties.Properties;
+import edu.cornell.cs.nlp.spf.base.string.IStringFilter;
+import edu.cornell.cs.nlp.spf.data.collection.IRecordFormat;
+import edu.cornell.cs.nlp.spf.data.sentence.ITokenizer;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionRuntimeException;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.IsTypeConsistent;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.Simplify;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+
+/**
+ * Text format of {@link SingleSentence} files. Each record includes a line
+ * with the sentence, an optional line of properties and a logical form. The
+ * logical form may span multiple lines, until its parentheses are balanced.
+ * Comment lines (starting with "//") and empty lines between records are
+ * ignored.
+ *
+ * @author Yoav Artzi
+ */
+public class SingleSentenceFormat implements IRecordFormat<SingleSentence> {
+
+	private static final long	serialVersionUID	= -3050226733101546711L;
+	private final IStringFilter	textFilter;
+	private final ITokenizer	tokenizer;
+
+	/**
+	 * @param tokenizer
+	 *            Tokenizer for the sentence, or 'null' to use the default
+	 *            tokenizer.
+	 */
+	public SingleSentenceFormat(IStringFilter textFilter,
+			ITokenizer tokenizer) {
+		this.textFilter = textFilter;
+		this.tokenizer = tokenizer;
+	}
+
+	@Override
+	public ISplitter createSplitter() {
+		return new Splitter();
+	}
+
+	@Override
+	public SingleSentence parse(List<String> lines) {
+		final String sentenceString = textFilter.filter(lines.get(0).trim());
+		int index = 1;
+		final Map<String, String> properties;
+		final String secondLine = lines.get(index).trim();
+		if (Properties.isPropertiesLine(secondLine)) {
+			properties = Properties.readProperties(secondLine);
+			++index;
+		} else {
+			properties = null;
+		}
+
+		// The logical form may span multiple lines.
+		final StringBuilder expString = new StringBuilder(
+				lines.get(index++).trim());
+		while (index < lines.size()) {
+			expString.append("\n").append(lines.get(index++));
+		}
+
+		final LogicalExpression exp;
+		try {
+			exp = Simplify.of(LogicalExpression.read(expString.toString()));
+		} catch (final LogicalExpressionRuntimeException e) {
+			throw new IllegalArgumentException(
+					"Failed to read logical form: " + expString, e);
+		}
+		final Pair<Boolean, String> typeChecking = IsTypeConsistent
+				.ofVerbose(exp);
+		if (!typeChecking.first()) {
+			throw new IllegalArgumentException("Expression not well-typed ["
+					+ typeChecking.second() + "]:" + exp);
+		}
+
+		final Sentence sentence = tokenizer == null
+				? new Sentence(sentenceString)
+				: new Sentence(sentenceString, tokenizer);
+		return properties == null ? new SingleSentence(sentence, exp)
+				: new SingleSentence(sentence, exp, properties);
+	}
+
+	private static class Splitter implements ISplitter {
+
+		private boolean	hasProperties	= false;
+		private boolean	hasSentence		= false;
+
+		/**
+		 * Number of open parentheses in the logical form, when it spans
+		 * multiple lines.
+		 */
+		private int		openParentheses	= 0;
+
+		@Override
+		public Line next(String line) {
+			if (openParentheses > 0) {
+				// Case the logical form spans multiple lines. Consume lines
+				// until the parentheses are balanced.
+				openParentheses += SingleSentenceCollection
+						.countParanthesis(line);
+				return openParentheses > 0 ? Line.CONTINUE : end();
+			}
+
+			if (line.startsWith("//") || line.equals("")) {
+				// Case comment or empty line, skip.
+				return Line.SKIP;
+			}
+
+			final String trimmed = line.trim();
+			if (!hasSentence) {
+				hasSentence = true;
+				return Line.CONTINUE;
+			} else if (!hasProperties && Properties.isPropertiesLine(trimmed)) {
+				hasProperties = true;
+				return Line.CONTINUE;
+			} else {
+				openParentheses = SingleSentenceCollection
+						.countParanthesis(trimmed);
+				return openParentheses > 0 ? Line.CONTINUE : end();
+			}
+		}
+
+		private Line end() {
+			hasSentence = false;
+			hasProperties = false;
+			openParentheses = 0;
+			return Line.END;
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.data.collection;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Text format of a file of data items. Used to index the records of a file
+ * without parsing them (see {@link MappedDataCollection}), and to parse each
+ * record when it's accessed.
+ *
+ * @author Yoav Artzi
+ * @param <DI>
+ *            Data item type.
+ */
+public interface IRecordFormat<DI> extends Serializable {
+
+	/**
+	 * Create a splitter to find the boundaries of records in a file. A new
+	 * splitter is created for each file.
+	 */
+	ISplitter createSplitter();
+
+	/**
+	 * Parse a single record.
+	 *
+	 * @param lines
+	 *            The lines of the record, not including lines skipped by the
+	 *            splitter.
+	 */
+	DI parse(List<String> lines);
+
+	/**
+	 * Line classification returned by {@link ISplitter}.
+	 */
+	public enum Line {
+		/**
+		 * The line is part of the current record, which continues.
+		 */
+		CONTINUE,
+		/**
+		 * The line completes the current record.
+		 */
+		END,
+		/**
+		 * The line is not part of any record (e.g., comment or empty line).
+		 */
+		SKIP
+	}
+
+	/**
+	 * Stateful classifier of the lines of a file. Receives all the lines of
+	 * the file, in order.
+	 */
+	public interface ISplitter {
+		Line next(String line);
+	}
+
+}
@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.data.collection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import edu.cornell.cs.nlp.spf.base.exceptions.FileReadingException;
+import edu.cornell.cs.nlp.spf.data.IDataItem;
+import edu.cornell.cs.nlp.spf.data.collection.IRecordFormat.ISplitter;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * {@link IDataCollection} backed by a memory-mapped file. When created, the
+ * file is scanned once to index the byte offsets of its records (using
+ * {@link IRecordFormat#createSplitter()}), but no record is parsed. Items are
+ * parsed when accessed, and are not retained, so memory use is independent of
+ * the number of items, but each pass over the collection parses the items
+ * again. Supports random access ({@link #get(int)}) and sharding by index
+ * ({@link #shard(int, int)}) for parallel consumers. When iterating, items may
+ * be parsed ahead in a background thread.
+ * <p>
+ * The file is decoded as UTF-8, and must not change while the collection is
+ * used.
+ *
+ * @author Yoav Artzi
+ * @param <DI>
+ *            Data item type.
+ */
+public class MappedDataCollection<DI extends IDataItem<?>>
+		implements IDataCollection<DI> {
+
+	public static final ILogger			LOG					= LoggerFactory
+			.create(MappedDataCollection.class);
+
+	/**
+	 * Maximum size of each mapped segment of the file. Records may cross
+	 * segments.
+	 */
+	private static final int			SEGMENT_SIZE		= 1 << 30;
+
+	private static final long			serialVersionUID	= -4384893046512413802L;
+
+	/**
+	 * End offset (exclusive) of each record.
+	 */
+	private final long[]				ends;
+
+	private final File					file;
+
+	private final IRecordFormat<DI>		format;
+
+	/**
+	 * Number of the first line of each record, for error reporting.
+	 */
+	private final int[]					lineNumbers;
+
+	/**
+	 * Number of items to parse ahead in a background thread when iterating.
+	 * If not positive, items are parsed in the iterating thread.
+	 */
+	private final int					prefetch;
+
+	/**
+	 * Mapped segments of the file. Not serialized, re-mapped when
+	 * de-serialized.
+	 */
+	private transient ByteBuffer[]		segments;
+
+	/**
+	 * Start offset of each record.
+	 */
+	private final long[]				starts;
+
+	public MappedDataCollection(File file, IRecordFormat<DI> format,
+			int prefetch) {
+		final long startTime = System.currentTimeMillis();
+		this.file = file;
+		this.format = format;
+		this.prefetch = prefetch;
+		this.segments = map(file);
+
+		// Index the records. Each line is decoded and given to the splitter,
+		// which tracks the format state.
+		final ISplitter splitter = format.createSplitter();
+		long[] recordStarts = new long[1024];
+		long[] recordEnds = new long[1024];
+		int[] recordLines = new int[1024];
+		int count = 0;
+		final long length = length(segments);
+		long position = 0;
+		int lineNumber = 0;
+		long recordStart = -1;
+		int recordLine = -1;
+		byte[] lineBytes = new byte[256];
+		while (position < length) {
+			final long lineStart = position;
+			int lineLength = 0;
+			while (position < length) {
+				final byte b = byteAt(segments, position++);
+				if (b == '\n') {
+					break;
+				}
+				if (lineLength == lineBytes.length) {
+					lineBytes = Arrays.copyOf(lineBytes, lineLength * 2);
+				}
+				lineBytes[lineLength++] = b;
+			}
+			++lineNumber;
+			if (lineLength > 0 && lineBytes[lineLength - 1] == '\r') {
+				--lineLength;
+			}
+
+			final IRecordFormat.Line type;
+			try {
+				type = splitter.next(new String(lineBytes, 0, lineLength,
+						StandardCharsets.UTF_8));
+			} catch (final RuntimeException e) {
+				throw new FileReadingException(e, lineNumber, file.getName());
+			}
+			if (type != IRecordFormat.Line.SKIP && recordStart < 0) {
+				recordStart = lineStart;
+				recordLine = lineNumber;
+			}
+			if (type == IRecordFormat.Line.END) {
+				if (count == recordStarts.length) {
+					recordStarts = Arrays.copyOf(recordStarts, count * 2);
+					recordEnds = Arrays.copyOf(recordEnds, count * 2);
+					recordLines = Arrays.copyOf(recordLines, count * 2);
+				}
+				recordStarts[count] = recordStart;
+				recordEnds[count] = position;
+				recordLines[count] = recordLine;
+				++count;
+				recordStart = -1;
+			}
+		}
+
+		this.starts = Arrays.copyOf(recordStarts, count);
+		this.ends = Arrays.copyOf(recordEnds, count);
+		this.lineNumbers = Arrays.copyOf(recordLines, count);
+		LOG.info("Indexed %d records in %s (%.3fsec)", count, file.getName(),
+				(System.currentTimeMillis() - startTime) / 1000.0);
+	}
+
+	private static byte byteAt(ByteBuffer[] segments, long position) {
+		return segments[(int) (position / SEGMENT_SIZE)]
+				.get((int) (position % SEGMENT_SIZE));
+	}
+
+	private static long length(ByteBuffer[] segments) {
+		long length = 0;
+		for (final ByteBuffer segment : segments) {
+			length += segment.limit();
+		}
+		return length;
+	}
+
+	private static ByteBuffer[] map(File file) {
+		try (final FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			final long length = channel.size();
+			final ByteBuffer[] segments = new ByteBuffer[(int) ((length
+					+ SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; ++i) {
+				final long offset = (long) i * SEGMENT_SIZE;
+				segments[i] = channel.map(MapMode.READ_ONLY, offset,
+						Math.min(SEGMENT_SIZE, length - offset));
+			}
+			return segments;
+		} catch (final IOException e) {
+			throw new FileReadingException(e, "Failed to map: " + file);
+		}
+	}
+
+	/**
+	 * Parse the item at the given index. Each call parses the item again.
+	 */
+	public DI get(int index) {
+		final List<String> lines = readLines(index);
+		try {
+			return format.parse(lines);
+		} catch (final RuntimeException e) {
+			throw new FileReadingException(e, lineNumbers[index],
+					file.getName());
+		}
+	}
+
+	@Override
+	public Iterator<DI> iterator() {
+		return iterator(0, 1);
+	}
+
+	/**
+	 * Create a view of a single shard of the collection. Items are assigned to
+	 * shards in a round-robin manner, so the shards of a collection are of
+	 * similar sizes and partition it.
+	 *
+	 * @param shard
+	 *            Index of the shard, in [0, numShards).
+	 */
+	public IDataCollection<DI> shard(int shard, int numShards) {
+		if (numShards <= 0 || shard < 0 || shard >= numShards) {
+			throw new IllegalArgumentException(
+					String.format("Invalid shard: %d/%d", shard, numShards));
+		}
+		return new Shard<DI>(this, shard, numShards);
+	}
+
+	@Override
+	public int size() {
+		return starts.length;
+	}
+
+	private Iterator<DI> iterator(int first, int step) {
+		if (prefetch > 0) {
+			return new PrefetchIterator<DI>(this, first, step, prefetch);
+		}
+
+		return new Iterator<DI>() {
+			private int next = first;
+
+			@Override
+			public boolean hasNext() {
+				return next < size();
+			}
+
+			@Override
+			public DI next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final DI item = get(next);
+				next += step;
+				return item;
+			}
+		};
+	}
+
+	private List<String> readLines(int index) {
+		// Copy the bytes of the record. The record may cross segments.
+		// Duplicate buffers are used, since the position of a buffer is not
+		// thread-safe.
+		final byte[] bytes = new byte[(int) (ends[index] - starts[index])];
+		long position = starts[index];
+		int copied = 0;
+		while (copied < bytes.length) {
+			final ByteBuffer segment = segments[(int) (position
+					/ SEGMENT_SIZE)].duplicate();
+			segment.position((int) (position % SEGMENT_SIZE));
+			final int length = Math.min(segment.remaining(),
+					bytes.length - copied);
+			segment.get(bytes, copied, length);
+			copied += length;
+			position += length;
+		}
+
+		// Split to lines and remove the lines skipped by the format.
+		final ISplitter splitter = format.createSplitter();
+		final List<String> lines = new ArrayList<String>();
+		for (String line : new String(bytes, StandardCharsets.UTF_8)
+				.split("\n", -1)) {
+			if (line.endsWith("\r")) {
+				line = line.substring(0, line.length() - 1);
+			}
+			final IRecordFormat.Line type = splitter.next(line);
+			if (type != IRecordFormat.Line.SKIP) {
+				lines.add(line);
+			}
+			if (type == IRecordFormat.Line.END) {
+				break;
+			}
+		}
+		return lines;
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		segments = map(file);
+	}
+
+	/**
+	 * Iterator that parses items in a background thread. The thread parses up
+	 * to a fixed number of items ahead, and stops when all items are parsed,
+	 * when parsing fails or when the iterator is no longer referenced.
+	 */
+	private static class PrefetchIterator<DI extends IDataItem<?>>
+			implements Iterator<DI> {
+
+		private final BlockingQueue<Object>	queue;
+
+		private int							remaining;
+
+		public PrefetchIterator(MappedDataCollection<DI> collection,
+				int first, int step, int prefetch) {
+			this.queue = new ArrayBlockingQueue<Object>(prefetch);
+			this.remaining = first < collection.size()
+					? (collection.size() - first + step - 1) / step : 0;
+			// The thread only holds a weak reference to the iterator, so it can
+			// detect an abandoned iteration.
+			final WeakReference<PrefetchIterator<DI>> reference = new WeakReference<PrefetchIterator<DI>>(
+					this);
+			final BlockingQueue<Object> items = queue;
+			final Thread thread = new Thread(
+					() -> produce(collection, first, step, items, reference),
+					"prefetch-" + collection.file.getName());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private static void produce(MappedDataCollection<?> collection,
+				int first, int step, BlockingQueue<Object> queue,
+				WeakReference<?> reference) {
+			try {
+				for (int i = first; i < collection.size(); i += step) {
+					Object item;
+					try {
+						item = collection.get(i);
+					} catch (final RuntimeException e) {
+						item = new Failure(e);
+					}
+					while (!queue.offer(item, 1, TimeUnit.SECONDS)) {
+						if (reference.get() == null) {
+							return;
+						}
+					}
+					if (item instanceof Failure) {
+						return;
+					}
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public DI next() {
+			if (remaining == 0) {
+				throw new NoSuchElementException();
+			}
+			final Object item;
+			try {
+				item = queue.take();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			if (item instanceof Failure) {
+				remaining = 0;
+				throw ((Failure) item).exception;
+			}
+			--remaining;
+			return (DI) item;
+		}
+
+		private static class Failure {
+			private final RuntimeException exception;
+
+			public Failure(RuntimeException exception) {
+				this.exception = exception;
+			}
+		}
+
+	}
+
+	private static class Shard<DI extends IDataItem<?>>
+			implements IDataCollection<DI> {
+
+		private static final long				serialVersionUID	= 6045069802213536393L;
+		private final MappedDataCollection<DI>	collection;
+		private final int						first;
+		private final int						step;
+
+		public Shard(MappedDataCollection<DI> collection, int first,
+				int step) {
+			this.collection = collection;
+			this.first = first;
+			this.step = step;
+		}
+
+		@Override
+		public Iterator<DI> iterator() {
+			return collection.iterator(first, step);
+		}
+
+		@Override
+		public int size() {
+			return first < collection.size()
+					? (collection.size() - first + step - 1) / step : 0;
+		}
+
+	}
+
+}
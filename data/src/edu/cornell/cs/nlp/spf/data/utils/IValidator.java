@@ -16,10 +16,13 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.data.utils;
 
+import java.io.Serializable;
+
 import edu.cornell.cs.nlp.spf.data.IDataItem;
 
 /**
- * Validates a label using the data item.
+ * Validates a label using the data item. Validators are serializable, so they
+ * can be shipped to remote workers.
  * 
  * @author Yoav Artzi
  * @param <DI>
@@ -27,7 +30,8 @@ import edu.cornell.cs.nlp.spf.data.IDataItem;
  * @param <LABEL>
  *            Type of label
  */
-public interface IValidator<DI extends IDataItem<?>, LABEL> {
+public interface IValidator<DI extends IDataItem<?>, LABEL>
+		extends Serializable {
 	
 	boolean isValid(DI dataItem, LABEL label);
 	
@@ -35,6 +35,8 @@ import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 public class LabeledValidator<DI extends ILabeledDataItem<?, LABEL>, LABEL>
 		implements IValidator<DI, LABEL> {
 	
+	private static final long	serialVersionUID	= 4329811530542096215L;
+	
 	@Override
 	public boolean isValid(DI dataItem, LABEL label) {
 		return dataItem.getLabel().equals(label);
@@ -32,9 +32,9 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import edu.cornell.cs.nlp.spf.base.concurrency.DeadlineExecutorService;
 import edu.cornell.cs.nlp.spf.base.concurrency.ITinyExecutor;
 import edu.cornell.cs.nlp.spf.base.concurrency.Shutdownable;
-import edu.cornell.cs.nlp.spf.base.concurrency.TinyExecutorService;
 import edu.cornell.cs.nlp.spf.explat.resources.ResourceCreatorRepository;
 import edu.cornell.cs.nlp.utils.log.ILogger;
 import edu.cornell.cs.nlp.utils.log.LoggerFactory;
@@ -47,27 +47,30 @@ import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
  */
 public abstract class DistributedExperiment extends LoggedExperiment
 		implements IJobListener, ITinyExecutor {
-	public static final ILogger			LOG						= LoggerFactory
+	public static final ILogger				LOG						= LoggerFactory
 			.create(DistributedExperiment.class);
-	private final Set<String>			completedIds			= new HashSet<String>();
-	final private Object				completionSignalObject	= new Object();
+	private final Set<String>				completedIds			= new HashSet<String>();
+	final private Object					completionSignalObject	= new Object();
 
-	private final TinyExecutorService	executor;
+	private final DeadlineExecutorService	executor;
 
-	private final List<Job>				jobs					= new LinkedList<Job>();
+	private final List<Job>					jobs					= new LinkedList<Job>();
 
-	private final Set<String>			launchedIds				= new HashSet<String>();
+	private final Set<String>				launchedIds				= new HashSet<String>();
 
-	private boolean						running					= true;
+	private boolean							running					= true;
 
 	/** Run one job at a time. */
-	private final boolean				serial;
+	private final boolean					serial;
 
-	private final long					startingTime			= System
+	/** Create resources one at a time, in file order. */
+	private final boolean					serialResources;
+
+	private final long						startingTime			= System
 			.currentTimeMillis();
 
-	private boolean						success					= true;
-	private final List<Shutdownable>	toShutdown				= new LinkedList<Shutdownable>();
+	private boolean							success					= true;
+	private final List<Shutdownable>		toShutdown				= new LinkedList<Shutdownable>();
 
 	public DistributedExperiment(File initFile, Map<String, String> envParams,
 			ResourceCreatorRepository creatorRepo) throws IOException {
@@ -77,18 +80,18 @@ public abstract class DistributedExperiment extends LoggedExperiment
 		// Set the serial flag
 		// //////////////////////////////////////////
 		this.serial = globalParams.getAsBoolean("serial");
+		this.serialResources = globalParams.getAsBoolean("serialResources",
+				false);
 
 		// //////////////////////////////////////////
 		// Create the executor
 		// //////////////////////////////////////////
-		this.executor = new TinyExecutorService(
+		this.executor = new DeadlineExecutorService(
 				globalParams.contains("expThreads")
 						? Integer.valueOf(globalParams.get("expThreads"))
 						: Runtime.getRuntime().availableProcessors(),
 				new LoggingThreadFactory(),
-				globalParams.contains("threadMonitorPolling")
-						? Long.valueOf(globalParams.get("threadMonitorPolling"))
-						: ITinyExecutor.DEFAULT_MONITOR_SLEEP);
+				globalParams.getAsBoolean("virtualThreads", false));
 	}
 
 	public DistributedExperiment(File initFile,
@@ -203,7 +206,11 @@ public abstract class DistributedExperiment extends LoggedExperiment
 	@Override
 	public void readResrouces() {
 		try {
-			super.readResrouces();
+			if (serialResources) {
+				super.readResrouces();
+			} else {
+				readResrouces(executor);
+			}
 		} catch (final RuntimeException e) {
 			end();
 			throw e;
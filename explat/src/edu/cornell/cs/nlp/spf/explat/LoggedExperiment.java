@@ -22,6 +22,7 @@ import java.lang.management.ManagementFactory;
 import java.security.InvalidParameterException;
 import java.util.Map;
 
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.explat.resources.ResourceCreatorRepository;
 import edu.cornell.cs.nlp.utils.composites.Pair;
 import edu.cornell.cs.nlp.utils.log.ILogger;
@@ -39,6 +40,7 @@ public abstract class LoggedExperiment extends ParameterizedExperiment {
 	public static final ILogger	LOG	= LoggerFactory
 			.create(LoggedExperiment.class);
 	private final boolean		closeDefaultLog;
+	private final Tracer		tracer;
 	protected final File		outputDir;
 
 	public LoggedExperiment(File file, Map<String, String> envParams,
@@ -83,6 +85,11 @@ public abstract class LoggedExperiment extends ParameterizedExperiment {
 			LogLevel.setLogLevel(LogLevel.INFO);
 		}
 
+		// Structured trace of learning and parsing events, written
+		// asynchronously. Render it with TraceRenderer.
+		this.tracer = globalParams.contains("trace")
+				? Tracer.start(globalParams.getAsFile("trace")) : null;
+
 		// Log global parameters.
 		LOG.info("Parameters:");
 		for (final Pair<String, String> param : globalParams) {
@@ -92,6 +99,13 @@ public abstract class LoggedExperiment extends ParameterizedExperiment {
 	}
 
 	public void end() {
+		if (tracer != null) {
+			try {
+				tracer.close();
+			} catch (final IOException e) {
+				LOG.error("Failed to close trace: %s", e);
+			}
+		}
 		if (closeDefaultLog) {
 			Logger.DEFAULT_LOG.close();
 		}
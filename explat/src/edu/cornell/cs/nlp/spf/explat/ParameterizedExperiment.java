@@ -23,10 +23,19 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import edu.cornell.cs.nlp.spf.base.exceptions.FileReadingException;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
@@ -57,9 +66,27 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 	private static final Pattern			VAR_REF						= new Pattern(
 			"%\\{({var}[\\w@]+)\\}");
 	private final ResourceCreatorRepository	creatorRepo;
+
+	/**
+	 * Maps each resource under construction to the thread creating it. Also
+	 * used to synchronize all the concurrent construction state.
+	 */
+	private final Map<String, Thread>		constructingThreads			= new HashMap<String, Thread>();
+
+	/**
+	 * Construction tasks of all resources when creating resources
+	 * concurrently. 'null' otherwise.
+	 */
+	private Map<String, FutureTask<Object>>	pendingResources			= null;
+
 	private final Map<String, Object>		resources					= new HashMap<String, Object>();
 
 	private final File						rootDir;
+
+	/**
+	 * Maps each thread to the resource it's waiting for.
+	 */
+	private final Map<Thread, String>		waitingThreads				= new HashMap<Thread, String>();
 	protected final Parameters				globalParams;
 
 	protected final List<Parameters>		jobParams;
@@ -160,19 +187,25 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T get(String id) {
-		if (resources.containsKey(id)) {
-			return (T) resources.get(id);
-		} else {
-			throw new IllegalStateException("Invalid resource: " + id);
+		awaitResource(id);
+		synchronized (resources) {
+			if (resources.containsKey(id)) {
+				return (T) resources.get(id);
+			} else {
+				throw new IllegalStateException("Invalid resource: " + id);
+			}
 		}
 	}
 
 	@Override
 	public <T> T get(String id, T defaultObject) {
-		if (resources.containsKey(id)) {
-			return get(id);
-		} else {
-			return defaultObject;
+		awaitResource(id);
+		synchronized (resources) {
+			if (resources.containsKey(id)) {
+				return get(id);
+			} else {
+				return defaultObject;
+			}
 		}
 	}
 
@@ -181,7 +214,10 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 	}
 
 	public boolean hasResource(String id) {
-		return resources.containsKey(id);
+		awaitResource(id);
+		synchronized (resources) {
+			return resources.containsKey(id);
+		}
 	}
 
 	public File makeAbsolute(File file) {
@@ -206,6 +242,53 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 		}
 	}
 
+	/**
+	 * Collect the IDs of declared resources referenced by the parameters of a
+	 * resource.
+	 */
+	private Set<String> getDependencies(Parameters params,
+			Set<String> declaredIds) {
+		final String id = params.get("id");
+		final Set<String> dependencies = new LinkedHashSet<String>();
+		for (final Pair<String, String> param : params) {
+			if (!"type".equals(param.first()) && !"id".equals(param.first())
+					&& param.second() != null) {
+				for (final String token : param.second().split("[,:\\s]")) {
+					if (declaredIds.contains(token) && !token.equals(id)) {
+						dependencies.add(token);
+					}
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Verify the resource dependency graph is acyclic.
+	 *
+	 * @throws IllegalStateException
+	 *             If a cycle is found.
+	 */
+	private void verifyAcyclic(Map<String, Set<String>> dependencies,
+			String id, LinkedList<String> path, Set<String> verified) {
+		if (verified.contains(id)) {
+			return;
+		}
+		if (path.contains(id)) {
+			final List<String> cycle = new LinkedList<String>(
+					path.subList(path.indexOf(id), path.size()));
+			cycle.add(id);
+			throw new IllegalStateException(
+					"Cyclic resource dependency: " + String.join(" -> ", cycle));
+		}
+		path.addLast(id);
+		for (final String dependency : dependencies.get(id)) {
+			verifyAcyclic(dependencies, dependency, path, verified);
+		}
+		path.removeLast();
+		verified.add(id);
+	}
+
 	private List<Parameters> parseAttributesLine(String line) {
 		final Matcher matcher = LINE_REPEAT_PATTERN.matcher(line);
 		if (matcher.matches()) {
@@ -257,11 +340,191 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 		return Collections.unmodifiableList(ret);
 	}
 
+	/**
+	 * If the resource is being constructed concurrently, wait for it to be
+	 * created. If its construction didn't start yet, create it in the current
+	 * thread.
+	 */
+	private void awaitResource(String id) {
+		final FutureTask<Object> task;
+		final String previouslyWaitingFor;
+		synchronized (constructingThreads) {
+			if (pendingResources == null || !pendingResources.containsKey(id)
+					|| pendingResources.get(id).isDone()) {
+				return;
+			}
+			task = pendingResources.get(id);
+
+			// Fail fast on cyclic dependencies. Follow the chain of threads
+			// waiting for each other, starting with the one creating this
+			// resource. If it leads back to this thread, waiting will never
+			// end.
+			String current = id;
+			Thread owner;
+			while ((owner = constructingThreads.get(current)) != null) {
+				if (owner == Thread.currentThread()) {
+					throw new IllegalStateException(
+							"Cyclic resource dependency: " + id);
+				}
+				current = waitingThreads.get(owner);
+				if (current == null) {
+					break;
+				}
+			}
+			previouslyWaitingFor = waitingThreads.put(Thread.currentThread(),
+					id);
+		}
+
+		try {
+			// No-op if the task already started.
+			task.run();
+			task.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while waiting for resource: " + id, e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("Failed to create resource: " + id,
+					e.getCause());
+		} finally {
+			synchronized (constructingThreads) {
+				if (previouslyWaitingFor == null) {
+					waitingThreads.remove(Thread.currentThread());
+				} else {
+					waitingThreads.put(Thread.currentThread(),
+							previouslyWaitingFor);
+				}
+			}
+		}
+	}
+
+	private Object createResource(Parameters params, Set<String> dependencies) {
+		final String type = params.get("type");
+		final String id = params.get("id");
+		synchronized (constructingThreads) {
+			constructingThreads.put(id, Thread.currentThread());
+		}
+		try {
+			for (final String dependency : dependencies) {
+				awaitResource(dependency);
+			}
+			LOG.info("Creating resource %s of type %s ...", id, type);
+			final Object resource = getCreator(type).create(params, this);
+			storeResource(id, resource);
+			return resource;
+		} finally {
+			synchronized (constructingThreads) {
+				constructingThreads.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Create the resources concurrently using the given executor. The
+	 * dependencies between resources are inferred from the resource IDs
+	 * referenced in their parameters, and each resource is created once all
+	 * its dependencies are available. Resources that are retrieved by a
+	 * creator without being referenced in its parameters (e.g.,
+	 * {@link #PARSER_RESOURCE}) are waited for when requested. Fails before
+	 * creating any resource if the dependencies contain a cycle.
+	 */
+	protected void readResrouces(ExecutorService executor) {
+		// Collect the declared resources and verify their types before
+		// creating any of them.
+		final Map<String, Parameters> declared = new LinkedHashMap<String, Parameters>();
+		for (final Parameters params : resourceParams) {
+			final String type = params.get("type");
+			final String id = params.get("id");
+			if (getCreator(type) == null) {
+				throw new IllegalArgumentException(
+						"Invalid resource type: " + type);
+			}
+			if (declared.containsKey(id) || hasResource(id)) {
+				throw new IllegalStateException(
+						"Resource already exists: " + id);
+			}
+			declared.put(id, params);
+		}
+
+		// Create the dependency graph.
+		final Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+		for (final Map.Entry<String, Parameters> entry : declared
+				.entrySet()) {
+			dependencies.put(entry.getKey(),
+					getDependencies(entry.getValue(), declared.keySet()));
+		}
+		final Set<String> verified = new HashSet<String>();
+		for (final String id : declared.keySet()) {
+			verifyAcyclic(dependencies, id, new LinkedList<String>(),
+					verified);
+		}
+
+		// Create a construction task for each resource. A task waiting for a
+		// dependency that didn't start yet creates it, so tasks never wait for
+		// tasks queued behind them in the executor.
+		final BlockingQueue<FutureTask<Object>> completed = new LinkedBlockingQueue<FutureTask<Object>>();
+		final Map<String, FutureTask<Object>> tasks = new LinkedHashMap<String, FutureTask<Object>>();
+		for (final Map.Entry<String, Parameters> entry : declared
+				.entrySet()) {
+			final Parameters params = entry.getValue();
+			final Set<String> resourceDependencies = dependencies
+					.get(entry.getKey());
+			tasks.put(entry.getKey(), new FutureTask<Object>(
+					() -> createResource(params, resourceDependencies)) {
+				@Override
+				protected void done() {
+					completed.add(this);
+				}
+			});
+		}
+
+		final long startTime = System.currentTimeMillis();
+		synchronized (constructingThreads) {
+			pendingResources = tasks;
+		}
+		try {
+			for (final FutureTask<Object> task : tasks.values()) {
+				executor.execute(task);
+			}
+			for (int i = 0; i < tasks.size(); ++i) {
+				try {
+					completed.take().get();
+				} catch (final ExecutionException e) {
+					// Fail fast: cancel the remaining resources.
+					for (final FutureTask<Object> task : tasks.values()) {
+						task.cancel(true);
+					}
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					} else {
+						throw new IllegalStateException(e.getCause());
+					}
+				}
+			}
+		} catch (final InterruptedException e) {
+			for (final FutureTask<Object> task : tasks.values()) {
+				task.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while creating resources", e);
+		} finally {
+			synchronized (constructingThreads) {
+				pendingResources = null;
+			}
+		}
+		LOG.info("Created %d resources concurrently (%.3fsec)", tasks.size(),
+				(System.currentTimeMillis() - startTime) / 1000.0);
+	}
+
 	protected <T> void storeResource(String id, T resource) {
-		if (resources.containsKey(id)) {
-			throw new IllegalStateException("Resource already exists: " + id);
-		} else {
-			resources.put(id, resource);
+		synchronized (resources) {
+			if (resources.containsKey(id)) {
+				throw new IllegalStateException(
+						"Resource already exists: " + id);
+			} else {
+				resources.put(id, resource);
+			}
 		}
 	}
 
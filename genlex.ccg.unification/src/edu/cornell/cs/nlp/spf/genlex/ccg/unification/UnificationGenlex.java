@@ -16,11 +16,17 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.genlex.ccg.unification;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
@@ -63,6 +69,9 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 
 /**
  * Unification-based GENLEX method. See Kwiatkowski et al. 2010 for details.
+ * The splits of the different cells are evaluated concurrently on a fork/join
+ * pool. The best splits are merged in chart order, so the generated lexicon is
+ * identical to the one created by sequential processing.
  *
  * @author Yoav Artzi
  * @author Luke Zettlemoyer
@@ -81,8 +90,19 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 	private final boolean										conservative;
 	private final IParsingFilterFactory<DI, LogicalExpression>	filterFactory;
 
+	/**
+	 * Number of threads to use for split evaluation. 'null' to use the common
+	 * pool, and 1 for sequential processing.
+	 */
+	private final Integer										numThreads;
+
 	private final AbstractCKYParser<SAMPLE, LogicalExpression>	parser;
 
+	/**
+	 * Pool to evaluate splits. 'null' for sequential processing.
+	 */
+	private transient ForkJoinPool								pool;
+
 	private final Syntax										sentenceSyntax;
 
 	private final IUnificationSplitter							splitter;
@@ -92,12 +112,62 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 			IUnificationSplitter splitter, boolean conservative,
 			IParsingFilterFactory<DI, LogicalExpression> filterFactory,
 			Syntax sentenceSyntax, String origin) {
+		this(parser, splitter, conservative, filterFactory, sentenceSyntax,
+				origin, null);
+	}
+
+	/**
+	 * @param numThreads
+	 *            Number of threads to evaluate splits. 'null' to use the
+	 *            common fork/join pool, and 1 for sequential processing.
+	 */
+	public UnificationGenlex(
+			AbstractCKYParser<SAMPLE, LogicalExpression> parser,
+			IUnificationSplitter splitter, boolean conservative,
+			IParsingFilterFactory<DI, LogicalExpression> filterFactory,
+			Syntax sentenceSyntax, String origin, Integer numThreads) {
 		super(origin, false);
 		this.parser = parser;
 		this.splitter = splitter;
 		this.conservative = conservative;
 		this.filterFactory = filterFactory;
 		this.sentenceSyntax = sentenceSyntax;
+		this.numThreads = numThreads;
+		this.pool = createPool(numThreads);
+	}
+
+	private static ForkJoinPool createPool(Integer numThreads) {
+		if (numThreads == null) {
+			return ForkJoinPool.commonPool();
+		} else if (numThreads > 1) {
+			return new ForkJoinPool(numThreads);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Merge lists of best splits, each containing splits with the same score
+	 * improvement, into a list of the overall best splits. The order of the
+	 * input is preserved.
+	 */
+	private static List<Split> mergeBestSplits(List<List<Split>> candidates) {
+		final List<Split> best = new LinkedList<Split>();
+		double mostImproved = 0.0;
+		for (final List<Split> splits : candidates) {
+			if (splits.isEmpty()) {
+				continue;
+			}
+			final double improvement = splits.get(0).scoreImprovement;
+			if (improvement > mostImproved) {
+				best.clear();
+				mostImproved = improvement;
+			}
+			if (improvement >= mostImproved) {
+				best.addAll(splits);
+			}
+		}
+		return best;
 	}
 
 	@Override
@@ -137,11 +207,9 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 		// should insert
 		// it here.
 
-		// Iterate over each nonterminal in the highest scoring parse in the
-		// chart to collect potential splits
-		final List<Split> splits = new LinkedList<Split>();
+		// Collect each nonterminal in the highest scoring parse in the chart
 		chart.setMaxes(dataItem.getLabel());
-		double mostImproved = 0.0;
+		final List<Cell<LogicalExpression>> maxCells = new ArrayList<Cell<LogicalExpression>>();
 		final int size = dataItem.getSample().getTokens().size();
 		for (int begin = 0; begin < size; begin++) {
 			for (int len = 0; len < size - begin; len++) {
@@ -150,14 +218,24 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 				while (i.hasNext()) {
 					final Cell<LogicalExpression> cell = i.next();
 					if (cell.isMax()) {
-						mostImproved = collectBestSplits(cell, begin,
-								begin + len, splits, chart, dataItem,
-								mostImproved, model);
+						maxCells.add(cell);
 					}
 				}
 			}
 		}
 
+		// Collect potential splits for each nonterminal
+		final IDataItemModel<LogicalExpression> dataItemModel = model
+				.createDataItemModel(dataItem.getSample());
+		final List<Split> splits;
+		if (pool == null) {
+			splits = collectBestSplits(maxCells, chart, dataItem, model,
+					dataItemModel);
+		} else {
+			splits = pool.submit(() -> collectBestSplits(maxCells, chart,
+					dataItem, model, dataItemModel)).join();
+		}
+
 		// Collect the new lexical entries
 		final Set<LexicalEntry<LogicalExpression>> entries = new HashSet<LexicalEntry<LogicalExpression>>();
 
@@ -206,147 +284,190 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 	 * For a given cell, create all possible splits and take the ones with the
 	 * maximum score increase.
 	 */
-	private double collectBestSplits(Cell<LogicalExpression> cell, int begin,
-			int end, List<Split> maxEntries, Chart<LogicalExpression> chart,
-			DI dataItem, double mostImproved,
-			IModelImmutable<Sentence, LogicalExpression> model) {
-
-		// Cell category and tokens
-		final Category<LogicalExpression> rootCategory = cell.getCategory();
+	private List<Split> collectBestSplits(Cell<LogicalExpression> cell,
+			Chart<LogicalExpression> chart, DI dataItem,
+			IModelImmutable<Sentence, LogicalExpression> model,
+			IDataItemModel<LogicalExpression> dataItemModel) {
+		// Cell tokens
 		final TokenSeq rootTokens = dataItem.getSample().getTokens()
 				.sub(cell.getStart(), cell.getEnd() + 1);
 
+		// Get all splits for the root category. Copy to a list to evaluate
+		// them in iteration order.
+		final List<SplittingPair> allSplits = new ArrayList<SplittingPair>(
+				splitter.getSplits(cell.getCategory()));
+
+		return mergeBestSplits(stream(allSplits)
+				.map(split -> collectBestSplits(cell, split, rootTokens, chart,
+						model, dataItemModel))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * For a given cell and a split of its category, create all possible
+	 * splitting points and take the ones with the maximum score increase.
+	 */
+	private List<Split> collectBestSplits(Cell<LogicalExpression> cell,
+			SplittingPair split, TokenSeq rootTokens,
+			Chart<LogicalExpression> chart,
+			IModelImmutable<Sentence, LogicalExpression> model,
+			IDataItemModel<LogicalExpression> dataItemModel) {
+		final List<Split> maxEntries = new LinkedList<Split>();
+		final int begin = cell.getStart();
+		final int end = cell.getEnd();
+
+		// Cell category
+		final Category<LogicalExpression> rootCategory = cell.getCategory();
+
 		// Score of best split found so far
-		double currentMaxImprovement = mostImproved;
+		double currentMaxImprovement = 0.0;
 
 		// Cell factory to create new cells
 		final AbstractCellFactory<LogicalExpression> cellFactory = chart
 				.getCellFactory();
 
-		// Get all splits for the root category
-		final Set<SplittingPair> allSplits = splitter.getSplits(rootCategory);
-
-		// Iterate over all possible splits
-		for (final SplittingPair split : allSplits) {
-			final Category<LogicalExpression> left = split.getLeft();
-			final Category<LogicalExpression> right = split.getRight();
-
-			// Iterate over all breaking points for dividing the phrase
-			// (tokens), create new lexical entries and cells
-			for (int splittingPoint = begin; splittingPoint < end; splittingPoint++) {
-				// Create new lexical entries
-
-				// TODO [yoav] [limitation] Factoring so templates and lexemes
-				// participating
-				// can be scored by the relevant feature sets. However, this
-				// gives only the maximal factoring, which misses the option of
-				// adding non maximal ones.
-				final LexicalEntry<LogicalExpression> leftEntry = FactoringServices
-						.factor(new LexicalEntry<LogicalExpression>(
-								rootTokens.sub(0, splittingPoint - begin + 1),
-								left, false, entryProperties));
-				final LexicalEntry<LogicalExpression> rightEntry = FactoringServices
-						.factor(new LexicalEntry<LogicalExpression>(
-								rootTokens.sub(splittingPoint - begin + 1,
-										rootTokens.size()),
-								right, false, entryProperties));
-
-				// If both created lexical entries exist in the model, skip this
-				// split
-				if (model.getLexicon().contains(leftEntry)
-						&& model.getLexicon().contains(rightEntry)) {
-					continue;
-				}
+		final Category<LogicalExpression> left = split.getLeft();
+		final Category<LogicalExpression> right = split.getRight();
+
+		// Iterate over all breaking points for dividing the phrase
+		// (tokens), create new lexical entries and cells
+		for (int splittingPoint = begin; splittingPoint < end; splittingPoint++) {
+			// Create new lexical entries
+
+			// TODO [yoav] [limitation] Factoring so templates and lexemes
+			// participating
+			// can be scored by the relevant feature sets. However, this
+			// gives only the maximal factoring, which misses the option of
+			// adding non maximal ones.
+			final LexicalEntry<LogicalExpression> leftEntry = FactoringServices
+					.factor(new LexicalEntry<LogicalExpression>(
+							rootTokens.sub(0, splittingPoint - begin + 1),
+							left, false, entryProperties));
+			final LexicalEntry<LogicalExpression> rightEntry = FactoringServices
+					.factor(new LexicalEntry<LogicalExpression>(
+							rootTokens.sub(splittingPoint - begin + 1,
+									rootTokens.size()),
+							right, false, entryProperties));
+
+			// If both created lexical entries exist in the model, skip this
+			// split
+			if (model.getLexicon().contains(leftEntry)
+					&& model.getLexicon().contains(rightEntry)) {
+				continue;
+			}
 
-				// NOTE: we do not add the cell to the chart below. this is
-				// because we will be doing lots of splits and evaluating how
-				// much each would help on the same chart, without actually
-				// adding each potential option (or rebuilding the chart each
-				// time, etc).
-
-				final IDataItemModel<LogicalExpression> dataItemModel = model
-						.createDataItemModel(dataItem.getSample());
-
-				// Create cells using the new lexical entries
-				final Cell<LogicalExpression> newLeftCell = cellFactory
-						.create(new WeightedCKYLexicalStep<LogicalExpression>(
-								new CKYLexicalStep<LogicalExpression>(leftEntry,
-										false, begin, splittingPoint),
-								dataItemModel));
-				final Cell<LogicalExpression> newRightCell = cellFactory
-						.create(new WeightedCKYLexicalStep<LogicalExpression>(
-								new CKYLexicalStep<LogicalExpression>(
-										rightEntry, false, splittingPoint + 1,
-										end),
-								dataItemModel));
-
-				// If equivalent cells exist in the chart and they have a higher
-				// max score, reuse them
-				final Cell<LogicalExpression> leftCell;
-				final boolean reusingLeft;
-				final Cell<LogicalExpression> chartLeftCell = chart
-						.getCell(newLeftCell);
-				if (chartLeftCell == null || chartLeftCell
-						.getViterbiScore() >= newLeftCell.getViterbiScore()) {
-					leftCell = newLeftCell;
-					reusingLeft = false;
-				} else {
-					leftCell = chartLeftCell;
-					reusingLeft = true;
-				}
+			// NOTE: we do not add the cell to the chart below. this is
+			// because we will be doing lots of splits and evaluating how
+			// much each would help on the same chart, without actually
+			// adding each potential option (or rebuilding the chart each
+			// time, etc).
+
+			// Create cells using the new lexical entries
+			final Cell<LogicalExpression> newLeftCell = cellFactory
+					.create(new WeightedCKYLexicalStep<LogicalExpression>(
+							new CKYLexicalStep<LogicalExpression>(leftEntry,
+									false, begin, splittingPoint),
+							dataItemModel));
+			final Cell<LogicalExpression> newRightCell = cellFactory
+					.create(new WeightedCKYLexicalStep<LogicalExpression>(
+							new CKYLexicalStep<LogicalExpression>(
+									rightEntry, false, splittingPoint + 1,
+									end),
+							dataItemModel));
+
+			// If equivalent cells exist in the chart and they have a higher
+			// max score, reuse them
+			final Cell<LogicalExpression> leftCell;
+			final boolean reusingLeft;
+			final Cell<LogicalExpression> chartLeftCell = chart
+					.getCell(newLeftCell);
+			if (chartLeftCell == null || chartLeftCell
+					.getViterbiScore() >= newLeftCell.getViterbiScore()) {
+				leftCell = newLeftCell;
+				reusingLeft = false;
+			} else {
+				leftCell = chartLeftCell;
+				reusingLeft = true;
+			}
 
-				final Cell<LogicalExpression> rightCell;
-				final boolean reusingRight;
-				final Cell<LogicalExpression> chartRightCell = chart
-						.getCell(newRightCell);
-				if (chartRightCell == null || chartRightCell
-						.getViterbiScore() >= newRightCell.getViterbiScore()) {
-					rightCell = newRightCell;
-					reusingRight = false;
-				} else {
-					rightCell = chartRightCell;
-					reusingRight = true;
-				}
+			final Cell<LogicalExpression> rightCell;
+			final boolean reusingRight;
+			final Cell<LogicalExpression> chartRightCell = chart
+					.getCell(newRightCell);
+			if (chartRightCell == null || chartRightCell
+					.getViterbiScore() >= newRightCell.getViterbiScore()) {
+				rightCell = newRightCell;
+				reusingRight = false;
+			} else {
+				rightCell = chartRightCell;
+				reusingRight = true;
+			}
 
-				// Only consider this split if it adds a new lexical entry
-				if ((reusingLeft || model.getLexicon().contains(leftEntry))
-						&& (reusingRight
-								|| model.getLexicon().contains(rightEntry))) {
-					continue;
-				}
+			// Only consider this split if it adds a new lexical entry
+			if ((reusingLeft || model.getLexicon().contains(leftEntry))
+					&& (reusingRight
+							|| model.getLexicon().contains(rightEntry))) {
+				continue;
+			}
 
-				// Create the new root cell
-				final Cell<LogicalExpression> newRootCell = cellFactory
-						.create(new WeightedCKYParseStep<LogicalExpression>(
-								new CKYParseStep<LogicalExpression>(
-										rootCategory, leftCell, rightCell,
-										cell.isFullParse(),
-										RuleName.create("splitMerge", null),
-										leftCell.getStart(),
-										rightCell.getEnd()),
-								dataItemModel));
-
-				// Compute the score improvement
-				final double improvement = newRootCell.getViterbiScore()
-						- cell.getViterbiScore();
-
-				// Create the split object
-				final Split splitCell = new Split(leftCell, reusingLeft,
-						rightCell, reusingRight, cell, improvement);
-				LOG.debug("Split under consideration:\n%s", splitCell);
-
-				// If the score is higher, retain this split. Adding to the
-				// chart will be done later.
-				if (improvement >= currentMaxImprovement) {
-					if (improvement > currentMaxImprovement) {
-						maxEntries.clear();
-						currentMaxImprovement = improvement;
-					}
-					maxEntries.add(splitCell);
+			// Create the new root cell
+			final Cell<LogicalExpression> newRootCell = cellFactory
+					.create(new WeightedCKYParseStep<LogicalExpression>(
+							new CKYParseStep<LogicalExpression>(
+									rootCategory, leftCell, rightCell,
+									cell.isFullParse(),
+									RuleName.create("splitMerge", null),
+									leftCell.getStart(),
+									rightCell.getEnd()),
+							dataItemModel));
+
+			// Compute the score improvement
+			final double improvement = newRootCell.getViterbiScore()
+					- cell.getViterbiScore();
+
+			// Create the split object
+			final Split splitCell = new Split(leftCell, reusingLeft,
+					rightCell, reusingRight, cell, improvement);
+			LOG.debug("Split under consideration:\n%s", splitCell);
+
+			// If the score is higher, retain this split. Adding to the
+			// chart will be done later.
+			if (improvement >= currentMaxImprovement) {
+				if (improvement > currentMaxImprovement) {
+					maxEntries.clear();
+					currentMaxImprovement = improvement;
 				}
+				maxEntries.add(splitCell);
 			}
 		}
-		return currentMaxImprovement;
+		return maxEntries;
+	}
+
+	/**
+	 * Collect the best splits of all given cells.
+	 */
+	private List<Split> collectBestSplits(List<Cell<LogicalExpression>> cells,
+			Chart<LogicalExpression> chart, DI dataItem,
+			IModelImmutable<Sentence, LogicalExpression> model,
+			IDataItemModel<LogicalExpression> dataItemModel) {
+		return mergeBestSplits(stream(cells)
+				.map(cell -> collectBestSplits(cell, chart, dataItem, model,
+						dataItemModel))
+				.collect(Collectors.toList()));
+	}
+
+	private void readObject(ObjectInputStream ois)
+			throws ClassNotFoundException, IOException {
+		ois.defaultReadObject();
+		this.pool = createPool(numThreads);
+	}
+
+	/**
+	 * Parallel stream when using a pool, sequential otherwise. Either way, the
+	 * stream is ordered.
+	 */
+	private <T> Stream<T> stream(List<T> list) {
+		return pool == null ? list.stream() : list.parallelStream();
 	}
 
 	public static class Creator<SAMPLE extends Sentence, DI extends ILabeledDataItem<SAMPLE, LogicalExpression>>
@@ -376,7 +497,9 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 									? repo.get(params.get("filterFactory"))
 									: new StubFilterFactory<DI, LogicalExpression>()),
 					Syntax.read(params.get("sentenceSyntax")),
-					params.get("origin", "splitting"));
+					params.get("origin", "splitting"),
+					params.contains("threads")
+							? params.getAsInteger("threads") : null);
 		}
 
 		@Override
@@ -395,6 +518,8 @@ public class UnificationGenlex<SAMPLE extends Sentence, DI extends ILabeledDataI
 							"Origin of generated entries (default: splitting)")
 					.addParam("convervative", "boolean",
 							"If 'true' only use splits if there's a single best split.")
+					.addParam("threads", Integer.class,
+							"Number of threads to evaluate splits, 1 for sequential processing (default: common fork/join pool)")
 					.build();
 		}
 
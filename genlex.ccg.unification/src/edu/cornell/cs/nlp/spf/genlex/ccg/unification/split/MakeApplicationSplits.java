@@ -76,7 +76,7 @@ public class MakeApplicationSplits {
 		// application or a backward application
 		final SplittingPair forwardSplit;
 		final ComplexCategory<LogicalExpression> forwardCategory = new ComplexCategory<LogicalExpression>(
-				new ComplexSyntax(rootCategory.getSyntax(),
+				ComplexSyntax.create(rootCategory.getSyntax(),
 						functeeCategory.getSyntax(), Slash.FORWARD),
 				simplifiedFunctor);
 		forwardSplit = new SplittingPair(forwardCategory, functeeCategory);
@@ -94,7 +94,7 @@ public class MakeApplicationSplits {
 
 		final SplittingPair backSplit;
 		final ComplexCategory<LogicalExpression> backCategory = new ComplexCategory<LogicalExpression>(
-				new ComplexSyntax(rootCategory.getSyntax(),
+				ComplexSyntax.create(rootCategory.getSyntax(),
 						functeeCategory.getSyntax(), Slash.BACKWARD),
 				simplifiedFunctor);
 		backSplit = new SplittingPair(functeeCategory, backCategory);
@@ -104,7 +104,7 @@ public class MakeCompositionSplits implements ILogicalExpressionVisitor {
 				.getRight();
 		final Slash originalSlash = originalCategory.getSlash();
 		final ComplexCategory<LogicalExpression> newCategory = new ComplexCategory<LogicalExpression>(
-				new ComplexSyntax(originalCategoryDomain,
+				ComplexSyntax.create(originalCategoryDomain,
 						originalCategoryDomain, originalSlash), unityFunction);
 
 		// Create the split. Don't allow crossing composition.
@@ -221,11 +221,12 @@ public class MakeCompositionSplits implements ILogicalExpressionVisitor {
 				.create(SplittingServices.typeToSyntax(simplifiedF.getType()
 						.getDomain()));
 		final ComplexCategory<LogicalExpression> fCategory = new ComplexCategory<LogicalExpression>(
-				new ComplexSyntax(originalCategory.getSyntax().getLeft(),
+				ComplexSyntax.create(originalCategory.getSyntax().getLeft(),
 						sharedCategory.getSyntax(), slash), simplifiedF);
 		final ComplexCategory<LogicalExpression> gCategory = new ComplexCategory<LogicalExpression>(
-				new ComplexSyntax(sharedCategory.getSyntax(), originalCategory
-						.getSyntax().getRight(), slash), simlifiedG);
+				ComplexSyntax.create(sharedCategory.getSyntax(),
+						originalCategory.getSyntax().getRight(), slash),
+				simlifiedG);
 
 		// Create the splitting pair. Don't allow crossing composition
 		final SplittingPair newSplit;
@@ -16,8 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.genlex.ccg.unification.split;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
@@ -30,22 +33,64 @@ import edu.cornell.cs.nlp.spf.genlex.ccg.unification.split.SplittingServices.Spl
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 
 /**
- * Splitting service object.
+ * Splitting service object. Splits are memoized, since the same categories
+ * are split repeatedly across spans, data items and epochs. The memo is
+ * thread-safe and is cleared when it reaches its maximum size.
  * 
  * @author Yoav Artzi
  */
 public class Splitter implements IUnificationSplitter {
-	private final ICategoryServices<LogicalExpression>	categoryServices;
+	public static final int												DEFAULT_CACHE_SIZE	= 10000;
+	private final Map<Category<LogicalExpression>, Set<SplittingPair>>	cache				= new ConcurrentHashMap<Category<LogicalExpression>, Set<SplittingPair>>();
+	private final int													cacheSize;
+	private final ICategoryServices<LogicalExpression>					categoryServices;
 	
 	public Splitter(ICategoryServices<LogicalExpression> categoryServices) {
+		this(categoryServices, DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * @param cacheSize
+	 *            Maximum number of memoized categories. Memoization is
+	 *            disabled if not positive.
+	 */
+	public Splitter(ICategoryServices<LogicalExpression> categoryServices,
+			int cacheSize) {
 		this.categoryServices = categoryServices;
+		this.cacheSize = cacheSize;
 	}
 	
+	/**
+	 * @return Unmodifiable set of splits. Repeated calls with the same
+	 *         category may return the same object.
+	 */
+	@Override
 	public Set<SplittingPair> getSplits(Category<LogicalExpression> category) {
+		if (cacheSize > 0) {
+			final Set<SplittingPair> cached = cache.get(category);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		
 		final Set<SplittingPair> splits = new HashSet<SplittingPair>();
 		splits.addAll(MakeApplicationSplits.of(category, categoryServices));
 		splits.addAll(MakeCompositionSplits.of(category, categoryServices));
-		return splits;
+		final Set<SplittingPair> unmodifiableSplits = Collections
+				.unmodifiableSet(splits);
+		
+		if (cacheSize > 0) {
+			if (cache.size() >= cacheSize) {
+				cache.clear();
+			}
+			// If another thread memoized the same category, use its splits.
+			final Set<SplittingPair> existing = cache.putIfAbsent(category,
+					unmodifiableSplits);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return unmodifiableSplits;
 	}
 	
 	public static class Creator implements IResourceObjectCreator<Splitter> {
@@ -56,7 +101,8 @@ public class Splitter implements IUnificationSplitter {
 				IResourceRepository resourceRepo) {
 			return new Splitter(
 					(ICategoryServices<LogicalExpression>) resourceRepo
-							.get(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE));
+							.get(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE),
+					parameters.getAsInteger("cache", DEFAULT_CACHE_SIZE));
 		}
 		
 		@Override
@@ -69,6 +115,9 @@ public class Splitter implements IUnificationSplitter {
 			return new ResourceUsage.Builder(type(), Splitter.class)
 					.setDescription(
 							"Logical expression splitter for unification-based GENLEX")
+					.addParam("cache", Integer.class,
+							"Maximum number of categories with memoized splits, 0 to disable (default: "
+									+ DEFAULT_CACHE_SIZE + ")")
 					.build();
 		}
 		
@@ -121,12 +121,12 @@ public class SplittingServices {
 			// Basically something like and:<t*,t>, so we need two arguments, to
 			// get something like N|N|N
 			final RecursiveComplexType recursiveType = (RecursiveComplexType) type;
-			return new ComplexSyntax(
+			return ComplexSyntax.create(
 					typeToSyntax(recursiveType.getFinalRange()),
 					recurviseArgsToSyntax(recursiveType.getDomain(),
 							recursiveType.getMinArgs()), Slash.VERTICAL);
 		} else if (type.isComplex()) {
-			return new ComplexSyntax(typeToSyntax(type.getRange()),
+			return ComplexSyntax.create(typeToSyntax(type.getRange()),
 					typeToSyntax(type.getDomain()), Slash.VERTICAL);
 		} else if (type == LogicLanguageServices.getTypeRepository()
 				.getTruthValueType()) {
@@ -143,7 +143,8 @@ public class SplittingServices {
 		final Syntax baseCategory = typeToSyntax(type);
 		Syntax current = baseCategory;
 		for (int i = 1; i < numArgs; ++i) {
-			current = new ComplexSyntax(baseCategory, current, Slash.VERTICAL);
+			current = ComplexSyntax.create(baseCategory, current,
+					Slash.VERTICAL);
 		}
 		return current;
 	}
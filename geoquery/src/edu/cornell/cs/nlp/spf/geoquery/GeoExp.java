@@ -83,10 +83,11 @@ public class GeoExp extends DistributedExperiment {
 		final List<File> npLexiconFiles = globalParams.getAsFiles("nplist");
 
 		// //////////////////////////////////////////
-		// Use tree hash vector
+		// Use tree hash vector, unless specified otherwise
 		// //////////////////////////////////////////
 
-		HashVectorFactory.DEFAULT = Type.FAST_TREE;
+		HashVectorFactory.DEFAULT = Type
+				.valueOf(globalParams.get("hashVector", Type.FAST_TREE.name()));
 
 		// //////////////////////////////////////////
 		// Init lambda calculus system.
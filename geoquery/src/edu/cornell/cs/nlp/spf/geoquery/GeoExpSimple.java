@@ -402,7 +402,7 @@ public class GeoExpSimple {
 				KeyArgs.read("FACLEX#XEME"), 10.0).init(model);
 
 		// Init the weight for the dynamic word skipping feature.
-		model.getTheta().set("DYNSKIP", -1.0);
+		model.updateTheta(theta -> theta.set("DYNSKIP", -1.0));
 
 		// //////////////////////////////////////////////////
 		// Log initial model
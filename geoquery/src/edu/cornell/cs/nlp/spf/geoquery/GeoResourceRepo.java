@@ -16,10 +16,12 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.geoquery;
 
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ConcurrentLexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.factored.lambda.FactoredLexicon;
 import edu.cornell.cs.nlp.spf.data.collection.CompositeDataCollection;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.data.sentence.SentenceLengthFilter;
+import edu.cornell.cs.nlp.spf.data.singlesentence.MappedSingleSentenceCollection;
 import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
 import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
 import edu.cornell.cs.nlp.spf.data.utils.LabeledValidator;
@@ -86,9 +88,12 @@ public class GeoResourceRepo extends ResourceCreatorRepository {
 		registerResourceCreator(
 				new LogicalExpressionCoordinationFeatureSet.Creator<Sentence>());
 		registerResourceCreator(new FactoredLexicon.Creator());
+		registerResourceCreator(
+				new ConcurrentLexicon.Creator<LogicalExpression>());
 		registerResourceCreator(
 				new TemplateSupervisedGenlex.Creator<Sentence, SingleSentence>());
 		registerResourceCreator(new SingleSentenceCollection.Creator());
+		registerResourceCreator(new MappedSingleSentenceCollection.Creator());
 		registerResourceCreator(
 				new ValidationPerceptron.Creator<Sentence, SingleSentence, LogicalExpression>());
 		registerResourceCreator(
@@ -21,6 +21,7 @@ import java.util.List;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
@@ -135,8 +136,8 @@ public class SimplePerceptron implements
 					}
 
 					// Update the parameters vector
-					LOG.info("Update: %s", update);
-					update.addTimesInto(1.0, model.getTheta());
+					Tracer.infoOrLog(LOG, "Update: %s", update);
+					model.updateTheta(theta -> update.addTimesInto(1.0, theta));
 				} else if (correctParses.isEmpty()) {
 					LOG.info("No correct parses. No update.");
 				} else {
@@ -19,7 +19,10 @@ package edu.cornell.cs.nlp.spf.learn.situated;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
@@ -31,6 +34,7 @@ import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
 import edu.cornell.cs.nlp.spf.genlex.ccg.LexiconGenerationServices;
 import edu.cornell.cs.nlp.spf.learn.ILearner;
 import edu.cornell.cs.nlp.spf.learn.LearningStats;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.parser.ccg.IWeightedParseStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
 import edu.cornell.cs.nlp.spf.parser.joint.IJointDerivation;
@@ -106,6 +110,11 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 	 */
 	private final Map<DI, Pair<MR, ERESULT>>											trainingDataDebug;
 
+	/**
+	 * Memoizes the validation oracle.
+	 */
+	private final ValidationCache<DI, ERESULT>											validationCache;
+
 	/**
 	 * Joint parser for inference.
 	 */
@@ -126,7 +135,8 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 			IJointParser<SAMPLE, MR, ESTEP, ERESULT> parser,
 			IJointOutputLogger<MR, ESTEP, ERESULT> parserOutputLogger,
 			ICategoryServices<MR> categoryServices,
-			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex) {
+			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex,
+			ValidationCache<DI, ERESULT> validationCache) {
 		this.epochs = numIterations;
 		this.trainingData = trainingData;
 		this.trainingDataDebug = trainingDataDebug;
@@ -136,6 +146,7 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 		this.parserOutputLogger = parserOutputLogger;
 		this.categoryServices = categoryServices;
 		this.genlex = genlex;
+		this.validationCache = validationCache;
 		this.stats = new LearningStats.Builder(trainingData.size())
 				.addStat(HAS_VALID_LF, "Has a valid parse")
 				.addStat(TRIGGERED_UPDATE, "Sample triggered update")
@@ -211,6 +222,7 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 			}
 
 			// Output epoch statistics
+			validationCache.endEpoch(stats, epochNumber);
 			LOG.info("System memory: %s", MemoryReport.generate());
 			LOG.info("Epoch stats:");
 			LOG.info(stats);
@@ -255,7 +267,7 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 
 			// Use validation function to prune generation parses
 			CollectionUtils.filterInPlace(generationParses,
-					e -> validate(dataItem, e.getResult()));
+					e -> isValid(dataItemNumber, dataItem, e.getResult()));
 			LOG.info("Removed %d invalid parses",
 					generateLexiconParserOutput.getDerivations().size()
 							- generationParses.size());
@@ -329,6 +341,17 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 		}
 	}
 
+	/**
+	 * Validates a hypothesis using the validation cache.
+	 *
+	 * @param itemNumber
+	 *            The index of the data item in the training data.
+	 */
+	protected boolean isValid(int itemNumber, DI dataItem, ERESULT hypothesis) {
+		return validationCache.isValid(itemNumber, dataItem, hypothesis,
+				this::validate);
+	}
+
 	protected void logParse(DI dataItem, IJointDerivation<MR, ERESULT> parse,
 			Boolean valid, boolean verbose, IDataItemModel<MR> dataItemModel) {
 		logParse(dataItem, parse, valid, verbose, null, dataItemModel);
@@ -343,13 +366,20 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 		} else {
 			isGold = false;
 		}
-		LOG.info("%s%s[%.2f%s] %s", isGold ? "* " : "  ",
-				tag == null ? "" : tag + " ", parse.getViterbiScore(),
-				valid == null ? "" : valid ? ", V" : ", X", parse);
+		final String format = "%s%s[%.2f%s] %s";
+		final String goldString = isGold ? "* " : "  ";
+		final String tagString = tag == null ? "" : tag + " ";
+		final double score = parse.getViterbiScore();
+		final String validString = valid == null ? "" : valid ? ", V" : ", X";
+		Tracer.infoOrLog(LOG, format, goldString, tagString, score,
+				validString, parse);
 		if (verbose) {
+			final IHashVectorImmutable theta = dataItemModel.getTheta();
 			for (final IWeightedParseStep<MR> step : parse.getMaxSteps()) {
-				LOG.info("\t%s",
-						step.toString(false, false, dataItemModel.getTheta()));
+				final IHashVectorImmutable stepTheta = Tracer
+						.snapshotTheta(theta, step.getStepFeatures());
+				Tracer.infoOrLog(LOG, "\t%s", (Supplier<String>) () -> step
+						.toString(false, false, stepTheta));
 			}
 		}
 	}
@@ -362,5 +392,9 @@ public abstract class AbstractSituatedLearner<SAMPLE extends ISituatedDataItem<S
 			JointModel<SAMPLE, MR, ESTEP> model, int itemCounter,
 			int epochNumber);
 
+	/**
+	 * Validation method. Not called directly, but through
+	 * {@link #isValid(int, ILabeledDataItem, Object)}.
+	 */
 	abstract protected boolean validate(DI dataItem, ERESULT hypothesis);
 }
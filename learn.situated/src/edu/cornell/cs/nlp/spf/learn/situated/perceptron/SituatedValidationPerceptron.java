@@ -24,6 +24,7 @@ import java.util.Map;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
 import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
@@ -36,6 +37,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.learn.situated.AbstractSituatedLearner;
 import edu.cornell.cs.nlp.spf.parser.IParserOutput;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
@@ -92,10 +94,11 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 			IJointOutputLogger<MR, ESTEP, ERESULT> parserOutputLogger,
 			IValidator<DI, ERESULT> validator,
 			ICategoryServices<MR> categoryServices,
-			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex) {
+			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex,
+			ValidationCache<DI, ERESULT> validationCache) {
 		super(numIterations, trainingData, trainingDataDebug,
 				maxSentenceLength, lexiconGenerationBeamSize, parser,
-				parserOutputLogger, categoryServices, genlex);
+				parserOutputLogger, categoryServices, genlex, validationCache);
 		this.margin = margin;
 		this.hardUpdates = hardUpdates;
 		this.validator = validator;
@@ -106,6 +109,9 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 		LOG.info(
 				"Init SituatedValidationSensitivePerceptron: ... lexiconGenerationBeamSize=%d",
 				lexiconGenerationBeamSize);
+		LOG.info(
+				"Init SituatedValidationSensitivePerceptron: ... validationCache=%s",
+				validationCache);
 	}
 
 	private IHashVector constructUpdate(
@@ -142,17 +148,19 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 	 * Split the list parses to valid and invalid ones.
 	 *
 	 * @param dataItem
+	 * @param itemNumber
+	 *            The index of the data item in the training data.
 	 * @param parseResults
 	 * @return Pair of (good parses, bad parses)
 	 */
 	private Pair<List<IJointDerivation<MR, ERESULT>>, List<IJointDerivation<MR, ERESULT>>> createValidInvalidSets(
-			DI dataItem,
+			DI dataItem, int itemNumber,
 			Collection<? extends IJointDerivation<MR, ERESULT>> parses) {
 		final List<IJointDerivation<MR, ERESULT>> validParses = new LinkedList<IJointDerivation<MR, ERESULT>>();
 		final List<IJointDerivation<MR, ERESULT>> invalidParses = new LinkedList<IJointDerivation<MR, ERESULT>>();
 		double validScore = -Double.MAX_VALUE;
 		for (final IJointDerivation<MR, ERESULT> parse : parses) {
-			if (validate(dataItem, parse.getResult())) {
+			if (isValid(itemNumber, dataItem, parse.getResult())) {
 				if (hardUpdates) {
 					// Case using hard updates, only keep the highest scored
 					// valid ones
@@ -274,7 +282,7 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 
 		// Split all parses to valid and invalid sets
 		final Pair<List<IJointDerivation<MR, ERESULT>>, List<IJointDerivation<MR, ERESULT>>> validInvalidSetsPair = createValidInvalidSets(
-				dataItem, modelParses);
+				dataItem, dataItemNumber, modelParses);
 		final List<IJointDerivation<MR, ERESULT>> validParses = validInvalidSetsPair
 				.first();
 		final List<IJointDerivation<MR, ERESULT>> invalidParses = validInvalidSetsPair
@@ -334,8 +342,8 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 				violatingInvalidParses, model);
 
 		// Update the parameters vector
-		LOG.info("Update: %s", update);
-		update.addTimesInto(1.0, model.getTheta());
+		Tracer.infoOrLog(LOG, "Update: %s", update);
+		model.updateTheta(theta -> update.addTimesInto(1.0, theta));
 		stats.appendSampleStat(dataItemNumber, epochNumber, TRIGGERED_UPDATE);
 		stats.count("update", epochNumber);
 	}
@@ -412,6 +420,11 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 																													}
 																												};
 
+		/**
+		 * Keep the validation cache across epochs.
+		 */
+		private boolean																persistValidationCache		= false;
+
 		/** Training data */
 		private final IDataCollection<DI>											trainingData;
 
@@ -420,6 +433,11 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 		 */
 		private Map<DI, Pair<MR, ERESULT>>											trainingDataDebug			= new HashMap<DI, Pair<MR, ERESULT>>();
 
+		/**
+		 * Maximum size of the validation cache. If 0, the cache is disabled.
+		 */
+		private int																	validationCacheSize			= ValidationCache.DEFAULT_SIZE;
+
 		private final IValidator<DI, ERESULT>										validator;
 
 		public Builder(IDataCollection<DI> trainingData,
@@ -435,7 +453,9 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 					numIterations, margin, trainingData, trainingDataDebug,
 					maxSentenceLength, lexiconGenerationBeamSize, parser,
 					hardUpdates, parserOutputLogger, validator,
-					categoryServices, genlex);
+					categoryServices, genlex,
+					new ValidationCache<DI, ERESULT>(validationCacheSize,
+							persistValidationCache));
 		}
 
 		public Builder<SAMPLE, MR, ESTEP, ERESULT, DI> setGenlex(
@@ -486,6 +506,13 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 			this.trainingDataDebug = trainingDataDebug;
 			return this;
 		}
+
+		public Builder<SAMPLE, MR, ESTEP, ERESULT, DI> setValidationCache(
+				int size, boolean persistent) {
+			this.validationCacheSize = size;
+			this.persistValidationCache = persistent;
+			return this;
+		}
 	}
 
 	public static class Creator<SAMPLE extends ISituatedDataItem<Sentence, ?>, MR, ESTEP, ERESULT, DI extends ILabeledDataItem<SAMPLE, ?>>
@@ -552,6 +579,11 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 						.get("iter")));
 			}
 
+			builder.setValidationCache(
+					params.getAsInteger("validCache",
+							ValidationCache.DEFAULT_SIZE),
+					params.getAsBoolean("validCachePersist", false));
+
 			return builder.build();
 		}
 
@@ -582,6 +614,11 @@ public class SituatedValidationPerceptron<SAMPLE extends ISituatedDataItem<Sente
 							"Max sentence length to process")
 					.addParam("iter", "int", "Number of training iterations")
 					.addParam("validator", "IValidator", "Validation function")
+					.addParam("validCache", "int",
+							"Maximum size of the validation cache, 0 to disable (default: "
+									+ ValidationCache.DEFAULT_SIZE + ")")
+					.addParam("validCachePersist", "boolean",
+							"Keep the validation cache across epochs (default: false)")
 					.build();
 		}
 
@@ -23,6 +23,7 @@ import java.util.Map;
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector.ValueFunction;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
 import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
@@ -35,6 +36,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.learn.situated.AbstractSituatedLearner;
 import edu.cornell.cs.nlp.spf.learn.situated.perceptron.SituatedValidationPerceptron;
 import edu.cornell.cs.nlp.spf.parser.IParserOutput;
@@ -93,10 +95,11 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 			double c,
 			IValidator<DI, ERESULT> validator,
 			ICategoryServices<MR> categoryServices,
-			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex) {
+			ILexiconGenerator<DI, MR, IJointModelImmutable<SAMPLE, MR, ESTEP>> genlex,
+			ValidationCache<DI, ERESULT> validationCache) {
 		super(numIterations, trainingData, trainingDataDebug,
 				maxSentenceLength, lexiconGenerationBeamSize, parser,
-				parserOutputLogger, categoryServices, genlex);
+				parserOutputLogger, categoryServices, genlex, validationCache);
 		this.graphParser = parser;
 		this.alpha0 = alpha0;
 		this.c = c;
@@ -108,6 +111,9 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 		LOG.info(
 				"Init SituatedValidationSensitiveStocGrad: ... lexiconGenerationBeamSize=%d, alpah0=%f, c=%f",
 				lexiconGenerationBeamSize, alpha0, c);
+		LOG.info(
+				"Init SituatedValidationSensitiveStocGrad: ... validationCache=%s",
+				validationCache);
 	}
 
 	@Override
@@ -119,7 +125,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 	@Override
 	protected void parameterUpdate(final DI dataItem,
 			IJointDataItemModel<MR, ESTEP> dataItemModel,
-			JointModel<SAMPLE, MR, ESTEP> model, int dataItemNumber,
+			JointModel<SAMPLE, MR, ESTEP> model, final int dataItemNumber,
 			int epochNumber) {
 
 		// Parse with current model
@@ -157,7 +163,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 		final IFilter<ERESULT> filter = new IFilter<ERESULT>() {
 			@Override
 			public boolean test(ERESULT e) {
-				return validate(dataItem, e);
+				return isValid(dataItemNumber, dataItem, e);
 			}
 		};
 		final double logConditionedNorm = parserOutput.logNorm(filter);
@@ -178,7 +184,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 			});
 			expectedFeatures.dropNoise();
 			expectedFeatures.addTimesInto(1.0, update);
-			LOG.info("Positive update: %s", expectedFeatures);
+			Tracer.infoOrLog(LOG, "Positive update: %s", expectedFeatures);
 
 			// Record if the best is the gold standard, if such debug
 			// information is available
@@ -213,7 +219,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 			});
 			expectedFeatures.dropNoise();
 			expectedFeatures.addTimesInto(-1.0, update);
-			LOG.info("Negative update: %s", expectedFeatures);
+			Tracer.infoOrLog(LOG, "Negative update: %s", expectedFeatures);
 		}
 
 		// Step C: Apply the update
@@ -233,7 +239,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 			LOG.info("No update");
 			return;
 		} else {
-			LOG.info("Update: %s", update);
+			Tracer.infoOrLog(LOG, "Update: %s", update);
 			stats.appendSampleStat(dataItemNumber, epochNumber,
 					TRIGGERED_UPDATE);
 			stats.count("update", epochNumber);
@@ -250,7 +256,7 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 				LOG.warn("Large update");
 			}
 			// Do the update
-			update.addTimesInto(1, model.getTheta());
+			model.updateTheta(theta -> update.addTimesInto(1, theta));
 		}
 	}
 
@@ -328,6 +334,11 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 																													}
 																												};
 
+		/**
+		 * Keep the validation cache across epochs.
+		 */
+		private boolean																persistValidationCache		= false;
+
 		/** Training data */
 		private final IDataCollection<DI>											trainingData;
 
@@ -336,6 +347,11 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 		 */
 		private Map<DI, Pair<MR, ERESULT>>											trainingDataDebug			= new HashMap<DI, Pair<MR, ERESULT>>();
 
+		/**
+		 * Maximum size of the validation cache. If 0, the cache is disabled.
+		 */
+		private int																	validationCacheSize			= ValidationCache.DEFAULT_SIZE;
+
 		private final IValidator<DI, ERESULT>										validator;
 
 		public Builder(IDataCollection<DI> trainingData,
@@ -351,7 +367,8 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 					numIterations, trainingData, trainingDataDebug,
 					maxSentenceLength, lexiconGenerationBeamSize, parser,
 					parserOutputLogger, alpha0, c, validator, categoryServices,
-					genlex);
+					genlex, new ValidationCache<DI, ERESULT>(
+							validationCacheSize, persistValidationCache));
 		}
 
 		public Builder<SAMPLE, MR, ESTEP, ERESULT, DI> setAlpha0(double alpha0) {
@@ -402,6 +419,13 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 			return this;
 		}
 
+		public Builder<SAMPLE, MR, ESTEP, ERESULT, DI> setValidationCache(
+				int size, boolean persistent) {
+			this.validationCacheSize = size;
+			this.persistValidationCache = persistent;
+			return this;
+		}
+
 	}
 
 	public static class Creator<SAMPLE extends ISituatedDataItem<Sentence, ?>, MR, ESTEP, ERESULT, DI extends ILabeledDataItem<SAMPLE, ?>>
@@ -467,6 +491,11 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 				builder.setAlpha0(Double.valueOf(params.get("alpha0")));
 			}
 
+			builder.setValidationCache(
+					params.getAsInteger("validCache",
+							ValidationCache.DEFAULT_SIZE),
+					params.getAsBoolean("validCachePersist", false));
+
 			return builder.build();
 		}
 
@@ -499,6 +528,11 @@ public class SituatedValidationStocGrad<SAMPLE extends ISituatedDataItem<Sentenc
 					.addParam("maxSentenceLength", "int",
 							"Max sentence length to process")
 					.addParam("iter", "int", "Number of training iterations")
+					.addParam("validCache", "int",
+							"Maximum size of the validation cache, 0 to disable (default: "
+									+ ValidationCache.DEFAULT_SIZE + ")")
+					.addParam("validCachePersist", "boolean",
+							"Keep the validation cache across epochs (default: false)")
 					.build();
 		}
 
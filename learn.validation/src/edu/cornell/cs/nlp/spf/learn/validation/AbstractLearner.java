@@ -16,11 +16,15 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.learn.validation;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
@@ -31,6 +35,7 @@ import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
 import edu.cornell.cs.nlp.spf.genlex.ccg.LexiconGenerationServices;
 import edu.cornell.cs.nlp.spf.learn.ILearner;
 import edu.cornell.cs.nlp.spf.learn.LearningStats;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.learn.validation.perceptron.ValidationPerceptron;
 import edu.cornell.cs.nlp.spf.learn.validation.stocgrad.ValidationStocGrad;
 import edu.cornell.cs.nlp.spf.parser.IDerivation;
@@ -63,6 +68,11 @@ import edu.cornell.cs.nlp.utils.system.MemoryReport;
  * 2007. Trigger-based Language Modeling using a Loss-sensitive Perceptron
  * Algorithm. In proceedings of ICASSP 2007.
  * </p>
+ * <p>
+ * Validation calls go through a {@link ValidationCache}, so the oracle (see
+ * {@link #validate(ILabeledDataItem, Object)}) is called once for every
+ * distinct logical form of a training sample.
+ * </p>
  *
  * @author Yoav Artzi
  * @see ValidationPerceptron
@@ -120,6 +130,11 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	 */
 	private final Map<DI, MR>												trainingDataDebug;
 
+	/**
+	 * Memoizes the validation oracle.
+	 */
+	private final ValidationCache<DI, MR>									validationCache;
+
 	/**
 	 * Parser output logger.
 	 */
@@ -137,7 +152,8 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 			ICategoryServices<MR> categoryServices,
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
 			IFilter<DI> processingFilter,
-			IParsingFilterFactory<DI, MR> parsingFilterFactory) {
+			IParsingFilterFactory<DI, MR> parsingFilterFactory,
+			ValidationCache<DI, MR> validationCache) {
 		this.epochs = numIterations;
 		this.trainingData = trainingData;
 		this.trainingDataDebug = trainingDataDebug;
@@ -149,6 +165,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		this.genlex = genlex;
 		this.processingFilter = processingFilter;
 		this.parsingFilterFactory = parsingFilterFactory;
+		this.validationCache = validationCache;
 		this.stats = new LearningStats.Builder(trainingData.size())
 				.addStat(HAS_VALID_LF, "Has a valid parse")
 				.addStat(TRIGGERED_UPDATE, "Sample triggered update")
@@ -195,6 +212,9 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 				stats.count("Processed", epochNumber);
 
+				// Parser outputs created for the sample. Released once the
+				// sample is processed, so the parser can re-use their charts.
+				final List<PO> parserOutputs = new ArrayList<PO>(3);
 				try {
 					// Data item model
 					final IDataItemModel<MR> dataItemModel = model
@@ -207,6 +227,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 					// Parse with current model and record some statistics
 					final PO parserOutput = parse(dataItem, dataItemModel);
+					parserOutputs.add(parserOutput);
 					stats.mean("Model parse",
 							parserOutput.getParsingTime() / 1000.0, "sec");
 					parserOutputLogger.log(parserOutput, dataItemModel, String
@@ -223,13 +244,14 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 							modelParses.size());
 					for (final IDerivation<MR> parse : modelParses) {
 						logParse(dataItem, parse,
-								validate(dataItem, parse.getSemantics()), true,
-								dataItemModel);
+								isValid(itemCounter, dataItem,
+										parse.getSemantics()),
+								true, dataItemModel);
 					}
 
 					// Create a list of all valid parses
 					final List<? extends IDerivation<MR>> validParses = getValidParses(
-							parserOutput, dataItem);
+							parserOutput, dataItem, itemCounter);
 
 					// If has a valid parse, call parameter update procedure
 					// and continue
@@ -251,6 +273,9 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 					final PO generationParserOutput = lexicalInduction(dataItem,
 							itemCounter, dataItemModel, model, epochNumber);
+					if (generationParserOutput != null) {
+						parserOutputs.add(generationParserOutput);
+					}
 
 					// ///////////////////////////
 					// Step III: Update parameters
@@ -265,6 +290,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 						final PO prunedParserOutput = parse(dataItem,
 								parsingFilterFactory.create(dataItem),
 								dataItemModel);
+						parserOutputs.add(prunedParserOutput);
 						LOG.info("Conditioned parsing time: %.4fsec",
 								prunedParserOutput.getParsingTime() / 1000.0);
 						parserOutputLogger.log(prunedParserOutput,
@@ -277,6 +303,10 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 					}
 
 				} finally {
+					for (final PO output : parserOutputs) {
+						output.release();
+					}
+
 					// Record statistics.
 					stats.mean("Sample processing",
 							(System.currentTimeMillis() - startTime) / 1000.0,
@@ -287,6 +317,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 			}
 
 			// Output epoch statistics
+			validationCache.endEpoch(stats, epochNumber);
 			LOG.info("System memory: %s", MemoryReport.generate());
 			LOG.info("Epoch stats:");
 			LOG.info(stats);
@@ -294,14 +325,14 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	}
 
 	private List<? extends IDerivation<MR>> getValidParses(PO parserOutput,
-			final DI dataItem) {
+			final DI dataItem, int itemNumber) {
 		final List<? extends IDerivation<MR>> parses = new LinkedList<IDerivation<MR>>(
 				parserOutput.getAllDerivations());
 
 		// Use validation function to prune generation parses. Syntax is not
 		// used to distinguish between derivations.
 		CollectionUtils.filterInPlace(parses,
-				e -> validate(dataItem, e.getSemantics()));
+				e -> isValid(itemNumber, dataItem, e.getSemantics()));
 		return parses;
 	}
 
@@ -341,7 +372,7 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 
 			// Get valid lexical generation parses
 			final List<? extends IDerivation<MR>> validParses = getValidParses(
-					parserOutput, dataItem);
+					parserOutput, dataItem, dataItemNumber);
 			LOG.info("Removed %d invalid parses",
 					parserOutput.getAllDerivations().size()
 							- validParses.size());
@@ -418,6 +449,17 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		}
 	}
 
+	/**
+	 * Validates a hypothesis using the validation cache.
+	 *
+	 * @param itemNumber
+	 *            The index of the data item in the training data.
+	 */
+	protected boolean isValid(int itemNumber, DI dataItem, MR hypothesis) {
+		return validationCache.isValid(itemNumber, dataItem, hypothesis,
+				this::validate);
+	}
+
 	protected void logParse(DI dataItem, IDerivation<MR> parse, Boolean valid,
 			boolean verbose, IDataItemModel<MR> dataItemModel) {
 		logParse(dataItem, parse, valid, verbose, null, dataItemModel);
@@ -431,13 +473,20 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		} else {
 			isGold = false;
 		}
-		LOG.info("%s%s[%.2f%s] %s", isGold ? "* " : "  ",
-				tag == null ? "" : tag + " ", parse.getScore(),
-				valid == null ? "" : valid ? ", V" : ", X", parse);
+		final String format = "%s%s[%.2f%s] %s";
+		final String goldString = isGold ? "* " : "  ";
+		final String tagString = tag == null ? "" : tag + " ";
+		final double score = parse.getScore();
+		final String validString = valid == null ? "" : valid ? ", V" : ", X";
+		Tracer.infoOrLog(LOG, format, goldString, tagString, score,
+				validString, parse);
 		if (verbose) {
+			final IHashVectorImmutable theta = dataItemModel.getTheta();
 			for (final IWeightedParseStep<MR> step : parse.getMaxSteps()) {
-				LOG.info("\t%s",
-						step.toString(false, false, dataItemModel.getTheta()));
+				final IHashVectorImmutable stepTheta = Tracer
+						.snapshotTheta(theta, step.getStepFeatures());
+				Tracer.infoOrLog(LOG, "\t%s", (Supplier<String>) () -> step
+						.toString(false, false, stepTheta));
 			}
 		}
 	}
@@ -470,7 +519,8 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 			ILexiconImmutable<MR> generatedLexicon, Integer beamSize);
 
 	/**
-	 * Validation method.
+	 * Validation method. Not called directly, but through
+	 * {@link #isValid(int, ILabeledDataItem, Object)}.
 	 */
 	abstract protected boolean validate(DI dataItem, MR hypothesis);
 }
@@ -0,0 +1,968 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn.validation.distributed;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.IDataItem;
+import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
+import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.data.utils.IValidator;
+import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment;
+import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
+import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
+import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.genlex.ccg.LexiconGenerationServices;
+import edu.cornell.cs.nlp.spf.learn.ILearner;
+import edu.cornell.cs.nlp.spf.learn.LearningStats;
+import edu.cornell.cs.nlp.spf.learn.validation.perceptron.ValidationPerceptron;
+import edu.cornell.cs.nlp.spf.parser.IDerivation;
+import edu.cornell.cs.nlp.spf.parser.IParser;
+import edu.cornell.cs.nlp.spf.parser.IParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelImmutable;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.parser.filter.IParsingFilterFactory;
+import edu.cornell.cs.nlp.spf.parser.filter.StubFilterFactory;
+import edu.cornell.cs.nlp.spf.reliabledist.EnvironmentConfig;
+import edu.cornell.cs.nlp.spf.reliabledist.JobFuture;
+import edu.cornell.cs.nlp.spf.reliabledist.ReliableManager;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+import edu.cornell.cs.nlp.utils.system.MemoryReport;
+
+/**
+ * Data-parallel validation-based perceptron learner. Uses TinyDist to
+ * distribute training. Each epoch is split into mini-batches. The samples of a
+ * batch are processed in parallel by the workers against the same snapshot of
+ * the model: each worker parses its sample, does lexical induction (GENLEX)
+ * and computes a local perceptron update, but doesn't modify the model. The
+ * master merges the lexical entries and sums the updates in data order, and
+ * broadcasts the result as a {@link ModelUpdate}, creating the next version of
+ * the model for the following batch.
+ * <p>
+ * With a batch of a single sample, the learner closely follows
+ * {@link ValidationPerceptron}. The only difference is in the conditioned parse
+ * (when not conflating it with the GENLEX parse): entries generated for the
+ * sample are provided as a temporary lexicon, since the snapshot model can't be
+ * modified, so their weights are not initialized until they are added to the
+ * model during the merge.
+ * </p>
+ *
+ * @author Yoav Artzi
+ * @see ValidationPerceptron
+ * @param <SAMPLE>
+ *            Data item to use for inference.
+ * @param <DI>
+ *            Data item for learning.
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class DistributedValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
+		implements ILearner<SAMPLE, DI, Model<SAMPLE, MR>> {
+	public static final ILogger					LOG					= LoggerFactory
+			.create(DistributedValidationPerceptron.class);
+
+	private static final String					GOLD_LF_IS_MAX		= "G";
+	private static final String					HAS_VALID_LF		= "V";
+	private static final String					TRIGGERED_UPDATE	= "U";
+
+	/**
+	 * Number of samples processed against each version of the model.
+	 */
+	private final int							batchSize;
+
+	/**
+	 * Number of training epochs.
+	 */
+	private final int							epochs;
+
+	private final ReliableManager				manager;
+
+	private final IFilter<DI>					processingFilter;
+
+	/**
+	 * Learner setup broadcasted to the workers.
+	 */
+	private final LearnerSetup<SAMPLE, DI, MR>	setup;
+
+	/**
+	 * Learning statistics.
+	 */
+	private final LearningStats					stats;
+
+	/**
+	 * Training data.
+	 */
+	private final IDataCollection<DI>			trainingData;
+
+	/**
+	 * Mapping of training data samples to their gold labels.
+	 */
+	private final Map<DI, MR>					trainingDataDebug;
+
+	private DistributedValidationPerceptron(int numIterations, int batchSize,
+			IDataCollection<DI> trainingData, Map<DI, MR> trainingDataDebug,
+			IFilter<DI> processingFilter, ReliableManager manager,
+			LearnerSetup<SAMPLE, DI, MR> setup) {
+		this.epochs = numIterations;
+		this.batchSize = batchSize;
+		this.trainingData = trainingData;
+		this.trainingDataDebug = trainingDataDebug;
+		this.processingFilter = processingFilter;
+		this.manager = manager;
+		this.setup = setup;
+		this.stats = new LearningStats.Builder(trainingData.size())
+				.addStat(HAS_VALID_LF, "Has a valid parse")
+				.addStat(TRIGGERED_UPDATE, "Sample triggered update")
+				.addStat(GOLD_LF_IS_MAX,
+						"The best-scoring LF equals the provided GOLD debug LF")
+				.setNumberStat("Number of new lexical entries added").build();
+		LOG.info(
+				"Init %s: numIterations=%d, batchSize=%d, margin=%f, trainingData.size()=%d  ...",
+				getClass().getSimpleName(), numIterations, batchSize,
+				setup.margin, trainingData.size());
+		LOG.info("Init %s: ... trainingDataDebug.size()=%d",
+				getClass().getSimpleName(), trainingDataDebug.size());
+		LOG.info("Init %s: ... lexiconGenerationBeamSize=%d",
+				getClass().getSimpleName(), setup.lexiconGenerationBeamSize);
+		LOG.info("Init %s: ... conflateParses=%s, errorDriven=%s",
+				getClass().getSimpleName(),
+				setup.conflateGenlexAndPrunedParses ? "true" : "false",
+				setup.errorDriven ? "true" : "false");
+		LOG.info("Init %s: ... parsingFilterFactory=%s",
+				getClass().getSimpleName(), setup.parsingFilterFactory);
+	}
+
+	/**
+	 * Estimated cost of processing a data item: the length of the sentence, if
+	 * one is available.
+	 */
+	private static double cost(IDataItem<?> dataItem) {
+		final Object sample = dataItem.getSample();
+		if (sample instanceof Sentence) {
+			return Math.max(1, ((Sentence) sample).getTokens().size());
+		} else if (sample instanceof IDataItem) {
+			return cost((IDataItem<?>) sample);
+		} else {
+			return 1.0;
+		}
+	}
+
+	@Override
+	public void train(Model<SAMPLE, MR> model) {
+
+		// Init GENLEX. The generator is initialized before it's shipped to the
+		// workers.
+		if (setup.genlex != null) {
+			LOG.info("Initializing GENLEX ...");
+			setup.genlex.init(model);
+		}
+
+		// Set the environment. The local environment holds the model itself
+		// (not a copy), so broadcasting an update also applies it to the
+		// model.
+		final ValidationPerceptronEnvironment<SAMPLE, DI, MR> environment;
+		if (manager
+				.getEnviroment() instanceof ValidationPerceptronEnvironment) {
+			environment = manager.getEnviroment();
+		} else {
+			environment = new ValidationPerceptronEnvironment<SAMPLE, DI, MR>();
+			manager.setupEnviroment(environment);
+		}
+		final List<EnvironmentConfig<?>> update = new ArrayList<>(2);
+		update.add(environment.updateModel(model));
+		update.add(environment.updateLearnerSetup(setup));
+		if (!manager.updateEnviroment(update)) {
+			LOG.error("Failed to update environment");
+			return;
+		}
+
+		// Epochs
+		for (int epochNumber = 0; epochNumber < epochs; ++epochNumber) {
+			// Training epoch, iterate over all training samples
+			LOG.info("=========================");
+			LOG.info("Training epoch %d", epochNumber);
+			LOG.info("=========================");
+
+			// Collect the samples to process. Samples are paired with their
+			// index in the training data for statistics.
+			final List<Pair<Integer, DI>> samples = new ArrayList<Pair<Integer, DI>>(
+					trainingData.size());
+			int itemCounter = -1;
+			for (final DI dataItem : trainingData) {
+				++itemCounter;
+				if (processingFilter.test(dataItem)) {
+					stats.count("Processed", epochNumber);
+					samples.add(Pair.of(itemCounter, dataItem));
+				} else {
+					LOG.info(
+							"Skipped training sample %d, due to processing filter",
+							itemCounter);
+				}
+			}
+
+			// Iterate over batches.
+			for (int start = 0; start < samples.size(); start += batchSize) {
+				processBatch(
+						samples.subList(start,
+								Math.min(start + batchSize, samples.size())),
+						model, environment, epochNumber);
+			}
+
+			// Output epoch statistics
+			LOG.info("System memory: %s", MemoryReport.generate());
+			LOG.info("Epoch stats:");
+			LOG.info(stats);
+		}
+	}
+
+	private boolean isGoldDebugCorrect(DI dataItem, MR label) {
+		if (trainingDataDebug.containsKey(dataItem)) {
+			return trainingDataDebug.get(dataItem).equals(label);
+		} else {
+			return false;
+		}
+	}
+
+	private void processBatch(List<Pair<Integer, DI>> batch,
+			Model<SAMPLE, MR> model,
+			ValidationPerceptronEnvironment<SAMPLE, DI, MR> environment,
+			int epochNumber) {
+		final long startTime = System.currentTimeMillis();
+		final int version = environment.getVersion();
+		LOG.info("Distributing batch of %d samples [model version %d]",
+				batch.size(), version);
+
+		// Distribute the batch. The sentence length is used as the estimated
+		// cost of each job.
+		final List<JobFuture<TrainingJobResult<MR>>> futures = new ArrayList<JobFuture<TrainingJobResult<MR>>>(
+				batch.size());
+		for (final Pair<Integer, DI> sample : batch) {
+			futures.add(manager.execute(
+					new TrainingJob<SAMPLE, DI, MR>(sample.second()),
+					cost(sample.second())));
+		}
+
+		// Merge the results in data order, so the merged update doesn't
+		// depend on the order in which jobs completed.
+		final Set<LexicalEntry<MR>> newEntries = new LinkedHashSet<LexicalEntry<MR>>();
+		final IHashVector batchUpdate = HashVectorFactory.create();
+		int numUpdates = 0;
+		long computeTime = 0;
+		for (int i = 0; i < batch.size(); ++i) {
+			final int itemNumber = batch.get(i).first();
+			final DI dataItem = batch.get(i).second();
+			final JobFuture<TrainingJobResult<MR>> future = futures.get(i);
+
+			// Log sample header
+			LOG.info("%d : ================== [%d]", itemNumber, epochNumber);
+			LOG.info("Sample type: %s", dataItem.getClass().getSimpleName());
+			LOG.info("%s", dataItem);
+
+			final TrainingJobResult<MR> result;
+			try {
+				LOG.info(future.getLog());
+				result = future.get();
+			} catch (final InterruptedException e) {
+				LOG.error("Job failed: %s", e);
+				stats.count("Failed", epochNumber);
+				continue;
+			} catch (final ExecutionException e) {
+				LOG.error("Job failed: %s", e);
+				stats.count("Failed", epochNumber);
+				continue;
+			}
+
+			if (result.modelVersion != version) {
+				throw new IllegalStateException(String.format(
+						"Sample processed with model version %d, expected %d",
+						result.modelVersion, version));
+			}
+
+			// Record statistics.
+			computeTime += result.processingTime;
+			stats.mean("Model parse", result.modelParsingTime / 1000.0, "sec");
+			if (result.genlexParsingTime != null) {
+				stats.mean("genlex parse", result.genlexParsingTime / 1000.0,
+						"sec");
+			}
+			stats.mean("Sample processing", result.processingTime / 1000.0,
+					"sec");
+			if (result.parameterUpdate) {
+				// Record if the output LF equals the available gold LF (if one
+				// is available), otherwise, record using validation signal.
+				if (result.maxSemantics != null
+						&& isGoldDebugCorrect(dataItem, result.maxSemantics)) {
+					stats.appendSampleStat(itemNumber, epochNumber,
+							GOLD_LF_IS_MAX);
+				} else if (result.hasValidParse) {
+					stats.appendSampleStat(itemNumber, epochNumber,
+							HAS_VALID_LF);
+				}
+				if (result.hasValidParse) {
+					stats.count("Valid", epochNumber);
+				}
+			}
+
+			// Merge the update.
+			if (result.update != null) {
+				result.update.addTimesInto(1.0, batchUpdate);
+				++numUpdates;
+				stats.appendSampleStat(itemNumber, epochNumber,
+						TRIGGERED_UPDATE);
+			}
+
+			// Merge lexical entries. Entries generated by multiple samples are
+			// attributed to the first.
+			int newLexicalEntries = 0;
+			for (final LexicalEntry<MR> entry : result.newEntries) {
+				if (!model.getLexicon().contains(entry)
+						&& newEntries.add(entry)) {
+					++newLexicalEntries;
+					LOG.info("Added LexicalEntry to model: %s", entry);
+				}
+			}
+			if (newLexicalEntries > 0) {
+				stats.appendSampleStat(itemNumber, epochNumber,
+						newLexicalEntries);
+			}
+		}
+
+		if (numUpdates == 0 && newEntries.isEmpty()) {
+			LOG.info("Batch didn't modify the model [model version %d]",
+					version);
+			return;
+		}
+
+		// Broadcast the next version of the model. The update is applied to
+		// the local environment as well, which holds the model.
+		batchUpdate.dropNoise();
+		if (!model.isValidWeightVector(batchUpdate)) {
+			throw new IllegalStateException("invalid update: " + batchUpdate);
+		}
+		final ModelUpdate<MR> modelUpdate = new ModelUpdate<MR>(version + 1,
+				new ArrayList<LexicalEntry<MR>>(newEntries),
+				numUpdates == 0 ? null : batchUpdate);
+		LOG.info("Merged %d updates: %s", numUpdates, batchUpdate);
+		LOG.info("Broadcasting %s", modelUpdate);
+		if (!manager.updateEnviroment(environment.updateModel(modelUpdate))) {
+			LOG.error("Failed to update environment");
+		}
+
+		// Log speedup.
+		final long realTotalTime = System.currentTimeMillis() - startTime;
+		LOG.info("Real time: %.3f, compute time: %.3f, speedup: %.3f",
+				realTotalTime / 1000.0, computeTime / 1000.0,
+				computeTime / (double) realTotalTime);
+	}
+
+	/**
+	 * Builder for {@link DistributedValidationPerceptron}.
+	 *
+	 * @author Yoav Artzi
+	 */
+	public static class Builder<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR> {
+
+		/**
+		 * Number of samples processed against each version of the model.
+		 */
+		private int														batchSize						= 100;
+
+		/**
+		 * Required for lexicon learning.
+		 */
+		private ICategoryServices<MR>									categoryServices				= null;
+
+		/**
+		 * Recycle the lexical induction parser output as the pruned one for
+		 * parameter update.
+		 */
+		private boolean													conflateGenlexAndPrunedParses	= false;
+
+		private boolean													errorDriven						= false;
+
+		/**
+		 * GENLEX procedure. If 'null' skips lexicon induction.
+		 */
+		private ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>>	genlex							= null;
+
+		/**
+		 * Use hard updates. Meaning: consider only highest-scored valid parses
+		 * for parameter updates, instead of all valid parses.
+		 */
+		private boolean													hardUpdates						= false;
+
+		/**
+		 * Beam size to use when doing loss sensitive pruning with generated
+		 * lexicon.
+		 */
+		private int														lexiconGenerationBeamSize		= 20;
+
+		private final ReliableManager									manager;
+
+		/** Margin to scale the relative loss function */
+		private double													margin							= 1.0;
+
+		/** Number of training iterations */
+		private int														numIterations					= 4;
+
+		private final IParser<SAMPLE, MR>								parser;
+
+		private IParsingFilterFactory<DI, MR>							parsingFilterFactory			= new StubFilterFactory<DI, MR>();
+
+		/**
+		 * Processing filter, if 'false', skip sample.
+		 */
+		private IFilter<DI>												processingFilter				= e -> true;
+
+		/** Training data */
+		private final IDataCollection<DI>								trainingData;
+
+		/**
+		 * Mapping a subset of training samples into their gold label for debug.
+		 */
+		private Map<DI, MR>												trainingDataDebug				= new HashMap<DI, MR>();
+
+		private final IValidator<DI, MR>								validator;
+
+		public Builder(IDataCollection<DI> trainingData,
+				IParser<SAMPLE, MR> parser, IValidator<DI, MR> validator,
+				ReliableManager manager) {
+			this.trainingData = trainingData;
+			this.parser = parser;
+			this.validator = validator;
+			this.manager = manager;
+		}
+
+		public DistributedValidationPerceptron<SAMPLE, DI, MR> build() {
+			return new DistributedValidationPerceptron<SAMPLE, DI, MR>(
+					numIterations, batchSize, trainingData, trainingDataDebug,
+					processingFilter, manager,
+					new LearnerSetup<SAMPLE, DI, MR>(parser, validator, genlex,
+							categoryServices, parsingFilterFactory, margin,
+							hardUpdates, lexiconGenerationBeamSize,
+							conflateGenlexAndPrunedParses, errorDriven));
+		}
+
+		public Builder<SAMPLE, DI, MR> setBatchSize(int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException(
+						"Batch size must be positive: " + batchSize);
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setConflateGenlexAndPrunedParses(
+				boolean conflateGenlexAndPrunedParses) {
+			this.conflateGenlexAndPrunedParses = conflateGenlexAndPrunedParses;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setErrorDriven(boolean errorDriven) {
+			this.errorDriven = errorDriven;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setGenlex(
+				ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
+				ICategoryServices<MR> categoryServices) {
+			this.genlex = genlex;
+			this.categoryServices = categoryServices;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setHardUpdates(boolean hardUpdates) {
+			this.hardUpdates = hardUpdates;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setLexiconGenerationBeamSize(
+				int lexiconGenerationBeamSize) {
+			this.lexiconGenerationBeamSize = lexiconGenerationBeamSize;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setMargin(double margin) {
+			this.margin = margin;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setNumTrainingIterations(
+				int numTrainingIterations) {
+			this.numIterations = numTrainingIterations;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setParsingFilterFactory(
+				IParsingFilterFactory<DI, MR> parsingFilterFactory) {
+			this.parsingFilterFactory = parsingFilterFactory;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setProcessingFilter(
+				IFilter<DI> processingFilter) {
+			this.processingFilter = processingFilter;
+			return this;
+		}
+
+		public Builder<SAMPLE, DI, MR> setTrainingDataDebug(
+				Map<DI, MR> trainingDataDebug) {
+			this.trainingDataDebug = trainingDataDebug;
+			return this;
+		}
+	}
+
+	public static class Creator<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
+			implements
+			IResourceObjectCreator<DistributedValidationPerceptron<SAMPLE, DI, MR>> {
+
+		private final String type;
+
+		public Creator() {
+			this("learner.validation.perceptron.dist");
+		}
+
+		public Creator(String type) {
+			this.type = type;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public DistributedValidationPerceptron<SAMPLE, DI, MR> create(
+				Parameters params, IResourceRepository repo) {
+
+			final IDataCollection<DI> trainingData = repo
+					.get(params.get("data"));
+
+			final Builder<SAMPLE, DI, MR> builder = new DistributedValidationPerceptron.Builder<SAMPLE, DI, MR>(
+					trainingData,
+					(IParser<SAMPLE, MR>) repo
+							.get(ParameterizedExperiment.PARSER_RESOURCE),
+					(IValidator<DI, MR>) repo.get(params.get("validator")),
+					(ReliableManager) repo.get(params.get("manager")));
+
+			if ("true".equals(params.get("hard"))) {
+				builder.setHardUpdates(true);
+			}
+
+			if (params.contains("genlex")) {
+				builder.setGenlex(
+						(ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>>) repo
+								.get(params.get("genlex")),
+						(ICategoryServices<MR>) repo.get(
+								ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE));
+			}
+
+			if (params.contains("genlexbeam")) {
+				builder.setLexiconGenerationBeamSize(
+						Integer.valueOf(params.get("genlexbeam")));
+			}
+
+			if (params.contains("conflateParses")) {
+				builder.setConflateGenlexAndPrunedParses(
+						"true".equals(params.get("conflateParses")));
+			}
+
+			if (params.contains("errorDriven")) {
+				builder.setErrorDriven(
+						"true".equals(params.get("errorDriven")));
+			}
+
+			if (params.contains("margin")) {
+				builder.setMargin(Double.valueOf(params.get("margin")));
+			}
+
+			if (params.contains("filterFactory")) {
+				builder.setParsingFilterFactory(
+						(IParsingFilterFactory<DI, MR>) repo
+								.get(params.get("filterFactory")));
+			}
+
+			if (params.contains("filter")) {
+				builder.setProcessingFilter(
+						(IFilter<DI>) repo.get(params.get("filter")));
+			}
+
+			if (params.contains("iter")) {
+				builder.setNumTrainingIterations(
+						Integer.valueOf(params.get("iter")));
+			}
+
+			if (params.contains("batch")) {
+				builder.setBatchSize(Integer.valueOf(params.get("batch")));
+			}
+
+			return builder.build();
+		}
+
+		@Override
+		public String type() {
+			return type;
+		}
+
+		@Override
+		public ResourceUsage usage() {
+			return new ResourceUsage.Builder(type(),
+					DistributedValidationPerceptron.class)
+							.setDescription(
+									"Data-parallel validation-based perceptron using TinyDist")
+							.addParam("data", "id", "Training data")
+							.addParam("manager", ReliableManager.class,
+									"TinyDist reliable manager")
+							.addParam("batch", "int",
+									"Number of samples processed in parallel against each version of the model (default: 100)")
+							.addParam("genlex", "ILexiconGenerator",
+									"GENLEX procedure")
+							.addParam("filterFactory",
+									IParsingFilterFactory.class,
+									"Factory to create parsing filters (optional).")
+							.addParam("hard", "boolean",
+									"Use hard updates (i.e., only use max scoring valid parses/evaluation as positive samples). Options: true, false. Default: false")
+							.addParam("genlexbeam", "int",
+									"Beam to use for GENLEX inference (parsing).")
+							.addParam("margin", "double",
+									"Margin to use for updates. Updates will be done when this margin is violated.")
+							.addParam("filter", "IFilter", "Processing filter")
+							.addParam("iter", "int",
+									"Number of training iterations")
+							.addParam("validator", "IValidator",
+									"Validation function")
+							.addParam("conflateParses", "boolean",
+									"Recyle lexical induction parsing output as pruned parsing output")
+							.addParam("errorDriven", "boolean",
+									"Error driven lexical generation, if the can generate a valid parse, skip lexical induction")
+							.build();
+		}
+
+	}
+
+	/**
+	 * The part of the learner that is broadcasted to the workers.
+	 *
+	 * @author Yoav Artzi
+	 */
+	public static class LearnerSetup<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
+			implements Serializable {
+
+		private static final long											serialVersionUID	= 5167734918813720914L;
+		final ICategoryServices<MR>											categoryServices;
+		final boolean														conflateGenlexAndPrunedParses;
+		final boolean														errorDriven;
+		final ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>>		genlex;
+		final boolean														hardUpdates;
+		final int															lexiconGenerationBeamSize;
+		final double														margin;
+		final IParser<SAMPLE, MR>											parser;
+		final IParsingFilterFactory<DI, MR>									parsingFilterFactory;
+		final IValidator<DI, MR>											validator;
+
+		LearnerSetup(IParser<SAMPLE, MR> parser, IValidator<DI, MR> validator,
+				ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
+				ICategoryServices<MR> categoryServices,
+				IParsingFilterFactory<DI, MR> parsingFilterFactory,
+				double margin, boolean hardUpdates,
+				int lexiconGenerationBeamSize,
+				boolean conflateGenlexAndPrunedParses, boolean errorDriven) {
+			this.parser = parser;
+			this.validator = validator;
+			this.genlex = genlex;
+			this.categoryServices = categoryServices;
+			this.parsingFilterFactory = parsingFilterFactory;
+			this.margin = margin;
+			this.hardUpdates = hardUpdates;
+			this.lexiconGenerationBeamSize = lexiconGenerationBeamSize;
+			this.conflateGenlexAndPrunedParses = conflateGenlexAndPrunedParses;
+			this.errorDriven = errorDriven;
+		}
+
+	}
+
+	/**
+	 * Processes a single training sample against the model snapshot of the
+	 * environment. Follows the steps of {@link ValidationPerceptron}, but
+	 * returns the generated lexical entries and the parameter update instead
+	 * of applying them.
+	 *
+	 * @author Yoav Artzi
+	 */
+	protected static class TrainingJob<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
+			implements
+			Function<ValidationPerceptronEnvironment<SAMPLE, DI, MR>, TrainingJobResult<MR>>,
+			Serializable {
+
+		public static final ILogger	LOG					= LoggerFactory
+				.create(TrainingJob.class);
+
+		private static final long	serialVersionUID	= -6164958425367357052L;
+
+		protected final DI			dataItem;
+
+		public TrainingJob(DI dataItem) {
+			this.dataItem = dataItem;
+		}
+
+		@Override
+		public TrainingJobResult<MR> apply(
+				ValidationPerceptronEnvironment<SAMPLE, DI, MR> env) {
+			final long startTime = System.currentTimeMillis();
+			final Model<SAMPLE, MR> model = env.getModel();
+			final LearnerSetup<SAMPLE, DI, MR> setup = env.getSetup();
+			final IDataItemModel<MR> dataItemModel = model
+					.createDataItemModel(dataItem.getSample());
+
+			// ///////////////////////////
+			// Step I: Parse with current model.
+			// ///////////////////////////
+
+			final IParserOutput<MR> parserOutput = setup.parser
+					.parse(dataItem.getSample(), dataItemModel);
+			LOG.info("Model parsing time: %.4fsec",
+					parserOutput.getParsingTime() / 1000.0);
+			LOG.info("Output is %s",
+					parserOutput.isExact() ? "exact" : "approximate");
+			LOG.info("Created %d model parses for training sample",
+					parserOutput.getAllDerivations().size());
+
+			final List<? extends IDerivation<MR>> bestDerivations = parserOutput
+					.getBestDerivations();
+			final MR maxSemantics = bestDerivations.size() == 1
+					? bestDerivations.get(0).getSemantics() : null;
+
+			boolean hasValidParse = false;
+			for (final IDerivation<MR> parse : parserOutput
+					.getAllDerivations()) {
+				if (setup.validator.isValid(dataItem, parse.getSemantics())) {
+					hasValidParse = true;
+					break;
+				}
+			}
+
+			// If has a valid parse, compute the parameter update and return.
+			if (hasValidParse && setup.errorDriven) {
+				return parameterUpdate(env, parserOutput, parserOutput,
+						maxSemantics, Collections.emptyList(), null,
+						startTime);
+			}
+
+			if (setup.genlex == null) {
+				// Skip the example if not doing lexicon learning
+				return new TrainingJobResult<MR>(env.getVersion(), null, false,
+						false, maxSemantics, Collections.emptyList(),
+						parserOutput.getParsingTime(), null,
+						System.currentTimeMillis() - startTime);
+			}
+
+			// ///////////////////////////
+			// Step II: Generate new lexical entries and collect the ones used
+			// by the best valid GENLEX parses.
+			// ///////////////////////////
+
+			final ILexiconImmutable<MR> generatedLexicon = setup.genlex
+					.generate(dataItem, model, setup.categoryServices);
+			LOG.info("Generated lexicon size = %d", generatedLexicon.size());
+
+			final IParserOutput<MR> generationParserOutput;
+			final Set<LexicalEntry<MR>> newEntries = new LinkedHashSet<LexicalEntry<MR>>();
+			if (generatedLexicon.size() > 0) {
+				generationParserOutput = setup.parser.parse(
+						dataItem.getSample(),
+						setup.parsingFilterFactory.create(dataItem),
+						dataItemModel, false, generatedLexicon,
+						setup.lexiconGenerationBeamSize);
+				LOG.info("Lexicon induction parsing time: %.4fsec",
+						generationParserOutput.getParsingTime() / 1000.0);
+				LOG.info("Created %d lexicon generation parses for training sample",
+						generationParserOutput.getAllDerivations().size());
+
+				// Collect max scoring valid generation parses
+				final List<IDerivation<MR>> bestGenerationParses = new LinkedList<IDerivation<MR>>();
+				double currentMaxModelScore = -Double.MAX_VALUE;
+				for (final IDerivation<MR> parse : generationParserOutput
+						.getAllDerivations()) {
+					if (setup.validator.isValid(dataItem,
+							parse.getSemantics())) {
+						if (parse.getScore() > currentMaxModelScore) {
+							currentMaxModelScore = parse.getScore();
+							bestGenerationParses.clear();
+							bestGenerationParses.add(parse);
+						} else if (parse.getScore() == currentMaxModelScore) {
+							bestGenerationParses.add(parse);
+						}
+					}
+				}
+				LOG.info("%d valid best parses for lexical generation",
+						bestGenerationParses.size());
+
+				// Lexical generators might link related lexical entries, so if
+				// we add the original one, we should also add all its linked
+				// ones
+				for (final IDerivation<MR> parse : bestGenerationParses) {
+					for (final LexicalEntry<MR> entry : parse
+							.getMaxLexicalEntries()) {
+						if (setup.genlex.isGenerated(entry)) {
+							newEntries.add(
+									LexiconGenerationServices.unmark(entry));
+							for (final LexicalEntry<MR> linkedEntry : entry
+									.getLinkedEntries()) {
+								newEntries.add(LexiconGenerationServices
+										.unmark(linkedEntry));
+							}
+						}
+					}
+				}
+				LOG.info("Proposing %d lexical entries", newEntries.size());
+			} else {
+				LOG.info("Skipped GENLEX step. No generated lexical items.");
+				generationParserOutput = null;
+			}
+
+			// ///////////////////////////
+			// Step III: Compute the parameter update
+			// ///////////////////////////
+
+			final IParserOutput<MR> goodOutput;
+			if (setup.conflateGenlexAndPrunedParses
+					&& generationParserOutput != null) {
+				goodOutput = generationParserOutput;
+			} else {
+				goodOutput = setup.parser.parse(dataItem.getSample(),
+						setup.parsingFilterFactory.create(dataItem),
+						dataItemModel, false,
+						newEntries.isEmpty() ? null
+								: new Lexicon<MR>(
+										new HashSet<LexicalEntry<MR>>(
+												newEntries)),
+						null);
+				LOG.info("Conditioned parsing time: %.4fsec",
+						goodOutput.getParsingTime() / 1000.0);
+			}
+
+			return parameterUpdate(env, parserOutput, goodOutput, maxSemantics,
+					new ArrayList<LexicalEntry<MR>>(newEntries),
+					generationParserOutput == null ? null
+							: generationParserOutput.getParsingTime(),
+					startTime);
+		}
+
+		private TrainingJobResult<MR> parameterUpdate(
+				ValidationPerceptronEnvironment<SAMPLE, DI, MR> env,
+				IParserOutput<MR> realOutput, IParserOutput<MR> goodOutput,
+				MR maxSemantics, List<LexicalEntry<MR>> newEntries,
+				Long genlexParsingTime, long startTime) {
+			final LearnerSetup<SAMPLE, DI, MR> setup = env.getSetup();
+
+			// Split all parses to valid and invalid sets
+			final Pair<List<IDerivation<MR>>, List<IDerivation<MR>>> validInvalidSetsPair = ValidationPerceptron
+					.createValidInvalidSets(dataItem, realOutput, goodOutput,
+							setup.hardUpdates, setup.validator);
+			final List<IDerivation<MR>> validParses = validInvalidSetsPair
+					.first();
+			final List<IDerivation<MR>> invalidParses = validInvalidSetsPair
+					.second();
+			LOG.info("%d valid parses, %d invalid parses", validParses.size(),
+					invalidParses.size());
+
+			final IHashVector update;
+			if (validParses.isEmpty() || invalidParses.isEmpty()) {
+				LOG.info("No valid/invalid parses -- skipping");
+				update = null;
+			} else {
+				// Construct margin violating sets
+				final Pair<List<IDerivation<MR>>, List<IDerivation<MR>>> marginViolatingSets = ValidationPerceptron
+						.marginViolatingSets(env.getModel(), setup.margin,
+								validParses, invalidParses);
+				LOG.info(
+						"%d violating valid parses, %d violating invalid parses",
+						marginViolatingSets.first().size(),
+						marginViolatingSets.second().size());
+				if (marginViolatingSets.first().isEmpty()) {
+					LOG.info(
+							"There are no violating valid/invalid parses -- skipping");
+					update = null;
+				} else {
+					update = ValidationPerceptron.constructUpdate(
+							marginViolatingSets.first(),
+							marginViolatingSets.second(), env.getModel());
+					Tracer.infoOrLog(LOG, "Update: %s", update);
+				}
+			}
+
+			return new TrainingJobResult<MR>(env.getVersion(), update, true,
+					!validParses.isEmpty(), maxSemantics, newEntries,
+					realOutput.getParsingTime(), genlexParsingTime,
+					System.currentTimeMillis() - startTime);
+		}
+
+	}
+
+	protected static class TrainingJobResult<MR> implements Serializable {
+
+		private static final long				serialVersionUID	= 2993508926962616740L;
+		private final Long						genlexParsingTime;
+		private final boolean					hasValidParse;
+		private final MR						maxSemantics;
+		private final long						modelParsingTime;
+		private final int						modelVersion;
+		private final List<LexicalEntry<MR>>	newEntries;
+		private final boolean					parameterUpdate;
+		private final long						processingTime;
+		private final IHashVector				update;
+
+		public TrainingJobResult(int modelVersion, IHashVector update,
+				boolean parameterUpdate, boolean hasValidParse,
+				MR maxSemantics, List<LexicalEntry<MR>> newEntries,
+				long modelParsingTime, Long genlexParsingTime,
+				long processingTime) {
+			this.modelVersion = modelVersion;
+			this.update = update;
+			this.parameterUpdate = parameterUpdate;
+			this.hasValidParse = hasValidParse;
+			this.maxSemantics = maxSemantics;
+			this.newEntries = newEntries;
+			this.modelParsingTime = modelParsingTime;
+			this.genlexParsingTime = genlexParsingTime;
+			this.processingTime = processingTime;
+		}
+
+	}
+
+}
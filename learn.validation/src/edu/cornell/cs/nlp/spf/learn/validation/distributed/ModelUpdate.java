@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn.validation.distributed;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+/**
+ * A single version step of a distributed model: new lexical entries and a
+ * parameter update. The same update is applied by the master and by all
+ * workers, so all copies of the model remain identical.
+ *
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class ModelUpdate<MR> implements Serializable {
+
+	private static final long				serialVersionUID	= -3903518386471286120L;
+
+	/**
+	 * Lexical entries to add. Entries are added before the parameter update,
+	 * and in order, so lexical feature initialization is identical across all
+	 * copies.
+	 */
+	private final List<LexicalEntry<MR>>	entries;
+
+	/**
+	 * Parameter update. If 'null', only update the lexicon.
+	 */
+	private final IHashVector				update;
+
+	/**
+	 * The model version created by applying this update.
+	 */
+	private final int						version;
+
+	public ModelUpdate(int version, List<LexicalEntry<MR>> entries,
+			IHashVector update) {
+		this.version = version;
+		this.entries = Collections.unmodifiableList(entries);
+		this.update = update;
+	}
+
+	public void apply(Model<?, MR> model) {
+		for (final LexicalEntry<MR> entry : entries) {
+			model.addLexEntry(entry);
+		}
+		if (update != null) {
+			model.updateTheta(theta -> update.addTimesInto(1.0, theta));
+		}
+	}
+
+	public List<LexicalEntry<MR>> getEntries() {
+		return entries;
+	}
+
+	public IHashVector getUpdate() {
+		return update;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[version=%d, entries=%d, updateSize=%d]",
+				ModelUpdate.class.getSimpleName(), version, entries.size(),
+				update == null ? 0 : update.size());
+	}
+
+}
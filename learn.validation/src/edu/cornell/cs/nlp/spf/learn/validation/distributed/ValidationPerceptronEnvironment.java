@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn.validation.distributed;
+
+import edu.cornell.cs.nlp.spf.data.IDataItem;
+import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
+import edu.cornell.cs.nlp.spf.learn.validation.distributed.DistributedValidationPerceptron.LearnerSetup;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.reliabledist.AbstractEnvironment;
+import edu.cornell.cs.nlp.spf.reliabledist.EnvironmentConfig;
+
+/**
+ * Environment for {@link DistributedValidationPerceptron}. Holds a snapshot of
+ * the model and the learner setup. The model is versioned: each
+ * {@link ModelUpdate} moves it to the next version.
+ *
+ * @author Yoav Artzi
+ * @param <SAMPLE>
+ *            Data item to use for inference.
+ * @param <DI>
+ *            Data item for learning.
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class ValidationPerceptronEnvironment<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
+		extends AbstractEnvironment {
+
+	private static final long				serialVersionUID	= -4569262412018016521L;
+	private Model<SAMPLE, MR>				model				= null;
+	private LearnerSetup<SAMPLE, DI, MR>	setup				= null;
+	private int								version				= 0;
+
+	public Model<SAMPLE, MR> getModel() {
+		return model;
+	}
+
+	public LearnerSetup<SAMPLE, DI, MR> getSetup() {
+		return setup;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public EnvironmentConfig<LearnerSetup<SAMPLE, DI, MR>> updateLearnerSetup(
+			LearnerSetup<SAMPLE, DI, MR> newSetup) {
+		return new EnvironmentConfig<>("setup", newSetup);
+	}
+
+	public EnvironmentConfig<Model<SAMPLE, MR>> updateModel(
+			Model<SAMPLE, MR> newModel) {
+		return new EnvironmentConfig<>("model", newModel);
+	}
+
+	public EnvironmentConfig<ModelUpdate<MR>> updateModel(
+			ModelUpdate<MR> modelUpdate) {
+		return new EnvironmentConfig<>("modelUpdate", modelUpdate);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void applyUpdate(EnvironmentConfig<?> update) {
+		switch (update.getKey()) {
+			case "model":
+				model = (Model<SAMPLE, MR>) update.getValue();
+				version = 0;
+				break;
+			case "setup":
+				setup = (LearnerSetup<SAMPLE, DI, MR>) update.getValue();
+				break;
+			case "modelUpdate":
+				final ModelUpdate<MR> modelUpdate = (ModelUpdate<MR>) update
+						.getValue();
+				if (modelUpdate.getVersion() != version + 1) {
+					throw new IllegalStateException(String.format(
+							"Model update out of order: current version=%d, update version=%d",
+							version, modelUpdate.getVersion()));
+				}
+				modelUpdate.apply(model);
+				version = modelUpdate.getVersion();
+				break;
+		}
+	}
+
+}
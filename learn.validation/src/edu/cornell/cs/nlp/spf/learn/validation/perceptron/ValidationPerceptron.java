@@ -26,6 +26,7 @@ import java.util.function.Predicate;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
 import edu.cornell.cs.nlp.spf.data.IDataItem;
@@ -38,6 +39,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.learn.validation.AbstractLearner;
 import edu.cornell.cs.nlp.spf.parser.IDerivation;
 import edu.cornell.cs.nlp.spf.parser.IOutputLogger;
@@ -104,11 +106,13 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
 			double margin, boolean hardUpdates, IValidator<DI, MR> validator,
 			IFilter<DI> processingFilter,
-			IParsingFilterFactory<DI, MR> parsingFilterFactory) {
+			IParsingFilterFactory<DI, MR> parsingFilterFactory,
+			ValidationCache<DI, MR> validationCache) {
 		super(numIterations, trainingData, trainingDataDebug,
 				lexiconGenerationBeamSize, parserOutputLogger,
 				conflateGenlexAndPrunedParses, errorDriven, categoryServices,
-				genlex, processingFilter, parsingFilterFactory);
+				genlex, processingFilter, parsingFilterFactory,
+				validationCache);
 		this.margin = margin;
 		this.parser = parser;
 		this.hardUpdates = hardUpdates;
@@ -125,9 +129,14 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 				errorDriven ? "true" : "false");
 		LOG.info("Init ValidationStocGrad: ... parsingFilterFactory=%s",
 				parsingFilterFactory);
+		LOG.info("Init ValidationStocGrad: ... validationCache=%s",
+				validationCache);
 	}
 
-	private static <MR, P extends IDerivation<MR>, MODEL extends IModelImmutable<?, MR>> IHashVector constructUpdate(
+	/**
+	 * Construct the parameter update from the margin violating sets.
+	 */
+	public static <MR, P extends IDerivation<MR>, MODEL extends IModelImmutable<?, MR>> IHashVector constructUpdate(
 			List<P> violatingValidParses, List<P> violatingInvalidParses,
 			MODEL model) {
 		// Create the parameter update
@@ -156,7 +165,10 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 		return update;
 	}
 
-	private static <LF, P extends IDerivation<LF>, MODEL extends IModelImmutable<?, LF>> Pair<List<P>, List<P>> marginViolatingSets(
+	/**
+	 * Construct the margin violating sets of valid and invalid parses.
+	 */
+	public static <LF, P extends IDerivation<LF>, MODEL extends IModelImmutable<?, LF>> Pair<List<P>, List<P>> marginViolatingSets(
 			MODEL model, double margin, List<P> validParses,
 			List<P> invalidParses) {
 		// Construct margin violating sets
@@ -224,25 +236,24 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 	/**
 	 * Collect valid and invalid parses.
 	 *
-	 * @param dataItem
-	 * @param realOutput
-	 * @param goodOutput
-	 * @return
+	 * @param hardUpdates
+	 *            Only keep the highest scoring valid parses.
 	 */
-	private Pair<List<IDerivation<MR>>, List<IDerivation<MR>>> createValidInvalidSets(
-			DI dataItem, IParserOutput<MR> realOutput,
-			IParserOutput<MR> goodOutput) {
+	public static <D extends IDataItem<?>, LF> Pair<List<IDerivation<LF>>, List<IDerivation<LF>>> createValidInvalidSets(
+			D dataItem, IParserOutput<LF> realOutput,
+			IParserOutput<LF> goodOutput, boolean hardUpdates,
+			IValidator<D, LF> validator) {
 
-		final List<IDerivation<MR>> validParses = new LinkedList<IDerivation<MR>>();
-		final List<IDerivation<MR>> invalidParses = new LinkedList<IDerivation<MR>>();
+		final List<IDerivation<LF>> validParses = new LinkedList<IDerivation<LF>>();
+		final List<IDerivation<LF>> invalidParses = new LinkedList<IDerivation<LF>>();
 
 		// Track invalid parses, so we won't aggregate a parse more than once --
 		// this is an approximation, but it's a best effort
-		final Set<IDerivation<MR>> invalidSemantics = new HashSet<IDerivation<MR>>();
+		final Set<IDerivation<LF>> invalidSemantics = new HashSet<IDerivation<LF>>();
 
 		// Collect invalid parses from readlOutput
-		for (final IDerivation<MR> parse : realOutput.getAllDerivations()) {
-			if (!validate(dataItem, parse.getSemantics())) {
+		for (final IDerivation<LF> parse : realOutput.getAllDerivations()) {
+			if (!validator.isValid(dataItem, parse.getSemantics())) {
 				invalidParses.add(parse);
 				invalidSemantics.add(parse);
 			}
@@ -250,8 +261,8 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 
 		// Collect valid and invalid parses from goodOutput
 		double validScore = -Double.MAX_VALUE;
-		for (final IDerivation<MR> parse : goodOutput.getAllDerivations()) {
-			if (validate(dataItem, parse.getSemantics())) {
+		for (final IDerivation<LF> parse : goodOutput.getAllDerivations()) {
+			if (validator.isValid(dataItem, parse.getSemantics())) {
 				if (hardUpdates) {
 					// Case using hard updates, only keep the highest scored
 					// valid ones
@@ -282,7 +293,8 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 
 		// Split all parses to valid and invalid sets
 		final Pair<List<IDerivation<MR>>, List<IDerivation<MR>>> validInvalidSetsPair = createValidInvalidSets(
-				dataItem, realOutput, goodOutput);
+				dataItem, realOutput, goodOutput, hardUpdates,
+				(d, l) -> isValid(itemCounter, d, l));
 		final List<IDerivation<MR>> validParses = validInvalidSetsPair.first();
 		final List<IDerivation<MR>> invalidParses = validInvalidSetsPair
 				.second();
@@ -341,8 +353,8 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 				violatingInvalidParses, model);
 
 		// Update the parameters vector
-		LOG.info("Update: %s", update);
-		update.addTimesInto(1.0, model.getTheta());
+		Tracer.infoOrLog(LOG, "Update: %s", update);
+		model.updateTheta(theta -> update.addTimesInto(1.0, theta));
 		stats.appendSampleStat(itemCounter, epochNumber, TRIGGERED_UPDATE);
 	}
 
@@ -432,6 +444,12 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 																										};
 
 		private IParsingFilterFactory<DI, MR>							parsingFilterFactory			= new StubFilterFactory<DI, MR>();
+
+		/**
+		 * Keep the validation cache across epochs.
+		 */
+		private boolean													persistValidationCache			= false;
+
 		/**
 		 * Processing filter, if 'false', skip sample.
 		 */
@@ -445,6 +463,11 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 		 */
 		private Map<DI, MR>												trainingDataDebug				= new HashMap<DI, MR>();
 
+		/**
+		 * Maximum size of the validation cache. If 0, the cache is disabled.
+		 */
+		private int														validationCacheSize				= ValidationCache.DEFAULT_SIZE;
+
 		private final IValidator<DI, MR>								validator;
 
 		public Builder(IDataCollection<DI> trainingData,
@@ -459,7 +482,9 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 					trainingData, trainingDataDebug, lexiconGenerationBeamSize,
 					parser, parserOutputLogger, conflateGenlexAndPrunedParses,
 					errorDriven, categoryServices, genlex, margin, hardUpdates,
-					validator, processingFilter, parsingFilterFactory);
+					validator, processingFilter, parsingFilterFactory,
+					new ValidationCache<DI, MR>(validationCacheSize,
+							persistValidationCache));
 		}
 
 		public Builder<SAMPLE, DI, MR> setConflateGenlexAndPrunedParses(
@@ -526,6 +551,13 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 			this.trainingDataDebug = trainingDataDebug;
 			return this;
 		}
+
+		public Builder<SAMPLE, DI, MR> setValidationCache(int size,
+				boolean persistent) {
+			this.validationCacheSize = size;
+			this.persistValidationCache = persistent;
+			return this;
+		}
 	}
 
 	public static class Creator<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
@@ -608,6 +640,11 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 						Integer.valueOf(params.get("iter")));
 			}
 
+			builder.setValidationCache(
+					params.getAsInteger("validCache",
+							ValidationCache.DEFAULT_SIZE),
+					params.getAsBoolean("validCachePersist", false));
+
 			return builder.build();
 		}
 
@@ -641,6 +678,11 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 							"Recyle lexical induction parsing output as pruned parsing output")
 					.addParam("errorDriven", "boolean",
 							"Error driven lexical generation, if the can generate a valid parse, skip lexical induction")
+					.addParam("validCache", "int",
+							"Maximum size of the validation cache, 0 to disable (default: "
+									+ ValidationCache.DEFAULT_SIZE + ")")
+					.addParam("validCachePersist", "boolean",
+							"Keep the validation cache across epochs (default: false)")
 					.build();
 		}
 
@@ -22,6 +22,7 @@ import java.util.function.Predicate;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
@@ -35,6 +36,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.genlex.ccg.ILexiconGenerator;
+import edu.cornell.cs.nlp.spf.learn.ValidationCache;
 import edu.cornell.cs.nlp.spf.learn.validation.AbstractLearner;
 import edu.cornell.cs.nlp.spf.learn.validation.perceptron.ValidationPerceptron;
 import edu.cornell.cs.nlp.spf.parser.IOutputLogger;
@@ -92,11 +94,13 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			boolean errorDriven, ICategoryServices<MR> categoryServices,
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
 			IFilter<DI> processingFilter,
-			IParsingFilterFactory<DI, MR> parsingFilterFactory) {
+			IParsingFilterFactory<DI, MR> parsingFilterFactory,
+			ValidationCache<DI, MR> validationCache) {
 		super(numIterations, trainingData, trainingDataDebug,
 				lexiconGenerationBeamSize, parserOutputLogger,
 				conflateGenlexAndPrunedParses, errorDriven, categoryServices,
-				genlex, processingFilter, parsingFilterFactory);
+				genlex, processingFilter, parsingFilterFactory,
+				validationCache);
 		this.parser = parser;
 		this.alpha0 = alpha0;
 		this.c = c;
@@ -114,6 +118,8 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		LOG.info("Init ValidationStocGrad: ... c=%f, alpha0=%f", c, alpha0);
 		LOG.info("Init ValidationStocGrad: ... parsingFilterFactory=%s",
 				parsingFilterFactory);
+		LOG.info("Init ValidationStocGrad: ... validationCache=%s",
+				validationCache);
 	}
 
 	@Override
@@ -134,8 +140,8 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		// Step A: Compute the positive half of the update: conditioned on
 		// getting successful validation
 
-		final IFilter<Category<MR>> filter = e -> validate(dataItem,
-				e.getSemantics());
+		final IFilter<Category<MR>> filter = e -> isValid(itemCounter,
+				dataItem, e.getSemantics());
 
 		final double logConditionedNorm = goodOutput.logNorm(filter);
 		if (logConditionedNorm == Double.NEGATIVE_INFINITY) {
@@ -164,7 +170,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 				stats.appendSampleStat(itemCounter, epochNumber, HAS_VALID_LF);
 			}
 
-			LOG.info("Positive update: %s", expectedFeatures);
+			Tracer.infoOrLog(LOG, "Positive update: %s", expectedFeatures);
 		}
 
 		// Step B: Compute the negative half of the update: expectation under
@@ -180,7 +186,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			expectedFeatures.applyFunction(value -> Math.exp(value));
 			expectedFeatures.dropNoise();
 			expectedFeatures.addTimesInto(-1.0, update);
-			LOG.info("Negative update: %s", expectedFeatures);
+			Tracer.infoOrLog(LOG, "Negative update: %s", expectedFeatures);
 		}
 
 		// Step C: Apply the update
@@ -200,7 +206,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			LOG.info("No update");
 			return;
 		} else {
-			LOG.info("Update: %s", update);
+			Tracer.infoOrLog(LOG, "Update: %s", update);
 		}
 
 		// Check for NaNs and super large updates
@@ -214,7 +220,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 						update, logNorm, model.getTheta().printValues(update));
 			}
 			// Do the update
-			update.addTimesInto(1, model.getTheta());
+			model.updateTheta(theta -> update.addTimesInto(1, theta));
 			stats.appendSampleStat(itemCounter, epochNumber, TRIGGERED_UPDATE);
 		}
 	}
@@ -317,6 +323,11 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 
 		private IParsingFilterFactory<DI, MR>							parsingFilterFactory			= new StubFilterFactory<DI, MR>();
 
+		/**
+		 * Keep the validation cache across epochs.
+		 */
+		private boolean													persistValidationCache			= false;
+
 		/** Training data */
 		private final IDataCollection<DI>								trainingData;
 
@@ -325,6 +336,11 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		 */
 		private Map<DI, MR>												trainingDataDebug				= new HashMap<DI, MR>();
 
+		/**
+		 * Maximum size of the validation cache. If 0, the cache is disabled.
+		 */
+		private int														validationCacheSize				= ValidationCache.DEFAULT_SIZE;
+
 		private final IValidator<DI, MR>								validator;
 
 		public Builder(IDataCollection<DI> trainingData,
@@ -340,7 +356,8 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 					lexiconGenerationBeamSize, parser, parserOutputLogger,
 					alpha0, c, validator, conflateGenlexAndPrunedParses,
 					errorDriven, categoryServices, genlex, filter,
-					parsingFilterFactory);
+					parsingFilterFactory, new ValidationCache<DI, MR>(
+							validationCacheSize, persistValidationCache));
 		}
 
 		public Builder<SAMPLE, DI, MR> setAlpha0(double alpha0) {
@@ -406,6 +423,13 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			return this;
 		}
 
+		public Builder<SAMPLE, DI, MR> setValidationCache(int size,
+				boolean persistent) {
+			this.validationCacheSize = size;
+			this.persistValidationCache = persistent;
+			return this;
+		}
+
 	}
 
 	public static class Creator<SAMPLE extends IDataItem<SAMPLE>, DI extends ILabeledDataItem<SAMPLE, ?>, MR>
@@ -487,6 +511,11 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 						"true".equals(params.get("conflateParses")));
 			}
 
+			builder.setValidationCache(
+					params.getAsInteger("validCache",
+							ValidationCache.DEFAULT_SIZE),
+					params.getAsBoolean("validCachePersist", false));
+
 			return builder.build();
 		}
 
@@ -521,6 +550,11 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 							"Learing rate alpha0 parameter, temperature=alpha_0/(1+c*tot_number_of_training_instances)")
 					.addParam("errorDriven", "boolean",
 							"Error driven lexical generation, if the can generate a valid parse, skip lexical induction")
+					.addParam("validCache", "int",
+							"Maximum size of the validation cache, 0 to disable (default: "
+									+ ValidationCache.DEFAULT_SIZE + ")")
+					.addParam("validCachePersist", "boolean",
+							"Keep the validation cache across epochs (default: false)")
 					.build();
 		}
 
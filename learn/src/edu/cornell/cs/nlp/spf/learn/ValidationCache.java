@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.cornell.cs.nlp.spf.data.IDataItem;
+import edu.cornell.cs.nlp.spf.data.utils.IValidator;
+
+/**
+ * Memoizes the validation oracle of a learner. Entries are keyed by the index
+ * of the data item in the training data and the validated label (e.g., a
+ * logical form, or an execution result), so the label type must implement
+ * equality and hashing in a way that respects validation. The oracle is
+ * assumed to be deterministic. When the cache reaches its maximum size, it's
+ * cleared. Unless persistent, the cache is also cleared at the end of each
+ * epoch, so it only saves repeated validations within an epoch (e.g., when
+ * filtering the complete derivations of a chart more than once).
+ *
+ * @author Yoav Artzi
+ * @param <DI>
+ *            Data item.
+ * @param <LABEL>
+ *            Validated label.
+ */
+public class ValidationCache<DI extends IDataItem<?>, LABEL> {
+
+	public static final int					DEFAULT_SIZE	= 100000;
+
+	private static final String				HITS_STAT		= "Validation cache hits";
+	private static final String				MISSES_STAT		= "Validation cache misses";
+
+	private final Map<Key<LABEL>, Boolean>	entries			= new ConcurrentHashMap<Key<LABEL>, Boolean>();
+
+	/**
+	 * Hits since the end of the last epoch.
+	 */
+	private final LongAdder					hits			= new LongAdder();
+
+	/**
+	 * Misses since the end of the last epoch. Includes all validations when
+	 * the cache is disabled.
+	 */
+	private final LongAdder					misses			= new LongAdder();
+
+	/**
+	 * Keep the cache across epochs.
+	 */
+	private final boolean					persistent;
+
+	/**
+	 * Maximum number of entries. If 0, the cache is disabled.
+	 */
+	private final int						size;
+
+	public ValidationCache(int size, boolean persistent) {
+		this.size = size;
+		this.persistent = persistent;
+	}
+
+	/**
+	 * Record the counters of the epoch in the learning stats, and reset them.
+	 * Unless the cache is persistent, clear it.
+	 */
+	public void endEpoch(LearningStats stats, int epochNumber) {
+		stats.count(HITS_STAT, (int) hits.sumThenReset(), epochNumber);
+		stats.count(MISSES_STAT, (int) misses.sumThenReset(), epochNumber);
+		if (!persistent) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * @param itemNumber
+	 *            The index of the data item in the training data.
+	 * @param oracle
+	 *            Validation oracle. Called if the label of the data item is
+	 *            not cached.
+	 */
+	public boolean isValid(int itemNumber, DI dataItem, LABEL label,
+			IValidator<DI, LABEL> oracle) {
+		if (size <= 0) {
+			misses.increment();
+			return oracle.isValid(dataItem, label);
+		}
+
+		final Key<LABEL> key = new Key<LABEL>(itemNumber, label);
+		final Boolean cached = entries.get(key);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+
+		misses.increment();
+		final boolean valid = oracle.isValid(dataItem, label);
+		if (entries.size() >= size) {
+			entries.clear();
+		}
+		entries.put(key, valid);
+		return valid;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s [size=%d, persistent=%s]",
+				ValidationCache.class.getSimpleName(), size, persistent);
+	}
+
+	private static class Key<LABEL> {
+		private final int	hashCode;
+		private final int	itemNumber;
+		private final LABEL	label;
+
+		public Key(int itemNumber, LABEL label) {
+			this.itemNumber = itemNumber;
+			this.label = label;
+			this.hashCode = 31 * itemNumber + Objects.hashCode(label);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key<?> other = (Key<?>) obj;
+			return itemNumber == other.itemNumber
+					&& Objects.equals(label, other.label);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
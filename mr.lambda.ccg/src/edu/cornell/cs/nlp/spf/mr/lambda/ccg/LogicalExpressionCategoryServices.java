@@ -24,7 +24,7 @@ import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
-import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ApplyAndSimplify;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.BetaReduce;
 import edu.cornell.cs.nlp.spf.mr.lambda.visitor.IsTypeConsistent;
 import edu.cornell.cs.nlp.spf.mr.lambda.visitor.Simplify;
 import edu.cornell.cs.nlp.spf.mr.language.type.ComplexType;
@@ -61,8 +61,8 @@ public class LogicalExpressionCategoryServices extends
 		final LogicalExpression result;
 
 		// Combined application and simplification
-		final LogicalExpression applicationResult = ApplyAndSimplify.of(
-				function, argument);
+		final LogicalExpression applicationResult = BetaReduce.of(function,
+				argument);
 		// Verify application result is well typed, only if verification is
 		// turned on
 		if (applicationResult != null && doTypeChecking
@@ -114,11 +114,9 @@ public class LogicalExpressionCategoryServices extends
 		final Variable x = new Variable(LogicLanguageServices
 				.getTypeRepository().generalizeType(gType.getDomain()));
 
-		final LogicalExpression gBodyWithNewVar = ApplyAndSimplify.of(currentG,
-				x);
+		final LogicalExpression gBodyWithNewVar = BetaReduce.of(currentG, x);
 		if (gBodyWithNewVar != null) {
-			final LogicalExpression newbody = ApplyAndSimplify.of(f,
-					gBodyWithNewVar);
+			final LogicalExpression newbody = BetaReduce.of(f, gBodyWithNewVar);
 			if (newbody != null) {
 				final LogicalExpression newComposedExp = new Lambda(x, newbody);
 				// Do type checking, if verification is turned on
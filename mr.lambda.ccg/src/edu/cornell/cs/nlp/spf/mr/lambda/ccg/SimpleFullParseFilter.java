@@ -16,6 +16,7 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.mr.lambda.ccg;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,9 +36,10 @@ import edu.cornell.cs.nlp.utils.filter.IFilter;
  *
  * @author Yoav Artzi
  */
-public class SimpleFullParseFilter implements
-		IFilter<Category<LogicalExpression>> {
+public class SimpleFullParseFilter
+		implements IFilter<Category<LogicalExpression>>, Serializable {
 
+	private static final long	serialVersionUID	= -2203948187313437641L;
 	private final Set<Syntax>	fullSentenceSyntaxes;
 
 	public SimpleFullParseFilter(Set<Syntax> fullSentenceSyntaxes) {
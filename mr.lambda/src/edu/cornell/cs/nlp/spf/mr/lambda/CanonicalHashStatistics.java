@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the use of {@link LogicalExpression#canonicalHash()} in
+ * {@link LogicLanguageServices#isEqual(LogicalExpression, LogicalExpression)}
+ * . Thread safe.
+ *
+ * @author Yoav Artzi
+ */
+public class CanonicalHashStatistics {
+
+	/**
+	 * Comparisons of non-identical expressions that checked the canonical
+	 * hash.
+	 */
+	private final LongAdder	comparisons	= new LongAdder();
+
+	/**
+	 * Comparisons of expressions with equal canonical hashes that the
+	 * comparator found to be different.
+	 */
+	private final LongAdder	collisions	= new LongAdder();
+
+	/**
+	 * Comparisons decided by the canonical hash, without calling the
+	 * comparator.
+	 */
+	private final LongAdder	rejections	= new LongAdder();
+
+	CanonicalHashStatistics() {
+		// Package private, accessed through LogicLanguageServices.
+	}
+
+	public long getCollisions() {
+		return collisions.sum();
+	}
+
+	public long getComparisons() {
+		return comparisons.sum();
+	}
+
+	public long getRejections() {
+		return rejections.sum();
+	}
+
+	public void reset() {
+		comparisons.reset();
+		collisions.reset();
+		rejections.reset();
+	}
+
+	@Override
+	public String toString() {
+		final long numComparisons = comparisons.sum();
+		final long numRejections = rejections.sum();
+		final long numCollisions = collisions.sum();
+		return String.format(
+				"comparisons=%d, rejections=%d (%.2f%%), collisions=%d (%.2f%%)",
+				numComparisons, numRejections,
+				numComparisons == 0 ? 0.0 : 100.0 * numRejections
+						/ numComparisons, numCollisions,
+				numComparisons == 0 ? 0.0 : 100.0 * numCollisions
+						/ numComparisons);
+	}
+
+	void recordCollision() {
+		collisions.increment();
+	}
+
+	void recordComparison() {
+		comparisons.increment();
+	}
+
+	void recordRejection() {
+		rejections.increment();
+	}
+
+}
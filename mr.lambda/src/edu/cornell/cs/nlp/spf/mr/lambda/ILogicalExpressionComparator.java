@@ -20,5 +20,15 @@ import edu.cornell.cs.nlp.utils.compare.IBooleanComparator;
 
 public interface ILogicalExpressionComparator extends
 		IBooleanComparator<LogicalExpression> {
-	// Interface to specify generic type only. No content.
+
+	/**
+	 * 'true' iff expressions that are equal according to this comparator
+	 * always have equal canonical hashes (see
+	 * {@link LogicalExpression#canonicalHash()}). If so, the canonical hash is
+	 * used to quickly reject non-equal expressions before calling the
+	 * comparator.
+	 */
+	default boolean isCanonicalHashConsistent() {
+		return false;
+	}
 }
@@ -21,6 +21,7 @@ import it.unimi.dsi.fastutil.objects.ReferenceSet;
 import it.unimi.dsi.fastutil.objects.ReferenceSets;
 
 import java.io.StringReader;
+import java.util.List;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.base.LispReader;
@@ -160,6 +161,31 @@ public class Lambda extends LogicalExpression {
 		return freeVariables.size();
 	}
 
+	@Override
+	protected long calcCanonicalHash(List<Variable> boundVariables) {
+		boundVariables.add(argument);
+		final long bodyHash = body.canonicalHash(boundVariables);
+		boundVariables.remove(boundVariables.size() - 1);
+		return mixHash(mixHash(mixHash(4L, type.hashCode()), argument
+				.getType().hashCode()), bodyHash);
+	}
+
+	@Override
+	protected long calcConstantsFingerprint() {
+		return body.constantsFingerprint();
+	}
+
+	@Override
+	protected int calcDepth() {
+		return body.depth() + 1;
+	}
+
+	@Override
+	protected int calcSize() {
+		// The lambda operator, its argument and the body.
+		return body.size() + 2;
+	}
+
 	@Override
 	protected boolean doEquals(LogicalExpression exp,
 			ScopeMapping<Variable, Variable> mapping) {
@@ -377,6 +377,61 @@ public class Literal extends LogicalExpression {
 		return freeVariables.size();
 	}
 
+	@Override
+	protected long calcCanonicalHash(List<Variable> boundVariables) {
+		long hash = mixHash(
+				mixHash(mixHash(5L, type.hashCode()), arguments.length),
+				predicate.canonicalHash(boundVariables));
+		if (getPredicateType().isOrderSensitive()) {
+			for (int i = 0; i < arguments.length; ++i) {
+				hash = mixHash(hash,
+						arguments[i].canonicalHash(boundVariables));
+			}
+		} else {
+			// Order-insensitive combination of the argument hashes.
+			long sum = 0L;
+			long xor = 0L;
+			for (int i = 0; i < arguments.length; ++i) {
+				final long argHash = arguments[i]
+						.canonicalHash(boundVariables);
+				sum += argHash;
+				xor ^= argHash;
+			}
+			hash = mixHash(mixHash(hash, sum), xor);
+		}
+		return hash;
+	}
+
+	@Override
+	protected long calcConstantsFingerprint() {
+		long fingerprint = predicate.constantsFingerprint();
+		for (int i = 0; i < arguments.length; ++i) {
+			fingerprint |= arguments[i].constantsFingerprint();
+		}
+		return fingerprint;
+	}
+
+	@Override
+	protected int calcDepth() {
+		int maxDepth = predicate.depth();
+		for (int i = 0; i < arguments.length; ++i) {
+			final int argDepth = arguments[i].depth();
+			if (argDepth > maxDepth) {
+				maxDepth = argDepth;
+			}
+		}
+		return maxDepth + 1;
+	}
+
+	@Override
+	protected int calcSize() {
+		int size = predicate.size() + 1;
+		for (int i = 0; i < arguments.length; ++i) {
+			size += arguments[i].size();
+		}
+		return size;
+	}
+
 	@Override
 	protected boolean doEquals(LogicalExpression exp,
 			ScopeMapping<Variable, Variable> mapping) {
@@ -71,6 +71,8 @@ public class LogicLanguageServices {
 	 */
 	private final Set<LogicalConstant>							collapsibleConstants				= new HashSet<LogicalConstant>();
 
+	private final CanonicalHashStatistics						canonicalHashStatistics				= new CanonicalHashStatistics();
+
 	private final ILogicalExpressionComparator					comparator;
 	private final LogicalConstant								conjunctionPredicate;
 	private final LogicalConstant								disjunctionPredicate;
@@ -94,6 +96,12 @@ public class LogicLanguageServices {
 
 	private final LogicalConstant								trueConstant;
 
+	/**
+	 * Use {@link LogicalExpression#canonicalHash()} to reject non-equal
+	 * expressions before calling the comparator.
+	 */
+	private final boolean										useCanonicalHash;
+
 	/**
 	 * A special comparator for types that allows comparing types for various
 	 * cases, such as comparing the type of an argument to the signature type.
@@ -115,6 +123,7 @@ public class LogicLanguageServices {
 		this.ontology = ontology;
 		this.printer = printer;
 		this.comparator = comparator;
+		this.useCanonicalHash = comparator.isCanonicalHashConsistent();
 		this.numeralType = numeralTypeName == null ? null : typeRepository
 				.getType(numeralTypeName);
 		this.typeComparator = typeComparator;
@@ -141,6 +150,14 @@ public class LogicLanguageServices {
 		this.collapsibleConstants.add(falseConstant);
 	}
 
+	/**
+	 * Statistics of the use of canonical hashes to compare logical expressions.
+	 * See {@link #isEqual(LogicalExpression, LogicalExpression)}.
+	 */
+	public static CanonicalHashStatistics getCanonicalHashStatistics() {
+		return INSTANCE.canonicalHashStatistics;
+	}
+
 	public static ILogicalExpressionComparator getComparator() {
 		return INSTANCE.comparator;
 	}
@@ -286,17 +303,31 @@ public class LogicLanguageServices {
 			return true;
 		}
 
+		// If the comparator is consistent with the canonical hash, expressions
+		// with different canonical hashes are not equal. Most importantly,
+		// this avoids the comparison of expressions that differ only in the
+		// positions of their variables, which hashCode() ignores.
+		if (INSTANCE.useCanonicalHash) {
+			INSTANCE.canonicalHashStatistics.recordComparison();
+			if (e1.canonicalHash() != e2.canonicalHash()) {
+				INSTANCE.canonicalHashStatistics.recordRejection();
+				return false;
+			}
+		}
+
 		// Logical expression equality is deterministic but approximate,
 		// meaning: it can fail for equal expressions. If it returns 'true',
 		// it's always correct. However, if it returns 'false', it can be
 		// incorrect. This beahvior is not symmetric, so we order the
 		// expressions using their identity hash code (usually their memory
 		// address) so given two objects, we will always get the same result.
-		if (System.identityHashCode(e2) > System.identityHashCode(e1)) {
-			return INSTANCE.comparator.compare(e1, e2);
-		} else {
-			return INSTANCE.comparator.compare(e2, e1);
+		final boolean equal = System.identityHashCode(e2) > System
+				.identityHashCode(e1) ? INSTANCE.comparator.compare(e1, e2)
+				: INSTANCE.comparator.compare(e2, e1);
+		if (INSTANCE.useCanonicalHash && !equal) {
+			INSTANCE.canonicalHashStatistics.recordCollision();
 		}
+		return equal;
 
 	}
 
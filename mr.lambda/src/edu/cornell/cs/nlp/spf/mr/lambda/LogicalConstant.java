@@ -43,6 +43,11 @@ public class LogicalConstant extends Term {
 	public static final ILogger		LOG						= LoggerFactory
 			.create(LogicalConstant.class);
 
+	/**
+	 * The ID of constants that are not included in any ontology.
+	 */
+	public static final int			NO_ID					= -1;
+
 	public static final Pattern		REGEXP_NAME_PATTERN;
 	private static final String		DYNAMIC_MARKER			= "@";
 	private static final Pattern	ESCAPED_PREFIX			= new Pattern(
@@ -56,6 +61,13 @@ public class LogicalConstant extends Term {
 
 	private final String			baseName;
 
+	/**
+	 * Dense ID assigned by the first {@link Ontology} that includes this
+	 * constant. Not serialized, since de-serialized constants are resolved
+	 * against the ontology.
+	 */
+	private transient int			id						= NO_ID;
+
 	private final String			name;
 
 	protected LogicalConstant(String name, Type type, boolean baseName) {
@@ -294,6 +306,15 @@ public class LogicalConstant extends Term {
 		return ReferenceSets.EMPTY_SET;
 	}
 
+	/**
+	 * @return The dense ID assigned by the ontology, or {@link #NO_ID} if this
+	 *         constant is not included in an ontology (see
+	 *         {@link Ontology#getConstant(int)}).
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -303,6 +324,20 @@ public class LogicalConstant extends Term {
 		return 0;
 	}
 
+	@Override
+	protected long calcCanonicalHash(List<Variable> boundVariables) {
+		return mixHash(1L, hashCode());
+	}
+
+	/**
+	 * Sets a single bit, selected by mixing the bits of the hash code. Equal
+	 * constants have equal hash codes, so they set the same bit.
+	 */
+	@Override
+	protected long calcConstantsFingerprint() {
+		return 1L << (hashCode() * 0x9E3779B9 >>> 26);
+	}
+
 	/**
 	 * Checks equality based on the content of the logical constant (name and
 	 * type).
@@ -334,6 +369,13 @@ public class LogicalConstant extends Term {
 		return equals(exp);
 	}
 
+	/**
+	 * Set by {@link Ontology} when the constant is first added to an ontology.
+	 */
+	void setId(int id) {
+		this.id = id;
+	}
+
 	/**
 	 * Resolves read serialized objects to constants from the repository.
 	 *
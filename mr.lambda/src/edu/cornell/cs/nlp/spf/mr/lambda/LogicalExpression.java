@@ -17,6 +17,8 @@
 package edu.cornell.cs.nlp.spf.mr.lambda;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.mr.IMeaningRepresentation;
@@ -33,24 +35,57 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
  */
 public abstract class LogicalExpression implements
 		IMeaningRepresentation<ILogicalExpressionVisitor>, Serializable {
-	public static final ILogger	LOG					= LoggerFactory
+	public static final ILogger		LOG					= LoggerFactory
 															.create(LogicalExpression.class);
-	public static char			PARENTHESIS_CLOSE	= ')';
-	public static char			PARENTHESIS_OPEN	= '(';
-	private static final long	serialVersionUID	= 751768060713295464L;
+	public static char				PARENTHESIS_CLOSE	= ')';
+	public static char				PARENTHESIS_OPEN	= '(';
+	private static final long		serialVersionUID	= 751768060713295464L;
+
+	/**
+	 * Mutable cache for the canonical hash. See {@link #canonicalHash()}. This
+	 * field is for internal use only!
+	 */
+	private transient long			canonicalHashCache;
+
+	/**
+	 * Mutable flag to indicate if the canonical hash cache is populated. This
+	 * field is for internal use only!
+	 */
+	private transient boolean		canonicalHashCalculated	= false;
+
+	/**
+	 * Mutable cache for the constants fingerprint. See
+	 * {@link #constantsFingerprint()}. This field is for internal use only!
+	 */
+	private transient long			constantsFingerprintCache;
+
+	/**
+	 * Mutable cache for the depth of the expression. This field is for
+	 * internal use only!
+	 */
+	private transient int			depthCache;
 
 	/**
 	 * Mutable cache for the hashing code. This field is for internal use only!
 	 * It mustn't be used when copying/comparing/storing/etc. the object.
 	 */
-	private transient int		hashCodeCache;
+	private transient int			hashCodeCache;
 
 	/**
 	 * Mutable flag to indicate if the hash code cache is populated. This field
 	 * is for internal use only! It mustn't be used when
 	 * copying/comparing/storing/etc. the object.
 	 */
-	private transient boolean	hashCodeCalculated	= false;
+	private transient boolean		hashCodeCalculated	= false;
+
+	/**
+	 * Mutable cache for the number of sub-expressions. Zero if the structural
+	 * metadata (size, depth and constants fingerprint) is not computed yet.
+	 * Written last, after the other metadata fields. This field is for
+	 * internal use only! It mustn't be used when copying/comparing/storing/etc.
+	 * the object.
+	 */
+	private transient volatile int	sizeCache;
 
 	public static LogicalExpression read(String string) {
 		return LogicalExpressionReader.from(string);
@@ -59,10 +94,54 @@ public abstract class LogicalExpression implements
 	@Override
 	public abstract void accept(ILogicalExpressionVisitor visitor);
 
+	/**
+	 * A 64-bit hash that is invariant to the naming of bound variables. Bound
+	 * variables are hashed by their De Bruijn index (the number of lambda
+	 * operators between the variable and its binding operator) and type, free
+	 * variables (including skolem IDs) by their type only, and the arguments
+	 * of order-insensitive predicates are combined in an order-insensitive
+	 * way. Therefore, expressions that are equal according to
+	 * {@link LogicalExpressionComparator} have equal canonical hashes. Unlike
+	 * {@link #hashCode()}, the hash distinguishes alpha-variants that differ
+	 * in the positions of their variables, such as (lambda $0:e (lambda $1:e
+	 * (boo:<e,<e,t>> $0 $1))) and (lambda $0:e (lambda $1:e (boo:<e,<e,t>> $1
+	 * $0))). Computed once and cached.
+	 */
+	public final long canonicalHash() {
+		if (!canonicalHashCalculated) {
+			canonicalHashCache = calcCanonicalHash(new ArrayList<Variable>());
+			canonicalHashCalculated = true;
+		}
+		return canonicalHashCache;
+	}
+
 	public abstract boolean containsFreeVariable(Variable variable);
 
 	public abstract boolean containsFreeVariables(Set<Variable> variables);
 
+	/**
+	 * A 64-bit Bloom filter of the logical constants in this expression. Each
+	 * constant sets a single bit, determined by its hash code. If a constant
+	 * is present in the expression, its bit is set. Equal expressions have
+	 * equal fingerprints.
+	 */
+	public final long constantsFingerprint() {
+		if (sizeCache == 0) {
+			calcMetadata();
+		}
+		return constantsFingerprintCache;
+	}
+
+	/**
+	 * The depth of the expression tree. Terms have depth 1.
+	 */
+	public final int depth() {
+		if (sizeCache == 0) {
+			calcMetadata();
+		}
+		return depthCache;
+	}
+
 	/**
 	 * Comparison with existing mapping and a hashcode short-circuiting.
 	 *
@@ -95,6 +174,17 @@ public abstract class LogicalExpression implements
 
 	abstract public Type getType();
 
+	/**
+	 * Quick structural test to check if the given expression may be equal to a
+	 * sub-expression of this expression. If 'false' is returned, the given
+	 * expression is definitely not equal to any sub-expression. Runs in
+	 * constant time using the cached size, depth and constants fingerprint.
+	 */
+	public final boolean mayContain(LogicalExpression exp) {
+		return exp.size() <= size() && exp.depth() <= depth()
+				&& (exp.constantsFingerprint() & ~constantsFingerprint()) == 0;
+	}
+
 	@Override
 	final public int hashCode() {
 		if (!hashCodeCalculated) {
@@ -106,13 +196,55 @@ public abstract class LogicalExpression implements
 
 	public abstract int numFreeVariables();
 
+	/**
+	 * The number of sub-expressions in this expression, including the
+	 * expression itself. Lambda arguments are counted.
+	 */
+	public final int size() {
+		if (sizeCache == 0) {
+			calcMetadata();
+		}
+		return sizeCache;
+	}
+
 	@Override
 	final public String toString() {
 		return LogicLanguageServices.toString(this);
 	}
 
+	/**
+	 * Mix a value into a 64-bit hash (MurmurHash3 finalizer).
+	 */
+	protected static long mixHash(long hash, long value) {
+		long h = hash * 0x9E3779B97F4A7C15L + value;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Compute the canonical hash of the expression in the scope of the given
+	 * variables. See {@link #canonicalHash()}.
+	 *
+	 * @param boundVariables
+	 *            The variables of the lambda operators enclosing this
+	 *            expression, from the outermost to the innermost. The list may
+	 *            be modified during the computation, but is restored before
+	 *            returning.
+	 */
+	protected abstract long calcCanonicalHash(List<Variable> boundVariables);
+
+	protected abstract long calcConstantsFingerprint();
+
+	protected abstract int calcDepth();
+
 	protected abstract int calcHashCode();
 
+	protected abstract int calcSize();
+
 	/**
 	 * Comparison with mapping.
 	 *
@@ -123,4 +255,27 @@ public abstract class LogicalExpression implements
 	 */
 	protected abstract boolean doEquals(LogicalExpression exp,
 			ScopeMapping<Variable, Variable> mapping);
+
+	/**
+	 * Canonical hash of the expression in the scope of the given variables.
+	 * The hash of an expression without free variables doesn't depend on the
+	 * scope, so the cached value is used.
+	 */
+	final long canonicalHash(List<Variable> boundVariables) {
+		if (boundVariables.isEmpty() || numFreeVariables() == 0) {
+			return canonicalHash();
+		} else {
+			return calcCanonicalHash(boundVariables);
+		}
+	}
+
+	private void calcMetadata() {
+		// Computed recursively. The metadata of sub-expressions is cached as
+		// well, so each sub-expression is visited once. Benign race: the
+		// values are deterministic, so threads computing them concurrently
+		// store the same values.
+		constantsFingerprintCache = calcConstantsFingerprint();
+		depthCache = calcDepth();
+		sizeCache = calcSize();
+	}
 }
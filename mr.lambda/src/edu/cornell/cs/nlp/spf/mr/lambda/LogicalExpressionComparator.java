@@ -29,4 +29,9 @@ public class LogicalExpressionComparator implements
 				new IdentityFastStackMap<Variable, Variable>()));
 	}
 
+	@Override
+	public boolean isCanonicalHashConsistent() {
+		return true;
+	}
+
 }
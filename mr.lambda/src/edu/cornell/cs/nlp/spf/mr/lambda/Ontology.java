@@ -16,52 +16,127 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.mr.lambda;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import edu.cornell.cs.nlp.spf.mr.language.type.Type;
+
 /**
  * A collection of constants forms and ontology. The ontology can be closed
  * (i.e., immutable) or not (i.e., constants can be added).
+ * <p>
+ * Each constant is assigned a dense integer ID when it's first added to an
+ * ontology (see {@link LogicalConstant#getId()}). IDs are never re-assigned,
+ * so a constant keeps its ID if it's added to more than one ontology (e.g.,
+ * when the logic services are re-initialized). IDs allow array-indexed lookup
+ * ({@link #getConstant(int)}), constant time membership tests and compact
+ * bitset representation of sets of constants (sized by
+ * {@link #getIdLimit()}). Lookups are lock-free. Additions are synchronized,
+ * but are rare once the ontology is initialized.
  *
  * @author Yoav Artzi
  */
 public class Ontology implements Iterable<LogicalConstant> {
 
+	/**
+	 * Next free ID. Shared by all ontologies.
+	 */
+	private static int											NEXT_ID	= 0;
+
+	/**
+	 * Constants indexed by their IDs. Slots of IDs assigned by other
+	 * ontologies are 'null'. Replaced when grown, and re-assigned after each
+	 * addition to publish the new slot.
+	 */
+	private volatile LogicalConstant[]							byId	= new LogicalConstant[16];
+
 	private final ConcurrentHashMap<String, LogicalConstant>	constants;
 	private final boolean										isClosed;
 
+	/**
+	 * Incremented on each addition. Used to invalidate the views.
+	 */
+	private volatile int										version	= 0;
+
+	private volatile Views										views	= null;
+
 	public Ontology(Iterable<LogicalConstant> constants, boolean isClosed) {
 		this.isClosed = isClosed;
 		this.constants = new ConcurrentHashMap<String, LogicalConstant>();
 		for (final LogicalConstant constant : constants) {
-			this.constants.put(constant.getName(), constant);
+			if (this.constants.putIfAbsent(constant.getName(),
+					constant) == null) {
+				register(constant);
+			}
+		}
+	}
+
+	private static synchronized void assignId(LogicalConstant constant) {
+		if (constant.getId() == LogicalConstant.NO_ID) {
+			constant.setId(NEXT_ID++);
 		}
 	}
 
 	/**
-	 * Checks if a constant is included in the ontology.
+	 * Checks if a constant is included in the ontology. Constant time.
 	 */
 	public boolean contains(LogicalConstant constant) {
-		return constants.containsKey(new WrappedConstant(constant));
+		final int id = constant.getId();
+		final LogicalConstant[] current = byId;
+		return id >= 0 && id < current.length && current[id] == constant;
 	}
 
+	/**
+	 * @return All the constants in the ontology. The set is immutable, and
+	 *         shared between calls until a constant is added.
+	 */
 	public Set<LogicalConstant> getAllConstants() {
-		return new HashSet<LogicalConstant>(constants.values());
+		return getViews().constants;
 	}
 
+	/**
+	 * @return All the constants with a complex type in the ontology. The set is
+	 *         immutable, and shared between calls until a constant is added.
+	 */
 	public Set<LogicalConstant> getAllPredicates() {
-		final Set<LogicalConstant> predicates = new HashSet<LogicalConstant>();
+		return getViews().predicates;
+	}
 
-		for (final LogicalConstant constant : constants.values()) {
-			if (constant.getType().isComplex()) {
-				predicates.add(constant);
-			}
-		}
+	/**
+	 * @return The constant with the given ID, or 'null' if the ontology doesn't
+	 *         include it.
+	 */
+	public LogicalConstant getConstant(int id) {
+		final LogicalConstant[] current = byId;
+		return id >= 0 && id < current.length ? current[id] : null;
+	}
 
-		return predicates;
+	/**
+	 * @return All the constants of the given type (exact match). The set is
+	 *         immutable, and shared between calls until a constant is added.
+	 */
+	public Set<LogicalConstant> getConstants(Type type) {
+		final Set<LogicalConstant> typed = getViews().byType.get(type);
+		return typed == null ? ImmutableSet.of() : typed;
+	}
+
+	/**
+	 * @return Upper bound (exclusive) on the IDs of the constants in this
+	 *         ontology. Use to size arrays and bitsets indexed by IDs. May grow
+	 *         when constants are added.
+	 */
+	public int getIdLimit() {
+		return byId.length;
 	}
 
 	/**
@@ -75,13 +150,18 @@ public class Ontology implements Iterable<LogicalConstant> {
 	@SuppressWarnings("unchecked")
 	public <T extends LogicalConstant> T getOrAdd(String fullName,
 			boolean force, Supplier<T> supplier) {
-		if (constants.containsKey(fullName)) {
-			return (T) constants.get(fullName);
+		final LogicalConstant existing = constants.get(fullName);
+		if (existing != null) {
+			return (T) existing;
 		} else if (!isClosed || force) {
-			// Create the constant, add it to the ontology and return it.
-			final LogicalConstant existing = constants.putIfAbsent(fullName,
-					supplier.get());
-			return (T) (existing == null ? constants.get(fullName) : existing);
+			// Create the constant, add it to the ontology and return it. The
+			// supplier is only called once per name, so only the stored
+			// constant is assigned an ID.
+			return (T) constants.computeIfAbsent(fullName, name -> {
+				final LogicalConstant constant = supplier.get();
+				register(constant);
+				return constant;
+			});
 		} else {
 			throw new LogicalExpressionRuntimeException(String
 					.format("Closed ontology. Failed to add: %s", fullName));
@@ -101,27 +181,81 @@ public class Ontology implements Iterable<LogicalConstant> {
 	}
 
 	/**
-	 * Wrapper used to force using content comparison (over instance comparison)
-	 * when indexing constants in the ontology.
-	 *
-	 * @author Yoav Artzi
+	 * @return Number of constants in the ontology.
 	 */
-	private static class WrappedConstant {
-		private final LogicalConstant constant;
+	public int size() {
+		return constants.size();
+	}
 
-		public WrappedConstant(LogicalConstant constant) {
-			this.constant = constant;
+	private Views getViews() {
+		final Views current = views;
+		if (current != null && current.version == version) {
+			return current;
 		}
+		// Read the version before the constants. The views are built from the
+		// ID index, which is published before the version is incremented, so
+		// they include at least all the constants added up to this version.
+		// The constants map can't be used, since the version is incremented
+		// before a new constant is visible in it.
+		final int currentVersion = version;
+		final Views newViews = new Views(currentVersion, byId);
+		views = newViews;
+		return newViews;
+	}
 
-		@Override
-		public boolean equals(Object obj) {
-			return obj instanceof WrappedConstant
-					&& constant.doEquals(((WrappedConstant) obj).constant);
+	private synchronized void register(LogicalConstant constant) {
+		assignId(constant);
+		final int id = constant.getId();
+		LogicalConstant[] current = byId;
+		if (id >= current.length) {
+			current = Arrays.copyOf(current,
+					Math.max(id + 1, current.length * 2));
 		}
+		current[id] = constant;
+		// Volatile write to publish the new slot.
+		byId = current;
+		++version;
+	}
+
+	/**
+	 * Immutable views of the ontology, computed lazily and re-computed when
+	 * constants are added.
+	 */
+	private static class Views {
+		private final Map<Type, Set<LogicalConstant>>	byType;
+		private final Set<LogicalConstant>				constants;
+		private final Set<LogicalConstant>				predicates;
+		private final int								version;
 
-		@Override
-		public int hashCode() {
-			return constant.hashCode();
+		public Views(int version, LogicalConstant[] byId) {
+			this.version = version;
+			final ImmutableSet.Builder<LogicalConstant> constantsBuilder = ImmutableSet
+					.builder();
+			for (final LogicalConstant constant : byId) {
+				if (constant != null) {
+					constantsBuilder.add(constant);
+				}
+			}
+			this.constants = constantsBuilder.build();
+			final ImmutableSet.Builder<LogicalConstant> predicatesBuilder = ImmutableSet
+					.builder();
+			final Map<Type, Set<LogicalConstant>> typed = new HashMap<Type, Set<LogicalConstant>>();
+			for (final LogicalConstant constant : this.constants) {
+				if (constant.getType().isComplex()) {
+					predicatesBuilder.add(constant);
+				}
+				typed.computeIfAbsent(constant.getType(),
+						t -> new HashSet<LogicalConstant>()).add(constant);
+			}
+			this.predicates = predicatesBuilder.build();
+			final ImmutableMap.Builder<Type, Set<LogicalConstant>> byTypeBuilder = ImmutableMap
+					.builder();
+			for (final Entry<Type, Set<LogicalConstant>> entry : typed
+					.entrySet()) {
+				byTypeBuilder.put(entry.getKey(),
+						ImmutableSet.copyOf(entry.getValue()));
+			}
+			this.byType = byTypeBuilder.build();
 		}
 	}
 }
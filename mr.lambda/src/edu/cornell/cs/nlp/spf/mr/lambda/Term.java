@@ -57,6 +57,21 @@ public abstract class Term extends LogicalExpression {
 		return type;
 	}
 
+	@Override
+	protected long calcConstantsFingerprint() {
+		return 0L;
+	}
+
+	@Override
+	protected int calcDepth() {
+		return 1;
+	}
+
+	@Override
+	protected int calcSize() {
+		return 1;
+	}
+
 	protected boolean doEquals(LogicalExpression exp) {
 		if (this == exp) {
 			return true;
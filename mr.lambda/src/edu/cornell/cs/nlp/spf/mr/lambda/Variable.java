@@ -18,6 +18,7 @@ package edu.cornell.cs.nlp.spf.mr.lambda;
 
 import it.unimi.dsi.fastutil.objects.ReferenceSets;
 
+import java.util.List;
 import java.util.Set;
 
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionReader.IReader;
@@ -102,6 +103,22 @@ public class Variable extends Term {
 		return 1;
 	}
 
+	/**
+	 * Bound variables are hashed by their De Bruijn index, free variables by
+	 * their type only, since they may be mapped to other free variables (for
+	 * example, skolem IDs).
+	 */
+	@Override
+	protected long calcCanonicalHash(List<Variable> boundVariables) {
+		for (int i = boundVariables.size() - 1; i >= 0; --i) {
+			if (boundVariables.get(i) == this) {
+				return mixHash(mixHash(2L, boundVariables.size() - 1 - i),
+						getType().hashCode());
+			}
+		}
+		return mixHash(3L, getType().hashCode());
+	}
+
 	@Override
 	protected boolean doEquals(LogicalExpression exp,
 			ScopeMapping<Variable, Variable> mapping) {
@@ -75,14 +75,13 @@ public abstract class AbstrcatSimplify implements ILogicalExpressionVisitor {
 		if (!(literal.getPredicateType() instanceof RecursiveComplexType)
 				&& literal.getArg(len - 1) == lambdaArg) {
 			// Verify that the variable is not used in any other place in
-			// the expression (except as the last argument in the literal)
-			boolean usedElsewehre = IsContainingVariable.of(
-					literal.getPredicate(), lambdaArg);
-			if (!usedElsewehre) {
-				for (int i = 0; i < len - 1 && !usedElsewehre; ++i) {
-					usedElsewehre |= IsContainingVariable.of(literal.getArg(i),
-							lambdaArg);
-				}
+			// the expression (except as the last argument in the literal).
+			// Free variables are cached, so each check is a set lookup.
+			boolean usedElsewehre = literal.getPredicate()
+					.containsFreeVariable(lambdaArg);
+			for (int i = 0; i < len - 1 && !usedElsewehre; ++i) {
+				usedElsewehre = literal.getArg(i)
+						.containsFreeVariable(lambdaArg);
 			}
 
 			if (usedElsewehre) {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda.visitor;
+
+import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
+import edu.cornell.cs.nlp.spf.mr.lambda.Literal;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionRuntimeException;
+import edu.cornell.cs.nlp.spf.mr.lambda.Term;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+import edu.cornell.cs.nlp.spf.mr.lambda.primitivetypes.IPredicateSimplifier;
+
+/**
+ * Apply a functional expression to an argument and simplify the result. Same
+ * contract as {@link ApplyAndSimplify}, for simplified function and argument,
+ * but implemented as a single bottom-up pass: the argument is substituted and
+ * each modified literal is simplified (nested applications and
+ * predicate-specific simplification, such as flattening of conjunctions) as
+ * the recursion unwinds. Sub-expressions that don't contain the substituted
+ * variable are shared with the function, argument arrays are only allocated
+ * for literals that change, and no visitor objects are created. If a lambda
+ * operator in the function binds a free variable of the argument, the
+ * operator's variable is renamed to avoid capturing it.
+ *
+ * @author Yoav Artzi
+ */
+public class BetaReduce {
+
+	private BetaReduce() {
+		// Usage only through static 'of' method.
+	}
+
+	public static LogicalExpression of(LogicalExpression func,
+			LogicalExpression arg) {
+		// Make sure the free variables of the function and the argument don't
+		// intersect.
+		return ofUnsafe(func,
+				ReplaceFreeVariablesIfPresent.of(arg, func.getFreeVariables()));
+	}
+
+	/**
+	 * Create the literal (pred arg_1 ... arg_n) and simplify it. First, if the
+	 * predicate is a lambda expression (or another expression that can consume
+	 * arguments), consume as many arguments as possible. Then, apply the
+	 * simplifier of the predicate, if it has one.
+	 *
+	 * @param args
+	 *            The arguments. The array is owned by the new literal. If
+	 *            'null', the arguments of the source literal are used.
+	 * @param source
+	 *            Literal to take the arguments from, when args is 'null'.
+	 *            Allows to re-use the source literal, or its arguments array.
+	 */
+	private static LogicalExpression createLiteral(LogicalExpression pred,
+			LogicalExpression[] args, Literal source) {
+		final int len = args == null ? source.numArgs() : args.length;
+		LogicalExpression newPred = pred;
+		int consumed = 0;
+		while (consumed < len && shouldConsumeArgs(newPred)) {
+			final LogicalExpression applied = ofUnsafe(newPred,
+					args == null ? source.getArg(consumed) : args[consumed]);
+			if (applied == null) {
+				// Application failed, so stop consuming.
+				break;
+			}
+			newPred = applied;
+			++consumed;
+		}
+
+		if (consumed == len) {
+			// No arguments left, the predicate is the new expression.
+			return newPred;
+		}
+
+		final Literal literal;
+		if (consumed == 0) {
+			if (args != null) {
+				literal = new Literal(newPred, args);
+			} else if (newPred == source.getPredicate()) {
+				literal = source;
+			} else {
+				literal = new Literal(newPred, source);
+			}
+		} else {
+			final LogicalExpression[] remaining = new LogicalExpression[len
+					- consumed];
+			if (args == null) {
+				source.copyArgsIntoArray(remaining, consumed, 0,
+						remaining.length);
+			} else {
+				System.arraycopy(args, consumed, remaining, 0,
+						remaining.length);
+			}
+			literal = new Literal(newPred, remaining);
+		}
+
+		// Predicate specific simplification.
+		final IPredicateSimplifier simplifier = LogicLanguageServices
+				.getSimplifier(newPred);
+		return simplifier == null ? literal : simplifier.simplify(literal);
+	}
+
+	/**
+	 * Does the application without replacing any free variables.
+	 */
+	private static LogicalExpression ofUnsafe(LogicalExpression func,
+			LogicalExpression arg) {
+		// Verify type matching. The functor must be have a complex type, and
+		// need to be in some kind of parent-child relationship with the
+		// argument, as we allow flexible typing syntax-wise.
+		if (!func.getType().isComplex()
+				|| !LogicLanguageServices.getTypeComparator().verifyArgType(
+						func.getType().getDomain(), arg.getType())) {
+			return null;
+		} else if (func instanceof Lambda) {
+			final Lambda lambda = (Lambda) func;
+			return substitute(lambda.getBody(), lambda.getArgument(), arg);
+		} else if (func instanceof Literal) {
+			// Append the argument to the arguments of the literal.
+			final Literal literal = (Literal) func;
+			final int len = literal.numArgs();
+			final LogicalExpression[] args = new LogicalExpression[len + 1];
+			literal.copyArgsIntoArray(args, 0, 0, len);
+			args[len] = arg;
+			return createLiteral(literal.getPredicate(), args, null);
+		} else if (func instanceof Term) {
+			return createLiteral(func, new LogicalExpression[] { arg }, null);
+		} else {
+			throw new LogicalExpressionRuntimeException(
+					"Impossible condition: un-handled logical expression object");
+		}
+	}
+
+	private static boolean shouldConsumeArgs(LogicalExpression pred) {
+		return pred.getType().isComplex() && !(pred instanceof LogicalConstant)
+				&& !(pred instanceof Variable);
+	}
+
+	/**
+	 * Replace the free occurrences of the variable with the replacement and
+	 * simplify the modified literals.
+	 *
+	 * @return The simplified expression, the given expression if the variable
+	 *         doesn't occur in it, or 'null' if simplification failed.
+	 */
+	private static LogicalExpression substitute(LogicalExpression exp,
+			Variable variable, LogicalExpression replacement) {
+		if (exp == variable) {
+			return replacement;
+		} else if (!exp.containsFreeVariable(variable)) {
+			return exp;
+		} else if (exp instanceof Lambda) {
+			final Lambda lambda = (Lambda) exp;
+			Variable lambdaArg = lambda.getArgument();
+			LogicalExpression body = lambda.getBody();
+			if (replacement.containsFreeVariable(lambdaArg)) {
+				// Avoid capturing the free variable of the replacement by
+				// renaming the variable of the lambda operator.
+				lambdaArg = new Variable(lambdaArg.getType());
+				body = substitute(body, lambda.getArgument(), lambdaArg);
+				if (body == null) {
+					return null;
+				}
+			}
+			final LogicalExpression newBody = substitute(body, variable,
+					replacement);
+			if (newBody == null) {
+				return null;
+			} else if (newBody == lambda.getBody()) {
+				return lambda;
+			} else {
+				return new Lambda(lambdaArg, newBody);
+			}
+		} else if (exp instanceof Literal) {
+			final Literal literal = (Literal) exp;
+			final LogicalExpression newPred = substitute(
+					literal.getPredicate(), variable, replacement);
+			if (newPred == null) {
+				return null;
+			}
+			// The arguments array is only created when the first argument
+			// changes.
+			final int len = literal.numArgs();
+			LogicalExpression[] newArgs = null;
+			for (int i = 0; i < len; ++i) {
+				final LogicalExpression arg = literal.getArg(i);
+				final LogicalExpression newArg = substitute(arg, variable,
+						replacement);
+				if (newArg == null) {
+					return null;
+				}
+				if (newArgs == null && newArg != arg) {
+					newArgs = literal.argumentCopy();
+				}
+				if (newArgs != null) {
+					newArgs[i] = newArg;
+				}
+			}
+			return createLiteral(newPred, newArgs, literal);
+		} else {
+			// Case a term other than the variable.
+			return exp;
+		}
+	}
+
+}
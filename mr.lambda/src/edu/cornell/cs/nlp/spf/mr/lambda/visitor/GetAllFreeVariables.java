@@ -38,10 +38,12 @@ public class GetAllFreeVariables implements ILogicalExpressionVisitor {
 		// Usage only through static 'of' method
 	}
 
+	/**
+	 * Returns a mutable copy of the free variables cached in the expression,
+	 * so doesn't require visiting the expression.
+	 */
 	public static Set<Variable> of(LogicalExpression exp) {
-		final GetAllFreeVariables visitor = new GetAllFreeVariables();
-		visitor.visit(exp);
-		return visitor.getFreeVariables();
+		return new HashSet<Variable>(exp.getFreeVariables());
 	}
 
 	public Set<Variable> getFreeVariables() {
@@ -38,6 +38,11 @@ public class IsContainingVariable implements ILogicalExpressionVisitor {
 	}
 
 	public static boolean of(LogicalExpression exp, Variable var) {
+		if (exp.containsFreeVariable(var)) {
+			// Free variables are cached, only need to visit the expression to
+			// find bound occurrences.
+			return true;
+		}
 		final IsContainingVariable visitor = new IsContainingVariable(var);
 		visitor.visit(exp);
 		return visitor.containing;
@@ -68,6 +68,12 @@ public class ReplaceExpression implements ILogicalExpressionVisitor {
 			return;
 		}
 
+		if (!lambda.mayContain(subExp)) {
+			// Quick structural check, nothing to replace.
+			result = lambda;
+			return;
+		}
+
 		if (subExp.equals(lambda)) {
 			result = replacement;
 		} else {
@@ -106,6 +112,12 @@ public class ReplaceExpression implements ILogicalExpressionVisitor {
 			return;
 		}
 
+		if (!literal.mayContain(subExp)) {
+			// Quick structural check, nothing to replace.
+			result = literal;
+			return;
+		}
+
 		if (subExp.equals(literal)) {
 			result = replacement;
 		} else {
@@ -52,7 +52,8 @@ public class ReplaceFreeVariablesIfPresent implements ILogicalExpressionVisitor
 
 	public static LogicalExpression of(LogicalExpression exp,
 			Set<Variable> variables) {
-		if (exp.numFreeVariables() == 0 || variables.isEmpty()) {
+		if (exp.numFreeVariables() == 0 || variables.isEmpty()
+				|| !exp.containsFreeVariables(variables)) {
 			return exp;
 		}
 
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda.visitor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+
+import edu.cornell.cs.nlp.spf.mr.lambda.ILogicalExpressionComparator;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+
+/**
+ * Memoized reverse application. Wraps {@link GetApplicationFunction} and
+ * {@link GetApplicationArgument}, which are called repeatedly for the same
+ * pairs of expressions during supervised and GENLEX parsing. Pairs are keyed
+ * by their canonical hashes ({@link LogicalExpression#canonicalHash()}) and
+ * compared for equality, so equal pairs share the memoized result. Only pairs
+ * of closed expressions are memoized, since the results may contain the free
+ * variables of the given expressions.
+ * <p>
+ * Before memoization, pairs are checked against an index of the logical
+ * constants of each expression. When extracting a function, the argument must
+ * be a sub-expression of the result, so each of its constants must appear in
+ * the result at least as many times. When extracting an argument, the parts
+ * of the function that are not the application variable are matched against
+ * the result, so each of its constants must appear in the result. Pairs that
+ * fail these tests are rejected without traversing the expressions.
+ * <p>
+ * Memoization and pruning are only used when the logical expression
+ * comparator is consistent with canonical hashing (see
+ * {@link ILogicalExpressionComparator#isCanonicalHashConsistent()}), since
+ * looser equality may ignore constants. The tables are thread-safe and are
+ * cleared when they reach their maximum size.
+ *
+ * @author Yoav Artzi
+ */
+public class ReverseApplicationMemo {
+
+	public static final int											DEFAULT_SIZE	= 10000;
+
+	private final Map<Key, Optional<LogicalExpression>>				arguments		= new ConcurrentHashMap<Key, Optional<LogicalExpression>>();
+
+	/**
+	 * Pruning index: the multiset of logical constants of each expression.
+	 */
+	private final Map<LogicalExpression, Multiset<LogicalConstant>>	constants		= new ConcurrentHashMap<LogicalExpression, Multiset<LogicalConstant>>();
+
+	private final Map<Key, Optional<LogicalExpression>>				functions		= new ConcurrentHashMap<Key, Optional<LogicalExpression>>();
+
+	private final LongAdder											hits			= new LongAdder();
+
+	private final LongAdder											misses			= new LongAdder();
+
+	private final LongAdder											pruned			= new LongAdder();
+
+	private final int												size;
+
+	public ReverseApplicationMemo() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * @param size
+	 *            Maximum number of entries in each table. Memoization is
+	 *            disabled if not positive, but pruning is still done.
+	 */
+	public ReverseApplicationMemo(int size) {
+		this.size = size;
+	}
+
+	private static boolean isEnabled() {
+		return LogicLanguageServices.getComparator()
+				.isCanonicalHashConsistent();
+	}
+
+	private static boolean isMemoizable(LogicalExpression first,
+			LogicalExpression second) {
+		return first.numFreeVariables() == 0
+				&& second.numFreeVariables() == 0;
+	}
+
+	/**
+	 * Clears all the tables and resets the counters.
+	 */
+	public void clear() {
+		arguments.clear();
+		constants.clear();
+		functions.clear();
+		hits.reset();
+		misses.reset();
+		pruned.reset();
+	}
+
+	/**
+	 * Memoized {@link GetApplicationArgument#of(LogicalExpression,
+	 * LogicalExpression)}.
+	 */
+	public LogicalExpression getArgument(LogicalExpression function,
+			LogicalExpression result) {
+		if (!isEnabled()) {
+			return GetApplicationArgument.of(function, result);
+		}
+
+		if ((function.constantsFingerprint()
+				& ~result.constantsFingerprint()) != 0) {
+			pruned.increment();
+			return null;
+		}
+
+		if (size <= 0 || !isMemoizable(function, result)) {
+			return GetApplicationArgument.of(function, result);
+		}
+
+		final Key key = new Key(function, result, 0, 0);
+		final Optional<LogicalExpression> cached = arguments.get(key);
+		if (cached != null) {
+			hits.increment();
+			return cached.orElse(null);
+		}
+		misses.increment();
+		final LogicalExpression argument = GetApplicationArgument.of(function,
+				result);
+		memoize(arguments, key, Optional.ofNullable(argument));
+		return argument;
+	}
+
+	/**
+	 * Memoized
+	 * {@link GetApplicationFunction#of(LogicalExpression, LogicalExpression, int, int)}
+	 * .
+	 */
+	public LogicalExpression getFunction(LogicalExpression result,
+			LogicalExpression argument, int maxSubsetSize, int maxDepth) {
+		if (!isEnabled()) {
+			return GetApplicationFunction.of(result, argument, maxSubsetSize,
+					maxDepth);
+		}
+
+		// Quick test using the cached fingerprints, before getting the
+		// multisets of constants.
+		if ((argument.constantsFingerprint()
+				& ~result.constantsFingerprint()) != 0
+				|| !Multisets.containsOccurrences(getConstants(result),
+						getConstants(argument))) {
+			pruned.increment();
+			return null;
+		}
+
+		if (size <= 0 || !isMemoizable(result, argument)) {
+			return GetApplicationFunction.of(result, argument, maxSubsetSize,
+					maxDepth);
+		}
+
+		final Key key = new Key(result, argument, maxSubsetSize, maxDepth);
+		final Optional<LogicalExpression> cached = functions.get(key);
+		if (cached != null) {
+			hits.increment();
+			return cached.orElse(null);
+		}
+		misses.increment();
+		final LogicalExpression function = GetApplicationFunction.of(result,
+				argument, maxSubsetSize, maxDepth);
+		memoize(functions, key, Optional.ofNullable(function));
+		return function;
+	}
+
+	/**
+	 * Number of calls answered from the memo tables.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Number of memoizable calls that were not in the memo tables.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Number of calls rejected by the constants index.
+	 */
+	public long getPruned() {
+		return pruned.sum();
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits=%d, misses=%d, pruned=%d", hits.sum(),
+				misses.sum(), pruned.sum());
+	}
+
+	private Multiset<LogicalConstant> getConstants(LogicalExpression exp) {
+		final Multiset<LogicalConstant> cached = constants.get(exp);
+		if (cached != null) {
+			return cached;
+		}
+		final Multiset<LogicalConstant> expConstants = ImmutableMultiset
+				.copyOf(GetConstantsMultiSet.of(exp));
+		if (size > 0) {
+			memoize(constants, exp, expConstants);
+		}
+		return expConstants;
+	}
+
+	private <K, V> void memoize(Map<K, V> table, K key, V value) {
+		if (table.size() >= size) {
+			table.clear();
+		}
+		table.putIfAbsent(key, value);
+	}
+
+	private static class Key {
+		private final LogicalExpression	first;
+		private final int				hashCode;
+		private final int				maxDepth;
+		private final int				maxSubsetSize;
+		private final LogicalExpression	second;
+
+		public Key(LogicalExpression first, LogicalExpression second,
+				int maxSubsetSize, int maxDepth) {
+			this.first = first;
+			this.second = second;
+			this.maxSubsetSize = maxSubsetSize;
+			this.maxDepth = maxDepth;
+			final long hash = (first.canonicalHash() * 31
+					+ second.canonicalHash()) * 31 + maxSubsetSize * 31
+					+ maxDepth;
+			this.hashCode = (int) (hash ^ hash >>> 32);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return hashCode == other.hashCode
+					&& maxSubsetSize == other.maxSubsetSize
+					&& maxDepth == other.maxDepth
+					&& first.equals(other.first)
+					&& second.equals(other.second);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
@@ -60,14 +60,13 @@ public class ArrayType extends Type {
 	}
 	
 	@Override
-	public boolean isExtending(Type other) {
-		if (other == null) {
-			return false;
-		}
-		
-		if (this.equals(other)) {
-			return true;
-		} else if (other.isArray()) {
+	public String toString() {
+		return baseType.toString() + ARRAY_SUFFIX;
+	}
+	
+	@Override
+	protected boolean calcIsExtending(Type other) {
+		if (other.isArray()) {
 			// An array A extends and array B, if the A.basetype extends
 			// B.basetype
 			return this.baseType.isExtending(((ArrayType) other).getBaseType());
@@ -75,15 +74,4 @@ public class ArrayType extends Type {
 			return parent == null ? false : parent.isExtending(other);
 		}
 	}
-	
-	@Override
-	public boolean isExtendingOrExtendedBy(Type other) {
-		return other != null
-				&& (this.isExtending(other) || other.isExtending(this));
-	}
-	
-	@Override
-	public String toString() {
-		return baseType.toString() + ARRAY_SUFFIX;
-	}
 }
@@ -78,18 +78,6 @@ public class ComplexType extends Type {
 		return true;
 	}
 
-	@Override
-	public boolean isExtending(Type other) {
-		return other != null
-				&& (other == this || domain.isExtending(other.getDomain())
-						&& range.isExtending(other.getRange()));
-	}
-
-	@Override
-	public boolean isExtendingOrExtendedBy(Type other) {
-		return isExtending(other) || other.isExtending(this);
-	}
-
 	public boolean isOrderSensitive() {
 		return true;
 	}
@@ -99,4 +87,10 @@ public class ComplexType extends Type {
 		return getName();
 	}
 
+	@Override
+	protected boolean calcIsExtending(Type other) {
+		return domain.isExtending(other.getDomain())
+				&& range.isExtending(other.getRange());
+	}
+
 }
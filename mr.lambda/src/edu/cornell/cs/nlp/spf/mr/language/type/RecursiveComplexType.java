@@ -67,17 +67,6 @@ public class RecursiveComplexType extends ComplexType {
 		return this;
 	}
 
-	@Override
-	public boolean isExtending(Type other) {
-		return other != null
-				&& (other == this || other instanceof RecursiveComplexType
-						&& minArgs == ((RecursiveComplexType) other).minArgs
-						&& orderSensitive == ((RecursiveComplexType) other).orderSensitive
-						&& getDomain().isExtending(other.getDomain())
-						&& getFinalRange().isExtending(
-								((RecursiveComplexType) other).getFinalRange()));
-	}
-
 	@Override
 	public boolean isOrderSensitive() {
 		return orderSensitive;
@@ -88,6 +77,16 @@ public class RecursiveComplexType extends ComplexType {
 		return getName();
 	}
 
+	@Override
+	protected boolean calcIsExtending(Type other) {
+		return other instanceof RecursiveComplexType
+				&& minArgs == ((RecursiveComplexType) other).minArgs
+				&& orderSensitive == ((RecursiveComplexType) other).orderSensitive
+				&& getDomain().isExtending(other.getDomain())
+				&& getFinalRange().isExtending(
+						((RecursiveComplexType) other).getFinalRange());
+	}
+
 	/**
 	 * Option that modify {@link ComplexType} to allow recursion of arguments.
 	 *
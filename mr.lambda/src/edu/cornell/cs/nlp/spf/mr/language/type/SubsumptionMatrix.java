@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.language.type;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lazily computed subsumption relation between the types of a
+ * {@link TypeRepository}, indexed by the type IDs. Each pair of types (i, j)
+ * takes two bits in the row of type i: whether the relation was computed, and
+ * whether type i extends type j. Rows are allocated when first queried. When
+ * the number of types exceeds the capacity, the matrix is re-allocated and
+ * the relation is re-computed lazily. Thread safe.
+ *
+ * @author Yoav Artzi
+ */
+class SubsumptionMatrix {
+
+	private static final long			EXTENDING		= 2L;
+	private static final long			KNOWN			= 1L;
+	private static final int			MIN_CAPACITY	= 64;
+
+	private volatile AtomicLongArray[]	rows			= new AtomicLongArray[0];
+
+	/**
+	 * Make sure the matrix can index the given number of types. Only called
+	 * when adding types to the repository.
+	 */
+	void ensureCapacity(int numTypes) {
+		final int capacity = rows.length;
+		if (numTypes > capacity) {
+			rows = new AtomicLongArray[Math.max(MIN_CAPACITY,
+					Math.max(numTypes, 2 * capacity))];
+		}
+	}
+
+	boolean isExtending(Type type, Type other) {
+		final AtomicLongArray[] currentRows = rows;
+		final int i = type.getId();
+		final int j = other.getId();
+		if (i >= currentRows.length || j >= currentRows.length) {
+			return type.calcIsExtending(other);
+		}
+
+		AtomicLongArray row = currentRows[i];
+		if (row == null) {
+			// If two threads create the row concurrently, one of the rows is
+			// lost, which only means re-computing some of the relations.
+			row = new AtomicLongArray((2 * currentRows.length + 63) >>> 6);
+			currentRows[i] = row;
+		}
+
+		// Two bits per type, so the bits of a pair never cross words.
+		final int bit = j << 1;
+		final int word = bit >>> 6;
+		final int shift = bit & 63;
+		final long bits = row.get(word) >>> shift;
+		if ((bits & KNOWN) != 0) {
+			return (bits & EXTENDING) != 0;
+		}
+
+		final boolean extending = type.calcIsExtending(other);
+		final long mask = (extending ? KNOWN | EXTENDING : KNOWN) << shift;
+		long current;
+		do {
+			current = row.get(word);
+		} while (!row.compareAndSet(word, current, current | mask));
+		return extending;
+	}
+
+}
@@ -60,23 +60,13 @@ public class TermType extends Type {
 	}
 	
 	@Override
-	public boolean isExtending(Type other) {
-		if (this.equals(other)) {
-			return true;
-		} else {
-			return parent != null && parent.isExtending(other);
-		}
-	}
-	
-	@Override
-	public boolean isExtendingOrExtendedBy(Type other) {
-		return other != null
-				&& (this.isExtending(other) || other.isExtending(this));
+	public String toString() {
+		return getName();
 	}
 	
 	@Override
-	public String toString() {
-		return getName();
+	protected boolean calcIsExtending(Type other) {
+		return parent != null && parent.isExtending(other);
 	}
 	
 }
@@ -27,17 +27,31 @@ import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
  * @author Yoav Artzi
  */
 public abstract class Type implements Serializable {
-	private static final long	serialVersionUID	= 1758388007880855246L;
+	private static final long			serialVersionUID	= 1758388007880855246L;
+	/**
+	 * Cache for {@link TypeRepository#generalizeType(Type)}. Only set for
+	 * types in the repository.
+	 */
+	transient Type						generalized			= null;
 	/**
 	 * Immutable cache for the hashing code. This field is for internal use
 	 * only! It mustn't be used when copying/comparing/storing/etc. the object.
 	 */
-	final private int			hashCodeCache;
+	final private int					hashCodeCache;
+	/**
+	 * Dense ID, assigned when the type is added to the repository. -1 if the
+	 * type is not in a repository.
+	 */
+	private transient int				id					= -1;
 	/**
 	 * The name of the type. This name must be unique. Meaning, we don't allow
 	 * function over-loading, for example.
 	 */
-	final private String		name;
+	final private String				name;
+	/**
+	 * The subsumption matrix of the repository that contains this type.
+	 */
+	private transient SubsumptionMatrix	subsumption			= null;
 
 	Type(String name) {
 		this.name = name;
@@ -53,6 +67,14 @@ public abstract class Type implements Serializable {
 
 	public abstract Type getDomain();
 
+	/**
+	 * Dense ID of the type in its repository, or -1 if the type is not in a
+	 * repository.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -79,11 +101,22 @@ public abstract class Type implements Serializable {
 	public abstract boolean isComplex();
 
 	/**
-	 * Is current type a child of another.
+	 * Is current type a child of another. If both types are in the same
+	 * repository, the result is cached in the repository's subsumption matrix.
 	 *
 	 * @param other
 	 */
-	public abstract boolean isExtending(Type other);
+	public final boolean isExtending(Type other) {
+		if (other == this) {
+			return true;
+		} else if (other == null) {
+			return false;
+		} else if (subsumption != null && other.subsumption == subsumption) {
+			return subsumption.isExtending(this, other);
+		} else {
+			return calcIsExtending(other);
+		}
+	}
 
 	/**
 	 * Return 'true' iff the given type and this type share a path on the
@@ -91,7 +124,9 @@ public abstract class Type implements Serializable {
 	 *
 	 * @param other
 	 */
-	public abstract boolean isExtendingOrExtendedBy(Type other);
+	public final boolean isExtendingOrExtendedBy(Type other) {
+		return other != null && (isExtending(other) || other.isExtending(this));
+	}
 
 	@Override
 	public abstract String toString();
@@ -100,6 +135,31 @@ public abstract class Type implements Serializable {
 		return this.name.hashCode();
 	}
 
+	/**
+	 * Is current type a child of another, without using the subsumption
+	 * matrix. Sub-types are compared through {@link #isExtending(Type)}.
+	 *
+	 * @param other
+	 *            Type other than this one. Not null.
+	 */
+	protected abstract boolean calcIsExtending(Type other);
+
+	/**
+	 * Register the type in a repository. Called once, before the type is
+	 * visible to other threads.
+	 */
+	void register(int typeId, SubsumptionMatrix subsumptionMatrix) {
+		this.id = typeId;
+		this.subsumption = subsumptionMatrix;
+	}
+
+	/**
+	 * 'true' iff the given type is in the same repository as this type.
+	 */
+	boolean isInRepository(SubsumptionMatrix subsumptionMatrix) {
+		return subsumption == subsumptionMatrix;
+	}
+
 	/**
 	 * Used to resolve read serialized objects to the equivalent one in the
 	 * repository.
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -58,6 +59,13 @@ public class TypeRepository {
 	 */
 	private final Map<ComplexTypeTriplet, ComplexType>	complexTypes			= new ConcurrentHashMap<ComplexTypeTriplet, ComplexType>();
 
+	/**
+	 * {@link ComplexType}s without a recursion option, indexed by the IDs of
+	 * their range and domain (in this order). Allows looking up complex types
+	 * without allocating a key. Only modified when adding types.
+	 */
+	private volatile ComplexType[][]					complexTypesByIds		= new ComplexType[0][];
+
 	/**
 	 * Type for entities. Every type, except truth value type, index type and
 	 * functional type, extends entity.
@@ -71,6 +79,17 @@ public class TypeRepository {
 
 	private final boolean								lockPrimitives;
 
+	/**
+	 * The number of types in the repository. Used to assign type IDs. Only
+	 * accessed when adding types.
+	 */
+	private int											numTypes				= 0;
+
+	/**
+	 * Cached subsumption relation between the types in the repository.
+	 */
+	private final SubsumptionMatrix						subsumption				= new SubsumptionMatrix();
+
 	/**
 	 * Type for truth value.
 	 */
@@ -139,28 +158,15 @@ public class TypeRepository {
 	 * @return
 	 */
 	public Type generalizeType(Type type) {
-		if (type.isComplex()) {
-			final boolean recursiveDomain = type instanceof RecursiveComplexType;
-			final RecursiveComplexType.Option option = recursiveDomain ? ((RecursiveComplexType) type)
-					.getOption() : null;
-			return getTypeCreateIfNeeded(
-					generalizeType(recursiveDomain ? ((RecursiveComplexType) type).getFinalRange()
-							: type.getRange()),
-					generalizeType(type.getDomain()), option);
-		} else if (type instanceof TermType) {
-			TermType currentType = (TermType) type;
-			TermType superType;
-			while ((superType = currentType.getParent()) != null) {
-				currentType = superType;
-			}
-			return currentType;
+		final Type cached = type.generalized;
+		if (cached != null) {
+			return cached;
 		}
-		if (type.isArray()) {
-			return getArrayTypeCreateIfNeeded(((ArrayType) type).getBaseType());
-		} else {
-			throw new RuntimeException("Unhandled Type type: "
-					+ type.getClass().getCanonicalName());
+		final Type generalized = doGeneralizeType(type);
+		if (type.isInRepository(subsumption)) {
+			type.generalized = generalized;
 		}
+		return generalized;
 	}
 
 	public ArrayType getArrayTypeCreateIfNeeded(Type baseType) {
@@ -187,6 +193,16 @@ public class TypeRepository {
 		return indexType;
 	}
 
+	/**
+	 * The number of types in the repository. Type IDs are in the range [0,
+	 * numTypes).
+	 */
+	public int getNumTypes() {
+		synchronized (ADDING_LOCK) {
+			return numTypes;
+		}
+	}
+
 	public ComplexType getSubPredicateTypeForArray(ArrayType arrayType) {
 		return getTypeCreateIfNeeded(
 				getTypeCreateIfNeeded(arrayType, indexType), arrayType);
@@ -232,6 +248,14 @@ public class TypeRepository {
 
 	public ComplexType getTypeCreateIfNeeded(Type range, Type domain,
 			RecursiveComplexType.Option option) {
+		if (option == null) {
+			// Try the ID table first, to avoid allocating a key.
+			final ComplexType indexedType = getIndexedComplexType(range,
+					domain);
+			if (indexedType != null) {
+				return indexedType;
+			}
+		}
 		final ComplexType existingType = complexTypes
 				.get(new ComplexTypeTriplet(range, domain, option));
 		if (existingType == null) {
@@ -274,12 +298,18 @@ public class TypeRepository {
 				// properly, we just return the type.
 				return getType(type.getName());
 			}
+			// Assign the ID before the type is visible to other threads.
+			type.register(numTypes++, subsumption);
+			subsumption.ensureCapacity(numTypes);
 			types.put(type.getName(), type);
 			if (type.isComplex()) {
 				complexTypes
 						.put(new ComplexTypeTriplet(type.getRange(), type
 								.getDomain(), ((ComplexType) type).getOption()),
 								(ComplexType) type);
+				if (((ComplexType) type).getOption() == null) {
+					indexComplexType((ComplexType) type);
+				}
 			}
 			if (type.isArray()) {
 				// Case we added an array, we need to add its access function as
@@ -384,6 +414,85 @@ public class TypeRepository {
 		}
 	}
 
+	private Type doGeneralizeType(Type type) {
+		if (type.isComplex()) {
+			final boolean recursiveDomain = type instanceof RecursiveComplexType;
+			final RecursiveComplexType.Option option = recursiveDomain ? ((RecursiveComplexType) type)
+					.getOption() : null;
+			return getTypeCreateIfNeeded(
+					generalizeType(recursiveDomain ? ((RecursiveComplexType) type).getFinalRange()
+							: type.getRange()),
+					generalizeType(type.getDomain()), option);
+		} else if (type instanceof TermType) {
+			TermType currentType = (TermType) type;
+			TermType superType;
+			while ((superType = currentType.getParent()) != null) {
+				currentType = superType;
+			}
+			return currentType;
+		}
+		if (type.isArray()) {
+			return getArrayTypeCreateIfNeeded(((ArrayType) type).getBaseType());
+		} else {
+			throw new RuntimeException("Unhandled Type type: "
+					+ type.getClass().getCanonicalName());
+		}
+	}
+
+	/**
+	 * Look up a complex type (without a recursion option) in the ID table.
+	 *
+	 * @return null if the type is not in the table.
+	 */
+	private ComplexType getIndexedComplexType(Type range, Type domain) {
+		final ComplexType[][] table = complexTypesByIds;
+		final int rangeId = range.getId();
+		if (rangeId >= 0 && rangeId < table.length) {
+			final ComplexType[] row = table[rangeId];
+			final int domainId = domain.getId();
+			if (row != null && domainId >= 0 && domainId < row.length) {
+				final ComplexType type = row[domainId];
+				// Verify the type, in case the given types are from another
+				// repository.
+				if (type != null && type.getRange() == range
+						&& type.getDomain() == domain) {
+					return type;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add a complex type to the ID table. Must be called while holding the
+	 * adding lock.
+	 */
+	private void indexComplexType(ComplexType type) {
+		final Type range = type.getRange();
+		final Type domain = type.getDomain();
+		if (!range.isInRepository(subsumption)
+				|| !domain.isInRepository(subsumption)) {
+			return;
+		}
+		final int rangeId = range.getId();
+		final int domainId = domain.getId();
+		ComplexType[][] table = complexTypesByIds;
+		if (rangeId >= table.length) {
+			table = Arrays.copyOf(table, Math.max(rangeId + 1,
+					2 * table.length));
+		}
+		ComplexType[] row = table[rangeId];
+		if (row == null) {
+			row = new ComplexType[Math.max(domainId + 1, 16)];
+		} else if (domainId >= row.length) {
+			row = Arrays.copyOf(row, Math.max(domainId + 1, 2 * row.length));
+		}
+		row[domainId] = type;
+		table[rangeId] = row;
+		// Publish the updated table.
+		complexTypesByIds = table;
+	}
+
 	private static class ComplexTypeTriplet {
 		private final Type		domain;
 		private final int		hashCode;
@@ -16,13 +16,13 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -33,11 +33,13 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.base.trace.Tracer;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.CompositeImmutableLexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.parser.ISentenceLexiconGenerator;
@@ -76,6 +78,13 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 	private static final long								serialVersionUID	= -1141905985877531704L;
 
+	/**
+	 * Per-thread scratch arrays for processing splits. See
+	 * {@link SplitScratch}.
+	 */
+	private static final ThreadLocal<SplitScratch>			SPLIT_SCRATCH		= ThreadLocal
+			.withInitial(SplitScratch::new);
+
 	/**
 	 * The maximum number of cells to hold for each span.
 	 */
@@ -259,9 +268,14 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		}
 
 		// Lexicon with heuristically generated lexical entries. The entries are
-		// generated given the string of the sentence.
+		// generated given the string of the sentence. Skip empty lexicons, so
+		// they are not queried for every span.
 		for (final ISentenceLexiconGenerator<DI, MR> generator : sentenceLexiconGenerators) {
-			lexicons.add(new Lexicon<MR>(generator.generateLexicon(dataItem)));
+			final Set<LexicalEntry<MR>> entries = generator
+					.generateLexicon(dataItem);
+			if (!entries.isEmpty()) {
+				lexicons.add(new Lexicon<MR>(entries));
+			}
 		}
 
 		// The model lexicon
@@ -272,10 +286,18 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 			lexicons.add(tempLexicon);
 		}
 
-		return new CKYParserOutput<MR>(
-				doParse(pruningFilter, model, chart, tokens.size(), cellFactory,
-						new CompositeImmutableLexicon<MR>(lexicons)),
-				System.currentTimeMillis() - start);
+		final Chart<MR> parsedChart = doParse(pruningFilter, model, chart,
+				tokens.size(), cellFactory,
+				new CompositeImmutableLexicon<MR>(lexicons));
+		final long parsingTime = System.currentTimeMillis() - start;
+
+		if (Tracer.isEnabled()) {
+			Tracer.info(LOG, "Parsed (%dms): %s -> %d full-span cells",
+					parsingTime, tokens, tokens.size() == 0 ? 0
+							: parsedChart.spanSize(0, tokens.size() - 1));
+		}
+
+		return new CKYParserOutput<MR>(parsedChart, parsingTime);
 
 	}
 
@@ -487,78 +509,87 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
-		// Copy the cells of the right span to a local array to avoid
-		// re-creating the iterator.
-		final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(rightStart,
-				rightEnd);
+		final AtomicInteger counter = new AtomicInteger(0);
 		final int numRightCells = chart.spanSize(rightStart, rightEnd);
-		@SuppressWarnings("unchecked")
-		final Cell<MR>[] rightCells = (Cell<MR>[]) Array.newInstance(Cell.class,
-				numRightCells);
-		int i = 0;
-		while (rightIter.hasNext()) {
-			rightCells[i++] = rightIter.next();
-		}
 
-		final int numRules = binaryRules.length;
-		final AtomicInteger counter = new AtomicInteger(0);
+		// Copy the cells of the right span to a local array to avoid
+		// re-creating the iterator. The array is re-used across splits
+		// processed by this thread, so may be longer than the number of
+		// cells.
+		final SplitScratch scratch = SplitScratch.acquire();
+		final List<Cell<MR>> newCells;
+		try {
+			final Iterator<Cell<MR>> rightIter = chart
+					.getSpanIterator(rightStart, rightEnd);
+			final Cell<MR>[] rightCells = scratch.rightCells(numRightCells);
+			int i = 0;
+			while (rightIter.hasNext()) {
+				rightCells[i++] = rightIter.next();
+			}
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
-		final List<Cell<MR>> leftCells = new ArrayList<>();
-		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
-				leftEnd);
-		while (iterator.hasNext()) {
-			leftCells.add(iterator.next());
-		}
+			final int numRules = binaryRules.length;
 
-		// When debugging, it's easier to read the logs with a sequential
-		// stream. Naturally, this has performance costs.
-		final Stream<Cell<MR>> leftStream = LOG.getLogLevel() == LogLevel.DEBUG
-				? leftCells.stream().sequential()
-				: leftCells.stream().parallel().unordered();
-
-		final List<Cell<MR>> newCells = leftStream.map(left -> {
-			final List<Cell<MR>> newCellsFromLeft = new LinkedList<>();
-			for (int j = 0; j < numRightCells; ++j) {
-				final Cell<MR> right = rightCells[j];
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-					final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
-					LOG.debug("Applying %s", rule);
-					final ParseRuleResult<MR> prr = rule.apply(left, right,
-							span);
-					if (prr != null) {
-						counter.incrementAndGet();
-						// Filter cells, only keep cells that pass
-						// pruning over the semantics, if there's a
-						// pruning
-						// filter and
-						// they have semantics
-						if (!prune(pruningFilter,
-								new ParsingOp<MR>(prr.getResultCategory(), span,
-										rule.getName()),
-								true)) {
-							// Create the parse step
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									prr.getResultCategory(), left, right,
-									isFullParse(span, prr.getResultCategory()),
-									prr.getRuleName(), start, end);
-
-							// Create the chart cell
-							final Cell<MR> newCell = cellFactory.create(
-									new WeightedCKYParseStep<MR>(parseStep,
-											model));
-							LOG.debug("Created new cell: %s", newCell);
-
-							newCellsFromLeft.add(newCell);
+			// Create a list from left cells. This will allow the stream() to
+			// distribute better.
+			final List<Cell<MR>> leftCells = scratch.leftCells();
+			final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
+					leftEnd);
+			while (iterator.hasNext()) {
+				leftCells.add(iterator.next());
+			}
+
+			// When debugging, it's easier to read the logs with a sequential
+			// stream. Naturally, this has performance costs.
+			final Stream<Cell<MR>> leftStream = LOG
+					.getLogLevel() == LogLevel.DEBUG
+							? leftCells.stream().sequential()
+							: leftCells.stream().parallel().unordered();
+
+			newCells = leftStream.map(left -> {
+				final List<Cell<MR>> newCellsFromLeft = new LinkedList<>();
+				for (int j = 0; j < numRightCells; ++j) {
+					final Cell<MR> right = rightCells[j];
+					LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
+							right.hashCode());
+					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+						final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
+						LOG.debug("Applying %s", rule);
+						final ParseRuleResult<MR> prr = rule.apply(left, right,
+								span);
+						if (prr != null) {
+							counter.incrementAndGet();
+							// Filter cells, only keep cells that pass
+							// pruning over the semantics, if there's a
+							// pruning
+							// filter and
+							// they have semantics
+							if (!prune(pruningFilter,
+									new ParsingOp<MR>(prr.getResultCategory(),
+											span, rule.getName()),
+									true)) {
+								// Create the parse step
+								final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
+										prr.getResultCategory(), left, right,
+										isFullParse(span,
+												prr.getResultCategory()),
+										prr.getRuleName(), start, end);
+
+								// Create the chart cell
+								final Cell<MR> newCell = cellFactory.create(
+										new WeightedCKYParseStep<MR>(parseStep,
+												model));
+								LOG.debug("Created new cell: %s", newCell);
+
+								newCellsFromLeft.add(newCell);
+							}
 						}
 					}
 				}
-			}
-			return newCellsFromLeft;
-		}).flatMap(l -> l.stream()).collect(Collectors.toList());
+				return newCellsFromLeft;
+			}).flatMap(l -> l.stream()).collect(Collectors.toList());
+		} finally {
+			scratch.release(numRightCells);
+		}
 
 		LOG.debug(
 				"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
@@ -601,131 +632,140 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 
 		final SentenceSpan span = new SentenceSpan(start, end, sentenceLength);
 
-		// Copy the cells of the right span to a local array to avoid
-		// re-creating the iterator.
-		final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(rightStart,
-				rightEnd);
+		final AtomicInteger counter = new AtomicInteger(0);
 		final int numRightCells = chart.spanSize(rightStart, rightEnd);
-		@SuppressWarnings("unchecked")
-		final Cell<MR>[] rightCells = (Cell<MR>[]) Array.newInstance(Cell.class,
-				numRightCells);
-		int i = 0;
-		while (rightIter.hasNext()) {
-			rightCells[i++] = rightIter.next();
-		}
 
-		final AtomicInteger counter = new AtomicInteger(0);
-		final int numRules = binaryRules.length;
+		// Copy the cells of the right span to a local array to avoid
+		// re-creating the iterator. The array is re-used across splits
+		// processed by this thread, so may be longer than the number of
+		// cells.
+		final SplitScratch scratch = SplitScratch.acquire();
+		try {
+			final Iterator<Cell<MR>> rightIter = chart
+					.getSpanIterator(rightStart, rightEnd);
+			final Cell<MR>[] rightCells = scratch.rightCells(numRightCells);
+			int i = 0;
+			while (rightIter.hasNext()) {
+				rightCells[i++] = rightIter.next();
+			}
 
-		// Create a list from left cells. This will allow the stream() to
-		// distribute better.
-		final List<Cell<MR>> leftCells = new ArrayList<>();
-		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
-				leftEnd);
-		while (iterator.hasNext()) {
-			leftCells.add(iterator.next());
-		}
+			final int numRules = binaryRules.length;
 
-		// When debugging, it's easier to read the logs with a sequential
-		// stream. Naturally, this has performance costs.
-		final Stream<Cell<MR>> leftStream = LOG.getLogLevel() == LogLevel.DEBUG
-				? leftCells.stream().sequential()
-				: leftCells.stream().parallel().unordered();
-
-		leftStream.forEach(left -> {
-			for (int j = 0; j < numRightCells; ++j) {
-				final Cell<MR> right = rightCells[j];
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				LOG.debug("Left: %s", left);
-				LOG.debug("Right: %s", right);
-				for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
-					final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
-					LOG.debug("Applying %s", rule);
-					final ParseRuleResult<MR> prr = rule.apply(left, right,
-							span);
-					if (prr != null) {
-						counter.incrementAndGet();
-						// Prune, only keep categories that pass
-						// pruning over
-						// the semantics, if there's a pruning
-						// filter and they
-						// have semantics.
-						if (!prune(pruningFilter,
-								new ParsingOp<MR>(prr.getResultCategory(), span,
-										rule.getName()),
-								true)) {
-							// Create a CKY parse step from the
-							// result.
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									prr.getResultCategory(), left, right,
-									isFullParse(span, prr.getResultCategory()),
-									prr.getRuleName(), start, end);
-
-							// Create the cell.
-							final Cell<MR> newCell = cellFactory.create(
-									new WeightedCKYParseStep<MR>(parseStep,
-											model));
-							LOG.debug("Created new cell: %s", newCell);
-							synchronized (queue) {
-
-								if (queue.contains(newCell)) {
-									// Case the cell signature
-									// is already contained
-									// in the queue. Remove the
-									// old cell, add the
-									// new one to it, which
-									// might change its score,
-									// and then re-add to the
-									// queue.
-
-									final Cell<MR> oldCell = queue.get(newCell);
-									LOG.debug(
-											"Adding new cell to existing one in pre-chart queue: %s",
-											oldCell);
-									// Add the new cell to the
-									// old one.
-									if (oldCell.addCell(newCell)) {
-										// Max-children changed,
-										// score might have
-										// changed, so need to
-										// remove and re-queue.
+			// Create a list from left cells. This will allow the stream() to
+			// distribute better.
+			final List<Cell<MR>> leftCells = scratch.leftCells();
+			final Iterator<Cell<MR>> iterator = chart.getSpanIterator(leftStart,
+					leftEnd);
+			while (iterator.hasNext()) {
+				leftCells.add(iterator.next());
+			}
+
+			// When debugging, it's easier to read the logs with a sequential
+			// stream. Naturally, this has performance costs.
+			final Stream<Cell<MR>> leftStream = LOG
+					.getLogLevel() == LogLevel.DEBUG
+							? leftCells.stream().sequential()
+							: leftCells.stream().parallel().unordered();
+
+			leftStream.forEach(left -> {
+				for (int j = 0; j < numRightCells; ++j) {
+					final Cell<MR> right = rightCells[j];
+					LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
+							right.hashCode());
+					LOG.debug("Left: %s", left);
+					LOG.debug("Right: %s", right);
+					for (int ruleIndex = 0; ruleIndex < numRules; ++ruleIndex) {
+						final CKYBinaryParsingRule<MR> rule = binaryRules[ruleIndex];
+						LOG.debug("Applying %s", rule);
+						final ParseRuleResult<MR> prr = rule.apply(left, right,
+								span);
+						if (prr != null) {
+							counter.incrementAndGet();
+							// Prune, only keep categories that pass
+							// pruning over
+							// the semantics, if there's a pruning
+							// filter and they
+							// have semantics.
+							if (!prune(pruningFilter,
+									new ParsingOp<MR>(prr.getResultCategory(),
+											span, rule.getName()),
+									true)) {
+								// Create a CKY parse step from the
+								// result.
+								final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
+										prr.getResultCategory(), left, right,
+										isFullParse(span,
+												prr.getResultCategory()),
+										prr.getRuleName(), start, end);
+
+								// Create the cell.
+								final Cell<MR> newCell = cellFactory.create(
+										new WeightedCKYParseStep<MR>(parseStep,
+												model));
+								LOG.debug("Created new cell: %s", newCell);
+								synchronized (queue) {
+
+									if (queue.contains(newCell)) {
+										// Case the cell signature
+										// is already contained
+										// in the queue. Remove the
+										// old cell, add the
+										// new one to it, which
+										// might change its score,
+										// and then re-add to the
+										// queue.
+
+										final Cell<MR> oldCell = queue
+												.get(newCell);
 										LOG.debug(
-												"Cell viterbi score updated: %s",
+												"Adding new cell to existing one in pre-chart queue: %s",
 												oldCell);
+										// Add the new cell to the
+										// old one.
+										if (oldCell.addCell(newCell)) {
+											// Max-children changed,
+											// score might have
+											// changed, so need to
+											// remove and re-queue.
+											LOG.debug(
+													"Cell viterbi score updated: %s",
+													oldCell);
 
-										// Remove the old cell,
-										// to re-add it.
-										queue.remove(oldCell);
-										// Adding here, not
-										// offering, since we
-										// just
-										// removed it, it should
-										// be added without
-										// any fear of
-										// exception.
-										queue.add(oldCell);
-									}
-								} else {
-									// Case new cell signature.
-									LOG.debug(
-											"Adding new cell to pre-chart queue.");
-									if (!queue.offer(newCell)) {
+											// Remove the old cell,
+											// to re-add it.
+											queue.remove(oldCell);
+											// Adding here, not
+											// offering, since we
+											// just
+											// removed it, it should
+											// be added without
+											// any fear of
+											// exception.
+											queue.add(oldCell);
+										}
+									} else {
+										// Case new cell signature.
 										LOG.debug(
-												"Pruned (pre-chart pruning): %s",
-												newCell);
-										pruned.getAndSet(true);
+												"Adding new cell to pre-chart queue.");
+										if (!queue.offer(newCell)) {
+											LOG.debug(
+													"Pruned (pre-chart pruning): %s",
+													newCell);
+											pruned.getAndSet(true);
+										}
 									}
+									LOG.debug("Pre-chart queue size = %d",
+											queue.size());
 								}
-								LOG.debug("Pre-chart queue size = %d",
-										queue.size());
 							}
 						}
 					}
 				}
-			}
 
-		});
+			});
+		} finally {
+			scratch.release(numRightCells);
+		}
 
 		LOG.debug(
 				"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
@@ -1004,4 +1044,54 @@ public abstract class AbstractCKYParser<DI extends Sentence, MR>
 		return Pair.of(new ArrayList<Cell<MR>>(queue),
 				pruned.get() || queue.hasThreshold());
 	}
+
+	/**
+	 * Scratch arrays re-used by the splits processed by a thread. If the
+	 * scratch of the thread is in use (e.g., when the thread executes another
+	 * split while joining a parallel stream), a fresh scratch is created.
+	 *
+	 * @author Yoav Artzi
+	 */
+	private static class SplitScratch {
+		private boolean					inUse		= false;
+		private final List<Cell<?>>		leftCells	= new ArrayList<Cell<?>>();
+		private Cell<?>[]				rightCells	= new Cell<?>[0];
+
+		public static SplitScratch acquire() {
+			final SplitScratch scratch = SPLIT_SCRATCH.get();
+			if (scratch.inUse) {
+				return new SplitScratch();
+			}
+			scratch.inUse = true;
+			return scratch;
+		}
+
+		@SuppressWarnings("unchecked")
+		public <MR> List<Cell<MR>> leftCells() {
+			return (List<Cell<MR>>) (List<?>) leftCells;
+		}
+
+		/**
+		 * Clear references to cells and return the scratch to the thread.
+		 *
+		 * @param numRightCells
+		 *            Number of right cells used.
+		 */
+		public void release(int numRightCells) {
+			Arrays.fill(rightCells, 0, numRightCells, null);
+			leftCells.clear();
+			inUse = false;
+		}
+
+		/**
+		 * @return Array of at least the given length.
+		 */
+		@SuppressWarnings("unchecked")
+		public <MR> Cell<MR>[] rightCells(int length) {
+			if (rightCells.length < length) {
+				rightCells = new Cell<?>[length];
+			}
+			return (Cell<MR>[]) rightCells;
+		}
+	}
 }
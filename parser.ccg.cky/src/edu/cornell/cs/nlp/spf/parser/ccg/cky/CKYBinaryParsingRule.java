@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
@@ -30,6 +32,12 @@ public class CKYBinaryParsingRule<MR> implements Serializable {
 	private final NormalFormValidator	nfValidator;
 	private final IBinaryParseRule<MR>	rule;
 
+	/**
+	 * The ID of the rule name (see {@link RuleName#getId()}). Not serialized,
+	 * since IDs are assigned in the scope of the process.
+	 */
+	private transient int				ruleId;
+
 	public CKYBinaryParsingRule(IBinaryParseRule<MR> rule) {
 		this(rule, null);
 	}
@@ -38,6 +46,7 @@ public class CKYBinaryParsingRule<MR> implements Serializable {
 			NormalFormValidator nfValidator) {
 		this.rule = rule;
 		this.nfValidator = nfValidator;
+		this.ruleId = rule.getName().getId();
 	}
 
 	@Override
@@ -98,9 +107,15 @@ public class CKYBinaryParsingRule<MR> implements Serializable {
 			SentenceSpan span) {
 		assert left.getEnd() + 1 == right.getStart();
 		if (nfValidator != null
-				&& !nfValidator.isValid(left, right, rule.getName())) {
+				&& !nfValidator.isValid(left, right, rule.getName(), ruleId)) {
 			return null;
 		}
 		return rule.apply(left.getCategory(), right.getCategory(), span);
 	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.ruleId = rule.getName().getId();
+	}
 }
@@ -49,6 +49,12 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	/** The CKY chart */
 	private final Chart<MR>					chart;
 
+	/**
+	 * Set when the output is released, since the chart can't be used anymore.
+	 * See {@link #release()}.
+	 */
+	private Boolean							exact	= null;
+
 	/** Total parsing time */
 	private final long						parsingTime;
 
@@ -84,6 +90,14 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 		return best;
 	}
 
+	private Chart<MR> chart() {
+		if (exact != null) {
+			throw new IllegalStateException(
+					"Chart is not available, parser output was released");
+		}
+		return chart;
+	}
+
 	@Override
 	public List<CKYDerivation<MR>> getAllDerivations() {
 		return allParses;
@@ -95,7 +109,7 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	}
 
 	public Chart<MR> getChart() {
-		return chart;
+		return chart();
 	}
 
 	@Override
@@ -127,7 +141,10 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 
 	@Override
 	public boolean isExact() {
-		return chart.getPrunedSpans().isEmpty();
+		if (exact != null) {
+			return exact;
+		}
+		return chart().getPrunedSpans().isEmpty();
 	}
 
 	/** {@inheritDoc} */
@@ -139,13 +156,13 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	/** {@inheritDoc} */
 	@Override
 	public IHashVector logExpectedFeatures(IFilter<Category<MR>> filter) {
-		return chart.logExpectedFeatures(filter);
+		return chart().logExpectedFeatures(filter);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public IHashVector logExpectedFeatures(IScorer<Category<MR>> initialScorer) {
-		return chart.logExpectedFeatures(initialScorer);
+		return chart().logExpectedFeatures(initialScorer);
 	}
 
 	/** {@inheritDoc} */
@@ -157,7 +174,22 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	/** {@inheritDoc} */
 	@Override
 	public double logNorm(IFilter<Category<MR>> filter) {
-		return chart.logNorm(filter);
+		return chart().logNorm(filter);
+	}
+
+	/**
+	 * Release the chart for re-use by the next charts created by the current
+	 * thread. All derivations, including their cells and features, remain
+	 * valid. The chart, and methods that require it (i.e.,
+	 * {@link #getChart()}, {@link #logExpectedFeatures()} and
+	 * {@link #logNorm()}) may not be used after the output is released.
+	 */
+	@Override
+	public void release() {
+		if (exact == null) {
+			exact = chart.getPrunedSpans().isEmpty();
+			chart.release();
+		}
 	}
 
 }
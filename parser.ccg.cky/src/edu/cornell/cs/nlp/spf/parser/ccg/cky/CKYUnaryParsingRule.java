@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.cky;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
@@ -23,6 +25,7 @@ import edu.cornell.cs.nlp.spf.parser.ccg.cky.chart.Cell;
 import edu.cornell.cs.nlp.spf.parser.ccg.normalform.NormalFormValidator;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IUnaryParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 
 /**
@@ -38,6 +41,12 @@ public class CKYUnaryParsingRule<MR> implements Serializable {
 	private final NormalFormValidator	nfValidator;
 	private final IUnaryParseRule<MR>	rule;
 
+	/**
+	 * The ID of the rule name (see {@link RuleName#getId()}). Not serialized,
+	 * since IDs are assigned in the scope of the process.
+	 */
+	private transient int				ruleId;
+
 	public CKYUnaryParsingRule(IUnaryParseRule<MR> rule) {
 		this(rule, null);
 	}
@@ -46,6 +55,7 @@ public class CKYUnaryParsingRule<MR> implements Serializable {
 			NormalFormValidator nfValidator) {
 		this.rule = rule;
 		this.nfValidator = nfValidator;
+		this.ruleId = rule.getName().getId();
 	}
 
 	@Override
@@ -58,7 +68,8 @@ public class CKYUnaryParsingRule<MR> implements Serializable {
 	 * Applies the underlying parse rule to a single cell.
 	 */
 	protected ParseRuleResult<MR> apply(Cell<MR> cell, SentenceSpan span) {
-		if (nfValidator != null && !nfValidator.isValid(cell, rule.getName())) {
+		if (nfValidator != null
+				&& !nfValidator.isValid(cell, rule.getName(), ruleId)) {
 			return null;
 		}
 		return rule.apply(cell.getCategory(), span);
@@ -70,4 +81,10 @@ public class CKYUnaryParsingRule<MR> implements Serializable {
 	boolean isValidArgument(Category<MR> category, SentenceSpan span) {
 		return rule.isValidArgument(category, span);
 	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.ruleId = rule.getName().getId();
+	}
 }
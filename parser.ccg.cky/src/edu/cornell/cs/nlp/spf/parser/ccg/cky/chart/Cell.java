@@ -71,6 +71,11 @@ public class Cell<MR> implements IArrayRuleNameSet {
 	 */
 	private RuleName[]						generatingRules		= null;
 
+	/**
+	 * Mask of {@link #generatingRules}, computed together with it.
+	 */
+	private long							generatingRulesMask	= 0L;
+
 	/**
 	 * Immutable cache for the hashing code. This field is for internal use
 	 * only! It mustn't be used when copying/comparing/storing/etc. the object.
@@ -271,6 +276,14 @@ public class Cell<MR> implements IArrayRuleNameSet {
 		return generatingRules[index];
 	}
 
+	@Override
+	public long getRuleNameMask() {
+		if (generatingRules == null) {
+			createGeneratingRules();
+		}
+		return generatingRulesMask;
+	}
+
 	public double getSecondPruneScore() {
 		return getPruneScore();
 	}
@@ -508,6 +521,11 @@ public class Cell<MR> implements IArrayRuleNameSet {
 		for (final IWeightedCKYStep<MR> step : steps) {
 			set.add(step.getRuleName());
 		}
+		long mask = 0L;
+		for (final RuleName ruleName : set) {
+			mask |= ruleName.getMaskBit();
+		}
+		generatingRulesMask = mask;
 		generatingRules = set.toArray(new RuleName[set.size()]);
 	}
 
@@ -18,7 +18,9 @@ package edu.cornell.cs.nlp.spf.parser.ccg.cky.chart;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -58,23 +60,36 @@ import edu.cornell.cs.nlp.utils.math.LogSumExp;
  * @see Cell
  */
 public class Chart<MR> implements Iterable<Cell<MR>> {
-	public static final ILogger				LOG	= LoggerFactory
+	public static final ILogger					LOG			= LoggerFactory
 			.create(Chart.class.getName());
 
-	private final int						beamSize;
+	/**
+	 * Spans released by charts of the current thread. Re-used by the next
+	 * charts the thread creates. See {@link #release()}.
+	 */
+	private static final ThreadLocal<SpanPool>	SPAN_POOL	= ThreadLocal
+			.withInitial(SpanPool::new);
+
+	private final int							beamSize;
 
-	private final AbstractCellFactory<MR>	cellFactory;
+	private final AbstractCellFactory<MR>		cellFactory;
 
 	/** An array of spans for every starting and end indices. */
-	private final AbstractSpan<MR>[][]		chart;
+	private final AbstractSpan<MR>[][]			chart;
+
+	private final boolean						orderInvariant;
+
+	private boolean								released	= false;
 
 	/** Number of words in input sentence. */
-	private final int						sentenceLength;
+	private final int							sentenceLength;
+
+	private final boolean						separateLexicalQueue;
 
 	/**
 	 * The tokens this chart is created for.
 	 */
-	private final TokenSeq					tokens;
+	private final TokenSeq						tokens;
 
 	/**
 	 * @param breakTies
@@ -89,18 +104,29 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		this.tokens = tokens;
 		this.cellFactory = cellFactory;
 		this.sentenceLength = tokens.size();
+		this.separateLexicalQueue = separateLexicalQueue;
+		this.orderInvariant = !breakTies;
 		// Somewhat complex init to avoid warnings due to untyped generic
 		// classes. This way, it only generated an unchecked warning, which we
 		// suppress.
 		this.chart = (AbstractSpan<MR>[][]) Array.newInstance(
 				AbstractSpan.class, sentenceLength, sentenceLength);
+		// Re-use spans released by previous charts, if possible.
+		final SpanPool pool = SPAN_POOL.get();
 		for (int i = 0; i < sentenceLength; i++) {
 			for (int j = i; j < sentenceLength; j++) {
-				chart[i][j] = separateLexicalQueue
-						? new TwoQueueSpan<MR>(maxNumberOfCellPerSpan,
-								!breakTies)
-						: new SingleQueueSpan<MR>(maxNumberOfCellPerSpan,
-								!breakTies);
+				final AbstractSpan<MR> pooled = pool.poll(
+						maxNumberOfCellPerSpan, separateLexicalQueue,
+						orderInvariant);
+				if (pooled != null) {
+					chart[i][j] = pooled;
+				} else {
+					chart[i][j] = separateLexicalQueue
+							? new TwoQueueSpan<MR>(maxNumberOfCellPerSpan,
+									orderInvariant)
+							: new SingleQueueSpan<MR>(maxNumberOfCellPerSpan,
+									orderInvariant);
+				}
 			}
 		}
 	}
@@ -320,6 +346,28 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return LogSumExp.of(logInsideScores);
 	}
 
+	/**
+	 * Release the spans of the chart to a pool of the current thread, so they
+	 * are re-used by the next charts it creates. Cells, and derivations created
+	 * from them, are not affected. The chart may not be used after it's
+	 * released.
+	 */
+	public void release() {
+		if (released) {
+			return;
+		}
+		released = true;
+		final SpanPool pool = SPAN_POOL.get();
+		for (int i = 0; i < sentenceLength; i++) {
+			for (int j = i; j < sentenceLength; j++) {
+				chart[i][j].clear();
+				pool.add(chart[i][j], beamSize, separateLexicalQueue,
+						orderInvariant);
+				chart[i][j] = null;
+			}
+		}
+	}
+
 	/**
 	 * Flag all cells that participate in the parses with the highest score that
 	 * lead to given semantics.
@@ -612,6 +660,13 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		public abstract void addToExisting(Cell<MR> existingCell,
 				Cell<MR> newCell);
 
+		/**
+		 * Remove all cells and reset the pruning flags.
+		 */
+		public void clear() {
+			externallyPruned = false;
+		}
+
 		public abstract Cell<MR> get(Cell<MR> cell);
 
 		public abstract boolean isPruned();
@@ -720,6 +775,12 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			}
 		}
 
+		@Override
+		public void clear() {
+			super.clear();
+			queue.clear();
+		}
+
 		@Override
 		public Cell<MR> get(Cell<MR> cell) {
 			return queue.get(cell);
@@ -758,6 +819,61 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 
 	}
 
+	/**
+	 * Pool of cleared spans with the same configuration. Adding a span with a
+	 * different configuration empties the pool.
+	 *
+	 * @author Yoav Artzi
+	 */
+	private static class SpanPool {
+		/**
+		 * Maximum number of pooled spans. A sentence of 50 tokens has 1275
+		 * spans.
+		 */
+		private static final int				MAX_SIZE	= 2048;
+		private int								capacity	= -1;
+		private boolean							orderInvariant;
+		private boolean							separateLexicalQueue;
+		private final Deque<AbstractSpan<?>>	spans		= new ArrayDeque<AbstractSpan<?>>();
+
+		public void add(AbstractSpan<?> span, int spanCapacity,
+				boolean spanSeparateLexicalQueue, boolean spanOrderInvariant) {
+			if (!matches(spanCapacity, spanSeparateLexicalQueue,
+					spanOrderInvariant)) {
+				spans.clear();
+				capacity = spanCapacity;
+				separateLexicalQueue = spanSeparateLexicalQueue;
+				orderInvariant = spanOrderInvariant;
+			}
+			if (spans.size() < MAX_SIZE) {
+				spans.push(span);
+			}
+		}
+
+		/**
+		 * @return A cleared span with the given configuration, or 'null' if
+		 *         none is available.
+		 */
+		@SuppressWarnings("unchecked")
+		public <MR> AbstractSpan<MR> poll(int spanCapacity,
+				boolean spanSeparateLexicalQueue, boolean spanOrderInvariant) {
+			if (matches(spanCapacity, spanSeparateLexicalQueue,
+					spanOrderInvariant)) {
+				return (AbstractSpan<MR>) spans.poll();
+			} else {
+				return null;
+			}
+		}
+
+		private boolean matches(int spanCapacity,
+				boolean spanSeparateLexicalQueue, boolean spanOrderInvariant) {
+			return capacity == spanCapacity
+					&& separateLexicalQueue == spanSeparateLexicalQueue
+					&& orderInvariant == spanOrderInvariant;
+		}
+
+	}
+
 	private static class TwoQueueSpan<MR> extends AbstractSpan<MR> {
 		private final Map<Cell<MR>, Cell<MR>>						lexicals	= new HashMap<Cell<MR>, Cell<MR>>();
 		private final IDirectAccessBoundedPriorityQueue<Cell<MR>>	nonLexicalQueue;
@@ -788,6 +904,13 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			}
 		}
 
+		@Override
+		public void clear() {
+			super.clear();
+			lexicals.clear();
+			nonLexicalQueue.clear();
+		}
+
 		@Override
 		public Cell<MR> get(Cell<MR> cell) {
 			if (lexicals.containsKey(cell)) {
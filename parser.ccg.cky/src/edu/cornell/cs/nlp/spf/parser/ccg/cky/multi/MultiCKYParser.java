@@ -21,19 +21,25 @@ import java.io.ObjectInputStream;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import com.google.common.base.Function;
 
+import edu.cornell.cs.nlp.spf.base.concurrency.DeadlineExecutorService;
 import edu.cornell.cs.nlp.spf.base.concurrency.ITinyExecutor;
 import edu.cornell.cs.nlp.spf.base.concurrency.Shutdownable;
-import edu.cornell.cs.nlp.spf.base.concurrency.TinyExecutorService;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
@@ -75,6 +81,9 @@ import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Multi threaded CKY parser. Work is distributed on the level of span splits.
+ * With pre-chart pruning, the cells of each split are not added to the chart
+ * by the split job. Instead, the pruned cells of all splits of a span are
+ * merged into the chart once, when the last split of the span completes.
  *
  * @author Yoav Artzi
  * @param <DI>
@@ -106,11 +115,10 @@ public class MultiCKYParser<DI extends Sentence, MR>
 				completeParseFilter, unaryRules, lexicalRule, breakTies);
 		this.numThreads = numThreads;
 		this.threadNamePrefix = threadNamePrefix;
-		this.executor = new TinyExecutorService(
+		this.executor = new DeadlineExecutorService(
 				numThreads == null ? Runtime.getRuntime().availableProcessors()
 						: numThreads,
-				new LoggingThreadFactory(threadNamePrefix),
-				ITinyExecutor.DEFAULT_MONITOR_SLEEP);
+				new LoggingThreadFactory(threadNamePrefix));
 		this.preChartPruning = preChartPruning;
 	}
 
@@ -148,11 +156,10 @@ public class MultiCKYParser<DI extends Sentence, MR>
 	private void readObject(ObjectInputStream ois)
 			throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
-		this.executor = new TinyExecutorService(
+		this.executor = new DeadlineExecutorService(
 				numThreads == null ? Runtime.getRuntime().availableProcessors()
 						: numThreads,
-				new LoggingThreadFactory(threadNamePrefix),
-				ITinyExecutor.DEFAULT_MONITOR_SLEEP);
+				new LoggingThreadFactory(threadNamePrefix));
 	}
 
 	@Override
@@ -637,6 +644,13 @@ public class MultiCKYParser<DI extends Sentence, MR>
 		private final Predicate<ParsingOp<MR>>			pruningFilter;
 		private final Map<SpanPair, Set<SplitTriplet>>	spans;
 
+		/**
+		 * Cells of completed split jobs, waiting to be merged into the chart.
+		 * Only used with pre-chart pruning. The map is populated before any
+		 * job is executed, and not modified afterwards.
+		 */
+		private final Map<SpanPair, SplitResults<MR>>	splitResults;
+
 		public Listener(Map<Integer, Set<SpanPair>> completedSpanBegins,
 				Map<Integer, Set<SpanPair>> completedSpanEnds,
 				Predicate<ParsingOp<MR>> pruningFilter,
@@ -653,6 +667,23 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			this.lock = lock;
 			this.spans = spans;
 			this.adjacentLock = new IndexLock(numTokens);
+			if (preChartPruning) {
+				this.splitResults = new HashMap<SpanPair, SplitResults<MR>>();
+				for (final SpanPair span : spans.keySet()) {
+					splitResults.put(span, new SplitResults<MR>());
+				}
+			} else {
+				this.splitResults = null;
+			}
+		}
+
+		/**
+		 * Add the pruned cells of a split. The cells are added to the chart
+		 * when the last split of the span completes.
+		 */
+		public void addSplitResult(SplitTriplet split, List<Cell<MR>> cells,
+				boolean pruned) {
+			splitResults.get(split.span).add(cells, pruned);
 		}
 
 		public void jobComplete(AbstractJob job) {
@@ -698,6 +729,14 @@ public class MultiCKYParser<DI extends Sentence, MR>
 			}
 
 			if (doSpanUnary) {
+				if (splitResults != null) {
+					// All splits are processed, so this is the only thread
+					// accessing the span. Merge the cells of all splits into
+					// it.
+					splitResults.get(job.split.span).mergeInto(chart,
+							job.split.start, job.split.end);
+				}
+
 				// Case all splits processed, we still require processing with
 				// unary rules.
 				executor.execute(new UnarySpanJob(pruningFilter, model, chart,
@@ -845,15 +884,22 @@ public class MultiCKYParser<DI extends Sentence, MR>
 
 			LOG.debug("%s: %d new cells", split, newCells.size());
 
-			// Add all the valid cells under a span lock
-			lock.lock(split.start, split.end);
-			for (final Cell<MR> newCell : newCells) {
-				chart.add(newCell);
-			}
-			if (processingPair.second()) {
-				chart.externalPruning(split.start, split.end);
+			if (preChartPruning) {
+				// Leave the cells to the listener, which merges the cells of
+				// all splits into the span, once they are all completed.
+				listener.addSplitResult(split, newCells,
+						processingPair.second());
+			} else {
+				// Add all the valid cells under a span lock
+				lock.lock(split.start, split.end);
+				for (final Cell<MR> newCell : newCells) {
+					chart.add(newCell);
+				}
+				if (processingPair.second()) {
+					chart.externalPruning(split.start, split.end);
+				}
+				lock.unlock(split.start, split.end);
 			}
-			lock.unlock(split.start, split.end);
 
 			LOG.debug("%s: Split job completed", split);
 
@@ -862,6 +908,70 @@ public class MultiCKYParser<DI extends Sentence, MR>
 		}
 	}
 
+	/**
+	 * Pruned cells of the completed splits of a single span. Split jobs add
+	 * their cells concurrently without locking. The cells are merged into the
+	 * chart by a single thread, once all splits are completed.
+	 *
+	 * @author Yoav Artzi
+	 */
+	private static class SplitResults<MR> {
+		private final Comparator<Cell<MR>>		descendingScore	= Collections
+				.reverseOrder(new Cell.ScoreComparator<MR>());
+		private volatile boolean				pruned			= false;
+		private final Queue<List<Cell<MR>>>		results			= new ConcurrentLinkedQueue<List<Cell<MR>>>();
+
+		/**
+		 * @param cells
+		 *            Cells of a single split. The list is owned by this
+		 *            object.
+		 * @param splitPruned
+		 *            Indicates pruning during the processing of the split.
+		 */
+		public void add(List<Cell<MR>> cells, boolean splitPruned) {
+			if (splitPruned) {
+				pruned = true;
+			}
+			if (!cells.isEmpty()) {
+				// Sort in the split job, so the merge only needs to compare
+				// the heads of the lists.
+				cells.sort(descendingScore);
+				results.add(cells);
+			}
+		}
+
+		/**
+		 * K-way merge of the cells of all splits into the chart, from the
+		 * highest scoring cell down. Since the span queue is filled in
+		 * descending order, it never needs to evict cells. Must be called
+		 * when all splits are completed and no other thread accesses the
+		 * span.
+		 */
+		public void mergeInto(Chart<MR> chart, int start, int end) {
+			final PriorityQueue<Pair<Cell<MR>, Iterator<Cell<MR>>>> heads = new PriorityQueue<Pair<Cell<MR>, Iterator<Cell<MR>>>>(
+					Math.max(results.size(), 1),
+					(p1, p2) -> descendingScore.compare(p1.first(),
+							p2.first()));
+			List<Cell<MR>> cells;
+			while ((cells = results.poll()) != null) {
+				final Iterator<Cell<MR>> iterator = cells.iterator();
+				heads.add(Pair.of(iterator.next(), iterator));
+			}
+
+			while (!heads.isEmpty()) {
+				final Pair<Cell<MR>, Iterator<Cell<MR>>> head = heads.poll();
+				chart.add(head.first());
+				if (head.second().hasNext()) {
+					heads.add(Pair.of(head.second().next(), head.second()));
+				}
+			}
+
+			if (pruned) {
+				chart.externalPruning(start, end);
+			}
+		}
+	}
+
 	private static class SplitTriplet {
 		final int		end;
 		final int		hashCode;
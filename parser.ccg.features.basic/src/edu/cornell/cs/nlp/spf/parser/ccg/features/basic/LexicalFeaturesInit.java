@@ -86,9 +86,11 @@ public class LexicalFeaturesInit<DI extends IDataItem<?>, MR> implements
 		for (final LexicalEntry<MR> entry : entries) {
 			final IHashVector features = model.computeFeatures(entry).getAll(
 					partialKey);
-			for (final Pair<KeyArgs, Double> pair : features) {
-				model.getTheta().set(pair.first(), scorer.score(entry));
-			}
+			model.updateTheta(theta -> {
+				for (final Pair<KeyArgs, Double> pair : features) {
+					theta.set(pair.first(), scorer.score(entry));
+				}
+			});
 			LOG.info("Init %s: %s -> %s", partialKey, entry, model.getTheta()
 					.printValues(model.computeFeatures(entry)));
 		}
@@ -70,7 +70,7 @@ public class SupervisedFilterFactory<DI extends ILabeledDataItem<?, LogicalExpre
 	public SupervisedFilterFactory(
 			final Predicate<LogicalConstant> constantFilter) {
 		this(constantFilter, PredicateUtils.alwaysTrue(),
-				UnaryOperator.identity());
+				new IdentityPreprocessor());
 	}
 
 	public SupervisedFilterFactory(
@@ -400,7 +400,7 @@ public class SupervisedFilterFactory<DI extends ILabeledDataItem<?, LogicalExpre
 					PredicateUtils.alwaysTrue(),
 					params.contains("constantPreprocessor")
 							? repo.get(params.get("constantPreprocessor"))
-							: UnaryOperator.identity());
+							: new IdentityPreprocessor());
 		}
 
 		@Override
@@ -535,6 +535,24 @@ public class SupervisedFilterFactory<DI extends ILabeledDataItem<?, LogicalExpre
 
 	}
 
+	/**
+	 * Identity constant pre-processor. Use a separate class to keep the factory
+	 * {@link Serializable}.
+	 *
+	 * @author Yoav Artzi
+	 */
+	private static class IdentityPreprocessor
+			implements UnaryOperator<LogicalConstant>, Serializable {
+
+		private static final long serialVersionUID = -1329826316127365043L;
+
+		@Override
+		public LogicalConstant apply(LogicalConstant constant) {
+			return constant;
+		}
+
+	}
+
 	/**
 	 * Use a separate class to keep the filter {@link Serializable}.
 	 *
@@ -28,6 +28,18 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
  */
 public interface INormalFormConstraint extends Serializable {
 
+	/**
+	 * Indicates the constraint is existential over the generating rules: a
+	 * binary step is invalid if and only if it's invalid for some pair of
+	 * single rules, one generating the left category and one the right, and a
+	 * unary step is invalid if and only if it's invalid for some single
+	 * generating rule. Such constraints are compiled into a lookup table by
+	 * {@link NormalFormValidator}.
+	 */
+	default boolean isElementwise() {
+		return false;
+	}
+
 	/**
 	 * Binary parse step constraint validation.
 	 *
@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.normalform;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,24 +35,85 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
  * the chart is pruned this guarantee doesn't hold. However, NF parsing leads to
  * fewer entries in the chart, which in principle is better for exploring the
  * space.
+ * <p>
+ * Elementwise constraints (see {@link INormalFormConstraint#isElementwise()})
+ * are compiled into lookup tables indexed by the ID of the considered rule and
+ * the IDs of the generating rules (see {@link RuleName#getId()}). Validation
+ * then takes a few bit operations over the rule name masks of the arguments
+ * (see {@link IArrayRuleNameSet#getRuleNameMask()}). The table of each
+ * considered rule is compiled when it's first required, and re-compiled when
+ * an argument includes a rule name that was assigned an ID after the table was
+ * compiled. Arguments with rule names beyond the mask capacity are validated
+ * directly against the constraints, as are all other constraints.
  *
  * @author Yoav Artzi
  */
 public class NormalFormValidator implements Serializable {
-	public static final ILogger				LOG					= LoggerFactory
-																		.create(NormalFormValidator.class);
+	public static final ILogger					LOG					= LoggerFactory
+			.create(NormalFormValidator.class);
+
+	private static final long					serialVersionUID	= -3843293772350223393L;
+
+	/**
+	 * Compiled binary tables, indexed by the ID of the considered rule.
+	 * Copy-on-write.
+	 */
+	private transient volatile BinaryTable[]	binaryTables;
+
+	private final INormalFormConstraint[]		constraints;
+
+	/**
+	 * Constraints that are compiled into the lookup tables.
+	 */
+	private transient INormalFormConstraint[]	elementwiseConstraints;
 
-	private static final long				serialVersionUID	= -3843293772350223393L;
+	/**
+	 * Constraints that are validated directly.
+	 */
+	private transient INormalFormConstraint[]	otherConstraints;
 
-	private final INormalFormConstraint[]	constraints;
+	/**
+	 * Compiled unary tables, indexed by the ID of the considered rule.
+	 * Copy-on-write.
+	 */
+	private transient volatile UnaryTable[]		unaryTables;
 
 	private NormalFormValidator(INormalFormConstraint[] constraints) {
 		this.constraints = constraints;
+		init();
 		LOG.info("Init %s :: constraints=%s",
 				NormalFormValidator.class.getSimpleName(),
 				Arrays.toString(constraints));
 	}
 
+	private static long coveredMask(int limit) {
+		return limit >= RuleName.NUM_MASK_IDS ? ~RuleName.OVERFLOW_MASK_BIT
+				: (1L << limit) - 1;
+	}
+
+	private static boolean isValid(INormalFormConstraint[] constraints,
+			IArrayRuleNameSet generatingRules, RuleName consideredRule) {
+		final int length = constraints.length;
+		for (int i = 0; i < length; ++i) {
+			if (!constraints[i].isValid(generatingRules, consideredRule)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isValid(INormalFormConstraint[] constraints,
+			IArrayRuleNameSet left, IArrayRuleNameSet right,
+			RuleName consideredRule) {
+		final int length = constraints.length;
+		for (int i = 0; i < length; ++i) {
+			if (!constraints[i].isValid(left, right, consideredRule)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Validates a binary parsing step.
 	 *
@@ -65,13 +128,44 @@ public class NormalFormValidator implements Serializable {
 	 */
 	public boolean isValid(IArrayRuleNameSet left, IArrayRuleNameSet right,
 			RuleName consideredRule) {
-		final int length = constraints.length;
-		for (int i = 0; i < length; ++i) {
-			if (!constraints[i].isValid(left, right, consideredRule)) {
+		return isValid(left, right, consideredRule, consideredRule.getId());
+	}
+
+	/**
+	 * Validates a binary parsing step.
+	 *
+	 * @param consideredRuleId
+	 *            The ID of the considered rule (see {@link RuleName#getId()}).
+	 * @see #isValid(IArrayRuleNameSet, IArrayRuleNameSet, RuleName)
+	 */
+	public boolean isValid(IArrayRuleNameSet left, IArrayRuleNameSet right,
+			RuleName consideredRule, int consideredRuleId) {
+		final long leftMask = left.getRuleNameMask();
+		final long rightMask = right.getRuleNameMask();
+		if (leftMask == 0L || rightMask == 0L
+				|| ((leftMask | rightMask) & RuleName.OVERFLOW_MASK_BIT) != 0) {
+			// The elementwise decomposition requires non-empty sets, and the
+			// tables only cover rule names with a dedicated mask bit.
+			if (!isValid(elementwiseConstraints, left, right,
+					consideredRule)) {
 				return false;
 			}
+		} else if (elementwiseConstraints.length > 0) {
+			final BinaryTable[] tables = binaryTables;
+			BinaryTable table = consideredRuleId < tables.length
+					? tables[consideredRuleId] : null;
+			if (table == null
+					|| ((leftMask | rightMask) & ~table.covered) != 0) {
+				table = compileBinary(consideredRule, consideredRuleId);
+			}
+			for (long bits = leftMask; bits != 0; bits &= bits - 1) {
+				if ((table.invalid[Long.numberOfTrailingZeros(bits)]
+						& rightMask) != 0) {
+					return false;
+				}
+			}
 		}
-		return true;
+		return isValid(otherConstraints, left, right, consideredRule);
 	}
 
 	/**
@@ -85,13 +179,114 @@ public class NormalFormValidator implements Serializable {
 	 */
 	public boolean isValid(IArrayRuleNameSet generatingRules,
 			RuleName consideredRule) {
-		final int length = constraints.length;
-		for (int i = 0; i < length; ++i) {
-			if (!constraints[i].isValid(generatingRules, consideredRule)) {
+		return isValid(generatingRules, consideredRule,
+				consideredRule.getId());
+	}
+
+	/**
+	 * Validates a unary parsing step.
+	 *
+	 * @param consideredRuleId
+	 *            The ID of the considered rule (see {@link RuleName#getId()}).
+	 * @see #isValid(IArrayRuleNameSet, RuleName)
+	 */
+	public boolean isValid(IArrayRuleNameSet generatingRules,
+			RuleName consideredRule, int consideredRuleId) {
+		final long mask = generatingRules.getRuleNameMask();
+		if (mask == 0L || (mask & RuleName.OVERFLOW_MASK_BIT) != 0) {
+			if (!isValid(elementwiseConstraints, generatingRules,
+					consideredRule)) {
+				return false;
+			}
+		} else if (elementwiseConstraints.length > 0) {
+			final UnaryTable[] tables = unaryTables;
+			UnaryTable table = consideredRuleId < tables.length
+					? tables[consideredRuleId] : null;
+			if (table == null || (mask & ~table.covered) != 0) {
+				table = compileUnary(consideredRule, consideredRuleId);
+			}
+			if ((table.invalid & mask) != 0) {
 				return false;
 			}
 		}
-		return true;
+		return isValid(otherConstraints, generatingRules, consideredRule);
+	}
+
+	private synchronized BinaryTable compileBinary(RuleName consideredRule,
+			int consideredRuleId) {
+		final int limit = Math.min(RuleName.getIdLimit(),
+				RuleName.NUM_MASK_IDS);
+		final SingletonRuleNameSet[] sets = createSingletons(limit);
+		final long[] invalid = new long[limit];
+		for (int i = 0; i < limit; ++i) {
+			for (int j = 0; j < limit; ++j) {
+				if (!isValid(elementwiseConstraints, sets[i], sets[j],
+						consideredRule)) {
+					invalid[i] |= 1L << j;
+				}
+			}
+		}
+		final BinaryTable table = new BinaryTable(coveredMask(limit),
+				invalid);
+
+		final BinaryTable[] tables = Arrays.copyOf(binaryTables,
+				Math.max(binaryTables.length, consideredRuleId + 1));
+		tables[consideredRuleId] = table;
+		binaryTables = tables;
+		return table;
+	}
+
+	private synchronized UnaryTable compileUnary(RuleName consideredRule,
+			int consideredRuleId) {
+		final int limit = Math.min(RuleName.getIdLimit(),
+				RuleName.NUM_MASK_IDS);
+		final SingletonRuleNameSet[] sets = createSingletons(limit);
+		long invalid = 0L;
+		for (int i = 0; i < limit; ++i) {
+			if (!isValid(elementwiseConstraints, sets[i], consideredRule)) {
+				invalid |= 1L << i;
+			}
+		}
+		final UnaryTable table = new UnaryTable(coveredMask(limit), invalid);
+
+		final UnaryTable[] tables = Arrays.copyOf(unaryTables,
+				Math.max(unaryTables.length, consideredRuleId + 1));
+		tables[consideredRuleId] = table;
+		unaryTables = tables;
+		return table;
+	}
+
+	private SingletonRuleNameSet[] createSingletons(int limit) {
+		final SingletonRuleNameSet[] sets = new SingletonRuleNameSet[limit];
+		for (int i = 0; i < limit; ++i) {
+			sets[i] = new SingletonRuleNameSet(RuleName.getById(i));
+		}
+		return sets;
+	}
+
+	private void init() {
+		final List<INormalFormConstraint> elementwise = new ArrayList<INormalFormConstraint>();
+		final List<INormalFormConstraint> other = new ArrayList<INormalFormConstraint>();
+		for (final INormalFormConstraint constraint : constraints) {
+			if (constraint.isElementwise()) {
+				elementwise.add(constraint);
+			} else {
+				other.add(constraint);
+			}
+		}
+		this.elementwiseConstraints = elementwise
+				.toArray(new INormalFormConstraint[elementwise.size()]);
+		this.otherConstraints = other
+				.toArray(new INormalFormConstraint[other.size()]);
+		this.binaryTables = new BinaryTable[0];
+		this.unaryTables = new UnaryTable[0];
+	}
+
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// Rule name IDs are not serialized, so tables are compiled again.
+		init();
 	}
 
 	public static class Builder {
@@ -116,4 +311,71 @@ public class NormalFormValidator implements Serializable {
 							.size()]));
 		}
 	}
+
+	/**
+	 * Compiled validation of binary steps for a single considered rule.
+	 */
+	private static class BinaryTable {
+		/**
+		 * Mask of the rule name IDs covered by this table.
+		 */
+		private final long		covered;
+
+		/**
+		 * Indexed by the ID of a left generating rule. Each entry is the mask
+		 * of right generating rules that invalidate the step.
+		 */
+		private final long[]	invalid;
+
+		public BinaryTable(long covered, long[] invalid) {
+			this.covered = covered;
+			this.invalid = invalid;
+		}
+	}
+
+	private static class SingletonRuleNameSet implements IArrayRuleNameSet {
+		private final RuleName ruleName;
+
+		public SingletonRuleNameSet(RuleName ruleName) {
+			this.ruleName = ruleName;
+		}
+
+		@Override
+		public RuleName getRuleName(int index) {
+			if (index != 0) {
+				throw new IndexOutOfBoundsException();
+			}
+			return ruleName;
+		}
+
+		@Override
+		public long getRuleNameMask() {
+			return ruleName.getMaskBit();
+		}
+
+		@Override
+		public int numRuleNames() {
+			return 1;
+		}
+	}
+
+	/**
+	 * Compiled validation of unary steps for a single considered rule.
+	 */
+	private static class UnaryTable {
+		/**
+		 * Mask of the rule name IDs covered by this table.
+		 */
+		private final long	covered;
+
+		/**
+		 * Mask of generating rules that invalidate the step.
+		 */
+		private final long	invalid;
+
+		public UnaryTable(long covered, long invalid) {
+			this.covered = covered;
+			this.invalid = invalid;
+		}
+	}
 }
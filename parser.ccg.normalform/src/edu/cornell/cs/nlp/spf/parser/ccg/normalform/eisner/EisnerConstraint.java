@@ -38,6 +38,11 @@ public class EisnerConstraint implements INormalFormConstraint {
 
 	private static final long	serialVersionUID	= -2104893862810439365L;
 
+	@Override
+	public boolean isElementwise() {
+		return true;
+	}
+
 	@Override
 	public boolean isValid(IArrayRuleNameSet leftGeneratingRules,
 			IArrayRuleNameSet rightGeneratingRules, RuleName consideredRule) {
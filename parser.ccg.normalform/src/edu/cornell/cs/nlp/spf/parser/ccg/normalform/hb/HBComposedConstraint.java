@@ -44,6 +44,11 @@ public class HBComposedConstraint implements INormalFormConstraint {
 		this.includeTypeRaising = includeTypeRaising;
 	}
 
+	@Override
+	public boolean isElementwise() {
+		return true;
+	}
+
 	@Override
 	public boolean isValid(IArrayRuleNameSet leftGeneratingRules,
 			IArrayRuleNameSet rightGeneratingRules, RuleName consideredRule) {
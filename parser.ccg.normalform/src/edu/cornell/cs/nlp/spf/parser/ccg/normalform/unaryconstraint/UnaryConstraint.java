@@ -58,6 +58,11 @@ public class UnaryConstraint implements INormalFormConstraint {
 				obj -> obj.getName())));
 	}
 
+	@Override
+	public boolean isElementwise() {
+		return true;
+	}
+
 	@Override
 	public boolean isValid(IArrayRuleNameSet leftGeneratingRules,
 			IArrayRuleNameSet rightGeneratingRules, RuleName consideredRule) {
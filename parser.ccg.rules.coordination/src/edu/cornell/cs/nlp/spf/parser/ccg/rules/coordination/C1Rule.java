@@ -54,15 +54,16 @@ class C1Rule<MR> implements IBinaryParseRule<MR> {
 						right.getSemantics(), left.getSemantics());
 				if (semantics != null) {
 					return new ParseRuleResult<MR>(RULE_NAME, Category.create(
-							new ComplexSyntax(new ComplexSyntax(left
+							ComplexSyntax.create(ComplexSyntax.create(left
 									.getSyntax(), right.getSyntax(),
 									Slash.VERTICAL), right.getSyntax(),
 									Slash.BACKWARD), semantics));
 				}
 			} else {
 				return new ParseRuleResult<MR>(RULE_NAME, Category.create(
-						new ComplexSyntax(right.getSyntax(), right.getSyntax(),
-								Slash.BACKWARD), simpleCoordination));
+						ComplexSyntax.create(right.getSyntax(),
+								right.getSyntax(), Slash.BACKWARD),
+						simpleCoordination));
 			}
 		}
 		return null;
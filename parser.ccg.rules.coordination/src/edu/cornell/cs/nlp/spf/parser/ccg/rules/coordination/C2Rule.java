@@ -50,7 +50,7 @@ class C2Rule<MR> implements IBinaryParseRule<MR> {
 			if (semantics != null) {
 				return new ParseRuleResult<MR>(RULE_NAME,
 						Category.create(
-								new ComplexSyntax(right.getSyntax(),
+								ComplexSyntax.create(right.getSyntax(),
 										SyntaxCoordinationServices
 												.getCoordinationType(right
 														.getSyntax()),
@@ -86,9 +86,9 @@ public class ForwardTopicalizedApplication extends
 
 		// it all matches!!! make new category and do composition!!!
 		// first, make the S/(S/X) including the new logical expression
-		final ComplexSyntax sfx = new ComplexSyntax(Syntax.S, left.getSyntax(),
-				Slash.FORWARD);
-		final ComplexSyntax newSyntax = new ComplexSyntax(Syntax.S, sfx,
+		final ComplexSyntax sfx = ComplexSyntax.create(Syntax.S,
+				left.getSyntax(), Slash.FORWARD);
+		final ComplexSyntax newSyntax = ComplexSyntax.create(Syntax.S, sfx,
 				Slash.FORWARD);
 
 		final Variable newVar = new Variable(right.getSemantics().getType());
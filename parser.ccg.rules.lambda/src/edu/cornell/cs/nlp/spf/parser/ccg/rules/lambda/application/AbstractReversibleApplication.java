@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.application;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -31,8 +33,7 @@ import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax.SimpleSyntax;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax.Unification;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
-import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetApplicationArgument;
-import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetApplicationFunction;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReverseApplicationMemo;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryReversibleParseRule;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
@@ -43,7 +44,9 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 
 /**
  * Abstract application rule that supports generating one of the arguments given
- * the result and the other.
+ * the result and the other. Reverse application of the semantics is memoized
+ * (see {@link ReverseApplicationMemo}), and the memo may be shared between
+ * rules.
  *
  * @author Yoav Artzi
  */
@@ -54,30 +57,48 @@ public abstract class AbstractReversibleApplication extends
 	/**
 	 * 
 	 */
-	private static final long	serialVersionUID	= 113249788916519430L;
+	private static final long					serialVersionUID	= 113249788916519430L;
 
-	public static final ILogger	LOG	= LoggerFactory
-											.create(AbstractReversibleApplication.class);
+	public static final ILogger					LOG					= LoggerFactory
+																	.create(AbstractReversibleApplication.class);
 
-	private final int			depthLimit;
+	private final int							depthLimit;
 
-	private final int			maxSubsetSize;
+	private final int							maxSubsetSize;
 
-	private final boolean		nfConstraint;
+	/**
+	 * Memo for the reverse application of the semantics. Not serialized, an
+	 * empty memo of the same size is created when the rule is read.
+	 */
+	private transient ReverseApplicationMemo	memo;
+
+	private final int							memoSize;
+
+	private final boolean						nfConstraint;
 
 	/**
 	 * This set of syntactic attributes is used when computing the argument
 	 * during reverse application. It's used to generalize the syntax of the
 	 * argument.
 	 */
-	private final Set<String>	syntacticAttributes;
+	private final Set<String>					syntacticAttributes;
 
 	public AbstractReversibleApplication(String label, Direction direction,
 			ICategoryServices<LogicalExpression> categoryServices,
 			int maxSubsetSize, int depthLimit, boolean nfConstraint,
 			Set<String> syntacticAttributes) {
+		this(label, direction, categoryServices, maxSubsetSize, depthLimit,
+				nfConstraint, syntacticAttributes, new ReverseApplicationMemo());
+	}
+
+	public AbstractReversibleApplication(String label, Direction direction,
+			ICategoryServices<LogicalExpression> categoryServices,
+			int maxSubsetSize, int depthLimit, boolean nfConstraint,
+			Set<String> syntacticAttributes, ReverseApplicationMemo memo) {
 		super(label, direction, categoryServices);
 		this.maxSubsetSize = maxSubsetSize;
+		this.memo = memo;
+		this.memoSize = memo.getSize();
 		this.depthLimit = depthLimit;
 		this.nfConstraint = nfConstraint;
 		this.syntacticAttributes = Collections
@@ -136,7 +157,7 @@ public abstract class AbstractReversibleApplication extends
 			Category<LogicalExpression> result, boolean forward, SentenceSpan span) {
 		if (argument.getSemantics() != null && result.getSemantics() != null) {
 
-			final LogicalExpression function = GetApplicationFunction.of(
+			final LogicalExpression function = memo.getFunction(
 					result.getSemantics(), argument.getSemantics(),
 					maxSubsetSize, depthLimit);
 			if (function != null) {
@@ -151,8 +172,7 @@ public abstract class AbstractReversibleApplication extends
 								.getSyntax()).getSlash();
 						if (forward && argSlash.equals(Slash.BACKWARD)
 								|| !forward && argSlash.equals(Slash.FORWARD)) {
-							if (GetApplicationArgument.of(
-									argument.getSemantics(),
+							if (memo.getArgument(argument.getSemantics(),
 									result.getSemantics()) != null) {
 								return Collections.emptySet();
 							}
@@ -166,7 +186,7 @@ public abstract class AbstractReversibleApplication extends
 
 				// Create the simplest syntactic form without any
 				// generalization.
-				final ComplexSyntax functionBaseSyntax = new ComplexSyntax(
+				final ComplexSyntax functionBaseSyntax = ComplexSyntax.create(
 						result.getSyntax(), argument.getSyntax(),
 						forward ? Slash.FORWARD : Slash.BACKWARD);
 				functionSyntaxForms.add(functionBaseSyntax);
@@ -205,7 +225,7 @@ public abstract class AbstractReversibleApplication extends
 					if (simpleArg.getAttribute() != null
 							&& !simpleArg.getAttribute().equals(
 									Syntax.VARIABLE_ATTRIBUTE)) {
-						functionSyntaxForms.add(new ComplexSyntax(
+						functionSyntaxForms.add(ComplexSyntax.create(
 								functionBaseSyntax.getLeft(), simpleArg
 										.stripAttributes(), functionBaseSyntax
 										.getSlash()));
@@ -299,7 +319,7 @@ public abstract class AbstractReversibleApplication extends
 					if (simpleArg.getAttribute() != null
 							&& !simpleArg.getAttribute().equals(
 									Syntax.VARIABLE_ATTRIBUTE)) {
-						argumentSyntaxForms.add(new ComplexSyntax(complex
+						argumentSyntaxForms.add(ComplexSyntax.create(complex
 								.getLeft(), simpleArg.stripAttributes(),
 								complex.getSlash()));
 					}
@@ -321,7 +341,7 @@ public abstract class AbstractReversibleApplication extends
 				}
 			}
 
-			final LogicalExpression argument = GetApplicationArgument.of(
+			final LogicalExpression argument = memo.getArgument(
 					function.getSemantics(), result.getSemantics());
 			if (argument != null) {
 				final Set<Category<LogicalExpression>> argumentCategories = new HashSet<Category<LogicalExpression>>();
@@ -342,4 +362,10 @@ public abstract class AbstractReversibleApplication extends
 		return Collections.emptySet();
 	}
 
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.memo = new ReverseApplicationMemo(memoSize);
+	}
+
 }
@@ -27,6 +27,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReverseApplicationMemo;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
@@ -52,6 +53,14 @@ public class BackwardReversibleApplication extends
 				depthLimit, nfConstraint, syntacticAttributes);
 	}
 
+	public BackwardReversibleApplication(
+			ICategoryServices<LogicalExpression> categoryServices,
+			int maxSubsetSize, int depthLimit, boolean nfConstraint,
+			Set<String> syntacticAttributes, ReverseApplicationMemo memo) {
+		super(RULE_LABEL, Direction.BACKWARD, categoryServices, maxSubsetSize,
+				depthLimit, nfConstraint, syntacticAttributes, memo);
+	}
+
 	@Override
 	public ParseRuleResult<LogicalExpression> apply(
 			Category<LogicalExpression> left,
@@ -96,7 +105,9 @@ public class BackwardReversibleApplication extends
 					params.getAsInteger("maxSubsetSize", 3), params
 							.getAsInteger("maxDepth", Integer.MAX_VALUE),
 					params.getAsBoolean("nfReversing", true),
-					new HashSet<String>(params.getSplit("attributes")));
+					new HashSet<String>(params.getSplit("attributes")),
+					new ReverseApplicationMemo(params.getAsInteger("memo",
+							ReverseApplicationMemo.DEFAULT_SIZE)));
 		}
 
 		@Override
@@ -124,6 +135,10 @@ public class BackwardReversibleApplication extends
 							"Force normal-form type-raised function constraint during application reversing (default: true)")
 					.addParam("maxSubsetSize", Integer.class,
 							"Max size of arguments to group together from recursive literals (default: 3)")
+					.addParam("memo", Integer.class,
+							"Maximum number of memoized reverse applications, 0 to disable (default: "
+									+ ReverseApplicationMemo.DEFAULT_SIZE
+									+ ")")
 					.build();
 		}
 	}
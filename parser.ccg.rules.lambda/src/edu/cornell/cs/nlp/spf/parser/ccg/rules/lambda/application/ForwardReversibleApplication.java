@@ -27,6 +27,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReverseApplicationMemo;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
@@ -51,6 +52,14 @@ public class ForwardReversibleApplication extends AbstractReversibleApplication
 				depthLimit, nfReversing, syntacticAttributes);
 	}
 
+	public ForwardReversibleApplication(
+			ICategoryServices<LogicalExpression> categoryServices,
+			int maxSubsetSize, int depthLimit, boolean nfReversing,
+			Set<String> syntacticAttributes, ReverseApplicationMemo memo) {
+		super(RULE_LABEL, Direction.FORWARD, categoryServices, maxSubsetSize,
+				depthLimit, nfReversing, syntacticAttributes, memo);
+	}
+
 	@Override
 	public ParseRuleResult<LogicalExpression> apply(
 			Category<LogicalExpression> left,
@@ -95,7 +104,9 @@ public class ForwardReversibleApplication extends AbstractReversibleApplication
 					params.getAsInteger("maxSubsetSize", 3), params
 							.getAsInteger("maxDepth", Integer.MAX_VALUE),
 					params.getAsBoolean("nfReversing", true),
-					new HashSet<String>(params.getSplit("attributes")));
+					new HashSet<String>(params.getSplit("attributes")),
+					new ReverseApplicationMemo(params.getAsInteger("memo",
+							ReverseApplicationMemo.DEFAULT_SIZE)));
 		}
 
 		@Override
@@ -115,6 +126,10 @@ public class ForwardReversibleApplication extends AbstractReversibleApplication
 							"Forward application with reversing methods")
 					.addParam("maxSubsetSize", Integer.class,
 							"Max size of arguments to group together from recursive literals (default: 3)")
+					.addParam("memo", Integer.class,
+							"Maximum number of memoized reverse applications, 0 to disable (default: "
+									+ ReverseApplicationMemo.DEFAULT_SIZE
+									+ ")")
 					.addParam(
 							"attributes",
 							String.class,
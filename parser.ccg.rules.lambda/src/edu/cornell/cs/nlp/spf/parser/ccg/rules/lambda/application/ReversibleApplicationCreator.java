@@ -27,6 +27,7 @@ import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.ReverseApplicationMemo;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.BinaryRuleSet;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.IBinaryParseRule;
 
@@ -49,20 +50,23 @@ public class ReversibleApplicationCreator implements
 			IResourceRepository repo) {
 		final List<IBinaryParseRule<LogicalExpression>> rules = new ArrayList<IBinaryParseRule<LogicalExpression>>(
 				2);
+		// Both rules share the same memo.
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo(
+				params.getAsInteger("memo", ReverseApplicationMemo.DEFAULT_SIZE));
 		rules.add(new ForwardReversibleApplication(
 				(ICategoryServices<LogicalExpression>) repo
 						.get(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE),
 				params.getAsInteger("maxSubsetSize", 3), params.getAsInteger(
 						"maxDepth", Integer.MAX_VALUE), params.getAsBoolean(
 						"nfReversing", true), new HashSet<String>(params
-						.getSplit("attributes"))));
+						.getSplit("attributes")), memo));
 		rules.add(new BackwardReversibleApplication(
 				(ICategoryServices<LogicalExpression>) repo
 						.get(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE),
 				params.getAsInteger("maxSubsetSize", 3), params.getAsInteger(
 						"maxDepth", Integer.MAX_VALUE), params.getAsBoolean(
 						"nfReversing", true), new HashSet<String>(params
-						.getSplit("attributes"))));
+						.getSplit("attributes")), memo));
 		return new BinaryRuleSet<LogicalExpression>(rules);
 	}
 
@@ -91,6 +95,9 @@ public class ReversibleApplicationCreator implements
 						"A set of syntactic attributes to use when generalizing the syntactic form during reverse application")
 				.addParam("maxSubsetSize", Integer.class,
 						"Max size of arguments to group together from recursive literals (default: 3)")
+				.addParam("memo", Integer.class,
+						"Maximum number of memoized reverse applications, shared by both rules, 0 to disable (default: "
+								+ ReverseApplicationMemo.DEFAULT_SIZE + ")")
 				.build();
 	}
 
@@ -16,6 +16,8 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.rules.lambda.typeraising;
 
+import java.io.Serializable;
+
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ComplexCategory;
 import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
@@ -37,7 +39,8 @@ import edu.cornell.cs.nlp.utils.collections.ArrayUtils;
 import edu.cornell.cs.nlp.utils.filter.IFilter;
 
 public abstract class AbstractTypeRaising implements
-		ITypeRaisingRule<LogicalExpression, Type> {
+		ITypeRaisingRule<LogicalExpression, Type>, Serializable {
+	private static final long		serialVersionUID	= 1583069372151745372L;
 	private final Direction			direction;
 	private final UnaryRuleName		ruleName;
 	private final IFilter<Syntax>	validSyntaxFilter;
@@ -85,8 +88,8 @@ public abstract class AbstractTypeRaising implements
 				return new ParseRuleResult<LogicalExpression>(
 						ruleName,
 						new ComplexCategory<LogicalExpression>(
-								new ComplexSyntax(finalResult,
-										new ComplexSyntax(finalResult,
+								ComplexSyntax.create(finalResult,
+										ComplexSyntax.create(finalResult,
 												innerArgumentUnification
 														.getUnifiedSyntax(),
 												Slash.BACKWARD), Slash.FORWARD),
@@ -95,8 +98,8 @@ public abstract class AbstractTypeRaising implements
 				return new ParseRuleResult<LogicalExpression>(
 						ruleName,
 						new ComplexCategory<LogicalExpression>(
-								new ComplexSyntax(finalResult,
-										new ComplexSyntax(finalResult,
+								ComplexSyntax.create(finalResult,
+										ComplexSyntax.create(finalResult,
 												innerArgumentUnification
 														.getUnifiedSyntax(),
 												Slash.FORWARD), Slash.BACKWARD),
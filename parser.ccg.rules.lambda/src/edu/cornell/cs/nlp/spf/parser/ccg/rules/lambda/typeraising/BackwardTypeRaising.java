@@ -27,6 +27,8 @@ import edu.cornell.cs.nlp.utils.filter.IFilter;
  */
 public class BackwardTypeRaising extends AbstractTypeRaising {
 	
+	private static final long serialVersionUID = 4427781940211932671L;
+	
 	public BackwardTypeRaising(IFilter<Syntax> validSyntaxFilter) {
 		super(Direction.BACKWARD, validSyntaxFilter);
 	}
@@ -33,7 +33,7 @@ import edu.cornell.cs.nlp.spf.parser.ccg.rules.ParseRuleResult;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.SentenceSpan;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
 import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition.AbstractComposition;
-import edu.cornell.cs.nlp.utils.filter.IFilter;
+import edu.cornell.cs.nlp.utils.filter.FilterUtils;
 
 /**
  * Combined type raising of primary argument and forward composition: X (T\X)/Z
@@ -58,13 +58,7 @@ public class ForwardTypeRaisedComposition extends
 	public ForwardTypeRaisedComposition(
 			ICategoryServices<LogicalExpression> categoryServices) {
 		super(RULE_LABEL, Direction.FORWARD, 1, categoryServices, false);
-		this.typeRaising = new ForwardTypeRaising(new IFilter<Syntax>() {
-
-			@Override
-			public boolean test(Syntax e) {
-				return true;
-			}
-		});
+		this.typeRaising = new ForwardTypeRaising(FilterUtils.stubTrue());
 	}
 
 	@Override
@@ -27,6 +27,8 @@ import edu.cornell.cs.nlp.utils.filter.IFilter;
  */
 public class ForwardTypeRaising extends AbstractTypeRaising {
 	
+	private static final long serialVersionUID = -7206322315424826425L;
+	
 	public ForwardTypeRaising(IFilter<Syntax> validSyntaxFilter) {
 		super(Direction.FORWARD, validSyntaxFilter);
 	}
@@ -90,7 +90,7 @@ public abstract class AbstractShiftingRule
 				}
 				return new ParseRuleResult<LogicalExpression>(name,
 						Category.create(
-								new ComplexSyntax(base, base, targetSlash),
+								ComplexSyntax.create(base, base, targetSlash),
 								raisedSemantics));
 			}
 		}
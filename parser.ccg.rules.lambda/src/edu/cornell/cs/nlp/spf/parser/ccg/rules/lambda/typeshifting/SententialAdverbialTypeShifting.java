@@ -57,7 +57,7 @@ import edu.cornell.cs.nlp.utils.collections.SetUtils;
  */
 public class SententialAdverbialTypeShifting implements
 		IUnaryReversibleParseRule<LogicalExpression> {
-	private static final Syntax							S_FS_AP_SYNTAX		= new ComplexSyntax(
+	private static final Syntax							S_FS_AP_SYNTAX		= ComplexSyntax.create(
 																					Syntax.S,
 																					Syntax.AP,
 																					Slash.FORWARD);
@@ -85,7 +85,7 @@ public class SententialAdverbialTypeShifting implements
 			if (raisedSemantics != null) {
 				return new ParseRuleResult<LogicalExpression>(name,
 						Category.create(
-								new ComplexSyntax(baseUnification
+								ComplexSyntax.create(baseUnification
 										.getUnifiedSyntax(), Syntax.AP,
 										Slash.FORWARD), raisedSemantics));
 			}
@@ -65,4 +65,15 @@ public interface IParserOutput<MR> {
 	 */
 	boolean isExact();
 
+	/**
+	 * Release internal inference structures (e.g., the chart) for re-use by
+	 * the parser. Derivations already retrieved from the output remain valid,
+	 * but the output may not be used after it's released, except for
+	 * {@link #getParsingTime()} and {@link #isExact()}. Releasing is optional,
+	 * and should only be done by the owner of the output, when it's not shared.
+	 */
+	default void release() {
+		// Nothing to release by default.
+	}
+
 }
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+
+/**
+ * Cache of the features and scores of lexical entries, as computed by the
+ * data-independent lexical feature sets of a {@link Model}. Features are
+ * cached until invalidated, which the model does when lexical entries are
+ * added, since feature sets may update their state. Scores are tagged with
+ * the version of the parameters used to compute them. The version is bumped
+ * whenever the parameters may have changed, which invalidates all cached
+ * scores, but not the features. The cache is thread-safe and is cleared when
+ * it reaches its maximum size.
+ *
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class LexicalEntryCache<MR> {
+
+	public static final int							DEFAULT_SIZE	= 100000;
+
+	private volatile Map<LexicalEntry<MR>, Cached>	entries			= new ConcurrentHashMap<LexicalEntry<MR>, Cached>();
+
+	private final LongAdder							featureHits		= new LongAdder();
+
+	private final LongAdder							featureMisses	= new LongAdder();
+
+	private final LongAdder							scoreHits		= new LongAdder();
+
+	private final LongAdder							scoreMisses		= new LongAdder();
+
+	private final int								size;
+
+	private final AtomicLong						thetaVersion	= new AtomicLong();
+
+	/**
+	 * @param size
+	 *            Maximum number of cached entries. Caching is disabled if not
+	 *            positive.
+	 */
+	LexicalEntryCache(int size) {
+		this.size = size;
+	}
+
+	public long getFeatureHits() {
+		return featureHits.sum();
+	}
+
+	public long getFeatureMisses() {
+		return featureMisses.sum();
+	}
+
+	public long getScoreHits() {
+		return scoreHits.sum();
+	}
+
+	public long getScoreMisses() {
+		return scoreMisses.sum();
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"features: hits=%d, misses=%d; scores: hits=%d, misses=%d; size=%d",
+				featureHits.sum(), featureMisses.sum(), scoreHits.sum(),
+				scoreMisses.sum(), entries.size());
+	}
+
+	/**
+	 * @param computeFeatures
+	 *            Computes the features of the entry on a cache miss.
+	 */
+	IHashVectorImmutable getFeatures(LexicalEntry<MR> entry,
+			Function<LexicalEntry<MR>, IHashVectorImmutable> computeFeatures) {
+		if (size <= 0) {
+			return computeFeatures.apply(entry);
+		}
+
+		final Map<LexicalEntry<MR>, Cached> current = entries;
+		final Cached cached = current.get(entry);
+		if (cached != null) {
+			featureHits.increment();
+			return cached.features;
+		}
+
+		featureMisses.increment();
+		final IHashVectorImmutable features = computeFeatures.apply(entry);
+		store(current, entry, new Cached(features, Long.MIN_VALUE, 0.0));
+		return features;
+	}
+
+	/**
+	 * @param computeFeatures
+	 *            Computes the features of the entry on a cache miss.
+	 * @param score
+	 *            Scores the features of the entry on a cache miss.
+	 */
+	double getScore(LexicalEntry<MR> entry,
+			Function<LexicalEntry<MR>, IHashVectorImmutable> computeFeatures,
+			ToDoubleFunction<IHashVectorImmutable> score) {
+		if (size <= 0) {
+			return score.applyAsDouble(computeFeatures.apply(entry));
+		}
+
+		// Read the version before computing the score, so a concurrent update
+		// will invalidate it.
+		final long version = thetaVersion.get();
+		final Map<LexicalEntry<MR>, Cached> current = entries;
+		final Cached cached = current.get(entry);
+		if (cached != null && cached.version == version) {
+			scoreHits.increment();
+			return cached.score;
+		}
+
+		scoreMisses.increment();
+		final IHashVectorImmutable features;
+		if (cached == null) {
+			featureMisses.increment();
+			features = computeFeatures.apply(entry);
+		} else {
+			featureHits.increment();
+			features = cached.features;
+		}
+		final double entryScore = score.applyAsDouble(features);
+		store(current, entry, new Cached(features, version, entryScore));
+		return entryScore;
+	}
+
+	/**
+	 * Invalidate all cached features and scores.
+	 */
+	void invalidate() {
+		// Replace the table, so computations that started before the
+		// invalidation don't store their results in the new table.
+		entries = new ConcurrentHashMap<LexicalEntry<MR>, Cached>();
+		thetaVersion.incrementAndGet();
+	}
+
+	/**
+	 * Invalidate all cached scores. Called when the parameters may have
+	 * changed.
+	 */
+	void thetaModified() {
+		thetaVersion.incrementAndGet();
+	}
+
+	private void store(Map<LexicalEntry<MR>, Cached> table,
+			LexicalEntry<MR> entry, Cached cached) {
+		if (table.size() >= size) {
+			table.clear();
+		}
+		table.put(entry, cached);
+	}
+
+	private static class Cached {
+		private final IHashVectorImmutable	features;
+		private final double				score;
+		private final long					version;
+
+		public Cached(IHashVectorImmutable features, long version,
+				double score) {
+			this.features = features;
+			this.version = version;
+			this.score = score;
+		}
+	}
+
+}
@@ -16,10 +16,18 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
@@ -27,15 +35,19 @@ import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.parser.IDerivation;
 import edu.cornell.cs.nlp.spf.parser.IParser;
-import edu.cornell.cs.nlp.spf.parser.IParserOutput;
 import edu.cornell.cs.nlp.utils.log.ILogger;
 import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+import edu.cornell.cs.nlp.utils.log.thread.InterruptedRuntimeException;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Prunes the lexicon of a given model. Retains all lexical item used in any
  * single optimal parse. If there's more than one optimal parse, no lexical
- * items are retained for this sample.
- * 
+ * items are retained for this sample. Data items are parsed concurrently, each
+ * thread counts entry usage locally, and the counts are merged once all items
+ * are parsed. Following pruning, the model is compacted (see
+ * {@link Model#retainLexEntries(java.util.Collection)}).
+ *
  * @author Yoav Artzi
  * @param <MR>
  */
@@ -44,55 +56,113 @@ public class LexiconPruner<DI extends Sentence, MR> implements
 	public static final ILogger			LOG	= LoggerFactory
 													.create(LexiconPruner.class
 															.getName());
-	
+
 	private final IDataCollection<DI>	data;
 	/**
 	 * A set of lexical item to retain regardless of their usage in optimal
 	 * parses.
 	 */
 	private final Lexicon<MR>			fixed;
+	private final int					numThreads;
 	private final IParser<Sentence, MR>	parser;
-	
+
 	public LexiconPruner(IDataCollection<DI> data,
 			IParser<Sentence, MR> parser, Lexicon<MR> fixed) {
+		this(data, parser, fixed, Runtime.getRuntime().availableProcessors());
+	}
+
+	public LexiconPruner(IDataCollection<DI> data,
+			IParser<Sentence, MR> parser, Lexicon<MR> fixed, int numThreads) {
 		this.data = data;
 		this.parser = parser;
 		this.fixed = fixed;
+		this.numThreads = numThreads;
+	}
+
+	private static <DI> DI next(Iterator<DI> iterator) {
+		synchronized (iterator) {
+			return iterator.hasNext() ? iterator.next() : null;
+		}
 	}
-	
+
 	@Override
 	public void process(Model<DI, MR> model) {
-		LOG.info("Pruning lexicon ...");
-		final Set<LexicalEntry<MR>> usedEntries = new HashSet<LexicalEntry<MR>>(
-				fixed.toCollection());
-		final Set<LexicalEntry<MR>> seenEntries = new HashSet<LexicalEntry<MR>>();
-		for (final DI dataItem : data) {
-			final IParserOutput<MR> parserOutput = parser.parse(dataItem,
-					model.createDataItemModel(dataItem));
-			final List<? extends IDerivation<MR>> bestParses = parserOutput
-					.getBestDerivations();
-			if (!bestParses.isEmpty()) {
-				for (final IDerivation<MR> parse : bestParses) {
-					final LinkedHashSet<LexicalEntry<MR>> parseLexicalEntries = parse
-							.getMaxLexicalEntries();
-					for (final LexicalEntry<MR> entry : parseLexicalEntries) {
-						// Only keep lexical entries that were used twice at
-						// least
-						if (!seenEntries.add(entry)) {
-							usedEntries.add(entry);
-							usedEntries.addAll(entry.getLinkedEntries());
-						}
+		LOG.info("Pruning lexicon (%d threads) ...", numThreads);
+
+		// Count the number of optimal parses using each entry.
+		final Map<LexicalEntry<MR>, Integer> counts = new HashMap<LexicalEntry<MR>, Integer>();
+		final Iterator<DI> iterator = data.iterator();
+		if (numThreads <= 1) {
+			countEntries(iterator, model, counts);
+		} else {
+			final ExecutorService executor = Executors.newFixedThreadPool(
+					numThreads, new LoggingThreadFactory("prune"));
+			try {
+				final List<Future<Map<LexicalEntry<MR>, Integer>>> futures = new ArrayList<Future<Map<LexicalEntry<MR>, Integer>>>(
+						numThreads);
+				for (int i = 0; i < numThreads; ++i) {
+					futures.add(executor.submit(() -> {
+						final Map<LexicalEntry<MR>, Integer> localCounts = new HashMap<LexicalEntry<MR>, Integer>();
+						countEntries(iterator, model, localCounts);
+						return localCounts;
+					}));
+				}
+				for (final Future<Map<LexicalEntry<MR>, Integer>> future : futures) {
+					for (final Entry<LexicalEntry<MR>, Integer> entry : future
+							.get().entrySet()) {
+						counts.merge(entry.getKey(), entry.getValue(),
+								Integer::sum);
 					}
 				}
+			} catch (final InterruptedException e) {
+				throw new InterruptedRuntimeException(e);
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			} finally {
+				executor.shutdownNow();
 			}
 		}
-		final Set<LexicalEntry<MR>> originalLexicon = new HashSet<LexicalEntry<MR>>(
-				model.getLexicon().toCollection());
-		model.getLexicon().retainAll(usedEntries);
-		originalLexicon.removeAll(usedEntries);
-		for (final LexicalEntry<MR> removedEntry : originalLexicon) {
-			LOG.info("Removed: [%.2f] %s", model.score(removedEntry),
-					removedEntry);
+
+		// Only keep lexical entries that were used twice at least.
+		final Set<LexicalEntry<MR>> usedEntries = new HashSet<LexicalEntry<MR>>(
+				fixed.toCollection());
+		for (final Entry<LexicalEntry<MR>, Integer> entry : counts
+				.entrySet()) {
+			if (entry.getValue() > 1) {
+				usedEntries.add(entry.getKey());
+				usedEntries.addAll(entry.getKey().getLinkedEntries());
+			}
+		}
+
+		for (final LexicalEntry<MR> entry : model.getLexicon()
+				.toCollection()) {
+			if (!usedEntries.contains(entry)) {
+				LOG.info("Removed: [%.2f] %s", model.score(entry), entry);
+			}
+		}
+
+		model.retainLexEntries(usedEntries);
+	}
+
+	/**
+	 * Parse items from the iterator until it's exhausted, and count the
+	 * number of optimal parses using each lexical entry.
+	 */
+	private void countEntries(Iterator<DI> iterator, Model<DI, MR> model,
+			Map<LexicalEntry<MR>, Integer> counts) {
+		DI dataItem;
+		while ((dataItem = next(iterator)) != null) {
+			for (final IDerivation<MR> parse : parser
+					.parse(dataItem, model.createDataItemModel(dataItem))
+					.getBestDerivations()) {
+				for (final LexicalEntry<MR> entry : parse
+						.getMaxLexicalEntries()) {
+					counts.merge(entry, 1, Integer::sum);
+				}
+			}
 		}
 	}
 }
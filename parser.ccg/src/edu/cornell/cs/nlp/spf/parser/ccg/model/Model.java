@@ -35,11 +35,14 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
 
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
 import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
 import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ConcurrentLexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
@@ -48,6 +51,7 @@ import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.parser.ccg.ILexicalParseStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.IParseStep;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.lexical.IIndependentLexicalFeatureSet;
 import edu.cornell.cs.nlp.spf.parser.ccg.model.lexical.ILexicalFeatureSet;
@@ -59,6 +63,12 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 
 /**
  * A complete parsing model, including features, parameters and a lexicon.
+ * <p>
+ * The features of lexical entries, as computed by the data-independent lexical
+ * feature sets, and their scores are cached (see {@link LexicalEntryCache}).
+ * Features are invalidated when entries are added to the model. Scores are
+ * invalidated when the parameters are updated through
+ * {@link #updateTheta(Consumer)}.
  *
  * @author Yoav Artzi
  * @param <DI>
@@ -79,18 +89,33 @@ public class Model<DI extends IDataItem<?>, MR>
 
 	private final Set<KeyArgs>									invalidFeatures;
 
+	private transient LexicalEntryCache<MR>						lexicalCache;
+
+	/**
+	 * Maximum size of the lexical entries cache. Caching is disabled if not
+	 * positive.
+	 */
+	private final int											lexicalCacheSize;
+
 	private final ILexicon<MR>									lexicon;
 
 	/**
 	 * Listeners that follow the model updates. Listeners can be added or
 	 * removed and they are not part of the serializable state of the model.
+	 * Copy-on-write, so listeners can be added or removed while others are
+	 * notified.
 	 */
-	private transient Set<IModelListener<MR>>					listeners			= new HashSet<IModelListener<MR>>();
+	private transient Set<IModelListener<MR>>					listeners			= new CopyOnWriteArraySet<IModelListener<MR>>();
 
 	private final IHashVector									theta;
 
 	protected Model(List<IParseFeatureSet<DI, MR>> featureSets,
 			ILexicon<MR> lexicon, IHashVector theta) {
+		this(featureSets, lexicon, theta, LexicalEntryCache.DEFAULT_SIZE);
+	}
+
+	protected Model(List<IParseFeatureSet<DI, MR>> featureSets,
+			ILexicon<MR> lexicon, IHashVector theta, int lexicalCacheSize) {
 		this.featureSets = Collections.unmodifiableList(featureSets);
 		final List<IIndependentLexicalFeatureSet<DI, MR>> lexicalFS = new ArrayList<IIndependentLexicalFeatureSet<DI, MR>>();
 		final Set<KeyArgs> invalidFeatureKeys = new HashSet<KeyArgs>();
@@ -112,6 +137,8 @@ public class Model<DI extends IDataItem<?>, MR>
 		this.independentLexicalFeatureSets = Collections
 				.unmodifiableList(lexicalFS);
 		this.lexicon = lexicon;
+		this.lexicalCacheSize = lexicalCacheSize;
+		this.lexicalCache = new LexicalEntryCache<MR>(lexicalCacheSize);
 		LOG.info("Init %s :: independentLexicalFeatureSets=%s",
 				Model.class.getSimpleName(), independentLexicalFeatureSets);
 		LOG.info(".... %s :: featureSets=%s", Model.class.getSimpleName(),
@@ -161,29 +188,13 @@ public class Model<DI extends IDataItem<?>, MR>
 	 * @return 'true' iff at least one new entry was introduced to the lexicon.
 	 */
 	public boolean addLexEntries(Collection<LexicalEntry<MR>> entries) {
-		final Set<LexicalEntry<MR>> addedEntries = new HashSet<>();
 		for (final LexicalEntry<MR> entry : entries) {
 			if (entry.isDynamic()) {
 				throw new IllegalStateException(
 						"Trying to add a dynmic entry to the model: " + entry);
 			}
-			addedEntries.addAll(lexicon.add(entry));
-		}
-		for (final IParseFeatureSet<DI, MR> fs : featureSets) {
-			if (fs instanceof ILexicalFeatureSet) {
-				for (final LexicalEntry<MR> entry : addedEntries) {
-					((ILexicalFeatureSet<DI, MR>) fs).addEntry(entry, theta);
-				}
-			}
-		}
-		if (!addedEntries.isEmpty()) {
-			for (final IModelListener<MR> listener : listeners) {
-				listener.lexicalEntriesAdded(addedEntries);
-			}
-			return true;
-		} else {
-			return false;
 		}
+		return notifyAdded(doAddLexEntries(entries));
 	}
 
 	/**
@@ -198,28 +209,26 @@ public class Model<DI extends IDataItem<?>, MR>
 			throw new IllegalStateException(
 					"Trying to add a dynmic entry to the model: " + entry);
 		}
+		return notifyAdded(
+				doAddLexEntries(Collections.singletonList(entry)));
+	}
 
-		final Set<LexicalEntry<MR>> addedEntries = lexicon.add(entry);
-		for (final IParseFeatureSet<DI, MR> fs : featureSets) {
-			if (fs instanceof ILexicalFeatureSet) {
-				for (final LexicalEntry<MR> addedEntry : addedEntries) {
-					((ILexicalFeatureSet<DI, MR>) fs).addEntry(addedEntry,
-							theta);
+	@Override
+	public IHashVector computeFeatures(IParseStep<MR> parseStep, DI dataItem) {
+		if (parseStep instanceof ILexicalParseStep) {
+			// Case lexical step: take the features of the data-independent
+			// lexical feature sets from the cache.
+			final IHashVector features = HashVectorFactory
+					.create(getLexicalFeatures(((ILexicalParseStep<MR>) parseStep)
+							.getLexicalEntry()));
+			for (final IParseFeatureSetImmutable<DI, MR> featureSet : featureSets) {
+				if (!(featureSet instanceof IIndependentLexicalFeatureSet)) {
+					featureSet.setFeatures(parseStep, features, dataItem);
 				}
 			}
+			return features;
 		}
-		if (!addedEntries.isEmpty()) {
-			for (final IModelListener<MR> listener : listeners) {
-				listener.lexicalEntriesAdded(addedEntries);
-			}
-			return true;
-		} else {
-			return false;
-		}
-	}
 
-	@Override
-	public IHashVector computeFeatures(IParseStep<MR> parseStep, DI dataItem) {
 		final IHashVector features = HashVectorFactory.create();
 		for (final IParseFeatureSetImmutable<DI, MR> featureSet : featureSets) {
 			featureSet.setFeatures(parseStep, features, dataItem);
@@ -229,11 +238,8 @@ public class Model<DI extends IDataItem<?>, MR>
 
 	@Override
 	public IHashVector computeFeatures(LexicalEntry<MR> lexicalEntry) {
-		final IHashVector features = HashVectorFactory.create();
-		for (final IIndependentLexicalFeatureSet<DI, MR> lfs : independentLexicalFeatureSets) {
-			lfs.setFeatures(lexicalEntry, features);
-		}
-		return features;
+		// Copy, since the caller may modify the vector.
+		return HashVectorFactory.create(getLexicalFeatures(lexicalEntry));
 	}
 
 	@Override
@@ -241,6 +247,10 @@ public class Model<DI extends IDataItem<?>, MR>
 		return new DataItemModel<DI, MR>(this, dataItem);
 	}
 
+	public LexicalEntryCache<MR> getLexicalEntryCache() {
+		return lexicalCache;
+	}
+
 	@Override
 	public ILexicon<MR> getLexicon() {
 		return lexicon;
@@ -250,6 +260,11 @@ public class Model<DI extends IDataItem<?>, MR>
 		return featureSets;
 	}
 
+	/**
+	 * Returns the parameters vector. The vector must only be modified through
+	 * {@link #updateTheta(Consumer)}, otherwise cached lexical scores are not
+	 * invalidated.
+	 */
 	@Override
 	public IHashVector getTheta() {
 		return theta;
@@ -266,9 +281,55 @@ public class Model<DI extends IDataItem<?>, MR>
 	}
 
 	public void registerListener(IModelListener<MR> listener) {
-		synchronized (listeners) {
-			listeners.add(listener);
+		listeners.add(listener);
+	}
+
+	/**
+	 * Retain only the given lexical entries, and compact the model. The
+	 * lexicon indices are re-created (see {@link ILexicon#compact()}), and the
+	 * weights of lexical features that are only used by removed entries are
+	 * dropped from the parameters vector. Zero weights are dropped as well,
+	 * which doesn't affect any score.
+	 *
+	 * @return 'true' iff the lexicon was modified.
+	 */
+	public synchronized boolean retainLexEntries(
+			Collection<LexicalEntry<MR>> entries) {
+		final int thetaSize = theta.size();
+		final Set<LexicalEntry<MR>> removed = new HashSet<LexicalEntry<MR>>(
+				lexicon.toCollection());
+		if (!lexicon.retainAll(entries)) {
+			return false;
+		}
+		final Collection<LexicalEntry<MR>> remaining = lexicon.toCollection();
+		removed.removeAll(remaining);
+		lexicon.compact();
+
+		// Collect the features still in use, and zero the weights of the
+		// features of removed entries that are not among them.
+		final Set<KeyArgs> usedFeatures = new HashSet<KeyArgs>(invalidFeatures);
+		for (final LexicalEntry<MR> entry : remaining) {
+			for (final Pair<KeyArgs, Double> feature : computeLexicalFeatures(
+					entry)) {
+				usedFeatures.add(feature.first());
+			}
+		}
+		for (final LexicalEntry<MR> entry : removed) {
+			for (final Pair<KeyArgs, Double> feature : computeLexicalFeatures(
+					entry)) {
+				if (usedFeatures.add(feature.first())) {
+					theta.set(feature.first(), 0.0);
+				}
+			}
 		}
+		theta.dropZeros();
+		lexicalCache.invalidate();
+
+		LOG.info(
+				"Compacted model: removed %d lexical entries (%d remaining) and %d parameters (%d remaining)",
+				removed.size(), remaining.size(), thetaSize - theta.size(),
+				theta.size());
+		return true;
 	}
 
 	@Override
@@ -278,7 +339,11 @@ public class Model<DI extends IDataItem<?>, MR>
 
 	@Override
 	public double score(LexicalEntry<MR> entry) {
-		return score(computeFeatures(entry));
+		if (entry.isDynamic()) {
+			return score(computeLexicalFeatures(entry));
+		}
+		return lexicalCache.getScore(entry, this::computeLexicalFeatures,
+				this::score);
 	}
 
 	@Override
@@ -300,10 +365,68 @@ public class Model<DI extends IDataItem<?>, MR>
 		return ret.toString();
 	}
 
+	/**
+	 * Update the parameters vector. Cached lexical scores are invalidated once
+	 * the update is applied, so scores computed concurrently from the old
+	 * parameters are not re-used.
+	 */
+	public void updateTheta(Consumer<IHashVector> update) {
+		update.accept(theta);
+		lexicalCache.thetaModified();
+	}
+
 	public void unregisterListener(IModelListener<MR> listener) {
-		synchronized (listeners) {
-			listeners.remove(listener);
+		listeners.remove(listener);
+	}
+
+	private IHashVector computeLexicalFeatures(LexicalEntry<MR> lexicalEntry) {
+		final IHashVector features = HashVectorFactory.create();
+		for (final IIndependentLexicalFeatureSet<DI, MR> lfs : independentLexicalFeatureSets) {
+			lfs.setFeatures(lexicalEntry, features);
+		}
+		return features;
+	}
+
+	/**
+	 * Add entries to the lexicon and initialize them in the feature sets.
+	 * Updates are serialized, since feature sets are not safe for concurrent
+	 * updates. Reading the lexicon while it's updated is only safe if the
+	 * lexicon supports it (e.g., {@link ConcurrentLexicon}).
+	 *
+	 * @return The entries added to the lexicon.
+	 */
+	private synchronized Set<LexicalEntry<MR>> doAddLexEntries(
+			Collection<LexicalEntry<MR>> entries) {
+		final Set<LexicalEntry<MR>> addedEntries = new HashSet<>();
+		for (final LexicalEntry<MR> entry : entries) {
+			addedEntries.addAll(lexicon.add(entry));
+		}
+		for (final IParseFeatureSet<DI, MR> fs : featureSets) {
+			if (fs instanceof ILexicalFeatureSet) {
+				for (final LexicalEntry<MR> entry : addedEntries) {
+					((ILexicalFeatureSet<DI, MR>) fs).addEntry(entry, theta);
+				}
+			}
+		}
+		if (!addedEntries.isEmpty()) {
+			// Feature sets may have updated their state and the parameters.
+			lexicalCache.invalidate();
 		}
+		return addedEntries;
+	}
+
+	/**
+	 * Features of the data-independent lexical feature sets. Dynamic entries
+	 * are not cached, since they are usually specific to a single data item.
+	 * The returned vector must not be modified.
+	 */
+	private IHashVectorImmutable getLexicalFeatures(
+			LexicalEntry<MR> lexicalEntry) {
+		if (lexicalEntry == null || lexicalEntry.isDynamic()) {
+			return computeLexicalFeatures(lexicalEntry);
+		}
+		return lexicalCache.getFeatures(lexicalEntry,
+				this::computeLexicalFeatures);
 	}
 
 	private String lexiconToString(ILexicon<MR> lex) {
@@ -319,6 +442,22 @@ public class Model<DI extends IDataItem<?>, MR>
 		return result.toString();
 	}
 
+	/**
+	 * Notify the listeners of added entries. Not synchronized with the
+	 * updates, so listeners may add entries to the model.
+	 *
+	 * @return 'true' iff at least one entry was added.
+	 */
+	private boolean notifyAdded(Set<LexicalEntry<MR>> addedEntries) {
+		if (addedEntries.isEmpty()) {
+			return false;
+		}
+		for (final IModelListener<MR> listener : listeners) {
+			listener.lexicalEntriesAdded(addedEntries);
+		}
+		return true;
+	}
+
 	/**
 	 * @param ois
 	 * @throws ClassNotFoundException
@@ -328,12 +467,14 @@ public class Model<DI extends IDataItem<?>, MR>
 			throws ClassNotFoundException, IOException {
 		ois.defaultReadObject();
 		// Create an empty set for listeners to register.
-		this.listeners = new HashSet<>();
+		this.listeners = new CopyOnWriteArraySet<IModelListener<MR>>();
+		this.lexicalCache = new LexicalEntryCache<MR>(lexicalCacheSize);
 	}
 
 	public static class Builder<DI extends IDataItem<?>, MR> {
-		private final List<IParseFeatureSet<DI, MR>>	featureSets	= new LinkedList<IParseFeatureSet<DI, MR>>();
-		private ILexicon<MR>							lexicon		= new Lexicon<MR>();
+		private final List<IParseFeatureSet<DI, MR>>	featureSets			= new LinkedList<IParseFeatureSet<DI, MR>>();
+		private int										lexicalCacheSize	= LexicalEntryCache.DEFAULT_SIZE;
+		private ILexicon<MR>							lexicon				= new Lexicon<MR>();
 
 		public Builder<DI, MR> addFeatureSet(
 				IParseFeatureSet<DI, MR> featureSet) {
@@ -343,7 +484,12 @@ public class Model<DI extends IDataItem<?>, MR>
 
 		public Model<DI, MR> build() {
 			return new Model<DI, MR>(featureSets, lexicon,
-					HashVectorFactory.create());
+					HashVectorFactory.create(), lexicalCacheSize);
+		}
+
+		public Builder<DI, MR> setLexicalCacheSize(int lexicalCacheSize) {
+			this.lexicalCacheSize = lexicalCacheSize;
+			return this;
 		}
 
 		public Builder<DI, MR> setLexicon(ILexicon<MR> lexicon) {
@@ -387,6 +533,11 @@ public class Model<DI extends IDataItem<?>, MR>
 							(IParseFeatureSet<DI, MR>) repo.get(setId));
 				}
 
+				if (params.contains("lexCache")) {
+					builder.setLexicalCacheSize(
+							params.getAsInteger("lexCache"));
+				}
+
 				final Model<DI, MR> model = builder.build();
 
 				return model;
@@ -408,12 +559,17 @@ public class Model<DI extends IDataItem<?>, MR>
 							"Lexical feature sets to use (e.g., 'lfs1,lfs2,lfs3')")
 					.addParam("parseFeatures", "[id]",
 							"Parse feature sets to use (e.g., 'pfs1,pfs2,pfs3')")
+					.addParam("lexCache", Integer.class,
+							"Maximum number of lexical entries to cache features and scores for, 0 to disable (default: "
+									+ LexicalEntryCache.DEFAULT_SIZE + ")")
 					.build();
 		}
 
 		protected ILexicon<MR> createLexicon(String lexiconType) {
 			if ("conventional".equals(lexiconType)) {
 				return new Lexicon<MR>();
+			} else if ("concurrent".equals(lexiconType)) {
+				return new ConcurrentLexicon<MR>();
 			} else {
 				throw new IllegalArgumentException(
 						"Invalid lexicon type: " + lexiconType);
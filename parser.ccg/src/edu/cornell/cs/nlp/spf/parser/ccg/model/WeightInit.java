@@ -55,11 +55,13 @@ public class WeightInit<DI extends IDataItem<?>, MR>
 
 	@Override
 	public void init(Model<DI, MR> model) {
-		for (final Pair<KeyArgs, Double> weightEntry : initWeight) {
-			LOG.info("Set: %s -> %s", weightEntry.first(),
-					weightEntry.second());
-			model.getTheta().set(weightEntry.first(), weightEntry.second());
-		}
+		model.updateTheta(theta -> {
+			for (final Pair<KeyArgs, Double> weightEntry : initWeight) {
+				LOG.info("Set: %s -> %s", weightEntry.first(),
+						weightEntry.second());
+				theta.set(weightEntry.first(), weightEntry.second());
+			}
+		});
 	}
 
 	public static class Creator<DI extends IDataItem<?>, MR>
@@ -21,7 +21,11 @@ import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.data.IDataItem;
 
 /**
- * Lexical feature set that is independent of the data item.
+ * Lexical feature set that is independent of the data item. For lexical parse
+ * steps, the features set for the step must be the features set for its
+ * lexical entry, since {@link edu.cornell.cs.nlp.spf.parser.ccg.model.Model}
+ * caches the features of lexical entries. The features of an entry may only
+ * change when entries are added to the feature set.
  *
  * @author Yoav Artzi
  */
@@ -24,5 +24,11 @@ package edu.cornell.cs.nlp.spf.parser.ccg.rules;
 public interface IArrayRuleNameSet {
 	RuleName getRuleName(int index);
 
+	/**
+	 * The union of the mask bits of all rule names in the set (see
+	 * {@link RuleName#getMaskBit()}).
+	 */
+	long getRuleNameMask();
+
 	int numRuleNames();
 }
@@ -23,22 +23,44 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Structured rule name. Indicates the direction of the rule, its label and
  * order.
+ * <p>
+ * Each rule name (up to equality) is assigned a small integer ID when it's
+ * first requested (see {@link #getId()}). Parsers request the IDs of their
+ * rules when they are constructed, so these get the lowest IDs. IDs are
+ * assigned in the scope of the process, and are not serialized. The first
+ * {@link #NUM_MASK_IDS} IDs have their own bit in rule name masks (see
+ * {@link #getMaskBit()}), all others share {@link #OVERFLOW_MASK_BIT}.
  *
  * @author Yoav Artzi
  */
 public class RuleName implements Serializable {
 
-	public static String		RULE_ADD			= "+";
-	private static final long	serialVersionUID	= -8734352006518878281L;
-	private final Direction		direction;
-	private final int			hashCode;
+	/**
+	 * Number of IDs that have a dedicated bit in rule name masks.
+	 */
+	public static final int						NUM_MASK_IDS		= 63;
+
+	/**
+	 * Mask bit shared by all rule names with IDs that don't have a dedicated
+	 * bit.
+	 */
+	public static final long					OVERFLOW_MASK_BIT	= 1L << NUM_MASK_IDS;
+
+	public static String						RULE_ADD			= "+";
+
+	private static final Map<RuleName, Integer>	IDS					= new ConcurrentHashMap<RuleName, Integer>();
+	private static final List<RuleName>			NAMES				= new ArrayList<RuleName>();
+	private static final long					serialVersionUID	= -8734352006518878281L;
+	private final Direction						direction;
+	private final int							hashCode;
 
-	private final String		label;
-	private final int			order;
+	private final String						label;
+	private final int							order;
 
 	private RuleName(String label, Direction direction) {
 		this(label, direction, 0);
@@ -64,6 +86,20 @@ public class RuleName implements Serializable {
 		return new RuleName(label, direction, order);
 	}
 
+	/**
+	 * The rule name with the given ID.
+	 */
+	public static synchronized RuleName getById(int id) {
+		return NAMES.get(id);
+	}
+
+	/**
+	 * The number of IDs assigned so far. All IDs are smaller than this number.
+	 */
+	public static synchronized int getIdLimit() {
+		return NAMES.size();
+	}
+
 	public static String[] splitRuleLabel(RuleName ruleName) {
 		return splitRuleLabel(ruleName.getLabel());
 	}
@@ -72,6 +108,16 @@ public class RuleName implements Serializable {
 		return label.split("\\" + RULE_ADD);
 	}
 
+	private static synchronized int assignId(RuleName ruleName) {
+		final Integer id = IDS.get(ruleName);
+		if (id != null) {
+			return id;
+		}
+		NAMES.add(ruleName);
+		IDS.put(ruleName, NAMES.size() - 1);
+		return NAMES.size() - 1;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -104,10 +150,28 @@ public class RuleName implements Serializable {
 		return direction;
 	}
 
+	/**
+	 * The ID of this rule name. Equal rule names share the same ID. Assigns a
+	 * new ID if this is the first time the ID of this name is requested.
+	 */
+	public int getId() {
+		final Integer id = IDS.get(this);
+		return id == null ? assignId(this) : id;
+	}
+
 	public String getLabel() {
 		return label;
 	}
 
+	/**
+	 * The bit of this rule name in rule name masks. Rule names with IDs beyond
+	 * {@link #NUM_MASK_IDS} return {@link #OVERFLOW_MASK_BIT}.
+	 */
+	public long getMaskBit() {
+		final int id = getId();
+		return id < NUM_MASK_IDS ? 1L << id : OVERFLOW_MASK_BIT;
+	}
+
 	public int getOrder() {
 		return order;
 	}
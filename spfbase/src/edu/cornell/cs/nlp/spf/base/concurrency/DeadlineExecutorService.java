@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.concurrency;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Executor with per-task timeouts. Unlike {@link TinyExecutorService}, which
+ * dedicates a pool thread to poll for timed out tasks, each timed task
+ * schedules its own deadline when it starts running. The deadline interrupts
+ * the task's thread if it's reached, and is cancelled when the task completes.
+ * Deadlines are fired by a single scheduler thread, which only exists while
+ * there are pending deadlines. Optionally, tasks may run on virtual threads,
+ * when supported by the JVM.
+ *
+ * @author Yoav Artzi
+ */
+public class DeadlineExecutorService implements ExecutorService, ITinyExecutor {
+
+	private static final ILogger				LOG	= LoggerFactory
+			.create(DeadlineExecutorService.class);
+
+	private final ExecutorService				executor;
+
+	private final ScheduledThreadPoolExecutor	scheduler;
+
+	public DeadlineExecutorService(int nThreads) {
+		this(nThreads, Executors.defaultThreadFactory(), false);
+	}
+
+	public DeadlineExecutorService(int nThreads, ThreadFactory threadFactory) {
+		this(nThreads, threadFactory, false);
+	}
+
+	/**
+	 * @param nThreads
+	 *            Number of worker threads. Ignored when using virtual threads.
+	 * @param threadFactory
+	 *            Factory for worker threads. Ignored when using virtual
+	 *            threads.
+	 * @param virtualThreads
+	 *            Run each task on a new virtual thread. Falls back to a pool
+	 *            of nThreads threads if the JVM doesn't support virtual
+	 *            threads.
+	 */
+	public DeadlineExecutorService(int nThreads, ThreadFactory threadFactory,
+			boolean virtualThreads) {
+		final ExecutorService virtualExecutor = virtualThreads
+				? createVirtualThreadExecutor() : null;
+		if (virtualExecutor != null) {
+			LOG.info("%s :: Creating executor with virtual threads",
+					DeadlineExecutorService.class.getSimpleName());
+			this.executor = virtualExecutor;
+		} else {
+			if (virtualThreads) {
+				LOG.warn(
+						"%s :: Virtual threads not supported, falling back to a pool of %d threads",
+						DeadlineExecutorService.class.getSimpleName(),
+						nThreads);
+			} else {
+				LOG.info("%s :: Creating executor with %d threads",
+						DeadlineExecutorService.class.getSimpleName(),
+						nThreads);
+			}
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(nThreads,
+					nThreads, 10L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), threadFactory);
+			pool.allowCoreThreadTimeOut(false);
+			this.executor = pool;
+		}
+
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			final Thread thread = new Thread(runnable,
+					DeadlineExecutorService.class.getSimpleName()
+							+ "-deadlines");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Remove cancelled deadlines immediately and let the scheduler thread
+		// die when there are no pending deadlines.
+		scheduler.setRemoveOnCancelPolicy(true);
+		scheduler.setKeepAliveTime(10L, TimeUnit.SECONDS);
+		scheduler.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return An executor that runs each task on a new virtual thread, or
+	 *         'null' if not supported by the JVM.
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (final ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		executor.execute(command);
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException {
+		return executor.invokeAll(tasks);
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(
+			Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return executor.invokeAll(tasks, timeout, unit);
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAllWithUniqueTimeout(
+			Collection<? extends Callable<T>> tasks, long timeout)
+			throws InterruptedException {
+		final List<Callable<T>> wrappers = new ArrayList<Callable<T>>(
+				tasks.size());
+		for (final Callable<T> task : tasks) {
+			wrappers.add(new TimedCallable<T>(task, timeout));
+		}
+		return executor.invokeAll(wrappers);
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+		return executor.invokeAny(tasks);
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+			long timeout, TimeUnit unit) throws InterruptedException,
+			ExecutionException, TimeoutException {
+		return executor.invokeAny(tasks, timeout, unit);
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	/**
+	 * Tasks that are already running or queued keep their deadlines.
+	 */
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		scheduler.shutdownNow();
+		return executor.shutdownNow();
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		return executor.submit(task);
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task, long timeout) {
+		return executor.submit(new TimedCallable<T>(task, timeout));
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		return executor.submit(task);
+	}
+
+	@Override
+	public <T> Future<T> submit(Runnable task, T result) {
+		return executor.submit(task, result);
+	}
+
+	/**
+	 * Schedules a deadline when the task starts running and cancels it when
+	 * the task completes.
+	 *
+	 * @author Yoav Artzi
+	 */
+	private class TimedCallable<V> implements Callable<V> {
+
+		private boolean				running		= false;
+		private final Callable<V>	task;
+		private Thread				thread		= null;
+		private final long			timeout;
+		private boolean				timedOut	= false;
+
+		public TimedCallable(Callable<V> task, long timeout) {
+			this.task = task;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public V call() throws Exception {
+			synchronized (this) {
+				thread = Thread.currentThread();
+				running = true;
+			}
+			final ScheduledFuture<?> deadline = scheduler.schedule(this::expire,
+					timeout, TimeUnit.MILLISECONDS);
+			try {
+				return task.call();
+			} finally {
+				deadline.cancel(false);
+				final boolean expired;
+				synchronized (this) {
+					running = false;
+					expired = timedOut;
+				}
+				if (expired) {
+					// The interrupt is delivered while holding the lock, so
+					// it's safe to clear it here. Otherwise, it will leak to
+					// the next task executed by this thread.
+					Thread.interrupted();
+				}
+			}
+		}
+
+		private synchronized void expire() {
+			if (running) {
+				timedOut = true;
+				thread.interrupt();
+			}
+		}
+
+	}
+
+}
@@ -33,6 +33,10 @@ public class HashVectorFactory {
 		switch (DEFAULT) {
 			case FAST_TREE:
 				return createFastTree();
+			case OPEN:
+				return createOpen();
+			case OPEN_SORTED:
+				return createOpenSorted();
 			case TREE:
 				return createTree();
 			case TROVE:
@@ -46,6 +50,10 @@ public class HashVectorFactory {
 		switch (DEFAULT) {
 			case FAST_TREE:
 				return createFastTree(vector);
+			case OPEN:
+				return createOpen(vector);
+			case OPEN_SORTED:
+				return createOpenSorted(vector);
 			case TREE:
 				return createTree(vector);
 			case TROVE:
@@ -63,6 +71,22 @@ public class HashVectorFactory {
 		return new FastTreeHashVector(vector);
 	}
 
+	public static IHashVector createOpen() {
+		return new OpenHashVector(false);
+	}
+
+	public static IHashVector createOpen(IHashVectorImmutable vector) {
+		return new OpenHashVector(vector, false);
+	}
+
+	public static IHashVector createOpenSorted() {
+		return new OpenHashVector(true);
+	}
+
+	public static IHashVector createOpenSorted(IHashVectorImmutable vector) {
+		return new OpenHashVector(vector, true);
+	}
+
 	public static IHashVector createTree() {
 		return new TreeHashVector();
 	}
@@ -98,6 +122,9 @@ public class HashVectorFactory {
 		switch (DEFAULT) {
 			case FAST_TREE:
 				return FastTreeHashVector.EMPTY;
+			case OPEN:
+			case OPEN_SORTED:
+				return OpenHashVector.EMPTY;
 			case TREE:
 				return TreeHashVector.EMPTY;
 			case TROVE:
@@ -126,8 +153,9 @@ public class HashVectorFactory {
 	public static enum Type {
 		// Only general-purpose hash vectors are enumerated here. For example,
 		// vectors with special initialization are not, since they are
-		// specifically designed to store parameters.
-		FAST_TREE, TREE, TROVE;
+		// specifically designed to store parameters. OPEN iterates in insertion
+		// order and OPEN_SORTED in key order (like TREE).
+		FAST_TREE, OPEN, OPEN_SORTED, TREE, TROVE;
 	}
 
 }
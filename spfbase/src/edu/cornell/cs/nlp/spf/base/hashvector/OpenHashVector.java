@@ -0,0 +1,795 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.hashvector;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.cornell.cs.nlp.utils.composites.Pair;
+
+/**
+ * Sparse vector based on an open-addressing hash table with primitive values.
+ * Entries are stored in dense arrays in insertion order, and the table maps
+ * keys to their positions in these arrays (using linear probing). Iteration
+ * follows insertion order, which is stable between runs as long as the
+ * sequence of updates is. Alternatively, the vector can iterate in key order,
+ * similar to {@link TreeHashVector}. In this case, the order is computed on
+ * demand and cached until the set of keys changes. Removed entries are only
+ * marked, and are compacted when the arrays are full.
+ *
+ * @author Yoav Artzi
+ */
+class OpenHashVector implements IHashVector {
+	public static final IHashVectorImmutable	EMPTY				= new OpenHashVector(
+			false);
+	private static final int					EMPTY_SLOT			= -1;
+	private static final int					INITIAL_CAPACITY	= 8;
+	private static final long					serialVersionUID	= -2370393286567036227L;
+
+	/**
+	 * Number of used positions in the entry arrays, including removed entries.
+	 */
+	private int									count				= 0;
+
+	/**
+	 * Entry keys in insertion order. 'null' marks a removed entry.
+	 */
+	private KeyArgs[]							keys;
+
+	/**
+	 * Number of entries in the vector.
+	 */
+	private int									size				= 0;
+
+	/**
+	 * Iterate in key order, rather than insertion order.
+	 */
+	private final boolean						sorted;
+
+	/**
+	 * Positions of the entries sorted by key. Computed on demand and reset
+	 * when entries are added or removed.
+	 */
+	private transient int[]						sortedOrder			= null;
+
+	/**
+	 * Open-addressing table. Each slot contains a position in the entry arrays
+	 * or {@link #EMPTY_SLOT}. Always twice the size of the entry arrays, so the
+	 * load factor is at most 0.5.
+	 */
+	private int[]								table;
+
+	/**
+	 * Entry values in insertion order.
+	 */
+	private double[]							values;
+
+	OpenHashVector(boolean sorted) {
+		this.sorted = sorted;
+		this.keys = new KeyArgs[INITIAL_CAPACITY];
+		this.values = new double[INITIAL_CAPACITY];
+		this.table = new int[INITIAL_CAPACITY * 2];
+		Arrays.fill(table, EMPTY_SLOT);
+	}
+
+	OpenHashVector(IHashVectorImmutable other, boolean sorted) {
+		this.sorted = sorted;
+		if (other instanceof OpenHashVector) {
+			final OpenHashVector p = (OpenHashVector) other;
+			this.keys = Arrays.copyOf(p.keys, p.keys.length);
+			this.values = Arrays.copyOf(p.values, p.values.length);
+			this.table = Arrays.copyOf(p.table, p.table.length);
+			this.count = p.count;
+			this.size = p.size;
+		} else {
+			int capacity = INITIAL_CAPACITY;
+			while (capacity < other.size()) {
+				capacity *= 2;
+			}
+			this.keys = new KeyArgs[capacity];
+			this.values = new double[capacity];
+			this.table = new int[capacity * 2];
+			Arrays.fill(table, EMPTY_SLOT);
+			for (final Pair<KeyArgs, Double> o : other) {
+				set(o.first(), o.second());
+			}
+		}
+	}
+
+	private static int slot(KeyArgs key, int mask) {
+		final int h = key.hashCode * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	@Override
+	public void add(double num) {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				values[i] += num;
+			}
+		}
+	}
+
+	@Override
+	public void add(KeyArgs key, double value) {
+		final int position = find(key);
+		if (position < 0) {
+			insert(key, value + ZERO_VALUE);
+		} else {
+			values[position] += value;
+		}
+	}
+
+	@Override
+	public void add(String arg1, double value) {
+		add(new KeyArgs(arg1), value);
+	}
+
+	@Override
+	public void add(String arg1, String arg2, double value) {
+		add(new KeyArgs(arg1, arg2), value);
+	}
+
+	@Override
+	public void add(String arg1, String arg2, String arg3, double value) {
+		add(new KeyArgs(arg1, arg2, arg3), value);
+	}
+
+	@Override
+	public void add(String arg1, String arg2, String arg3, String arg4,
+			double value) {
+		add(new KeyArgs(arg1, arg2, arg3, arg4), value);
+	}
+
+	@Override
+	public void add(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double value) {
+		add(new KeyArgs(arg1, arg2, arg3, arg4, arg5), value);
+	}
+
+	@Override
+	public OpenHashVector addTimes(double times, IHashVectorImmutable other) {
+		final OpenHashVector ret = new OpenHashVector(this, sorted);
+		other.iterate((key, value) -> ret.add(key, value * times));
+		return ret;
+	}
+
+	@Override
+	public void addTimesInto(double times, IHashVector other) {
+		final int[] order = order();
+		final int n = order == null ? count : order.length;
+		for (int i = 0; i < n; ++i) {
+			final int position = order == null ? i : order[i];
+			final KeyArgs key = keys[position];
+			if (key != null) {
+				other.add(key, times * values[position]);
+			}
+		}
+	}
+
+	@Override
+	public void applyFunction(ValueFunction function) {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				values[i] = function.apply(values[i]);
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, count, null);
+		Arrays.fill(table, EMPTY_SLOT);
+		count = 0;
+		size = 0;
+		sortedOrder = null;
+	}
+
+	@Override
+	public boolean contains(KeyArgs key) {
+		return find(key) >= 0;
+	}
+
+	@Override
+	public boolean contains(String arg1) {
+		return contains(new KeyArgs(arg1));
+	}
+
+	@Override
+	public boolean contains(String arg1, String arg2) {
+		return contains(new KeyArgs(arg1, arg2));
+	}
+
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3) {
+		return contains(new KeyArgs(arg1, arg2, arg3));
+	}
+
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+
+	@Override
+	public void divideBy(double d) {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				values[i] /= d;
+			}
+		}
+	}
+
+	@Override
+	public double dotProduct(IHashVectorImmutable other) {
+		if (size() <= other.size()) {
+			final int[] order = order();
+			final int n = order == null ? count : order.length;
+			double sum = 0.0;
+			if (other instanceof OpenHashVector) {
+				final OpenHashVector p = (OpenHashVector) other;
+				for (int i = 0; i < n; ++i) {
+					final int position = order == null ? i : order[i];
+					final KeyArgs key = keys[position];
+					if (key != null) {
+						final int otherPosition = p.find(key);
+						if (otherPosition >= 0) {
+							sum += values[position] * p.values[otherPosition];
+						}
+					}
+				}
+			} else {
+				for (int i = 0; i < n; ++i) {
+					final int position = order == null ? i : order[i];
+					final KeyArgs key = keys[position];
+					if (key != null && other.contains(key)) {
+						sum += values[position] * other.get(key);
+					}
+				}
+			}
+			return sum;
+		} else {
+			return other.dotProduct(this);
+		}
+	}
+
+	@Override
+	public void dropNoise() {
+		boolean removed = false;
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null && Math.abs(values[i]) < NOISE) {
+				remove(i);
+				removed = true;
+			}
+		}
+		if (removed) {
+			rehash(keys.length);
+		}
+	}
+
+	@Override
+	public void dropZeros() {
+		boolean removed = false;
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null && Math.abs(values[i]) == ZERO_VALUE) {
+				remove(i);
+				removed = true;
+			}
+		}
+		if (removed) {
+			rehash(keys.length);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final OpenHashVector other = (OpenHashVector) obj;
+		if (size != other.size) {
+			return false;
+		}
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				final int otherPosition = other.find(keys[i]);
+				if (otherPosition < 0 || Double.doubleToLongBits(
+						values[i]) != Double.doubleToLongBits(
+								other.values[otherPosition])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public double get(KeyArgs key) {
+		final int position = find(key);
+		return position < 0 ? ZERO_VALUE : values[position];
+	}
+
+	@Override
+	public double get(KeyArgs key, double defaultReturn) {
+		final int position = find(key);
+		return position < 0 ? defaultReturn : values[position];
+	}
+
+	@Override
+	public double get(String arg1) {
+		return get(new KeyArgs(arg1));
+	}
+
+	@Override
+	public double get(String arg1, double defaultReturn) {
+		return get(new KeyArgs(arg1), defaultReturn);
+	}
+
+	@Override
+	public double get(String arg1, String arg2) {
+		return get(new KeyArgs(arg1, arg2));
+	}
+
+	@Override
+	public double get(String arg1, String arg2, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2), defaultReturn);
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3) {
+		return get(new KeyArgs(arg1, arg2, arg3));
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3), defaultReturn);
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4), defaultReturn);
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5), defaultReturn);
+	}
+
+	@Override
+	public IHashVector getAll(KeyArgs partialKey) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (partialKey.contains(key)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public IHashVector getAll(final String arg1) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (arg1.equals(key.arg1)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (arg1.equals(key.arg1) && arg2.equals(key.arg2)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (arg1.equals(key.arg1) && arg2.equals(key.arg2)
+					&& arg3.equals(key.arg3)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3, final String arg4) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (arg1.equals(key.arg1) && arg2.equals(key.arg2)
+					&& arg3.equals(key.arg3) && arg4.equals(key.arg4)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3, final String arg4, final String arg5) {
+		final OpenHashVector result = new OpenHashVector(sorted);
+		iterate((key, value) -> {
+			if (arg1.equals(key.arg1) && arg2.equals(key.arg2)
+					&& arg3.equals(key.arg3) && arg4.equals(key.arg4)
+					&& arg5.equals(key.arg5)) {
+				result.insert(key, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		// Independent of the order of entries, following Map.hashCode().
+		int result = 0;
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				result += keys[i].hashCode ^ Double.hashCode(values[i]);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isBad() {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null && (Double.isNaN(values[i])
+					|| Double.isInfinite(values[i]))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isInit() {
+		return false;
+	}
+
+	@Override
+	public void iterate(EntryFunction function) {
+		final int[] order = order();
+		final int n = order == null ? count : order.length;
+		for (int i = 0; i < n; ++i) {
+			final int position = order == null ? i : order[i];
+			final KeyArgs key = keys[position];
+			if (key != null) {
+				function.apply(key, values[position]);
+			}
+		}
+	}
+
+	@Override
+	public Iterator<Pair<KeyArgs, Double>> iterator() {
+		final int[] order = order();
+		return new Iterator<Pair<KeyArgs, Double>>() {
+			private int			current	= -1;
+			private final int	n		= order == null ? count : order.length;
+			private int			next	= advance(0);
+
+			@Override
+			public boolean hasNext() {
+				return next < n;
+			}
+
+			@Override
+			public Pair<KeyArgs, Double> next() {
+				if (next >= n) {
+					throw new NoSuchElementException();
+				}
+				current = position(next);
+				next = advance(next + 1);
+				return Pair.of(keys[current], values[current]);
+			}
+
+			@Override
+			public void remove() {
+				if (current < 0 || keys[current] == null) {
+					throw new IllegalStateException();
+				}
+				// Only mark the entry as removed, so the arrays are not
+				// compacted during iteration.
+				OpenHashVector.this.remove(current);
+			}
+
+			private int advance(int from) {
+				int i = from;
+				while (i < n && keys[position(i)] == null) {
+					++i;
+				}
+				return i;
+			}
+
+			private int position(int i) {
+				return order == null ? i : order[i];
+			}
+		};
+	}
+
+	@Override
+	public double l1Norm() {
+		final int[] order = order();
+		final int n = order == null ? count : order.length;
+		double sum = 0.0;
+		for (int i = 0; i < n; ++i) {
+			final int position = order == null ? i : order[i];
+			if (keys[position] != null) {
+				sum += Math.abs(values[position]);
+			}
+		}
+		return sum;
+	}
+
+	@Override
+	public void multiplyBy(double value) {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				values[i] *= value;
+			}
+		}
+	}
+
+	@Override
+	public OpenHashVector pairWiseProduct(IHashVectorImmutable other) {
+		if (size() <= other.size()) {
+			final OpenHashVector ret = new OpenHashVector(this, sorted);
+			for (int i = 0; i < ret.count; ++i) {
+				final KeyArgs key = ret.keys[i];
+				if (key != null && other.contains(key)) {
+					ret.values[i] *= other.get(key);
+				}
+			}
+			return ret;
+		} else {
+			return new OpenHashVector(other.pairWiseProduct(this), sorted);
+		}
+	}
+
+	@Override
+	public String printValues(IHashVectorImmutable other) {
+		final StringBuilder ret = new StringBuilder();
+		ret.append("{");
+		other.iterate((key, value) -> {
+			if (ret.length() > 1) {
+				ret.append(",");
+			}
+			ret.append(key).append("=");
+			final int position = find(key);
+			if (position >= 0) {
+				ret.append(String.format("%.3f", values[position]));
+			} else {
+				ret.append(ZERO_VALUE);
+			}
+			ret.append("(").append(String.format("%.3f", value)).append(")");
+		});
+		ret.append("}");
+		return ret.toString();
+	}
+
+	@Override
+	public void set(KeyArgs key, double value) {
+		final int position = find(key);
+		if (position < 0) {
+			insert(key, value);
+		} else {
+			values[position] = value;
+		}
+	}
+
+	@Override
+	public void set(String arg1, double value) {
+		set(new KeyArgs(arg1), value);
+	}
+
+	@Override
+	public void set(String arg1, String arg2, double value) {
+		set(new KeyArgs(arg1, arg2), value);
+	}
+
+	@Override
+	public void set(String arg1, String arg2, String arg3, double value) {
+		set(new KeyArgs(arg1, arg2, arg3), value);
+	}
+
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4), value);
+	}
+
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4, arg5), value);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder ret = new StringBuilder();
+		ret.append("{");
+		iterate((key, value) -> {
+			if (ret.length() > 1) {
+				ret.append(", ");
+			}
+			ret.append(key);
+			ret.append("=");
+			ret.append(String.format("%.3f", value));
+		});
+		ret.append("}");
+		return ret.toString();
+	}
+
+	@Override
+	public boolean valuesInRange(double min, double max) {
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null && (values[i] < min || values[i] > max)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Position of the key in the entry arrays, or a negative value if
+	 *         not present.
+	 */
+	private int find(KeyArgs key) {
+		final int mask = table.length - 1;
+		int slot = slot(key, mask);
+		int position;
+		while ((position = table[slot]) != EMPTY_SLOT) {
+			final KeyArgs other = keys[position];
+			// Slots of removed entries are skipped, but still continue the
+			// probing sequence.
+			if (other == key || other != null && other.equals(key)) {
+				return position;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Add a new entry. Assumes the key is not present.
+	 */
+	private void insert(KeyArgs key, double value) {
+		if (count == keys.length) {
+			// Compact if there are enough removed entries, otherwise grow.
+			rehash(size <= count / 2 ? keys.length : keys.length * 2);
+		}
+		keys[count] = key;
+		values[count] = value;
+		place(count);
+		++count;
+		++size;
+		sortedOrder = null;
+	}
+
+	/**
+	 * @return Positions of entries in iteration order, or 'null' for insertion
+	 *         order (i.e., iterate over all positions and skip removed
+	 *         entries).
+	 */
+	private int[] order() {
+		if (!sorted) {
+			return null;
+		}
+		if (sortedOrder == null) {
+			final Integer[] positions = new Integer[size];
+			int j = 0;
+			for (int i = 0; i < count; ++i) {
+				if (keys[i] != null) {
+					positions[j++] = i;
+				}
+			}
+			Arrays.sort(positions, (p1, p2) -> keys[p1].compareTo(keys[p2]));
+			final int[] order = new int[size];
+			for (int i = 0; i < size; ++i) {
+				order[i] = positions[i];
+			}
+			sortedOrder = order;
+		}
+		return sortedOrder;
+	}
+
+	private void place(int position) {
+		final int mask = table.length - 1;
+		int slot = slot(keys[position], mask);
+		while (table[slot] != EMPTY_SLOT) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = position;
+	}
+
+	/**
+	 * Compact the entries to new arrays with the given capacity (preserving
+	 * their order) and re-build the table.
+	 */
+	private void rehash(int capacity) {
+		final KeyArgs[] newKeys = new KeyArgs[capacity];
+		final double[] newValues = new double[capacity];
+		int j = 0;
+		for (int i = 0; i < count; ++i) {
+			if (keys[i] != null) {
+				newKeys[j] = keys[i];
+				newValues[j] = values[i];
+				++j;
+			}
+		}
+		keys = newKeys;
+		values = newValues;
+		count = j;
+		table = new int[capacity * 2];
+		Arrays.fill(table, EMPTY_SLOT);
+		for (int i = 0; i < count; ++i) {
+			place(i);
+		}
+		sortedOrder = null;
+	}
+
+	/**
+	 * Mark the entry in the given position as removed.
+	 */
+	private void remove(int position) {
+		keys[position] = null;
+		values[position] = ZERO_VALUE;
+		--size;
+		sortedOrder = null;
+	}
+
+}
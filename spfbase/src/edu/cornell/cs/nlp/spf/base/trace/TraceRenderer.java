@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+
+/**
+ * Renders a binary trace written by {@link Tracer} as log lines. Each event is
+ * rendered as a line prefixed with the name of the thread that traced it, the
+ * same as the log.
+ * <p>
+ * Usage: TraceRenderer trace_file [output_file]
+ *
+ * @author Yoav Artzi
+ */
+public class TraceRenderer implements Closeable {
+
+	private final DataInputStream	in;
+	private final List<String>		strings	= new ArrayList<String>();
+
+	public TraceRenderer(InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		if (this.in.readInt() != Tracer.MAGIC) {
+			throw new IOException("Not a trace file");
+		}
+		final int version = this.in.readInt();
+		if (version != Tracer.VERSION) {
+			throw new IOException("Unsupported trace version: " + version);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: TraceRenderer trace_file [output_file]");
+			System.exit(1);
+		}
+		try (final TraceRenderer renderer = new TraceRenderer(
+				new FileInputStream(new File(args[0])));
+				final PrintStream out = args.length == 2
+						? new PrintStream(new FileOutputStream(args[1]), false,
+								"UTF-8")
+						: new PrintStream(System.out, false, "UTF-8")) {
+			String line;
+			while ((line = renderer.next()) != null) {
+				out.println(line);
+			}
+		}
+	}
+
+	private static KeyArgs createKey(String[] args) throws IOException {
+		switch (args.length) {
+			case 1:
+				return new KeyArgs(args[0]);
+			case 2:
+				return new KeyArgs(args[0], args[1]);
+			case 3:
+				return new KeyArgs(args[0], args[1], args[2]);
+			case 4:
+				return new KeyArgs(args[0], args[1], args[2], args[3]);
+			case 5:
+				return new KeyArgs(args[0], args[1], args[2], args[3],
+						args[4]);
+			default:
+				throw new IOException("Invalid feature key length: "
+						+ args.length);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * @return The next rendered event, or 'null' at the end of the trace.
+	 */
+	public String next() throws IOException {
+		while (true) {
+			final int record;
+			try {
+				record = in.readByte();
+			} catch (final EOFException e) {
+				return null;
+			}
+			switch (record) {
+				case Tracer.RECORD_STRING:
+					final int id = in.readInt();
+					if (id != strings.size()) {
+						throw new IOException("Corrupted strings table");
+					}
+					strings.add(readString());
+					break;
+				case Tracer.RECORD_RESET:
+					strings.clear();
+					break;
+				case Tracer.RECORD_EVENT:
+					return readEvent();
+				default:
+					throw new IOException("Unknown record type: " + record);
+			}
+		}
+	}
+
+	private Object readArg() throws IOException {
+		final byte type = in.readByte();
+		switch (type) {
+			case Tracer.ARG_NULL:
+				return null;
+			case Tracer.ARG_BOOLEAN:
+				return in.readBoolean();
+			case Tracer.ARG_INT:
+				return in.readInt();
+			case Tracer.ARG_LONG:
+				return in.readLong();
+			case Tracer.ARG_DOUBLE:
+				return in.readDouble();
+			case Tracer.ARG_STRING:
+				return strings.get(in.readInt());
+			case Tracer.ARG_STRING_INLINE:
+				return readString();
+			case Tracer.ARG_VECTOR:
+				final IHashVector vector = HashVectorFactory.create();
+				final int size = in.readInt();
+				for (int i = 0; i < size; ++i) {
+					final String[] keyArgs = new String[in.readByte()];
+					for (int j = 0; j < keyArgs.length; ++j) {
+						keyArgs[j] = strings.get(in.readInt());
+					}
+					vector.set(createKey(keyArgs), in.readDouble());
+				}
+				return vector;
+			default:
+				throw new IOException("Unknown argument type: " + type);
+		}
+	}
+
+	private String readEvent() throws IOException {
+		// The time stamp isn't rendered.
+		in.readLong();
+		final String thread = strings.get(in.readInt());
+		final String format = strings.get(in.readInt());
+		final Object[] args = new Object[in.readInt()];
+		for (int i = 0; i < args.length; ++i) {
+			args[i] = readArg();
+		}
+		return String.format("[%s] %s", thread, String.format(format, args));
+	}
+
+	private String readString() throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded lock-free multi-producer single-consumer ring buffer. Each slot has
+ * a sequence number: producers claim a slot by advancing the tail with a CAS
+ * and publish it by bumping the slot's sequence number, and the consumer frees
+ * the slot by setting its sequence number to the position of the next lap.
+ * When the buffer is full, producers yield until the consumer catches up, so
+ * items are never dropped.
+ *
+ * @author Yoav Artzi
+ */
+class TraceRingBuffer<T> {
+
+	private final int				capacity;
+	/**
+	 * Next position to consume. Only accessed by the consumer thread.
+	 */
+	private long					head	= 0;
+	private final int				mask;
+	private final AtomicLongArray	sequences;
+	private final Object[]			slots;
+	private final AtomicLong		tail	= new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            Minimal capacity, rounded up to a power of two.
+	 */
+	TraceRingBuffer(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		this.capacity = Integer.highestOneBit(capacity) == capacity ? capacity
+				: Integer.highestOneBit(capacity) << 1;
+		this.mask = this.capacity - 1;
+		this.slots = new Object[this.capacity];
+		this.sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; ++i) {
+			sequences.set(i, i);
+		}
+	}
+
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Consumer only.
+	 *
+	 * @return The next item, or 'null' if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	T poll() {
+		final int index = (int) (head & mask);
+		if (sequences.get(index) != head + 1) {
+			return null;
+		}
+		final T item = (T) slots[index];
+		slots[index] = null;
+		sequences.set(index, head + capacity);
+		++head;
+		return item;
+	}
+
+	/**
+	 * Add an item to the buffer. If the buffer is full, yields until a slot is
+	 * free or the given condition is set.
+	 *
+	 * @param abort
+	 *            Stop waiting for a free slot when this condition is set. May
+	 *            be 'null'.
+	 * @return 'true' if the item was added.
+	 */
+	boolean put(T item, BooleanSupplier abort) {
+		while (true) {
+			final long position = tail.get();
+			final int index = (int) (position & mask);
+			final long sequence = sequences.get(index);
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1)) {
+					slots[index] = item;
+					sequences.set(index, position + 1);
+					return true;
+				}
+			} else if (sequence < position) {
+				// The buffer is full.
+				if (abort != null && abort.getAsBoolean()) {
+					return false;
+				}
+				Thread.yield();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.utils.composites.Pair;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LogLevel;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+
+/**
+ * Asynchronous binary trace. Events are a format string and its arguments,
+ * the same as the arguments of a logger call. They are added to a lock-free
+ * ring buffer by the calling thread, and a background thread encodes and
+ * writes them. Arguments are encoded by type: primitives are written in
+ * binary, hash vectors as lists of (feature, value) pairs, and any other
+ * object as its string representation. Short strings, including formats and
+ * feature keys, are written once and referred to by ID. Use
+ * {@link TraceRenderer} to render a trace in the format of the log.
+ * <p>
+ * Arguments are rendered by the writer thread, so they must not change after
+ * the event is traced. Hash vectors are copied when the event is traced. To
+ * delay rendering an object that may change, snapshot it and pass a
+ * {@link Supplier} that renders the snapshot.
+ * <p>
+ * Tracing is opt-in: the static methods do nothing unless a tracer was set
+ * with {@link #setInstance(Tracer)}.
+ *
+ * @author Yoav Artzi
+ */
+public class Tracer implements Closeable {
+	public static final int					DEFAULT_CAPACITY	= 1 << 16;
+
+	public static final ILogger				LOG					= LoggerFactory
+			.create(Tracer.class);
+
+	static final byte						ARG_BOOLEAN			= 'Z';
+	static final byte						ARG_DOUBLE			= 'D';
+	static final byte						ARG_INT				= 'I';
+	static final byte						ARG_LONG			= 'J';
+	static final byte						ARG_NULL			= 'N';
+	static final byte						ARG_STRING			= 'S';
+	static final byte						ARG_STRING_INLINE	= 'T';
+	static final byte						ARG_VECTOR			= 'V';
+	static final int						MAGIC				= 0x53504654;
+	/**
+	 * Longer strings are written inline and not added to the strings table.
+	 */
+	static final int						MAX_INTERNED_LENGTH	= 256;
+	/**
+	 * Maximum size of the strings table. When full, the table is reset.
+	 */
+	static final int						MAX_STRINGS			= 1 << 16;
+	static final byte						RECORD_EVENT		= 'E';
+	static final byte						RECORD_RESET		= 'R';
+	static final byte						RECORD_STRING		= 'S';
+	static final int						VERSION				= 1;
+
+	private static final Event				CLOSE				= new Event(0,
+			null, null, null);
+
+	private static volatile Tracer			INSTANCE			= null;
+
+	private final TraceRingBuffer<Event>	buffer;
+	private volatile boolean				closed				= false;
+	private long							numEvents			= 0;
+	private final DataOutputStream			out;
+	/**
+	 * Strings table. Only accessed by the writer thread.
+	 */
+	private final Map<String, Integer>		strings				= new HashMap<String, Integer>();
+	private volatile boolean				terminated			= false;
+	private final Thread					writer;
+
+	public Tracer(OutputStream out, int capacity) throws IOException {
+		this.buffer = new TraceRingBuffer<Event>(capacity);
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.writer = new Thread(this::drain, "trace-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public static Tracer getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Trace an INFO log event, if tracing is enabled.
+	 *
+	 * @return 'true' if tracing is enabled, in which case the event should not
+	 *         be logged.
+	 */
+	public static boolean info(ILogger log, String format, Object... args) {
+		final Tracer tracer = INSTANCE;
+		if (tracer == null) {
+			return false;
+		}
+		if (log.getLogLevel().includes(LogLevel.INFO)) {
+			tracer.add(format, args);
+		}
+		return true;
+	}
+
+	/**
+	 * Trace an INFO log event if tracing is enabled, otherwise log it.
+	 * {@link Supplier} arguments are rendered when the event is logged.
+	 */
+	public static void infoOrLog(ILogger log, String format, Object... args) {
+		if (info(log, format, args)
+				|| !log.getLogLevel().includes(LogLevel.INFO)) {
+			return;
+		}
+		final Object[] logArgs = args.clone();
+		for (int i = 0; i < logArgs.length; ++i) {
+			if (logArgs[i] instanceof Supplier) {
+				logArgs[i] = ((Supplier<?>) logArgs[i]).get();
+			}
+		}
+		// The logger has no varargs methods, so format the event here.
+		log.info("%s", String.format(format, logArgs));
+	}
+
+	public static boolean isEnabled() {
+		return INSTANCE != null;
+	}
+
+	public static void setInstance(Tracer tracer) {
+		INSTANCE = tracer;
+	}
+
+	/**
+	 * The weights of the given features, to render an argument with weights
+	 * that may change before the event is written. If tracing is disabled,
+	 * events are logged immediately, so the weights are returned as is.
+	 */
+	public static IHashVectorImmutable snapshotTheta(IHashVectorImmutable theta,
+			IHashVectorImmutable features) {
+		if (!isEnabled()) {
+			return theta;
+		}
+		final IHashVector snapshot = HashVectorFactory.create();
+		for (final Pair<KeyArgs, Double> feature : features) {
+			if (theta.contains(feature.first())) {
+				snapshot.set(feature.first(), theta.get(feature.first()));
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Create a tracer that writes to the given file and set it as the
+	 * instance.
+	 */
+	public static Tracer start(File file) throws FileNotFoundException,
+			IOException {
+		final Tracer tracer = new Tracer(new FileOutputStream(file),
+				DEFAULT_CAPACITY);
+		LOG.info("Tracing to: %s", file);
+		setInstance(tracer);
+		return tracer;
+	}
+
+	/**
+	 * Add an event to the trace. Blocks while the buffer is full.
+	 */
+	public void add(String format, Object... args) {
+		if (closed) {
+			return;
+		}
+		// Copy mutable vectors, so they are written as they are now.
+		final Object[] eventArgs = args.clone();
+		for (int i = 0; i < eventArgs.length; ++i) {
+			if (eventArgs[i] instanceof IHashVectorImmutable) {
+				eventArgs[i] = HashVectorFactory
+						.create((IHashVectorImmutable) eventArgs[i]);
+			}
+		}
+		buffer.put(new Event(System.currentTimeMillis(),
+				Thread.currentThread().getName(), format, eventArgs),
+				() -> terminated);
+	}
+
+	/**
+	 * Write all pending events and close the output. If this tracer is the
+	 * instance, tracing is disabled.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (INSTANCE == this) {
+			INSTANCE = null;
+		}
+		if (closed) {
+			return;
+		}
+		closed = true;
+		buffer.put(CLOSE, () -> terminated);
+		try {
+			writer.join();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		out.close();
+	}
+
+	private void drain() {
+		try {
+			while (true) {
+				final Event event = buffer.poll();
+				if (event == null) {
+					// Flush while waiting, so the trace can be followed.
+					out.flush();
+					Thread.sleep(1);
+				} else if (event == CLOSE) {
+					break;
+				} else {
+					write(event);
+				}
+			}
+			out.flush();
+			LOG.info("Trace closed (%d events)", numEvents);
+		} catch (final IOException e) {
+			LOG.error("Tracing failed: %s", e);
+		} catch (final InterruptedException e) {
+			LOG.error("Trace writer interrupted");
+		} finally {
+			terminated = true;
+		}
+	}
+
+	private void addString(String string) throws IOException {
+		if (strings.containsKey(string)) {
+			return;
+		}
+		final int newId = strings.size();
+		strings.put(string, newId);
+		out.writeByte(RECORD_STRING);
+		out.writeInt(newId);
+		writeString(string);
+	}
+
+	private void write(Event event) throws IOException {
+		final Object[] args = new Object[event.args.length];
+		for (int i = 0; i < args.length; ++i) {
+			final Object arg = event.args[i];
+			if (arg instanceof Supplier) {
+				args[i] = String.valueOf(((Supplier<?>) arg).get());
+			} else if (arg == null || arg instanceof Boolean
+					|| arg instanceof Integer || arg instanceof Short
+					|| arg instanceof Byte || arg instanceof Long
+					|| arg instanceof Double || arg instanceof Float
+					|| arg instanceof IHashVectorImmutable) {
+				args[i] = arg;
+			} else {
+				args[i] = arg.toString();
+			}
+		}
+
+		// Write the new strings of the event. If the table can't hold them,
+		// reset it first, so all the strings of the event are in the table.
+		final List<String> eventStrings = new ArrayList<String>();
+		eventStrings.add(event.thread);
+		eventStrings.add(event.format);
+		for (final Object arg : args) {
+			if (arg instanceof IHashVectorImmutable) {
+				for (final Pair<KeyArgs, Double> entry : (IHashVectorImmutable) arg) {
+					Collections.addAll(eventStrings, keyArgs(entry.first()));
+				}
+			} else if (arg instanceof String
+					&& ((String) arg).length() <= MAX_INTERNED_LENGTH) {
+				eventStrings.add((String) arg);
+			}
+		}
+		if (strings.size() + eventStrings.size() > MAX_STRINGS) {
+			strings.clear();
+			out.writeByte(RECORD_RESET);
+		}
+		for (final String string : eventStrings) {
+			addString(string);
+		}
+
+		out.writeByte(RECORD_EVENT);
+		out.writeLong(event.time);
+		out.writeInt(strings.get(event.thread));
+		out.writeInt(strings.get(event.format));
+		out.writeInt(args.length);
+		for (final Object arg : args) {
+			if (arg == null) {
+				out.writeByte(ARG_NULL);
+			} else if (arg instanceof Boolean) {
+				out.writeByte(ARG_BOOLEAN);
+				out.writeBoolean((Boolean) arg);
+			} else if (arg instanceof Integer || arg instanceof Short
+					|| arg instanceof Byte) {
+				out.writeByte(ARG_INT);
+				out.writeInt(((Number) arg).intValue());
+			} else if (arg instanceof Long) {
+				out.writeByte(ARG_LONG);
+				out.writeLong((Long) arg);
+			} else if (arg instanceof Double || arg instanceof Float) {
+				out.writeByte(ARG_DOUBLE);
+				out.writeDouble(((Number) arg).doubleValue());
+			} else if (arg instanceof IHashVectorImmutable) {
+				final IHashVectorImmutable vector = (IHashVectorImmutable) arg;
+				out.writeByte(ARG_VECTOR);
+				out.writeInt(vector.size());
+				for (final Pair<KeyArgs, Double> entry : vector) {
+					final KeyArgs key = entry.first();
+					final String[] keyArgs = keyArgs(key);
+					out.writeByte(keyArgs.length);
+					for (final String keyArg : keyArgs) {
+						out.writeInt(strings.get(keyArg));
+					}
+					out.writeDouble(entry.second());
+				}
+			} else {
+				final String string = (String) arg;
+				if (string.length() > MAX_INTERNED_LENGTH) {
+					out.writeByte(ARG_STRING_INLINE);
+					writeString(string);
+				} else {
+					out.writeByte(ARG_STRING);
+					out.writeInt(strings.get(string));
+				}
+			}
+		}
+		++numEvents;
+	}
+
+	private void writeString(String string) throws IOException {
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * The non-null arguments of a feature key.
+	 */
+	static String[] keyArgs(KeyArgs key) {
+		if (key.getArg2() == null) {
+			return new String[] { key.getArg1() };
+		} else if (key.getArg3() == null) {
+			return new String[] { key.getArg1(), key.getArg2() };
+		} else if (key.getArg4() == null) {
+			return new String[] { key.getArg1(), key.getArg2(),
+					key.getArg3() };
+		} else if (key.getArg5() == null) {
+			return new String[] { key.getArg1(), key.getArg2(), key.getArg3(),
+					key.getArg4() };
+		} else {
+			return new String[] { key.getArg1(), key.getArg2(), key.getArg3(),
+					key.getArg4(), key.getArg5() };
+		}
+	}
+
+	private static class Event {
+		private final Object[]	args;
+		private final String	format;
+		private final String	thread;
+		private final long		time;
+
+		public Event(long time, String thread, String format, Object[] args) {
+			this.time = time;
+			this.thread = thread;
+			this.format = format;
+			this.args = args;
+		}
+	}
+
+}
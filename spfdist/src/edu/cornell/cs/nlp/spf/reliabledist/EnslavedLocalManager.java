@@ -191,6 +191,8 @@ public class EnslavedLocalManager implements IManager, Runnable, ITaskExecutor {
 	public boolean reportResult(ITaskExecutor worker, Task task,
 			TaskResult result) {
 		synchronized (this) {
+			// Wake up environment changes waiting for the pool to drain.
+			this.notifyAll();
 			return sendTaskReply(result);
 		}
 	}
@@ -264,7 +266,7 @@ public class EnslavedLocalManager implements IManager, Runnable, ITaskExecutor {
 	@Override
 	public synchronized boolean setupEnviroment(
 			AbstractEnvironment environment) {
-		if (localPool.allFree()) {
+		if (awaitAllFree()) {
 			LOG.info("Setup environment: %s", environment.getClass());
 			enviroment = environment;
 			return true;
@@ -291,8 +293,9 @@ public class EnslavedLocalManager implements IManager, Runnable, ITaskExecutor {
 	}
 
 	@Override
-	public boolean updateEnviroment(List<SerializedEnvironmentConfig> updates) {
-		if (localPool.allFree()) {
+	public synchronized boolean updateEnviroment(
+			List<SerializedEnvironmentConfig> updates) {
+		if (awaitAllFree()) {
 			try {
 				for (final SerializedEnvironmentConfig update : updates) {
 					LOG.info("Applying environment update %s", update.getId());
@@ -311,6 +314,27 @@ public class EnslavedLocalManager implements IManager, Runnable, ITaskExecutor {
 		}
 	}
 
+	/**
+	 * Wait for all local workers to become free. When the master uses
+	 * speculative execution, it may declare a task complete while a redundant
+	 * copy is still running here. Environment changes must wait for such tasks
+	 * to finish, so they observe the environment they were submitted with.
+	 * Must be called while holding the manager lock.
+	 */
+	private boolean awaitAllFree() {
+		if (!localPool.allFree()) {
+			LOG.info("Waiting for running tasks before changing environment");
+		}
+		while (isRunning && !localPool.allFree()) {
+			try {
+				this.wait(1000);
+			} catch (final InterruptedException e) {
+				// Ignore.
+			}
+		}
+		return localPool.allFree();
+	}
+
 	@SuppressWarnings("unused")
 	private boolean registerJar(String file) {
 		try {
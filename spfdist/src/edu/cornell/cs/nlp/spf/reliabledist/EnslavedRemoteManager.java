@@ -50,6 +50,12 @@ public class EnslavedRemoteManager
 
 	private double executionTimeDecayingAverage = 0.0;
 
+	/**
+	 * Decaying average of the execution time normalized by the estimated cost
+	 * of each task (see {@link Task#getCost()}).
+	 */
+	private double executionTimePerCostDecayingAverage = 0.0;
+
 	private int freeSpots = -1;
 
 	private final ReliableManager globalManager;
@@ -131,6 +137,10 @@ public class EnslavedRemoteManager
 		return executionTimeDecayingAverage;
 	}
 
+	public double getExecutionTimePerCostAverage() {
+		return executionTimePerCostDecayingAverage;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -148,6 +158,14 @@ public class EnslavedRemoteManager
 				.setFreeSpots(freeSpots).build();
 	}
 
+	/**
+	 * @return The time (in milliseconds) the given task was sent to the worker,
+	 *         or null if the task is not running on this worker.
+	 */
+	public synchronized Long getTaskStartTime(long taskId) {
+		return activeTaskStartTime.get(taskId);
+	}
+
 	@Override
 	public boolean isRunning() {
 		return isRunning;
@@ -224,19 +242,27 @@ public class EnslavedRemoteManager
 					}
 				}
 
-				// Try to read something.
+				// Read everything that arrived.
 				if (!incomingObjects.isEmpty()) {
 					// Record the last time we heard form the client.
 					lastHeard = currentTime;
 					lastPing = currentTime;
-					processReply();
+					while (!incomingObjects.isEmpty()) {
+						processReply();
+					}
 				}
 
+				// Wait only if there's nothing to do. Both the reading thread
+				// and qsend() notify while holding the lock, so no wake up is
+				// lost.
 				synchronized (this) {
-					try {
-						this.wait(1000);
-					} catch (final InterruptedException e) {
-						// Ignore.
+					if (incomingObjects.isEmpty() && (activeMessage != null
+							|| queuedMessages.isEmpty())) {
+						try {
+							this.wait(1000);
+						} catch (final InterruptedException e) {
+							// Ignore.
+						}
 					}
 				}
 
@@ -349,6 +375,10 @@ public class EnslavedRemoteManager
 				- activeTaskStartTime.get(taskId);
 		executionTimeDecayingAverage = (executionTimeDecayingAverage + execTime)
 				/ 2.0;
+		executionTimePerCostDecayingAverage = executionTimePerCostDecayingAverage == 0.0
+				? execTime / task.getCost()
+				: (executionTimePerCostDecayingAverage
+						+ execTime / task.getCost()) / 2.0;
 		final TaskResult result = message.getResult();
 		synchronized (this) {
 			if (activeTasks.remove(taskId) == null
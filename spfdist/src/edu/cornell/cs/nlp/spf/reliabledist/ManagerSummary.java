@@ -16,6 +16,7 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.reliabledist;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -27,22 +28,44 @@ public class ManagerSummary {
 	private final int					completedTasks;
 	private final int					failedWorkers;
 	private final int					redoneTasks;
+	private final int					speculatedTasks;
 	private final List<WorkerSummary>	workers;
 
 	public ManagerSummary(int completedTasks, int failedWorkers,
-			int redoneTasks, List<WorkerSummary> workers) {
+			int redoneTasks, int speculatedTasks, List<WorkerSummary> workers) {
 		this.completedTasks = completedTasks;
 		this.failedWorkers = failedWorkers;
 		this.redoneTasks = redoneTasks;
+		this.speculatedTasks = speculatedTasks;
 		this.workers = workers;
 	}
 
+	public int getCompletedTasks() {
+		return completedTasks;
+	}
+
+	public int getFailedWorkers() {
+		return failedWorkers;
+	}
+
+	public int getRedoneTasks() {
+		return redoneTasks;
+	}
+
+	public int getSpeculatedTasks() {
+		return speculatedTasks;
+	}
+
+	public List<WorkerSummary> getWorkers() {
+		return Collections.unmodifiableList(workers);
+	}
+
 	@Override
 	public String toString() {
 		final StringBuilder sb = new StringBuilder();
 
-		sb.append(String.format("completed=%d, redone=%d\n", completedTasks,
-				redoneTasks));
+		sb.append(String.format("completed=%d, redone=%d, speculated=%d\n",
+				completedTasks, redoneTasks, speculatedTasks));
 		sb.append("Workers [total=").append(workers.size()).append(", failed=")
 				.append(failedWorkers).append("]:\n");
 		for (final WorkerSummary worker : workers) {
@@ -58,6 +81,7 @@ public class ManagerSummary {
 		private int							completedTasks;
 		private int							failedWorkers;
 		private int							redoneTasks;
+		private int							speculatedTasks;
 		private final List<WorkerSummary>	workers	= new LinkedList<WorkerSummary>();
 
 		public Builder addWorker(WorkerSummary summary) {
@@ -67,7 +91,7 @@ public class ManagerSummary {
 
 		public ManagerSummary build() {
 			return new ManagerSummary(completedTasks, failedWorkers,
-					redoneTasks, workers);
+					redoneTasks, speculatedTasks, workers);
 		}
 
 		public void setCompletedTasks(int completedTasks) {
@@ -82,6 +106,10 @@ public class ManagerSummary {
 			this.redoneTasks = redoneTasks;
 		}
 
+		public void setSpeculatedTasks(int speculatedTasks) {
+			this.speculatedTasks = speculatedTasks;
+		}
+
 	}
 
 }
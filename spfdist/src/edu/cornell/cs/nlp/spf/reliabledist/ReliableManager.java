@@ -30,13 +30,17 @@ import java.net.ServerSocket;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -64,6 +68,13 @@ public class ReliableManager implements Runnable, Shutdownable {
 	public static final ILogger								LOG								= LoggerFactory
 			.create(ReliableManager.class);
 
+	/**
+	 * A manager is considered slow if its average execution time per unit of
+	 * cost is larger than the median by this factor. Slow managers are
+	 * assigned the cheapest queued tasks.
+	 */
+	private static final double								SLOW_MANAGER_FACTOR				= 2.0;
+
 	private final List<Task>								completed						= new LinkedList<Task>();
 
 	private final List<Map<String, String>>					connectionCommands;
@@ -104,13 +115,37 @@ public class ReliableManager implements Runnable, Shutdownable {
 	private final List<IManager>							nonworkingManager				= new LinkedList<IManager>();
 
 	private final long										pingFrequency;
-	private final Queue<Task>								queuedTasks						= new LinkedList<Task>();
+
+	/**
+	 * Queued tasks are ordered by decreasing estimated cost, so the most
+	 * expensive tasks are handed out first (to the fastest free workers), while
+	 * slow workers take from the cheap end. Ties are broken by task ID to
+	 * preserve submission order.
+	 */
+	private final NavigableSet<Task>						queuedTasks						= new TreeSet<Task>(
+			Comparator.comparingDouble(Task::getCost).reversed()
+					.thenComparingLong(Task::getId));
 
 	private final Thread									register;
 	private final int										registerPort;
 
 	private final Map<EnslavedRemoteManager, List<Task>>	runningTasks					= new HashMap<EnslavedRemoteManager, List<Task>>();
 
+	/**
+	 * IDs of running tasks that have a speculative copy executing on another
+	 * worker. The first copy to return completes the {@link JobFuture}, the
+	 * other copy is dropped from the accounting.
+	 */
+	private final Set<Long>									speculatedTasks					= new HashSet<Long>();
+
+	/**
+	 * A running task is considered a straggler, and is re-executed on an idle
+	 * worker, if its estimated remaining time is longer than this factor times
+	 * its estimated execution time on the idle worker. Speculative execution
+	 * is disabled if the factor is not positive.
+	 */
+	private final double									speculationFactor;
+
 	/**
 	 * An optional file to dump a summary of the manager's state. The frequency
 	 * of writing the state is controlled by {@link #summaryFrequency}.
@@ -137,10 +172,13 @@ public class ReliableManager implements Runnable, Shutdownable {
 	private final AtomicInteger								totalRedone						= new AtomicInteger(
 			0);
 
+	private final AtomicInteger								totalSpeculated					= new AtomicInteger(
+			0);
+
 	public ReliableManager(int registerPort,
 			List<Map<String, String>> connectionCommands, long pingFrequency,
 			long pingTimeout, ThreadFactory threadFactory, File summaryFile,
-			long summaryFrequency) {
+			long summaryFrequency, double speculationFactor) {
 		this.registerPort = registerPort;
 		this.connectionCommands = connectionCommands;
 		this.pingFrequency = pingFrequency;
@@ -148,6 +186,7 @@ public class ReliableManager implements Runnable, Shutdownable {
 		this.threadFactory = threadFactory;
 		this.summaryFile = summaryFile;
 		this.summaryFrequency = summaryFrequency;
+		this.speculationFactor = speculationFactor;
 		this.register = threadFactory.newThread(new RegisterThread());
 		this.mythread = threadFactory.newThread(this);
 		LOG.info("Init %s: summaryFile=%s ...", getClass(), summaryFile);
@@ -155,7 +194,9 @@ public class ReliableManager implements Runnable, Shutdownable {
 				summaryFrequency);
 		LOG.info("Init %s: registerPort=%d ...", getClass(), registerPort);
 		LOG.info("Init %s: pingFrequency=%d ...", getClass(), pingFrequency);
-		LOG.info("Init %s: pingTimeout=%d", getClass(), pingTimeout);
+		LOG.info("Init %s: pingTimeout=%d ...", getClass(), pingTimeout);
+		LOG.info("Init %s: speculationFactor=%.2f", getClass(),
+				speculationFactor);
 	}
 
 	private static List<Pair<String, String>> readConfigurationCommands(
@@ -193,20 +234,36 @@ public class ReliableManager implements Runnable, Shutdownable {
 				environmentUpdateIdGenerator.set(0);
 			}
 			taskWorker.clear();
+			speculatedTasks.clear();
 			return true;
 		}
 	}
 
 	public <ENV extends AbstractEnvironment, OUTPUT> JobFuture<OUTPUT> execute(
 			Function<ENV, OUTPUT> job) {
+		return execute(job, 1.0);
+	}
+
+	/**
+	 * Submit a job with an estimated cost. The cost is relative to other jobs
+	 * (e.g., the length of the sentence to parse). More expensive jobs are
+	 * distributed first, and the cost is used to estimate the expected
+	 * execution time when looking for stragglers.
+	 */
+	public <ENV extends AbstractEnvironment, OUTPUT> JobFuture<OUTPUT> execute(
+			Function<ENV, OUTPUT> job, double cost) {
 		if (!(job instanceof Serializable)) {
 			throw new IllegalArgumentException(
 					"Class not serializable: " + job.getClass().getName());
 		}
+		if (cost <= 0.0) {
+			throw new IllegalArgumentException(
+					"Cost must be positive: " + cost);
+		}
 
 		@SuppressWarnings("unchecked")
 		final Task task = new Task((Function<AbstractEnvironment, ?>) job,
-				taskIdGenerator.getAndIncrement());
+				taskIdGenerator.getAndIncrement(), cost);
 		final JobFuture<OUTPUT> future = new JobFuture<OUTPUT>();
 		synchronized (futures) {
 			futures.put(task.getId(), future);
@@ -249,6 +306,7 @@ public class ReliableManager implements Runnable, Shutdownable {
 		builder.setFailedWorkers(nonworkingManager.size());
 		builder.setCompletedTasks(totalCompletedTask.get());
 		builder.setRedoneTasks(totalRedone.get());
+		builder.setSpeculatedTasks(totalSpeculated.get());
 
 		return builder.build();
 	}
@@ -267,6 +325,10 @@ public class ReliableManager implements Runnable, Shutdownable {
 		return !isRunning;
 	}
 
+	public synchronized int numManagers() {
+		return managers.size();
+	}
+
 	public int numRunning() {
 		synchronized (this) {
 			int rv = 0;
@@ -287,6 +349,16 @@ public class ReliableManager implements Runnable, Shutdownable {
 			if (!runningTasks.get(worker).remove(task)) {
 				return false;
 			}
+
+			// If this task was speculatively duplicated, drop all other copies
+			// from the accounting. Their results will be ignored when they
+			// return.
+			if (speculatedTasks.remove(task.getId())) {
+				for (final List<Task> tasks : runningTasks.values()) {
+					tasks.remove(task);
+				}
+				queuedTasks.remove(task);
+			}
 		}
 
 		synchronized (futures) {
@@ -322,7 +394,16 @@ public class ReliableManager implements Runnable, Shutdownable {
 									manager.getName());
 							LOG.info("Resubmitting %d tasks...",
 									runningTasks.get(manager).size());
-							for (final Task task : runningTasks.get(manager)) {
+							final List<Task> failedTasks = runningTasks
+									.remove(manager);
+							for (final Task task : failedTasks) {
+								if (speculatedTasks.contains(task.getId())
+										&& isRunningAnywhere(task)) {
+									// A speculative copy is still running
+									// somewhere else, no need to resubmit.
+									speculatedTasks.remove(task.getId());
+									continue;
+								}
 								LOG.info("Resubmitted %s, %d",
 										task.getClass().getName(),
 										task.getId());
@@ -331,7 +412,6 @@ public class ReliableManager implements Runnable, Shutdownable {
 							}
 							nonworkingManager.add(manager);
 							iterator.remove();
-							runningTasks.remove(manager);
 						}
 					}
 
@@ -353,9 +433,19 @@ public class ReliableManager implements Runnable, Shutdownable {
 					// next round. This is mean to distribute work evenly, which
 					// works better for memory and CPU intensive jobs,
 					// especially when the pool is not saturated.
+					// The most expensive tasks go to the fastest managers,
+					// while slow managers get the cheapest tasks, so they don't
+					// hold the tail of the job.
+					final double medianTimePerCost = medianTimePerCost(
+							sortedManagers);
 					for (final EnslavedRemoteManager manager : sortedManagers) {
 						if (manager.existsFree() && queuedTasks.size() > 0) {
-							final Task t = queuedTasks.peek();
+							final boolean slow = medianTimePerCost > 0.0
+									&& manager
+											.getExecutionTimePerCostAverage() > SLOW_MANAGER_FACTOR
+													* medianTimePerCost;
+							final Task t = slow ? queuedTasks.last()
+									: queuedTasks.first();
 							if (!manager.execute(t)) {
 								// The manager didn't accept the work. Not sure
 								// why, but move on.
@@ -363,12 +453,19 @@ public class ReliableManager implements Runnable, Shutdownable {
 										manager.getId(), t.getId());
 								break;
 							}
-							queuedTasks.poll();
+							queuedTasks.remove(t);
 							runningTasks.get(manager).add(t);
 							taskWorker.put(t, manager);
 						}
 					}
 
+					// Once the queue is drained, use idle workers to re-execute
+					// stragglers. Whichever copy returns first is used.
+					if (speculationFactor > 0.0 && queuedTasks.isEmpty()
+							&& medianTimePerCost > 0.0) {
+						speculate(sortedManagers, medianTimePerCost);
+					}
+
 					// Dump a summary of the worker state into a file.
 					if (summaryFile != null) {
 						if (System.currentTimeMillis()
@@ -502,6 +599,28 @@ public class ReliableManager implements Runnable, Shutdownable {
 		}
 	}
 
+	/**
+	 * @return The median of the managers' average execution time per unit of
+	 *         cost, ignoring managers without history, or 0.0 if no manager
+	 *         completed a task.
+	 */
+	private static double medianTimePerCost(
+			List<EnslavedRemoteManager> managers) {
+		final double[] averages = managers.stream()
+				.mapToDouble(m -> m.getExecutionTimePerCostAverage())
+				.filter(a -> a > 0.0).sorted().toArray();
+		return averages.length == 0 ? 0.0 : averages[averages.length / 2];
+	}
+
+	private boolean isRunningAnywhere(Task task) {
+		for (final List<Task> tasks : runningTasks.values()) {
+			if (tasks.contains(task)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void registerManager(EnslavedRemoteManager manager) {
 		synchronized (this) {
 			// there is way way more to do here.
@@ -524,12 +643,98 @@ public class ReliableManager implements Runnable, Shutdownable {
 		}
 	}
 
+	/**
+	 * Assign speculative copies of straggling tasks to idle managers. A
+	 * running task is re-executed if its estimated remaining time is longer
+	 * than {@link #speculationFactor} times its estimated execution time on
+	 * the idle manager. Estimates are based on each manager's average
+	 * execution time per unit of cost. Must be called while holding the
+	 * manager lock.
+	 *
+	 * @param sortedManagers
+	 *            Managers sorted by their average execution time, fastest
+	 *            first.
+	 * @param medianTimePerCost
+	 *            Median execution time per unit of cost. Used as the estimate
+	 *            for managers without history.
+	 */
+	private void speculate(List<EnslavedRemoteManager> sortedManagers,
+			double medianTimePerCost) {
+		final long currentTime = System.currentTimeMillis();
+		for (final EnslavedRemoteManager manager : sortedManagers) {
+			if (!manager.existsFree()) {
+				continue;
+			}
+			final double idleTimePerCost = manager
+					.getExecutionTimePerCostAverage() > 0.0
+							? manager.getExecutionTimePerCostAverage()
+							: medianTimePerCost;
+
+			// Find the task with the longest estimated remaining time that is
+			// worth re-executing on this manager.
+			Task straggler = null;
+			double maxRemaining = 0.0;
+			for (final Map.Entry<EnslavedRemoteManager, List<Task>> entry : runningTasks
+					.entrySet()) {
+				final EnslavedRemoteManager runningManager = entry.getKey();
+				if (runningManager == manager) {
+					continue;
+				}
+				final double runningTimePerCost = runningManager
+						.getExecutionTimePerCostAverage() > 0.0
+								? runningManager
+										.getExecutionTimePerCostAverage()
+								: medianTimePerCost;
+				for (final Task task : entry.getValue()) {
+					if (speculatedTasks.contains(task.getId())) {
+						continue;
+					}
+					final Long startTime = runningManager
+							.getTaskStartTime(task.getId());
+					if (startTime == null) {
+						continue;
+					}
+					final long elapsed = currentTime - startTime;
+					final double expected = runningTimePerCost
+							* task.getCost();
+					// If the task already exceeded its expected time, assume
+					// it will take at least as long again.
+					final double remaining = elapsed < expected
+							? expected - elapsed : elapsed;
+					if (remaining > speculationFactor * idleTimePerCost
+							* task.getCost() && remaining > maxRemaining) {
+						maxRemaining = remaining;
+						straggler = task;
+					}
+				}
+			}
+
+			if (straggler == null) {
+				continue;
+			}
+
+			if (manager.execute(straggler)) {
+				LOG.info(
+						"Speculatively re-executing task %d on manager %d (estimated remaining: %.3fsec)",
+						straggler.getId(), manager.getId(),
+						maxRemaining / 1000.0);
+				runningTasks.get(manager).add(straggler);
+				speculatedTasks.add(straggler.getId());
+				totalSpeculated.getAndIncrement();
+			}
+		}
+	}
+
 	public static class Builder {
 
 		private final List<Map<String, String>>	connectionCommands	= new ArrayList<Map<String, String>>();
 
 		private long							pingFrequency		= 20000;
 		private int								port				= -1;
+		/**
+		 * Default: speculative execution disabled.
+		 */
+		private double							speculationFactor	= 0.0;
 		private File							summaryFile			= null;
 		/**
 		 * Default: 20sec.
@@ -548,7 +753,8 @@ public class ReliableManager implements Runnable, Shutdownable {
 				throw new IllegalStateException("Port not set");
 			}
 			return new ReliableManager(port, connectionCommands, pingFrequency,
-					timeout, threadFactory, summaryFile, summaryFrequency);
+					timeout, threadFactory, summaryFile, summaryFrequency,
+					speculationFactor);
 		}
 
 		public Builder configureFromFile(File configFile)
@@ -604,6 +810,11 @@ public class ReliableManager implements Runnable, Shutdownable {
 			return this;
 		}
 
+		public Builder setSpeculationFactor(double speculationFactor) {
+			this.speculationFactor = speculationFactor;
+			return this;
+		}
+
 		public Builder setSummaryFile(File summaryFile) {
 			this.summaryFile = summaryFile;
 			return this;
@@ -665,6 +876,10 @@ public class ReliableManager implements Runnable, Shutdownable {
 				builder.setTimeout(params.getAsInteger("pingTimeout"));
 			}
 
+			if (params.contains("speculate")) {
+				builder.setSpeculationFactor(params.getAsDouble("speculate"));
+			}
+
 			if (params.contains("config")) {
 				try {
 					builder.configureFromFile(params.getAsFile("config"));
@@ -695,6 +910,8 @@ public class ReliableManager implements Runnable, Shutdownable {
 					.addParam("timeout", Integer.class,
 							"Connection timeout (default: 200000)")
 					.addParam("config", File.class, "Configuration file")
+					.addParam("speculate", Double.class,
+							"Re-execute a task on an idle worker when its remaining time is estimated to be longer than this factor times its time on the idle worker (default: 0, disabled)")
 					.build();
 		}
 
@@ -34,12 +34,24 @@ import edu.cornell.cs.nlp.utils.log.thread.LoggingThread;
 public class Task implements Serializable {
 
 	private static final long				serialVersionUID	= -1553770414572878120L;
+
+	/**
+	 * Estimated relative cost of the task (e.g., sentence length). Used by the
+	 * manager to order queued tasks and to detect stragglers.
+	 */
+	private final double					cost;
 	private final long						id;
 	private final Function<AbstractEnvironment, ?>	job;
 
 	public Task(Function<AbstractEnvironment, ?> job, long id) {
+		this(job, id, 1.0);
+	}
+
+	public Task(Function<AbstractEnvironment, ?> job, long id, double cost) {
+		assert cost > 0.0;
 		this.job = job;
 		this.id = id;
+		this.cost = cost;
 	}
 
 	public TaskResult execute(AbstractEnvironment environment) {
@@ -73,6 +85,10 @@ public class Task implements Serializable {
 
 	}
 
+	public double getCost() {
+		return cost;
+	}
+
 	public long getId() {
 		return id;
 	}
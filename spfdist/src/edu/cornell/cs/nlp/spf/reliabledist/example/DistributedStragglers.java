@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.reliabledist.example;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import edu.cornell.cs.nlp.spf.reliabledist.AbstractEnvironment;
+import edu.cornell.cs.nlp.spf.reliabledist.EnslavedLocalManager;
+import edu.cornell.cs.nlp.spf.reliabledist.EnvironmentConfig;
+import edu.cornell.cs.nlp.spf.reliabledist.JobFuture;
+import edu.cornell.cs.nlp.spf.reliabledist.ReliableManager;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LogLevel;
+import edu.cornell.cs.nlp.utils.log.Logger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * Stress test for straggler handling in {@link ReliableManager}. Runs the same
+ * sequence of jobs twice, without and with speculative execution, on a pool of
+ * local workers where one worker is artificially slowed down. Reports the
+ * distribution of the time it takes each round to complete (i.e., the time
+ * until all futures of the round are done).
+ *
+ * @author Yoav Artzi
+ */
+public class DistributedStragglers {
+	public static final ILogger		LOG						= LoggerFactory
+			.create(DistributedStragglers.class);
+	public static final String		MANAGER_HOST			= "localhost";
+	public static final int			MANAGER_PORT			= 4445;
+	public static final int			NUM_ROUNDS				= 20;
+	public static final int			NUM_TASKS				= 24;
+	public static final int			NUM_WORKER_THREADS		= 2;
+	public static final int			NUM_WORKERS				= 4;
+	public static final String		SLOW_WORKER_PREFIX		= "slow";
+	public static final int			SLOWDOWN				= 6;
+	public static final double		SPECULATION_FACTOR		= 2.0;
+	public static final long		TIME_PER_COST			= 20;
+
+	public static void main(String[] args) throws Exception {
+		LogLevel.WARN.set();
+		Logger.setSkipPrefix(true);
+
+		final long[] baseline = run(MANAGER_PORT, 0.0);
+		final long[] speculative = run(MANAGER_PORT + 1, SPECULATION_FACTOR);
+
+		System.out.println(String.format("%-12s %8s %8s %8s %8s", "",
+				"mean", "p50", "p90", "max"));
+		printStats("baseline", baseline);
+		printStats("speculative", speculative);
+
+		// Workers don't support a clean shutdown.
+		System.exit(0);
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		return sorted[Math.min(sorted.length - 1,
+				(int) Math.ceil(p * sorted.length) - 1)];
+	}
+
+	private static void printStats(String label, long[] times) {
+		final long[] sorted = Arrays.copyOf(times, times.length);
+		Arrays.sort(sorted);
+		System.out.println(String.format("%-12s %6dms %6dms %6dms %6dms",
+				label, Arrays.stream(sorted).sum() / sorted.length,
+				percentile(sorted, 0.5), percentile(sorted, 0.9),
+				sorted[sorted.length - 1]));
+	}
+
+	/**
+	 * @return Time to complete each round (milliseconds).
+	 */
+	private static long[] run(int port, double speculationFactor)
+			throws Exception {
+		final ReliableManager manager = new ReliableManager.Builder(
+				new LoggingThreadFactory("master-" + port)).setPort(port)
+						.setPingFrequency(2000).setTimeout(4000)
+						.setSpeculationFactor(speculationFactor).build();
+		manager.start();
+
+		// The first worker is slowed down. The slowdown is detected by the job
+		// using the worker thread name.
+		for (int i = 0; i < NUM_WORKERS; ++i) {
+			final String name = i == 0 ? SLOW_WORKER_PREFIX : "worker-" + i;
+			final EnslavedLocalManager worker = new EnslavedLocalManager(
+					MANAGER_HOST, port, NUM_WORKER_THREADS,
+					new LoggingThreadFactory(name), name, null);
+			new LoggingThreadFactory(name + "-manager").newThread(worker)
+					.start();
+		}
+		while (manager.numManagers() < NUM_WORKERS) {
+			Thread.sleep(100);
+		}
+
+		final StragglerEnvironment environment = new StragglerEnvironment();
+		if (!manager.setupEnviroment(environment)) {
+			throw new IllegalStateException("Failed to setup environment");
+		}
+
+		// Use the same random costs for all configurations.
+		final Random random = new Random(1);
+		final long[] roundTimes = new long[NUM_ROUNDS];
+		for (int round = 0; round < NUM_ROUNDS; ++round) {
+			if (!manager.updateEnviroment(environment.createRoundUpdate(round))) {
+				throw new IllegalStateException(
+						"Failed to update environment");
+			}
+
+			final long start = System.currentTimeMillis();
+			final List<JobFuture<Integer>> futures = new ArrayList<JobFuture<Integer>>(
+					NUM_TASKS);
+			for (int i = 0; i < NUM_TASKS; ++i) {
+				final int cost = 1 + random.nextInt(10);
+				futures.add(manager.execute(new SleepJob(cost), cost));
+			}
+			for (final JobFuture<Integer> future : futures) {
+				if (future.get() != round) {
+					throw new IllegalStateException(
+							"Job executed with a stale environment");
+				}
+			}
+			roundTimes[round] = System.currentTimeMillis() - start;
+			LOG.warn("[speculation=%.1f] Round %d: %dms", speculationFactor,
+					round, roundTimes[round]);
+		}
+
+		System.out.println(manager.getSummary());
+		return roundTimes;
+	}
+
+	public static class SleepJob
+			implements Function<StragglerEnvironment, Integer>, Serializable {
+
+		private static final long	serialVersionUID	= 2460536151659584063L;
+		private final int			cost;
+
+		public SleepJob(int cost) {
+			this.cost = cost;
+		}
+
+		@Override
+		public Integer apply(StragglerEnvironment env) {
+			final long time = cost * TIME_PER_COST
+					* (Thread.currentThread().getName()
+							.startsWith(SLOW_WORKER_PREFIX) ? SLOWDOWN : 1);
+			try {
+				Thread.sleep(time);
+			} catch (final InterruptedException e) {
+				// Ignore.
+			}
+			return env.round;
+		}
+
+	}
+
+	public static class StragglerEnvironment extends AbstractEnvironment {
+		private static final long	serialVersionUID	= -2875405036950146413L;
+		private static final String	ROUND				= "round";
+		int							round				= -1;
+
+		public EnvironmentConfig<Integer> createRoundUpdate(int newRound) {
+			return new EnvironmentConfig<Integer>(ROUND, newRound);
+		}
+
+		@Override
+		protected void applyUpdate(EnvironmentConfig<?> update) {
+			if (update.getKey().equals(ROUND)) {
+				this.round = (Integer) update.getValue();
+			}
+		}
+
+	}
+
+}
@@ -28,6 +28,7 @@ import edu.cornell.cs.nlp.spf.explat.IResourceRepository;
 import edu.cornell.cs.nlp.spf.explat.ParameterizedExperiment.Parameters;
 import edu.cornell.cs.nlp.spf.explat.resources.IResourceObjectCreator;
 import edu.cornell.cs.nlp.spf.explat.resources.usage.ResourceUsage;
+import edu.cornell.cs.nlp.spf.test.ParallelTestingServices;
 import edu.cornell.cs.nlp.spf.test.stats.ITestingStatistics;
 import edu.cornell.cs.nlp.utils.collections.ListUtils;
 import edu.cornell.cs.nlp.utils.filter.IFilter;
@@ -35,7 +36,8 @@ import edu.cornell.cs.nlp.utils.log.ILogger;
 import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 
 /**
- * Generic execution tester for {@link IExec}.
+ * Generic execution tester for {@link IExec}. Data items may be tested
+ * concurrently, see {@link ParallelTestingServices}.
  *
  * @author Yoav Artzi
  * @see IExec
@@ -47,21 +49,25 @@ public class ExecTester<SAMPLE extends IDataItem<?>, RESULT, DI extends ILabeled
 	public static final ILogger		LOG	= LoggerFactory
 			.create(ExecTester.class.getName());
 
+	/**
+	 * Number of data items to test concurrently.
+	 */
+	protected final int				numThreads;
+
 	protected final IFilter<SAMPLE>	skipExecutionFilter;
 
-	protected ExecTester(IFilter<SAMPLE> skipParsingFilter) {
+	protected ExecTester(IFilter<SAMPLE> skipParsingFilter, int numThreads) {
 		this.skipExecutionFilter = skipParsingFilter;
-		LOG.info("Init ExecTester");
+		this.numThreads = numThreads;
+		LOG.info("Init ExecTester: numThreads=%d", numThreads);
 	}
 
 	@Override
 	public void test(IExec<SAMPLE, RESULT> exec, IDataCollection<DI> dataset,
 			ITestingStatistics<SAMPLE, RESULT, DI> stats) {
-		int itemCounter = 0;
-		for (final DI item : dataset) {
-			++itemCounter;
-			test(itemCounter, item, exec, stats);
-		}
+		ParallelTestingServices.test(dataset, numThreads, stats,
+				(itemCounter, item, itemStats) -> test(itemCounter, item, exec,
+						itemStats));
 	}
 
 	protected void processSingleBestParse(DI dataItem,
@@ -185,11 +191,20 @@ public class ExecTester<SAMPLE extends IDataItem<?>, RESULT, DI extends ILabeled
 
 	public static class Builder<SAMPLE extends IDataItem<?>, RESULT, DI extends ILabeledDataItem<SAMPLE, RESULT>> {
 
+		/** Number of data items to test concurrently */
+		private int numThreads = 1;
+
 		/** Filters which data items are valid for parsing with word skipping */
 		private IFilter<SAMPLE> skipParsingFilter = e -> true;
 
 		public ExecTester<SAMPLE, RESULT, DI> build() {
-			return new ExecTester<SAMPLE, RESULT, DI>(skipParsingFilter);
+			return new ExecTester<SAMPLE, RESULT, DI>(skipParsingFilter,
+					numThreads);
+		}
+
+		public Builder<SAMPLE, RESULT, DI> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
 		}
 
 		public Builder<SAMPLE, RESULT, DI> setSkipParsingFilter(
@@ -223,6 +238,10 @@ public class ExecTester<SAMPLE extends IDataItem<?>, RESULT, DI extends ILabeled
 						(IFilter<SAMPLE>) repo.get(params.get("sloppyFilter")));
 			}
 
+			if (params.contains("threads")) {
+				builder.setNumThreads(params.getAsInteger("threads"));
+			}
+
 			return builder.build();
 		}
 
@@ -236,6 +255,8 @@ public class ExecTester<SAMPLE extends IDataItem<?>, RESULT, DI extends ILabeled
 			return new ResourceUsage.Builder(type(), ExecTester.class)
 					.addParam("sloppyFilter", "id",
 							"IFilter used to decide what data items to skip when doing sloppy inference (e.g., skipping words)")
+					.addParam("threads", Integer.class,
+							"Number of data items to test concurrently, the executor must support concurrent calls (default: 1)")
 					.build();
 		}
 
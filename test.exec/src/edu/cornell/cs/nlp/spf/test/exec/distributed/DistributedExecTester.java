@@ -110,11 +110,13 @@ public class DistributedExecTester<SAMPLE extends IDataItem<Sentence>, RESULT, D
 				.getTokens().size(), o1.getSample().getSample().getTokens()
 				.size()));
 
-		// Distribute inference.
+		// Distribute inference. The sentence length is used as the estimated
+		// cost of each job.
 		final List<JobFuture<TestJobResult<RESULT>>> futures = new ArrayList<JobFuture<TestJobResult<RESULT>>>(
 				sortedData.size());
 		for (final DI dataItem : sortedData) {
-			futures.add(manager.execute(createTestJob(dataItem)));
+			futures.add(manager.execute(createTestJob(dataItem), Math.max(1,
+					dataItem.getSample().getSample().getTokens().size())));
 		}
 
 		// Wait for all jobs to finish.
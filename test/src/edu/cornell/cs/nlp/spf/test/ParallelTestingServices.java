@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
+import edu.cornell.cs.nlp.spf.test.stats.ITestingStatistics;
+import edu.cornell.cs.nlp.spf.test.stats.RecordingTestingStatistics;
+import edu.cornell.cs.nlp.utils.log.Log;
+import edu.cornell.cs.nlp.utils.log.Logger;
+import edu.cornell.cs.nlp.utils.log.thread.ILoggingThread;
+import edu.cornell.cs.nlp.utils.log.thread.InterruptedRuntimeException;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingCallable;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * Services to test the data items of a dataset concurrently. Each item is
+ * tested on a thread from a bounded pool, while its statistics and log are
+ * buffered. The buffers are merged into the given statistics and the log of
+ * the calling thread in the order of the dataset, as soon as an item and all
+ * the items preceding it are done. The statistics are therefore identical to
+ * the ones of sequential testing, and the log of each item is kept together.
+ * The testing procedure (e.g., the parser) must support concurrent calls.
+ *
+ * @author Yoav Artzi
+ */
+public class ParallelTestingServices {
+
+	private static final String	THREAD_NAME_PREFIX	= "test";
+
+	private ParallelTestingServices() {
+		// Service class. No instances.
+	}
+
+	/**
+	 * @param numThreads
+	 *            Number of items to test concurrently. If 1 or less, the items
+	 *            are tested sequentially on the calling thread.
+	 * @param tester
+	 *            Tests a single data item.
+	 */
+	public static <SAMPLE, LABEL, DI extends ILabeledDataItem<SAMPLE, LABEL>> void test(
+			Iterable<? extends DI> dataset, int numThreads,
+			ITestingStatistics<SAMPLE, LABEL, DI> stats,
+			IItemTester<SAMPLE, LABEL, DI> tester) {
+		if (numThreads <= 1) {
+			int itemCounter = 0;
+			for (final DI dataItem : dataset) {
+				tester.test(++itemCounter, dataItem, stats);
+			}
+			return;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				numThreads, new LoggingThreadFactory(THREAD_NAME_PREFIX));
+		try {
+			// Submit all items, and collect the results in order.
+			final List<ItemLog> logs = new ArrayList<ItemLog>();
+			final List<Future<RecordingTestingStatistics<SAMPLE, LABEL, DI>>> futures = new ArrayList<Future<RecordingTestingStatistics<SAMPLE, LABEL, DI>>>();
+			int itemCounter = 0;
+			for (final DI dataItem : dataset) {
+				final int itemNumber = ++itemCounter;
+				final ItemLog log = new ItemLog();
+				logs.add(log);
+				futures.add(executor.submit(
+						new LoggingCallable<RecordingTestingStatistics<SAMPLE, LABEL, DI>>(
+								log) {
+							@Override
+							public RecordingTestingStatistics<SAMPLE, LABEL, DI> loggedCall() {
+								final RecordingTestingStatistics<SAMPLE, LABEL, DI> itemStats = new RecordingTestingStatistics<SAMPLE, LABEL, DI>();
+								tester.test(itemNumber, dataItem, itemStats);
+								return itemStats;
+							}
+						}));
+			}
+
+			for (int i = 0; i < futures.size(); ++i) {
+				final RecordingTestingStatistics<SAMPLE, LABEL, DI> itemStats;
+				try {
+					itemStats = futures.get(i).get();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedRuntimeException(e);
+				} catch (final ExecutionException e) {
+					logs.get(i).flush();
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					} else if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					} else {
+						throw new RuntimeException(e.getCause());
+					}
+				}
+				logs.get(i).flush();
+				itemStats.replay(stats);
+				// Release the buffers.
+				logs.set(i, null);
+				futures.set(i, null);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests a single data item.
+	 *
+	 * @author Yoav Artzi
+	 */
+	@FunctionalInterface
+	public interface IItemTester<SAMPLE, LABEL, DI extends ILabeledDataItem<SAMPLE, LABEL>> {
+		/**
+		 * @param itemCounter
+		 *            1-based index of the item in the dataset.
+		 */
+		void test(int itemCounter, DI dataItem,
+				ITestingStatistics<SAMPLE, LABEL, DI> stats);
+	}
+
+	/**
+	 * Buffers the log of a single data item.
+	 */
+	private static class ItemLog extends Log {
+		private final List<String>	lines	= new ArrayList<String>();
+
+		@Override
+		public synchronized void println(String string) {
+			lines.add(string);
+		}
+
+		@Override
+		public synchronized void println(Throwable throwable) {
+			final StringWriter writer = new StringWriter();
+			throwable.printStackTrace(new PrintWriter(writer));
+			lines.add(writer.toString());
+		}
+
+		/**
+		 * Write the buffered lines to the log of the current thread.
+		 */
+		public synchronized void flush() {
+			final Log log = Thread.currentThread() instanceof ILoggingThread
+					? ((ILoggingThread) Thread.currentThread()).getLog()
+					: Logger.DEFAULT_LOG;
+			synchronized (log) {
+				for (final String line : lines) {
+					log.println(line);
+				}
+			}
+			lines.clear();
+		}
+	}
+
+}
@@ -43,6 +43,7 @@ import edu.cornell.cs.nlp.utils.log.LoggerFactory;
 /**
  * Testing procedure. This tester is insensitive to the syntactic category
  * generated by inference procedure and only evaluated the semantic component.
+ * Data items may be tested concurrently, see {@link ParallelTestingServices}.
  *
  * @author Yoav Artzi
  * @param <SAMPLE>
@@ -58,6 +59,11 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 	public static final ILogger LOG = LoggerFactory
 			.create(Tester.class.getName());
 
+	/**
+	 * Number of data items to test concurrently.
+	 */
+	private final int numThreads;
+
 	private final IOutputLogger<MR> outputLogger;
 
 	private final IParser<SAMPLE, MR> parser;
@@ -68,12 +74,14 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 
 	private Tester(IDataCollection<? extends DI> testData,
 			IFilter<SAMPLE> skipParsingFilter, IParser<SAMPLE, MR> parser,
-			IOutputLogger<MR> outputLogger) {
+			IOutputLogger<MR> outputLogger, int numThreads) {
 		this.testData = testData;
 		this.skipParsingFilter = skipParsingFilter;
 		this.parser = parser;
 		this.outputLogger = outputLogger;
-		LOG.info("Init Tester:  testData.size()=%d", testData.size());
+		this.numThreads = numThreads;
+		LOG.info("Init Tester:  testData.size()=%d, numThreads=%d",
+				testData.size(), numThreads);
 	}
 
 	@Override
@@ -156,11 +164,9 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 	private void test(IDataCollection<? extends DI> dataset,
 			IModelImmutable<SAMPLE, MR> model,
 			ITestingStatistics<SAMPLE, MR, DI> stats) {
-		int itemCounter = 0;
-		for (final DI item : dataset) {
-			++itemCounter;
-			test(itemCounter, item, model, stats);
-		}
+		ParallelTestingServices.test(dataset, numThreads, stats,
+				(itemCounter, item, itemStats) -> test(itemCounter, item,
+						model, itemStats));
 	}
 
 	private void test(int itemCounter, final DI dataItem,
@@ -219,6 +225,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 			// Update stats
 			stats.recordNoParse(dataItem);
 
+			// The model output is not used anymore, so release it before
+			// re-parsing.
+			modelParserOutput.release();
+
 			// Potentially re-parse with word skipping
 			if (skipParsingFilter.test(dataItem.getSample())) {
 				final IParserOutput<MR> parserOutputWithSkipping = parser
@@ -261,15 +271,23 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 						}
 					}
 				}
+				parserOutputWithSkipping.release();
 			} else {
 				LOG.info("Skipping word-skip parsing due to length");
 				stats.recordNoParseWithSkipping(dataItem);
 			}
 		}
+
+		// Release the output, so the parser can re-use its internal
+		// structures (e.g., the chart) for the next data item.
+		modelParserOutput.release();
 	}
 
 	public static class Builder<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem<SAMPLE, MR>> {
 
+		/** Number of data items to test concurrently */
+		private int numThreads = 1;
+
 		private IOutputLogger<MR> outputLogger = new IOutputLogger<MR>() {
 			private static final long serialVersionUID = -2828347737693835555L;
 
@@ -295,7 +313,12 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 
 		public Tester<SAMPLE, MR, DI> build() {
 			return new Tester<SAMPLE, MR, DI>(testData, skipParsingFilter,
-					parser, outputLogger);
+					parser, outputLogger, numThreads);
+		}
+
+		public Builder<SAMPLE, MR, DI> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
 		}
 
 		public Builder<SAMPLE, MR, DI> setOutputLogger(
@@ -349,6 +372,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 						.get(parameters.get("skippingFilter")));
 			}
 
+			if (parameters.contains("threads")) {
+				builder.setNumThreads(parameters.getAsInteger("threads"));
+			}
+
 			return builder.build();
 		}
 
@@ -367,6 +394,8 @@ public class Tester<SAMPLE extends IDataItem<?>, MR, DI extends ILabeledDataItem
 					.addParam("parser", "id", "Parser object")
 					.addParam("skippingFilter", "id",
 							"IFilter used to decide which data items to skip")
+					.addParam("threads", Integer.class,
+							"Number of data items to test concurrently, the parser must support concurrent calls (default: 1)")
 					.build();
 		}
 
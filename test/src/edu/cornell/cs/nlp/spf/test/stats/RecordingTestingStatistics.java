@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.test.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.cornell.cs.nlp.spf.data.ILabeledDataItem;
+
+/**
+ * Testing statistics that record the calls made to them, to later replay them
+ * on other statistics. Used to collect the statistics of a single data item
+ * on a worker thread, and merge them into statistics that are not thread safe
+ * in a deterministic order. Not thread safe.
+ *
+ * @author Yoav Artzi
+ * @param <SAMPLE>
+ *            Testing sample.
+ * @param <LABEL>
+ *            Provided label.
+ */
+public class RecordingTestingStatistics<SAMPLE, LABEL, DI extends ILabeledDataItem<SAMPLE, LABEL>>
+		implements ITestingStatistics<SAMPLE, LABEL, DI> {
+
+	private final List<Consumer<ITestingStatistics<SAMPLE, LABEL, DI>>>	records	= new ArrayList<Consumer<ITestingStatistics<SAMPLE, LABEL, DI>>>();
+
+	@Override
+	public void recordNoParse(DI dataItem) {
+		records.add(stats -> stats.recordNoParse(dataItem));
+	}
+
+	@Override
+	public void recordNoParseWithSkipping(DI dataItem) {
+		records.add(stats -> stats.recordNoParseWithSkipping(dataItem));
+	}
+
+	@Override
+	public void recordParse(DI dataItem, LABEL candidate) {
+		records.add(stats -> stats.recordParse(dataItem, candidate));
+	}
+
+	@Override
+	public void recordParses(DI dataItem, List<LABEL> candidates) {
+		records.add(stats -> stats.recordParses(dataItem, candidates));
+	}
+
+	@Override
+	public void recordParsesWithSkipping(DI dataItem, List<LABEL> candidates) {
+		records.add(
+				stats -> stats.recordParsesWithSkipping(dataItem, candidates));
+	}
+
+	@Override
+	public void recordParseWithSkipping(DI dataItem, LABEL candidate) {
+		records.add(stats -> stats.recordParseWithSkipping(dataItem, candidate));
+	}
+
+	/**
+	 * Replay all recorded calls, in order, on the given statistics.
+	 */
+	public void replay(ITestingStatistics<SAMPLE, LABEL, DI> stats) {
+		for (final Consumer<ITestingStatistics<SAMPLE, LABEL, DI>> record : records) {
+			record.accept(stats);
+		}
+	}
+
+	public int size() {
+		return records.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s [%d records]",
+				RecordingTestingStatistics.class.getSimpleName(),
+				records.size());
+	}
+
+	@Override
+	public String toTabDelimitedString() {
+		return "records=" + records.size();
+	}
+
+}
@@ -18,15 +18,24 @@ package edu.cornell.cs.nlp.spf;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.mr.lambda.FlexibleTypeComparator;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 import edu.cornell.cs.nlp.spf.mr.lambda.SkolemServices;
 import edu.cornell.cs.nlp.spf.mr.lambda.ccg.LogicalExpressionCategoryServices;
 import edu.cornell.cs.nlp.spf.mr.language.type.TypeRepository;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.BackwardApplication;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.ForwardApplication;
 
 public class TestServices {
 
@@ -80,6 +89,42 @@ public class TestServices {
 
 	}
 
+	/**
+	 * @return Forward and backward application rules for CKY parsers.
+	 */
+	public static List<CKYBinaryParsingRule<LogicalExpression>> createApplicationRules() {
+		final List<CKYBinaryParsingRule<LogicalExpression>> rules = new ArrayList<CKYBinaryParsingRule<LogicalExpression>>();
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ForwardApplication<LogicalExpression>(CATEGORY_SERVICES)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new BackwardApplication<LogicalExpression>(CATEGORY_SERVICES)));
+		return rules;
+	}
+
+	/**
+	 * @return CKY parser with forward and backward application only.
+	 */
+	public static CKYParser<Sentence, LogicalExpression> createCKYParser() {
+		final CKYParser.Builder<Sentence, LogicalExpression> builder = new CKYParser.Builder<Sentence, LogicalExpression>(
+				CATEGORY_SERVICES);
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : createApplicationRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return Lexicon with the given entries, each in the format
+	 *         "tokens :- category".
+	 */
+	public static Lexicon<LogicalExpression> createLexicon(String... entries) {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		for (final String entry : entries) {
+			lexicon.add(readEntry(entry));
+		}
+		return lexicon;
+	}
+
 	public static LogicalExpressionCategoryServices getCategoryServices() {
 		return CATEGORY_SERVICES;
 	}
@@ -87,4 +132,9 @@ public class TestServices {
 	public static void init() {
 		// Nothing to do.
 	}
+
+	public static LexicalEntry<LogicalExpression> readEntry(String line) {
+		return LexicalEntry.read(line, CATEGORY_SERVICES,
+				LexicalEntry.Origin.FIXED_DOMAIN);
+	}
 }
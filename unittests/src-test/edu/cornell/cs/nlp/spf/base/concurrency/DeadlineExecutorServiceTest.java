@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeadlineExecutorServiceTest {
+
+	@Test
+	public void testDeadlineCancelledOnCompletion() throws Exception {
+		final DeadlineExecutorService executor = new DeadlineExecutorService(1);
+		try {
+			Assert.assertEquals(Integer.valueOf(1),
+					executor.submit(() -> 1, 100).get());
+			// The deadline of the completed task passes while the next task
+			// is running on the same thread. It must not be interrupted.
+			Assert.assertEquals(Integer.valueOf(2), executor.submit(() -> {
+				Thread.sleep(300);
+				return 2;
+			}).get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		final DeadlineExecutorService executor = new DeadlineExecutorService(1);
+		try {
+			final long start = System.currentTimeMillis();
+			final Future<Integer> future = executor.submit(() -> {
+				Thread.sleep(10000);
+				return 1;
+			}, 100);
+			try {
+				future.get();
+				Assert.fail("Expected the task to time out");
+			} catch (final ExecutionException e) {
+				Assert.assertTrue(
+						e.getCause() instanceof InterruptedException);
+			}
+			Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+
+			// The interrupt doesn't leak to the next task.
+			Assert.assertEquals(Integer.valueOf(2), executor.submit(() -> {
+				Thread.sleep(100);
+				return 2;
+			}).get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testUniqueTimeout() throws Exception {
+		final DeadlineExecutorService executor = new DeadlineExecutorService(2);
+		try {
+			// Each deadline is set when the task starts running, so queued
+			// tasks are not timed out.
+			final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+			for (int i = 0; i < 6; ++i) {
+				final int value = i;
+				tasks.add(() -> {
+					Thread.sleep(200);
+					return value;
+				});
+			}
+			final List<Future<Integer>> futures = executor
+					.invokeAllWithUniqueTimeout(tasks, 500);
+			for (int i = 0; i < futures.size(); ++i) {
+				Assert.assertEquals(Integer.valueOf(i), futures.get(i).get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
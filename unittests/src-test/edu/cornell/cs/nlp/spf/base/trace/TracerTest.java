@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.base.trace;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVectorImmutable;
+import edu.cornell.cs.nlp.utils.log.Log;
+import edu.cornell.cs.nlp.utils.log.LogLevel;
+import edu.cornell.cs.nlp.utils.log.Logger;
+
+public class TracerTest {
+
+	private static List<String> render(byte[] trace) throws IOException {
+		final List<String> lines = new ArrayList<String>();
+		try (final TraceRenderer renderer = new TraceRenderer(
+				new ByteArrayInputStream(trace))) {
+			String line;
+			while ((line = renderer.next()) != null) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	@Test
+	public void testInfoOrLog() {
+		// Without tracing, the event is logged, with suppliers rendered.
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final Log defaultLog = Logger.DEFAULT_LOG;
+		Logger.DEFAULT_LOG = new Log(new PrintStream(out, true));
+		try {
+			Tracer.infoOrLog(new Logger("", LogLevel.INFO),
+					"%s%s[%.2f%s] %s", "* ", "", 0.5, ", V",
+					(Supplier<String>) () -> "rendered");
+		} finally {
+			Logger.DEFAULT_LOG = defaultLog;
+		}
+		Assert.assertTrue(
+				out.toString().trim().endsWith("* [0.50, V] rendered"));
+	}
+
+	@Test
+	public void testRingBuffer() throws InterruptedException {
+		// Several producers add items to a small buffer. The items of each
+		// producer must be consumed in order, and none may be dropped.
+		final int numProducers = 4;
+		final int numItems = 20000;
+		final TraceRingBuffer<int[]> buffer = new TraceRingBuffer<int[]>(6);
+		Assert.assertEquals(8, buffer.capacity());
+		final List<Thread> producers = new ArrayList<Thread>();
+		for (int i = 0; i < numProducers; ++i) {
+			final int producer = i;
+			final Thread thread = new Thread(() -> {
+				for (int j = 0; j < numItems; ++j) {
+					buffer.put(new int[] { producer, j }, null);
+				}
+			});
+			producers.add(thread);
+			thread.start();
+		}
+
+		final int[] next = new int[numProducers];
+		int consumed = 0;
+		while (consumed < numProducers * numItems) {
+			final int[] item = buffer.poll();
+			if (item == null) {
+				Thread.yield();
+			} else {
+				Assert.assertEquals(next[item[0]]++, item[1]);
+				++consumed;
+			}
+		}
+		for (final Thread thread : producers) {
+			thread.join();
+		}
+		Assert.assertNull(buffer.poll());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final Tracer tracer = new Tracer(out, 4);
+		final IHashVector update = HashVectorFactory.create();
+		update.set("LEX", "a", 1.0);
+		update.set("XEME", "b", "c", -0.5);
+		final StringBuilder longString = new StringBuilder();
+		for (int i = 0; i <= Tracer.MAX_INTERNED_LENGTH; ++i) {
+			longString.append(i % 10);
+		}
+		final Supplier<String> supplier = () -> "rendered";
+
+		final List<String> expected = new ArrayList<String>();
+		final String thread = Thread.currentThread().getName();
+		for (int i = 0; i < 10; ++i) {
+			tracer.add("%s%s[%.2f%s] %s", "* ", "", i * 0.5, ", V",
+					"parse" + i);
+			expected.add(String.format("[%s] %s%s[%.2f%s] %s", thread, "* ",
+					"", i * 0.5, ", V", "parse" + i));
+		}
+		tracer.add("Update: %s", update);
+		expected.add(String.format("[%s] Update: %s", thread, update));
+		// The vector is copied, so later updates are not traced.
+		update.set("LEX", "a", 2.0);
+		tracer.add("%d %d %b %s %s %s", 7, 1L << 40, true, null, longString,
+				supplier);
+		expected.add(String.format("[%s] %d %d %b %s %s %s", thread, 7,
+				1L << 40, true, null, longString, "rendered"));
+		tracer.close();
+
+		Assert.assertEquals(expected, render(out.toByteArray()));
+	}
+
+	@Test
+	public void testSnapshotTheta() throws IOException {
+		final IHashVector theta = HashVectorFactory.create();
+		theta.set("LEX", "a", 1.0);
+		theta.set("LEX", "b", 2.0);
+		final IHashVector features = HashVectorFactory.create();
+		features.set("LEX", "a", 1.0);
+		features.set("LEX", "c", 1.0);
+
+		// Without tracing, events are logged immediately.
+		Assert.assertSame(theta, Tracer.snapshotTheta(theta, features));
+
+		try (final Tracer tracer = new Tracer(new ByteArrayOutputStream(),
+				4)) {
+			Tracer.setInstance(tracer);
+			final IHashVectorImmutable snapshot = Tracer.snapshotTheta(theta,
+					features);
+			theta.set("LEX", "a", 3.0);
+			Assert.assertEquals(1, snapshot.size());
+			Assert.assertEquals(1.0, snapshot.get("LEX", "a"), 0.0);
+		}
+		Assert.assertFalse(Tracer.isEnabled());
+	}
+
+	@Test
+	public void testStringsTableReset() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final Tracer tracer = new Tracer(out, Tracer.DEFAULT_CAPACITY);
+		final int numEvents = Tracer.MAX_STRINGS + 100;
+		for (int i = 0; i < numEvents; ++i) {
+			tracer.add("%s", "s" + i);
+		}
+		tracer.close();
+		final List<String> lines = render(out.toByteArray());
+		Assert.assertEquals(numEvents, lines.size());
+		final String thread = Thread.currentThread().getName();
+		for (int i = 0; i < numEvents; ++i) {
+			Assert.assertEquals(String.format("[%s] s%d", thread, i),
+					lines.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.ccg.categories;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.ComplexSyntax;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Slash;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+
+public class SyntaxInterningTest {
+
+	public SyntaxInterningTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	private static Object serializeAndRead(Object object) throws IOException,
+			ClassNotFoundException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			return in.readObject();
+		}
+	}
+
+	@Test
+	public void testApplication() {
+		final ICategoryServices<LogicalExpression> categoryServices = TestServices
+				.getCategoryServices();
+		final ComplexCategory<LogicalExpression> function = (ComplexCategory<LogicalExpression>) categoryServices
+				.read("S/NP : (lambda $0:e (state:<s,t> $0))");
+		final Category<LogicalExpression> argument = categoryServices
+				.read("NP : texas:s");
+		final Category<LogicalExpression> result1 = categoryServices.apply(
+				function, argument);
+		final Category<LogicalExpression> result2 = categoryServices.apply(
+				function, argument);
+		Assert.assertEquals(result1, result2);
+		Assert.assertSame(Syntax.S, result1.getSyntax());
+	}
+
+	@Test
+	public void testCategory() {
+		final Category<LogicalExpression> category = TestServices
+				.getCategoryServices().read(
+						"S\\NP/NP : (lambda $0:e (lambda $1:e (loc:<lo,<lo,t>> $1 $0)))");
+		Assert.assertEquals(category,
+				Category.create(category.getSyntax(), category.getSemantics()));
+		Assert.assertEquals(category,
+				category.cloneWithNewSemantics(category.getSemantics()));
+		Assert.assertEquals(category, Category.create(
+				Syntax.read("(S\\NP)/NP"), category.getSemantics()));
+
+		// Categories are compared structurally, only the syntax is shared.
+		final Category<LogicalExpression> other = TestServices
+				.getCategoryServices().read(
+						"S\\NP/NP : (lambda $0:e (lambda $1:e (loc:<lo,<lo,t>> $1 $0)))");
+		Assert.assertEquals(category, other);
+		Assert.assertEquals(category.hashCode(), other.hashCode());
+		Assert.assertSame(category.getSyntax(), other.getSyntax());
+	}
+
+	@Test
+	public void testSerialization() throws ClassNotFoundException,
+			IOException {
+		final Syntax syntax = Syntax.read("S[x]\\NP/N[pl]");
+		Assert.assertSame(syntax, serializeAndRead(syntax));
+
+		final Category<LogicalExpression> category = TestServices
+				.getCategoryServices().read("N[pl]/N[pl] : boston:c");
+		@SuppressWarnings("unchecked")
+		final Category<LogicalExpression> read = (Category<LogicalExpression>) serializeAndRead(category);
+		Assert.assertEquals(category, read);
+		Assert.assertSame(category.getSyntax(), read.getSyntax());
+	}
+
+	@Test
+	public void testSyntax() {
+		Assert.assertSame(Syntax.read("S\\NP/NP"), Syntax.read("(S\\NP)/NP"));
+		Assert.assertSame(Syntax.read("N[pl]"), Syntax.read("N[pl]"));
+		Assert.assertSame(Syntax.N, Syntax.read("N[pl]").stripAttributes());
+		Assert.assertSame(Syntax.read("N[pl]/N[pl]"), ComplexSyntax.create(
+				Syntax.read("N[pl]"), Syntax.read("N[pl]"), Slash.FORWARD));
+		Assert.assertSame(Syntax.read("N/N"), Syntax.read("N[pl]/N[pl]")
+				.stripAttributes());
+	}
+
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.ccg.lexicon;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.token.TokenSeq;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelListener;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class ConcurrentLexiconTest {
+
+	public ConcurrentLexiconTest() {
+		TestServices.init();
+	}
+
+	private static List<LexicalEntry<LogicalExpression>> readSeedLexicon() {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		lexicon.addEntriesFromFile(new File("../geoquery/resources/seed.lex"),
+				TestServices.getCategoryServices(), "seed");
+		lexicon.addEntriesFromFile(
+				new File("../geoquery/resources/np-list.lex"),
+				TestServices.getCategoryServices(), "np");
+		return new ArrayList<LexicalEntry<LogicalExpression>>(
+				lexicon.toCollection());
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		// Several threads add the same entries, while others read. Each entry
+		// is reported as added once.
+		final List<LexicalEntry<LogicalExpression>> entries = readSeedLexicon();
+		final ConcurrentLexicon<LogicalExpression> lexicon = new ConcurrentLexicon<LogicalExpression>();
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final AtomicBoolean done = new AtomicBoolean();
+		final List<Future<Integer>> writers = new ArrayList<Future<Integer>>();
+		final List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+		for (int i = 0; i < 4; ++i) {
+			writers.add(executor.submit(() -> {
+				int added = 0;
+				for (final LexicalEntry<LogicalExpression> entry : entries) {
+					added += lexicon.add(entry).size();
+				}
+				return added;
+			}));
+			readers.add(executor.submit(() -> {
+				int read = 0;
+				while (!done.get()) {
+					for (final LexicalEntry<LogicalExpression> entry : entries) {
+						final Iterator<LexicalEntry<LogicalExpression>> iterator = lexicon
+								.get(entry.getTokens());
+						while (iterator.hasNext()) {
+							Assert.assertEquals(entry.getTokens(),
+									iterator.next().getTokens());
+							++read;
+						}
+					}
+				}
+				return read;
+			}));
+		}
+		int added = 0;
+		for (final Future<Integer> future : writers) {
+			added += future.get();
+		}
+		done.set(true);
+		for (final Future<Integer> future : readers) {
+			future.get();
+		}
+		executor.shutdown();
+
+		Assert.assertEquals(entries.size(), added);
+		Assert.assertEquals(entries.size(), lexicon.size());
+		Assert.assertEquals(entries.size(), lexicon.toCollection().size());
+		for (final LexicalEntry<LogicalExpression> entry : entries) {
+			Assert.assertTrue(lexicon.contains(entry));
+		}
+	}
+
+	@Test
+	public void testModelListeners() throws Exception {
+		// Entries are added from multiple threads, while a listener
+		// registers another listener.
+		final List<LexicalEntry<LogicalExpression>> entries = readSeedLexicon();
+		final Model<Sentence, LogicalExpression> model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new ConcurrentLexicon<LogicalExpression>())
+				.build();
+		final CountingListener late = new CountingListener(null, null);
+		final CountingListener first = new CountingListener(model, late);
+		model.registerListener(first);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int i = 0; i < 4; ++i) {
+			futures.add(executor.submit(() -> {
+				for (final LexicalEntry<LogicalExpression> entry : entries) {
+					model.addLexEntry(entry);
+				}
+			}));
+		}
+		for (final Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		Assert.assertEquals(entries.size(), model.getLexicon().size());
+		Assert.assertEquals(entries.size(), first.count);
+		Assert.assertTrue(late.count > 0);
+	}
+
+	@Test
+	public void testRetainAll() {
+		final List<LexicalEntry<LogicalExpression>> entries = readSeedLexicon();
+		final ConcurrentLexicon<LogicalExpression> lexicon = new ConcurrentLexicon<LogicalExpression>();
+		final Lexicon<LogicalExpression> conventional = new Lexicon<LogicalExpression>();
+		Assert.assertEquals(entries.size(), lexicon.addAll(entries).size());
+		conventional.addAll(entries);
+		Assert.assertTrue(lexicon.addAll(entries).isEmpty());
+
+		final List<LexicalEntry<LogicalExpression>> retained = entries
+				.subList(0, entries.size() / 3);
+		Assert.assertTrue(lexicon.retainAll(retained));
+		Assert.assertTrue(conventional.retainAll(retained));
+		Assert.assertFalse(lexicon.retainAll(retained));
+		Assert.assertEquals(conventional.size(), lexicon.size());
+		Assert.assertEquals(
+				new HashSet<LexicalEntry<LogicalExpression>>(
+						conventional.toCollection()),
+				new HashSet<LexicalEntry<LogicalExpression>>(
+						lexicon.toCollection()));
+		for (final LexicalEntry<LogicalExpression> entry : entries) {
+			Assert.assertEquals(conventional.contains(entry),
+					lexicon.contains(entry));
+		}
+		final TokenSeq tokens = entries.get(entries.size() - 1).getTokens();
+		Assert.assertEquals(conventional.get(tokens).hasNext(),
+				lexicon.get(tokens).hasNext());
+	}
+
+	private static class CountingListener
+			implements IModelListener<LogicalExpression> {
+
+		private int											count	= 0;
+		private final CountingListener						late;
+		private final Model<Sentence, LogicalExpression>	model;
+
+		public CountingListener(Model<Sentence, LogicalExpression> model,
+				CountingListener late) {
+			this.model = model;
+			this.late = late;
+		}
+
+		@Override
+		public synchronized void lexicalEntriesAdded(
+				Collection<LexicalEntry<LogicalExpression>> entries) {
+			count += entries.size();
+			if (model != null && count == 1) {
+				model.registerListener(late);
+			}
+		}
+
+		@Override
+		public void lexicalEntriesAdded(ILexicon<LogicalExpression> entries) {
+			lexicalEntriesAdded(entries.toCollection());
+		}
+
+		@Override
+		public void lexicalEntryAdded(LexicalEntry<LogicalExpression> entry) {
+			lexicalEntriesAdded(Collections.singleton(entry));
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.data.singlesentence;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.string.StubStringFilter;
+import edu.cornell.cs.nlp.spf.data.collection.IDataCollection;
+
+public class MappedSingleSentenceCollectionTest {
+
+	public MappedSingleSentenceCollectionTest() {
+		TestServices.init();
+	}
+
+	private static void assertSameItems(Iterable<SingleSentence> expected,
+			Iterable<SingleSentence> actual) {
+		final Iterator<SingleSentence> iterator = actual.iterator();
+		for (final SingleSentence item : expected) {
+			Assert.assertTrue(iterator.hasNext());
+			final SingleSentence other = iterator.next();
+			Assert.assertEquals(item, other);
+			Assert.assertEquals(item.getProperties(), other.getProperties());
+		}
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testIndentedWithProperties() {
+		final File file = new File("resources-test/indent.with.props.lam");
+		final MappedSingleSentenceCollection mapped = MappedSingleSentenceCollection
+				.read(file);
+		Assert.assertEquals(5, mapped.size());
+		assertSameItems(SingleSentenceCollection.read(file), mapped);
+	}
+
+	@Test
+	public void testPrefetch() {
+		final File file = new File("resources-test/geo.lam");
+		final MappedSingleSentenceCollection mapped = new MappedSingleSentenceCollection(
+				file, new StubStringFilter(), null, 4);
+		assertSameItems(SingleSentenceCollection.read(file), mapped);
+		// Abandoned iteration.
+		Assert.assertTrue(mapped.iterator().hasNext());
+		assertSameItems(SingleSentenceCollection.read(file), mapped);
+	}
+
+	@Test
+	public void testRandomAccess() {
+		final File file = new File("resources-test/geo.lam");
+		final SingleSentenceCollection data = SingleSentenceCollection
+				.read(file);
+		final MappedSingleSentenceCollection mapped = MappedSingleSentenceCollection
+				.read(file);
+		Assert.assertEquals(60, mapped.size());
+		final List<SingleSentence> items = new ArrayList<SingleSentence>();
+		for (final SingleSentence item : data) {
+			items.add(item);
+		}
+		for (int i = items.size() - 1; i >= 0; --i) {
+			Assert.assertEquals(items.get(i), mapped.get(i));
+		}
+		assertSameItems(data, mapped);
+	}
+
+	@Test
+	public void testShards() {
+		final File file = new File("resources-test/geo.lam");
+		final MappedSingleSentenceCollection mapped = MappedSingleSentenceCollection
+				.read(file);
+		final List<SingleSentence> items = new ArrayList<SingleSentence>();
+		int size = 0;
+		for (int shard = 0; shard < 7; ++shard) {
+			final IDataCollection<SingleSentence> data = mapped.shard(shard,
+					7);
+			size += data.size();
+			int index = shard;
+			for (final SingleSentence item : data) {
+				Assert.assertEquals(mapped.get(index), item);
+				items.add(item);
+				index += 7;
+			}
+		}
+		Assert.assertEquals(mapped.size(), size);
+		Assert.assertEquals(mapped.size(), items.size());
+		final List<SingleSentence> expected = new ArrayList<SingleSentence>();
+		for (final SingleSentence item : mapped) {
+			expected.add(item);
+		}
+		Collections.sort(items,
+				(o1, o2) -> o1.toString().compareTo(o2.toString()));
+		Collections.sort(expected,
+				(o1, o2) -> o1.toString().compareTo(o2.toString()));
+		Assert.assertEquals(expected, items);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.learn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.data.utils.IValidator;
+
+public class ValidationCacheTest {
+
+	private static final Sentence	SENTENCE	= new Sentence("show me boston");
+
+	@Test
+	public void testDisabled() {
+		final CountingValidator oracle = new CountingValidator();
+		final ValidationCache<Sentence, String> cache = new ValidationCache<Sentence, String>(
+				0, true);
+		Assert.assertTrue(cache.isValid(0, SENTENCE, "boston", oracle));
+		Assert.assertTrue(cache.isValid(0, SENTENCE, "boston", oracle));
+		Assert.assertEquals(2, oracle.calls.size());
+	}
+
+	@Test
+	public void testEpochStats() {
+		final CountingValidator oracle = new CountingValidator();
+		final ValidationCache<Sentence, String> cache = new ValidationCache<Sentence, String>(
+				10, false);
+		final LearningStats stats = new LearningStats.Builder(1).build();
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.isValid(0, SENTENCE, "texas", oracle);
+		cache.endEpoch(stats, 0);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.endEpoch(stats, 1);
+		final String output = stats.toString();
+		Assert.assertTrue(output, output.contains("Validation cache hits: 2, 0"));
+		Assert.assertTrue(output,
+				output.contains("Validation cache misses: 2, 1"));
+	}
+
+	@Test
+	public void testMaxSize() {
+		final CountingValidator oracle = new CountingValidator();
+		final ValidationCache<Sentence, String> cache = new ValidationCache<Sentence, String>(
+				2, true);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.isValid(0, SENTENCE, "texas", oracle);
+		// The cache is full, so it's cleared before adding the new entry.
+		cache.isValid(0, SENTENCE, "ohio", oracle);
+		cache.isValid(0, SENTENCE, "ohio", oracle);
+		Assert.assertEquals(3, oracle.calls.size());
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		Assert.assertEquals(4, oracle.calls.size());
+	}
+
+	@Test
+	public void testMemoization() {
+		final CountingValidator oracle = new CountingValidator();
+		final ValidationCache<Sentence, String> cache = new ValidationCache<Sentence, String>(
+				10, false);
+		Assert.assertTrue(cache.isValid(0, SENTENCE, "boston", oracle));
+		Assert.assertFalse(cache.isValid(0, SENTENCE, "texas", oracle));
+		Assert.assertEquals(2, oracle.calls.size());
+
+		// Equal labels are served from the cache.
+		Assert.assertTrue(cache.isValid(0, SENTENCE,
+				new String("boston".toCharArray()), oracle));
+		Assert.assertFalse(cache.isValid(0, SENTENCE, "texas", oracle));
+		Assert.assertEquals(2, oracle.calls.size());
+
+		// Same label, different data item.
+		Assert.assertTrue(cache.isValid(1, SENTENCE, "boston", oracle));
+		Assert.assertEquals(3, oracle.calls.size());
+	}
+
+	@Test
+	public void testPersistence() {
+		final CountingValidator oracle = new CountingValidator();
+		final LearningStats stats = new LearningStats.Builder(1).build();
+
+		final ValidationCache<Sentence, String> cache = new ValidationCache<Sentence, String>(
+				10, false);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		cache.endEpoch(stats, 0);
+		cache.isValid(0, SENTENCE, "boston", oracle);
+		Assert.assertEquals(2, oracle.calls.size());
+
+		oracle.calls.clear();
+		final ValidationCache<Sentence, String> persistentCache = new ValidationCache<Sentence, String>(
+				10, true);
+		persistentCache.isValid(0, SENTENCE, "boston", oracle);
+		persistentCache.endEpoch(stats, 0);
+		persistentCache.isValid(0, SENTENCE, "boston", oracle);
+		Assert.assertEquals(1, oracle.calls.size());
+	}
+
+	/**
+	 * Accepts labels that appear in the sentence, and records all calls.
+	 */
+	private static class CountingValidator implements
+			IValidator<Sentence, String> {
+
+		private final List<String>	calls	= new ArrayList<String>();
+
+		@Override
+		public boolean isValid(Sentence dataItem, String label) {
+			calls.add(label);
+			return dataItem.getString().contains(label);
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
+
+public class CanonicalHashTest {
+
+	public CanonicalHashTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	@Test
+	public void testAlphaVariants() {
+		final LogicalExpression exp1 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (boo:<e,<e,t>> $0 $1)))");
+		final LogicalExpression exp2 = LogicalExpression
+				.read("(lambda $1:e (lambda $0:e (boo:<e,<e,t>> $1 $0)))");
+		final LogicalExpression exp3 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (boo:<e,<e,t>> $1 $0)))");
+		Assert.assertEquals(exp1, exp2);
+		Assert.assertEquals(exp1.canonicalHash(), exp2.canonicalHash());
+		// hashCode() ignores the positions of the variables, the canonical
+		// hash doesn't.
+		Assert.assertEquals(exp1.hashCode(), exp3.hashCode());
+		Assert.assertNotEquals(exp1.canonicalHash(), exp3.canonicalHash());
+
+		final CanonicalHashStatistics stats = LogicLanguageServices
+				.getCanonicalHashStatistics();
+		final long rejections = stats.getRejections();
+		Assert.assertNotEquals(exp1, exp3);
+		Assert.assertEquals(rejections + 1, stats.getRejections());
+	}
+
+	@Test
+	public void testFreeVariables() {
+		final LogicalExpression exp1 = LogicalExpression
+				.read("(boo:<e,<e,t>> $0:e $1:e)");
+		final LogicalExpression exp2 = LogicalExpression
+				.read("(boo:<e,<e,t>> $0:e $1:e)");
+		// Free variables are hashed by their type.
+		Assert.assertEquals(exp1.canonicalHash(), exp2.canonicalHash());
+		Assert.assertNotEquals(exp1, exp2);
+	}
+
+	@Test
+	public void testGeoQueryLabels() {
+		final SingleSentenceCollection dataset = SingleSentenceCollection
+				.read(new File("resources-test/geo.lam"));
+		for (final SingleSentence dataItem : dataset) {
+			final LogicalExpression label = dataItem.getLabel();
+			final LogicalExpression copy = LogicalExpression.read(label
+					.toString());
+			Assert.assertEquals(label, copy);
+			Assert.assertEquals(label.canonicalHash(), copy.canonicalHash());
+		}
+	}
+
+	@Test
+	public void testOrderInsensitive() {
+		final LogicalExpression exp1 = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s)))");
+		final LogicalExpression exp2 = LogicalExpression
+				.read("(lambda $1:e (and:<t*,t> (loc:<lo,<lo,t>> $1 alaska:s) (city:<c,t> $1)))");
+		Assert.assertEquals(exp1, exp2);
+		Assert.assertEquals(exp1.canonicalHash(), exp2.canonicalHash());
+		Assert.assertNotEquals(
+				LogicalExpression.read("(loc:<lo,<lo,t>> alaska:s boston:c)")
+						.canonicalHash(),
+				LogicalExpression.read("(loc:<lo,<lo,t>> boston:c alaska:s)")
+						.canonicalHash());
+	}
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.AllSubExpressions;
+import edu.cornell.cs.nlp.spf.mr.lambda.visitor.GetConstantsSet;
+
+public class LogicalExpressionMetadataTest {
+
+	public LogicalExpressionMetadataTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	@Test
+	public void testConstantsFingerprint() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s)))");
+		for (final LogicalConstant constant : GetConstantsSet.of(exp)) {
+			Assert.assertEquals(constant.constantsFingerprint(),
+					exp.constantsFingerprint() & constant.constantsFingerprint());
+		}
+		Assert.assertEquals(0L, new Variable(LogicLanguageServices
+				.getTypeRepository().getEntityType()).constantsFingerprint());
+	}
+
+	@Test
+	public void testEqualExpressions() {
+		final LogicalExpression exp1 = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s)))");
+		final LogicalExpression exp2 = LogicalExpression
+				.read("(lambda $1:e (and:<t*,t> (loc:<lo,<lo,t>> $1 alaska:s) (city:<c,t> $1)))");
+		Assert.assertEquals(exp1, exp2);
+		Assert.assertEquals(exp1.size(), exp2.size());
+		Assert.assertEquals(exp1.depth(), exp2.depth());
+		Assert.assertEquals(exp1.constantsFingerprint(),
+				exp2.constantsFingerprint());
+	}
+
+	@Test
+	public void testMayContain() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s)))");
+		for (final LogicalExpression subExp : AllSubExpressions.of(exp)) {
+			Assert.assertTrue(exp.mayContain(subExp));
+		}
+		Assert.assertFalse(exp.mayContain(LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s) (state:<s,t> $0)))")));
+		Assert.assertFalse(LogicalExpression.read("(city:<c,t> $0:e)")
+				.mayContain(LogicalExpression.read("(city:<c,t> boston:c)")));
+	}
+
+	@Test
+	public void testSizeAndDepth() {
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 alaska:s)))");
+		// lambda, $0, and, and:<t*,t>, city literal (3), loc literal (4).
+		Assert.assertEquals(11, exp.size());
+		Assert.assertEquals(4, exp.depth());
+		Assert.assertEquals(1, LogicalConstant.read("alaska:s").size());
+		Assert.assertEquals(1, LogicalConstant.read("alaska:s").depth());
+	}
+
+}
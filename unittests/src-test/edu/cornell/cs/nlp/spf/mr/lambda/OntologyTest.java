@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.mr.language.type.Type;
+
+public class OntologyTest {
+
+	public OntologyTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	@Test
+	public void testConcurrentViews() throws Exception {
+		// Each constant must be in the views once getOrAdd() returns, even
+		// when other threads add constants and re-compute the views.
+		final Type entity = LogicLanguageServices.getTypeRepository()
+				.getEntityType();
+		final Ontology ontology = new Ontology(
+				Collections.<LogicalConstant> emptyList(), false);
+		final int numThreads = 4;
+		final int numConstants = 1000;
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < numThreads; ++t) {
+			final int thread = t;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < numConstants; ++i) {
+						final String name = "conc" + thread + "_" + i + ":e";
+						final LogicalConstant constant = ontology.getOrAdd(
+								name, false,
+								() -> new LogicalConstant(name, entity, false));
+						Assert.assertTrue(ontology.getAllConstants()
+								.contains(constant));
+						Assert.assertTrue(
+								ontology.getConstants(entity).contains(constant));
+					}
+				} catch (final Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		// Readers keep re-computing the views while constants are added.
+		final AtomicBoolean done = new AtomicBoolean(false);
+		final List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < numThreads; ++t) {
+			readers.add(new Thread(() -> {
+				while (!done.get()) {
+					ontology.getAllConstants();
+				}
+			}));
+		}
+		for (final Thread thread : readers) {
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		done.set(true);
+		for (final Thread thread : readers) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		Assert.assertEquals(numThreads * numConstants, ontology.size());
+		Assert.assertEquals(numThreads * numConstants,
+				ontology.getAllConstants().size());
+	}
+
+	@Test
+	public void testIds() {
+		final Ontology ontology = LogicLanguageServices.getOntology();
+		final boolean[] seen = new boolean[ontology.getIdLimit()];
+		for (final LogicalConstant constant : ontology) {
+			final int id = constant.getId();
+			Assert.assertTrue(id >= 0 && id < ontology.getIdLimit());
+			Assert.assertFalse(seen[id]);
+			seen[id] = true;
+			Assert.assertTrue(ontology.contains(constant));
+			Assert.assertSame(constant, ontology.getConstant(id));
+		}
+		Assert.assertNull(ontology.getConstant(-1));
+		Assert.assertNull(ontology.getConstant(ontology.getIdLimit()));
+	}
+
+	@Test
+	public void testSharedIds() {
+		// Constants keep their IDs when added to another ontology.
+		final LogicalConstant constant = LogicalConstant.read("boo:e");
+		final LogicalConstant other = LogicalConstant.read("goo:e");
+		final int id = constant.getId();
+		final Ontology ontology = new Ontology(
+				Collections.singletonList(constant), true);
+		Assert.assertEquals(id, constant.getId());
+		Assert.assertTrue(ontology.contains(constant));
+		Assert.assertFalse(ontology.contains(other));
+		Assert.assertNull(ontology.getConstant(other.getId()));
+		Assert.assertEquals(1, ontology.size());
+	}
+
+	@Test
+	public void testViews() {
+		final Type entity = LogicLanguageServices.getTypeRepository()
+				.getEntityType();
+		final LogicalConstant boo = LogicalConstant.read("boo:e");
+		final LogicalConstant pred = LogicalConstant.read("boo:<e,t>");
+		final Ontology ontology = new Ontology(Arrays.asList(boo, pred),
+				false);
+		Assert.assertEquals(2, ontology.getAllConstants().size());
+		Assert.assertEquals(Collections.singleton(pred),
+				ontology.getAllPredicates());
+		Assert.assertEquals(Collections.singleton(boo),
+				ontology.getConstants(entity));
+		Assert.assertSame(ontology.getAllConstants(),
+				ontology.getAllConstants());
+
+		// Adding a constant updates the views.
+		final LogicalConstant added = ontology.getOrAdd("koo:e", false,
+				() -> new LogicalConstant("koo:e", entity, false));
+		Assert.assertNotEquals(LogicalConstant.NO_ID, added.getId());
+		Assert.assertTrue(ontology.contains(added));
+		Assert.assertSame(added, ontology.getOrAdd("koo:e", false, () -> {
+			throw new IllegalStateException();
+		}));
+		Assert.assertEquals(3, ontology.getAllConstants().size());
+		Assert.assertEquals(2, ontology.getConstants(entity).size());
+		Assert.assertTrue(ontology
+				.getConstants(LogicLanguageServices.getTypeRepository()
+						.getTruthValueType())
+				.isEmpty());
+	}
+
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda.visitor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
+import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
+import edu.cornell.cs.nlp.spf.mr.lambda.Literal;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+
+public class BetaReduceTest {
+
+	public BetaReduceTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	private static void assertSameResult(LogicalExpression func,
+			LogicalExpression arg) {
+		final LogicalExpression expected = ApplyAndSimplify.of(func, arg);
+		final LogicalExpression actual = BetaReduce.of(func, arg);
+		Assert.assertEquals(String.format("(%s %s)", func, arg), expected,
+				actual);
+	}
+
+	private static List<LogicalExpression> readSeedSemantics() {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		lexicon.addEntriesFromFile(new File("../geoquery/resources/seed.lex"),
+				TestServices.getCategoryServices(), "seed");
+		lexicon.addEntriesFromFile(
+				new File("../geoquery/resources/np-list.lex"),
+				TestServices.getCategoryServices(), "np");
+		final Set<LogicalExpression> semantics = new LinkedHashSet<LogicalExpression>();
+		for (final LexicalEntry<LogicalExpression> entry : lexicon
+				.toCollection()) {
+			semantics.add(entry.getCategory().getSemantics());
+		}
+		return new ArrayList<LogicalExpression>(semantics);
+	}
+
+	@Test
+	public void test1() {
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:<e,t> (lambda $1:e (and:<t*,t> (boo:<e,t> $1) ($0 $1))))");
+		final LogicalExpression a1 = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (goo:<e,t> $0) (koo:<e,t> $0)))");
+		final LogicalExpression expected1 = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (goo:<e,t> $0) (koo:<e,t> $0)))");
+		Assert.assertEquals(expected1, BetaReduce.of(e1, a1));
+		assertSameResult(e1, a1);
+	}
+
+	@Test
+	public void test2() {
+		// Sub-expressions that don't contain the variable are shared.
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (goo:<e,t> foo:e)))");
+		final LogicalExpression result = BetaReduce.of(e1,
+				LogicalConstant.read("koo:e"));
+		Assert.assertEquals(LogicalExpression
+				.read("(and:<t*,t> (boo:<e,t> koo:e) (goo:<e,t> foo:e))"),
+				result);
+		Assert.assertSame(((Literal) ((Lambda) e1).getBody()).getArg(1),
+				((Literal) result).getArg(1));
+	}
+
+	@Test
+	public void test3() {
+		// Free variables of the argument are not captured.
+		final Variable free = new Variable(LogicLanguageServices
+				.getTypeRepository().getEntityType());
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:e (lambda $1:e (boo:<e,<e,t>> $0 $1)))");
+		final LogicalExpression result = BetaReduce.of(e1, free);
+		Assert.assertTrue(result instanceof Lambda);
+		Assert.assertTrue(result.containsFreeVariable(free));
+		assertSameResult(e1, free);
+	}
+
+	@Test
+	public void test4() {
+		// Type mismatch.
+		final LogicalExpression e1 = LogicalExpression
+				.read("(lambda $0:<e,t> (lambda $1:e ($0 $1)))");
+		Assert.assertNull(BetaReduce.of(e1, LogicalConstant.read("foo:e")));
+		assertSameResult(e1, LogicalConstant.read("foo:e"));
+	}
+
+	@Test
+	public void testGeoQueryLabels() {
+		// Abstract each constant of each label, and apply the resulting
+		// function to the constant.
+		final SingleSentenceCollection dataset = SingleSentenceCollection
+				.read(new File("resources-test/geo.lam"));
+		for (final SingleSentence dataItem : dataset) {
+			final LogicalExpression label = dataItem.getLabel();
+			for (final LogicalConstant constant : GetConstantsSet.of(label)) {
+				final Variable variable = new Variable(LogicLanguageServices
+						.getTypeRepository()
+						.generalizeType(constant.getType()));
+				final LogicalExpression func = new Lambda(variable,
+						ReplaceExpression.of(label, constant, variable));
+				assertSameResult(func, constant);
+			}
+		}
+	}
+
+	@Test
+	public void testGeoQuerySeedLexicon() {
+		// Apply and compose all pairs of semantics from the GeoQuery seed
+		// lexicon.
+		final List<LogicalExpression> semantics = readSeedSemantics();
+		Assert.assertFalse(semantics.isEmpty());
+		for (final LogicalExpression f : semantics) {
+			for (final LogicalExpression g : semantics) {
+				assertSameResult(f, g);
+				if (g.getType().isComplex()) {
+					final Variable x = new Variable(LogicLanguageServices
+							.getTypeRepository()
+							.generalizeType(g.getType().getDomain()));
+					final LogicalExpression expectedBody = ApplyAndSimplify
+							.of(g, x);
+					final LogicalExpression actualBody = BetaReduce.of(g, x);
+					Assert.assertEquals(expectedBody, actualBody);
+					if (expectedBody != null) {
+						assertSameResult(f, expectedBody);
+					}
+				}
+			}
+		}
+	}
+
+}
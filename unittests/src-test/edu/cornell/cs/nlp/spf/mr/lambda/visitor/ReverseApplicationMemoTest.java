@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.lambda.visitor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentenceCollection;
+import edu.cornell.cs.nlp.spf.mr.lambda.Lambda;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.Variable;
+
+public class ReverseApplicationMemoTest {
+
+	public ReverseApplicationMemoTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	private static List<LogicalExpression> readLabels() {
+		final List<LogicalExpression> labels = new ArrayList<LogicalExpression>();
+		for (final SingleSentence dataItem : SingleSentenceCollection
+				.read(new File("resources-test/geo.lam"))) {
+			labels.add(dataItem.getLabel());
+		}
+		return labels;
+	}
+
+	private static List<LogicalExpression> readSeedSemantics() {
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		lexicon.addEntriesFromFile(new File("../geoquery/resources/seed.lex"),
+				TestServices.getCategoryServices(), "seed");
+		lexicon.addEntriesFromFile(
+				new File("../geoquery/resources/np-list.lex"),
+				TestServices.getCategoryServices(), "np");
+		final Set<LogicalExpression> semantics = new LinkedHashSet<LogicalExpression>();
+		for (final LexicalEntry<LogicalExpression> entry : lexicon
+				.toCollection()) {
+			semantics.add(entry.getCategory().getSemantics());
+		}
+		return new ArrayList<LogicalExpression>(semantics);
+	}
+
+	@Test
+	public void testGeoQueryLabels() {
+		// Abstract each entity constant of each label. Extract the argument
+		// from the label and each function, and the function from the label
+		// and each constant.
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo();
+		final List<LogicalExpression> labels = readLabels();
+		final List<LogicalExpression> functions = new ArrayList<LogicalExpression>();
+		final List<LogicalConstant> constants = new ArrayList<LogicalConstant>();
+		for (final LogicalExpression label : labels) {
+			for (final LogicalConstant constant : GetConstantsSet.of(label)) {
+				if (constant.getType().isComplex()) {
+					continue;
+				}
+				final Variable variable = new Variable(LogicLanguageServices
+						.getTypeRepository()
+						.generalizeType(constant.getType()));
+				functions.add(new Lambda(variable,
+						ReplaceExpression.of(label, constant, variable)));
+				constants.add(constant);
+			}
+		}
+		Assert.assertFalse(labels.isEmpty());
+		for (final LogicalExpression label : labels) {
+			for (final LogicalExpression function : functions) {
+				Assert.assertEquals(GetApplicationArgument.of(function, label),
+						memo.getArgument(function, label));
+			}
+			for (final LogicalConstant constant : constants) {
+				Assert.assertEquals(
+						GetApplicationFunction.of(label, constant, 3),
+						memo.getFunction(label, constant, 3,
+								Integer.MAX_VALUE));
+			}
+		}
+		Assert.assertTrue(memo.getPruned() > 0);
+		Assert.assertTrue(memo.getHits() > 0);
+	}
+
+	@Test
+	public void testGeoQuerySeedLexicon() {
+		// Reverse the application of all pairs of semantics from the GeoQuery
+		// seed lexicon. Do it twice to use the memo, which is large enough to
+		// never be cleared.
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo(
+				Integer.MAX_VALUE);
+		final List<LogicalExpression> semantics = readSeedSemantics();
+		Assert.assertFalse(semantics.isEmpty());
+		for (int i = 0; i < 2; ++i) {
+			for (final LogicalExpression f : semantics) {
+				for (final LogicalExpression g : semantics) {
+					final LogicalExpression result = ApplyAndSimplify.of(f, g);
+					if (result == null) {
+						continue;
+					}
+					Assert.assertEquals(GetApplicationArgument.of(f, result),
+							memo.getArgument(f, result));
+					Assert.assertEquals(
+							GetApplicationFunction.of(result, g, 3),
+							memo.getFunction(result, g, 3, Integer.MAX_VALUE));
+				}
+			}
+		}
+		Assert.assertTrue(memo.getHits() >= memo.getMisses());
+	}
+
+	@Test
+	public void testMemoization() {
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo();
+		final LogicalExpression result = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (koo:<e,<e,t>> $0 p:e)))");
+		final LogicalExpression function = memo.getFunction(result,
+				LogicalConstant.read("p:e"), 3, Integer.MAX_VALUE);
+		Assert.assertEquals(
+				LogicalExpression
+						.read("(lambda $0:e (lambda $1:e (and:<t*,t> (boo:<e,t> $1) (koo:<e,<e,t>> $1 $0))))"),
+				function);
+		Assert.assertEquals(1, memo.getMisses());
+
+		// Equal, but not identical, pair.
+		Assert.assertSame(function, memo.getFunction(LogicalExpression
+				.read("(lambda $1:e (and:<t*,t> (koo:<e,<e,t>> $1 p:e) (boo:<e,t> $1)))"),
+				LogicalConstant.read("p:e"), 3, Integer.MAX_VALUE));
+		Assert.assertEquals(1, memo.getHits());
+
+		// Different parameters.
+		memo.getFunction(result, LogicalConstant.read("p:e"), 2,
+				Integer.MAX_VALUE);
+		Assert.assertEquals(2, memo.getMisses());
+
+		// Failures are memoized too.
+		final LogicalExpression other = LogicalExpression
+				.read("(and:<t*,t> (boo:<e,t> p:e) (koo:<e,<e,t>> q:e p:e))");
+		Assert.assertNull(memo.getArgument(function, other));
+		Assert.assertNull(memo.getArgument(function, other));
+		Assert.assertEquals(2, memo.getHits());
+		Assert.assertEquals(0, memo.getPruned());
+	}
+
+	@Test
+	public void testPruning() {
+		final ReverseApplicationMemo memo = new ReverseApplicationMemo();
+		// The argument constant is missing from the result.
+		Assert.assertNull(memo.getFunction(
+				LogicalExpression.read("(boo:<e,t> p:e)"),
+				LogicalConstant.read("q:e"), 3, Integer.MAX_VALUE));
+		Assert.assertEquals(1, memo.getPruned());
+
+		// The argument constant appears in the result, but not enough times.
+		Assert.assertNull(memo.getFunction(
+				LogicalExpression.read("(koo:<e,<e,t>> p:e q:e)"),
+				LogicalExpression.read("(koo:<e,<e,t>> p:e p:e)"), 3,
+				Integer.MAX_VALUE));
+		Assert.assertEquals(2, memo.getPruned());
+
+		// A function constant is missing from the result.
+		Assert.assertNull(memo.getArgument(
+				LogicalExpression.read("(lambda $0:e (goo:<e,t> $0))"),
+				LogicalExpression.read("(boo:<e,t> p:e)")));
+		Assert.assertEquals(3, memo.getPruned());
+		Assert.assertEquals(0, memo.getHits() + memo.getMisses());
+	}
+
+}
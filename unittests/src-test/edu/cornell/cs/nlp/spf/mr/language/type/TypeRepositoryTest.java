@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.mr.language.type;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TypeRepositoryTest {
+
+	private static List<Type> createTypes(TypeRepository repository) {
+		final List<Type> types = new ArrayList<Type>();
+		for (final String name : new String[] { "e", "t", "ind", "c", "s",
+				"lo", "i", "e[]", "c[]", "<e,t>", "<c,t>", "<lo,t>", "<s,t>",
+				"<e,<e,t>>", "<lo,<lo,t>>", "<<e,t>,e>", "<<c,t>,c>",
+				"<<e,t>,t>", "<<s,t>,t>", "<t*,t>", "<t+,t>", "<e*,e>",
+				"<e[],t>", "<c[],t>" }) {
+			final Type type = repository.getTypeCreateIfNeeded(name);
+			Assert.assertNotNull(name, type);
+			types.add(type);
+		}
+		return types;
+	}
+
+	@Test
+	public void testComplexTypeLookup() {
+		final TypeRepository repository = new TypeRepository(new File(
+				"resources-test/geo.types"));
+		for (final Type type : createTypes(repository)) {
+			if (type.isComplex() && ((ComplexType) type).getOption() == null) {
+				Assert.assertSame(type, repository.getTypeCreateIfNeeded(
+						type.getRange(), type.getDomain()));
+			}
+		}
+		final Type eToT = repository.getTypeCreateIfNeeded(
+				repository.getTruthValueType(), repository.getEntityType());
+		Assert.assertSame(repository.getType("<e,t>"), eToT);
+
+		// Types from another repository are not taken from the ID table.
+		final TypeRepository other = new TypeRepository(new File(
+				"resources-test/geo.types"));
+		final ComplexType otherEToT = other.getTypeCreateIfNeeded(
+				other.getTruthValueType(), other.getEntityType());
+		Assert.assertNotSame(eToT, otherEToT);
+		Assert.assertSame(other.getType("<e,t>"), otherEToT);
+	}
+
+	@Test
+	public void testIds() {
+		final TypeRepository repository = new TypeRepository(new File(
+				"resources-test/geo.types"));
+		final List<Type> types = createTypes(repository);
+		final Set<Integer> ids = new HashSet<Integer>();
+		for (final Type type : types) {
+			Assert.assertTrue(type.getId() >= 0);
+			Assert.assertTrue(type.getId() < repository.getNumTypes());
+			ids.add(type.getId());
+		}
+		Assert.assertEquals(types.size(), ids.size());
+	}
+
+	@Test
+	public void testSubsumption() {
+		final TypeRepository repository = new TypeRepository(new File(
+				"resources-test/geo.types"));
+		final List<Type> types = createTypes(repository);
+		// Query twice, to compare both the computed and the cached relation.
+		for (int i = 0; i < 2; ++i) {
+			for (final Type type : types) {
+				for (final Type other : types) {
+					final boolean expected = type == other
+							|| type.calcIsExtending(other);
+					Assert.assertEquals(type + " -> " + other, expected,
+							type.isExtending(other));
+				}
+				Assert.assertFalse(type.isExtending(null));
+				Assert.assertFalse(type.isExtendingOrExtendedBy(null));
+			}
+		}
+		final Type city = repository.getType("c");
+		Assert.assertTrue(city.isExtending(repository.getEntityType()));
+		Assert.assertFalse(repository.getEntityType().isExtending(city));
+		Assert.assertTrue(repository.getEntityType().isExtendingOrExtendedBy(
+				city));
+		Assert.assertTrue(repository.getType("<e,t>").isExtending(
+				repository.getType("<e,t>")));
+		Assert.assertTrue(repository.getType("<c,t>").isExtending(
+				repository.getType("<e,t>")));
+		Assert.assertFalse(repository.getType("<e,t>").isExtending(
+				repository.getType("<c,t>")));
+		Assert.assertSame(repository.getType("<e,t>"),
+				repository.generalizeType(repository.getType("<c,t>")));
+	}
+
+}
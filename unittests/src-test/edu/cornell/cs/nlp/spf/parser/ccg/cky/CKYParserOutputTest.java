@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class CKYParserOutputTest {
+
+	private final Model<Sentence, LogicalExpression>		model;
+	private final CKYParser<Sentence, LogicalExpression>	parser;
+
+	public CKYParserOutputTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+		this.model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(TestServices.createLexicon("texas :- NP : texas:s",
+						"ohio :- NP : ohio:s",
+						"borders :- S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))"))
+				.build();
+		this.parser = TestServices.createCKYParser();
+	}
+
+	@Test
+	public void testRelease() {
+		final Sentence sentence = new Sentence("texas borders ohio");
+		final IDataItemModel<LogicalExpression> dataItemModel = model
+				.createDataItemModel(sentence);
+		final CKYParserOutput<LogicalExpression> output = parser
+				.parse(sentence, dataItemModel);
+		final List<CKYDerivation<LogicalExpression>> derivations = output
+				.getBestDerivations();
+		Assert.assertEquals(1, derivations.size());
+		final LogicalExpression expected = LogicalExpression
+				.read("(next_to:<lo,<lo,t>> texas:s ohio:s)");
+		Assert.assertEquals(expected, derivations.get(0).getSemantics());
+		final double logNorm = output.logNorm();
+		final boolean exact = output.isExact();
+
+		// Derivations remain valid after the output is released. The chart
+		// can't be used.
+		output.release();
+		output.release();
+		Assert.assertEquals(expected, derivations.get(0).getSemantics());
+		Assert.assertEquals(3,
+				derivations.get(0).getAllLexicalEntries().size());
+		Assert.assertEquals(exact, output.isExact());
+		try {
+			output.getChart();
+			Assert.fail("Expected an exception");
+		} catch (final IllegalStateException e) {
+			// Expected.
+		}
+
+		// The next parse re-uses the released spans, and is not affected by
+		// the previous parse.
+		final CKYParserOutput<LogicalExpression> other = parser.parse(
+				new Sentence("ohio borders texas"),
+				model.createDataItemModel(new Sentence("ohio borders texas")));
+		Assert.assertEquals(
+				LogicalExpression
+						.read("(next_to:<lo,<lo,t>> ohio:s texas:s)"),
+				other.getBestDerivations().get(0).getSemantics());
+		Assert.assertEquals(1, other.getAllDerivations().size());
+		other.release();
+		final CKYParserOutput<LogicalExpression> again = parser.parse(sentence,
+				dataItemModel);
+		Assert.assertEquals(expected,
+				again.getBestDerivations().get(0).getSemantics());
+		Assert.assertEquals(logNorm, again.logNorm(), 0.0);
+	}
+
+}
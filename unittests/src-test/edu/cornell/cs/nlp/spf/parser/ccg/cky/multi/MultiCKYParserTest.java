@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.cky.multi;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.IDerivation;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.CKYParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+
+public class MultiCKYParserTest {
+
+	private final Model<Sentence, LogicalExpression> model;
+
+	public MultiCKYParserTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+		this.model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(TestServices.createLexicon("texas :- NP : texas:s",
+						"ohio :- NP : ohio:s", "ohio :- NP : ohio_river:r",
+						"borders :- S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $1 $0)))",
+						"borders :- S\\NP/NP : (lambda $0:e (lambda $1:e (next_to:<lo,<lo,t>> $0 $1)))"))
+				.build();
+	}
+
+	private static Set<LogicalExpression> getSemantics(
+			CKYParserOutput<LogicalExpression> output) {
+		final Set<LogicalExpression> semantics = new HashSet<LogicalExpression>();
+		for (final IDerivation<LogicalExpression> derivation : output
+				.getAllDerivations()) {
+			semantics.add(derivation.getSemantics());
+		}
+		return semantics;
+	}
+
+	@Test
+	public void testPreChartPruning() {
+		final Sentence sentence = new Sentence("texas borders ohio");
+		final IDataItemModel<LogicalExpression> dataItemModel = model
+				.createDataItemModel(sentence);
+
+		final CKYParserOutput<LogicalExpression> expected = TestServices
+				.createCKYParser().parse(sentence, dataItemModel);
+		Assert.assertEquals(4, expected.getAllDerivations().size());
+
+		// With a large beam, pre-chart pruning doesn't prune, and the
+		// cells of all splits are merged into the chart.
+		final MultiCKYParser<Sentence, LogicalExpression> parser = createParser(
+				50);
+		try {
+			for (int i = 0; i < 10; ++i) {
+				final CKYParserOutput<LogicalExpression> output = parser
+						.parse(sentence, dataItemModel);
+				Assert.assertEquals(getSemantics(expected),
+						getSemantics(output));
+				Assert.assertTrue(output.isExact());
+				Assert.assertEquals(expected.logNorm(), output.logNorm(),
+						1e-10);
+			}
+		} finally {
+			parser.shutdown();
+		}
+
+		// With a beam of a single cell, the merge keeps at most a single
+		// non-lexical cell for each span and the pruning is recorded.
+		final MultiCKYParser<Sentence, LogicalExpression> pruningParser = createParser(
+				1);
+		try {
+			final CKYParserOutput<LogicalExpression> output = pruningParser
+					.parse(sentence, dataItemModel);
+			Assert.assertFalse(output.isExact());
+			Assert.assertTrue(output.getChart().spanSize(0, 2) <= 1);
+			Assert.assertTrue(output.getAllDerivations().size() <= 1);
+			Assert.assertTrue(getSemantics(expected)
+					.containsAll(getSemantics(output)));
+		} finally {
+			pruningParser.shutdown();
+		}
+	}
+
+	private MultiCKYParser<Sentence, LogicalExpression> createParser(
+			int beam) {
+		final MultiCKYParser.Builder<Sentence, LogicalExpression> builder = new MultiCKYParser.Builder<Sentence, LogicalExpression>(
+				TestServices.getCategoryServices());
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : TestServices
+				.createApplicationRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.setMaxNumberOfCellsInSpan(beam).setPreChartPruning(true)
+				.setNumThreads(4).build();
+	}
+
+}
@@ -16,18 +16,51 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.parser.ccg.factoredlex;
 
+import java.util.Collections;
+
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import edu.cornell.cs.nlp.spf.TestServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.factored.lambda.FactoredLexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.factored.lambda.FactoringServices;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.factored.lambda.LexicalTemplate;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
 
 public class FactoredLexiconTest {
 	
+	public FactoredLexiconTest() {
+		TestServices.init();
+		FactoringServices.set(new FactoringServices.Builder().build());
+	}
+	
+	@Test
+	public void testRetainAllAndCompact() {
+		final LexicalEntry<LogicalExpression> texas = LexicalEntry.read(
+				"texas :- NP : texas:s", TestServices.getCategoryServices(),
+				"test");
+		final LexicalEntry<LogicalExpression> state = LexicalEntry.read(
+				"state :- N : state:<s,t>", TestServices.getCategoryServices(),
+				"test");
+		final FactoredLexicon lexicon = new FactoredLexicon();
+		lexicon.add(texas);
+		lexicon.add(state);
+		Assert.assertEquals(2, lexicon.size());
+		
+		// Removes all the lexemes of a factoring signature.
+		Assert.assertTrue(lexicon.retainAll(Collections.singleton(texas)));
+		lexicon.compact();
+		Assert.assertEquals(1, lexicon.size());
+		Assert.assertTrue(lexicon.contains(texas));
+		Assert.assertFalse(lexicon.contains(state));
+		Assert.assertFalse(lexicon.get(state.getTokens()).hasNext());
+		
+		lexicon.add(state);
+		Assert.assertEquals(2, lexicon.size());
+	}
+	
 	@Ignore
 	@Test
 	public void test() {
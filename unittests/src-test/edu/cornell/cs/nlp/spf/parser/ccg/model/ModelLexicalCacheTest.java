@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.model;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.hashvector.IHashVector;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.scorer.UniformScorer;
+
+public class ModelLexicalCacheTest {
+
+	public ModelLexicalCacheTest() {
+		TestServices.init();
+	}
+
+	private static Model<Sentence, LogicalExpression> createModel(
+			int lexicalCacheSize) {
+		return new Model.Builder<Sentence, LogicalExpression>()
+				.addFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.setInitialScorer(
+										new UniformScorer<LexicalEntry<LogicalExpression>>(
+												-0.5))
+								.build())
+				.setLexicalCacheSize(lexicalCacheSize).build();
+	}
+
+	@Test
+	public void testAddEntries() {
+		// Before the entry is added, it's scored with the default feature.
+		// Adding the entry must invalidate its features.
+		final Model<Sentence, LogicalExpression> model = createModel(100);
+		final LexicalEntry<LogicalExpression> entry = TestServices
+				.readEntry("texas :- NP : texas:s");
+		final IHashVector defaultFeatures = model.computeFeatures(entry);
+		model.addLexEntry(entry);
+		final IHashVector features = model.computeFeatures(entry);
+		Assert.assertNotEquals(defaultFeatures, features);
+		Assert.assertEquals(createModel(0).computeFeatures(entry),
+				defaultFeatures);
+		Assert.assertEquals(2,
+				model.getLexicalEntryCache().getFeatureMisses());
+	}
+
+	@Test
+	public void testCachedScores() {
+		final Model<Sentence, LogicalExpression> model = createModel(100);
+		final LexicalEntry<LogicalExpression> entry = TestServices
+				.readEntry("texas :- NP : texas:s");
+		model.addLexEntry(entry);
+		final double score = model.score(entry);
+		Assert.assertEquals(-0.5, score, 0.0);
+		Assert.assertEquals(score, model.score(entry), 0.0);
+		Assert.assertEquals(1, model.getLexicalEntryCache().getScoreHits());
+
+		// Reading the parameters doesn't invalidate the scores.
+		final KeyArgs feature = model.computeFeatures(entry).iterator().next()
+				.first();
+		Assert.assertEquals(-0.5, model.getTheta().get(feature), 0.0);
+		Assert.assertEquals(score, model.score(entry), 0.0);
+		Assert.assertEquals(2, model.getLexicalEntryCache().getScoreHits());
+
+		// Updating the parameters invalidates the scores, but not the
+		// features.
+		final long featureMisses = model.getLexicalEntryCache()
+				.getFeatureMisses();
+		model.updateTheta(theta -> theta.add(feature, 1.0));
+		Assert.assertEquals(0.5, model.score(entry), 0.0);
+		Assert.assertEquals(featureMisses,
+				model.getLexicalEntryCache().getFeatureMisses());
+	}
+
+	@Test
+	public void testComputedFeatures() {
+		final Model<Sentence, LogicalExpression> model = createModel(100);
+		final LexicalEntry<LogicalExpression> entry = TestServices
+				.readEntry("texas :- NP : texas:s");
+		model.addLexEntry(entry);
+		final Model<Sentence, LogicalExpression> uncached = createModel(0);
+		uncached.addLexEntry(entry);
+		// The returned vector is a copy.
+		model.computeFeatures(entry).set("foo", 1.0);
+		Assert.assertEquals(0.0, model.computeFeatures(entry).get("foo"), 0.0);
+		Assert.assertEquals(model.computeFeatures(entry),
+				uncached.computeFeatures(entry));
+	}
+
+	@Test
+	public void testSeedLexicon() {
+		// Cached and uncached models give the same scores.
+		final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+		lexicon.addEntriesFromFile(new File("../geoquery/resources/seed.lex"),
+				TestServices.getCategoryServices(), "seed");
+		final Model<Sentence, LogicalExpression> cached = createModel(
+				LexicalEntryCache.DEFAULT_SIZE);
+		final Model<Sentence, LogicalExpression> uncached = createModel(0);
+		cached.addLexEntries(lexicon.toCollection());
+		uncached.addLexEntries(lexicon.toCollection());
+		for (int i = 0; i < 2; ++i) {
+			for (final LexicalEntry<LogicalExpression> entry : lexicon
+					.toCollection()) {
+				Assert.assertEquals(uncached.score(entry), cached.score(entry),
+						0.0);
+			}
+		}
+		Assert.assertEquals(lexicon.size(),
+				cached.getLexicalEntryCache().getScoreHits());
+		Assert.assertEquals(0, uncached.getLexicalEntryCache().getScoreHits());
+	}
+
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.base.hashvector.KeyArgs;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.features.basic.scorer.UniformScorer;
+
+public class ModelRetainLexEntriesTest {
+
+	public ModelRetainLexEntriesTest() {
+		TestServices.init();
+	}
+
+	private static Model<Sentence, LogicalExpression> createModel() {
+		return new Model.Builder<Sentence, LogicalExpression>()
+				.addFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.setInitialScorer(
+										new UniformScorer<LexicalEntry<LogicalExpression>>(
+												-0.5))
+								.build())
+				.build();
+	}
+
+	private static KeyArgs getFeature(Model<Sentence, LogicalExpression> model,
+			LexicalEntry<LogicalExpression> entry) {
+		return model.computeFeatures(entry).iterator().next().first();
+	}
+
+	@Test
+	public void testNothingRemoved() {
+		final Model<Sentence, LogicalExpression> model = createModel();
+		final LexicalEntry<LogicalExpression> entry = TestServices
+				.readEntry("texas :- NP : texas:s");
+		model.addLexEntry(entry);
+		final int thetaSize = model.getTheta().size();
+		Assert.assertFalse(
+				model.retainLexEntries(Collections.singletonList(entry)));
+		Assert.assertEquals(thetaSize, model.getTheta().size());
+	}
+
+	@Test
+	public void testRetainLexEntries() {
+		final Model<Sentence, LogicalExpression> model = createModel();
+		final LexicalEntry<LogicalExpression> texas = TestServices
+				.readEntry("texas :- NP : texas:s");
+		final LexicalEntry<LogicalExpression> ohio = TestServices
+				.readEntry("ohio :- NP : ohio:s");
+		final LexicalEntry<LogicalExpression> state = TestServices
+				.readEntry("state :- N : state:<s,t>");
+		model.addLexEntries(Arrays.asList(texas, ohio, state));
+		final KeyArgs ohioFeature = getFeature(model, ohio);
+		model.updateTheta(theta -> theta.set(ohioFeature, 2.0));
+		final KeyArgs texasFeature = getFeature(model, texas);
+		final KeyArgs stateFeature = getFeature(model, state);
+		Assert.assertTrue(model.getTheta().contains(texasFeature));
+
+		Assert.assertTrue(model.retainLexEntries(Arrays.asList(ohio)));
+		Assert.assertEquals(1, model.getLexicon().size());
+		Assert.assertTrue(model.getLexicon().contains(ohio));
+		Assert.assertFalse(model.getLexicon().contains(texas));
+		Assert.assertEquals(2.0, model.score(ohio), 0.0);
+
+		// The weights of the removed entries are dropped, but the default
+		// feature is kept.
+		Assert.assertFalse(model.getTheta().contains(texasFeature));
+		Assert.assertFalse(model.getTheta().contains(stateFeature));
+		Assert.assertEquals(1.0, model.getTheta().get("LEX", "DEFAULT"), 0.0);
+		Assert.assertEquals(2, model.getTheta().size());
+
+		// The lexicon can still be updated.
+		model.addLexEntry(texas);
+		Assert.assertEquals(2, model.getLexicon().size());
+		Assert.assertTrue(model.getLexicon().contains(texas));
+	}
+
+}
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.parser.ccg.normalform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.ILexicalParseStep;
+import edu.cornell.cs.nlp.spf.parser.ccg.normalform.eisner.EisnerConstraint;
+import edu.cornell.cs.nlp.spf.parser.ccg.normalform.hb.HBComposedConstraint;
+import edu.cornell.cs.nlp.spf.parser.ccg.normalform.unaryconstraint.UnaryConstraint;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.IArrayRuleNameSet;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.ITypeRaisingRule.TypeRaisingNameServices;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.RuleName.Direction;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.UnaryRuleName;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.application.AbstractApplication;
+import edu.cornell.cs.nlp.spf.parser.ccg.rules.primitivebinary.composition.AbstractComposition;
+
+public class NormalFormValidatorTest {
+
+	private static final RuleName		COORDINATION			= RuleName
+			.create("coord", null);
+
+	/**
+	 * Created (and assigned IDs) when the class is loaded, before
+	 * {@link #testNewRuleNames()} exhausts the mask capacity.
+	 */
+	private static final List<RuleName>	GENERATING_RULE_NAMES	= createGeneratingRuleNames();
+
+	public NormalFormValidatorTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	private static List<RuleName> createBinaryRuleNames() {
+		final List<RuleName> names = new ArrayList<RuleName>();
+		for (final Direction direction : Direction.values()) {
+			names.add(RuleName.create(AbstractApplication.RULE_LABEL,
+					direction));
+			for (int order = 0; order < 3; ++order) {
+				names.add(RuleName.create(AbstractComposition.RULE_LABEL,
+						direction, order));
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * All rule names that may generate a category.
+	 */
+	private static List<RuleName> createGeneratingRuleNames() {
+		final List<RuleName> names = new ArrayList<RuleName>();
+		final List<UnaryRuleName> unaryNames = createUnaryRuleNames();
+		names.add(ILexicalParseStep.LEXICAL_DERIVATION_STEP_RULENAME);
+		names.add(COORDINATION);
+		names.addAll(unaryNames);
+		for (final RuleName binaryName : createBinaryRuleNames()) {
+			names.add(binaryName);
+			for (final UnaryRuleName unaryName : unaryNames) {
+				names.add(binaryName.overload(unaryName));
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * All non-empty sets of up to two rule names.
+	 */
+	private static List<IArrayRuleNameSet> createSets(List<RuleName> names) {
+		final List<IArrayRuleNameSet> sets = new ArrayList<IArrayRuleNameSet>();
+		for (int i = 0; i < names.size(); ++i) {
+			sets.add(new ListRuleNameSet(names.get(i)));
+			for (int j = i + 1; j < names.size(); ++j) {
+				sets.add(new ListRuleNameSet(names.get(i), names.get(j)));
+			}
+		}
+		return sets;
+	}
+
+	private static List<UnaryRuleName> createUnaryRuleNames() {
+		final List<UnaryRuleName> names = new ArrayList<UnaryRuleName>();
+		for (final Direction direction : Direction.values()) {
+			names.add(TypeRaisingNameServices.createRuleName(direction));
+		}
+		return names;
+	}
+
+	private static boolean isValid(List<INormalFormConstraint> constraints,
+			IArrayRuleNameSet generatingRules, RuleName consideredRule) {
+		for (final INormalFormConstraint constraint : constraints) {
+			if (!constraint.isValid(generatingRules, consideredRule)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isValid(List<INormalFormConstraint> constraints,
+			IArrayRuleNameSet left, IArrayRuleNameSet right,
+			RuleName consideredRule) {
+		for (final INormalFormConstraint constraint : constraints) {
+			if (!constraint.isValid(left, right, consideredRule)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Test
+	public void testCompiledConstraints() {
+		// Compare the compiled validator to direct validation over all pairs
+		// of small generating rule sets.
+		final List<INormalFormConstraint> constraints = Arrays.asList(
+				new EisnerConstraint(),
+				new HBComposedConstraint(Collections.singleton(COORDINATION),
+						true),
+				new UnaryConstraint(Collections.singleton(COORDINATION)));
+		final NormalFormValidator.Builder builder = new NormalFormValidator.Builder();
+		for (final INormalFormConstraint constraint : constraints) {
+			builder.addConstraint(constraint);
+		}
+		final NormalFormValidator validator = builder.build();
+
+		for (final RuleName name : GENERATING_RULE_NAMES) {
+			Assert.assertNotEquals(RuleName.OVERFLOW_MASK_BIT,
+					name.getMaskBit());
+		}
+		final List<IArrayRuleNameSet> sets = createSets(GENERATING_RULE_NAMES);
+		int numInvalid = 0;
+		for (final RuleName consideredRule : createBinaryRuleNames()) {
+			for (final IArrayRuleNameSet left : sets) {
+				for (final IArrayRuleNameSet right : sets) {
+					final boolean expected = isValid(constraints, left, right,
+							consideredRule);
+					Assert.assertEquals(expected,
+							validator.isValid(left, right, consideredRule));
+					if (!expected) {
+						++numInvalid;
+					}
+				}
+			}
+		}
+		for (final RuleName consideredRule : createUnaryRuleNames()) {
+			for (final IArrayRuleNameSet generatingRules : sets) {
+				final boolean expected = isValid(constraints, generatingRules,
+						consideredRule);
+				Assert.assertEquals(expected,
+						validator.isValid(generatingRules, consideredRule));
+				if (!expected) {
+					++numInvalid;
+				}
+			}
+		}
+		Assert.assertTrue(numInvalid > 0);
+	}
+
+	@Test
+	public void testNewRuleNames() {
+		// Rule names that are assigned IDs after the tables are compiled, and
+		// names beyond the mask capacity.
+		final NormalFormValidator validator = new NormalFormValidator.Builder()
+				.addConstraint(new EisnerConstraint()).build();
+		final RuleName forwardApply = RuleName
+				.create(AbstractApplication.RULE_LABEL, Direction.FORWARD);
+		final IArrayRuleNameSet lexical = new ListRuleNameSet(
+				ILexicalParseStep.LEXICAL_DERIVATION_STEP_RULENAME);
+		Assert.assertTrue(validator.isValid(lexical, lexical, forwardApply));
+
+		final int limit = RuleName.getIdLimit();
+		for (int i = 0; i <= RuleName.NUM_MASK_IDS; ++i) {
+			final RuleName name = RuleName.create(
+					AbstractComposition.RULE_LABEL + "-" + limit + "-" + i,
+					Direction.FORWARD);
+			final IArrayRuleNameSet set = new ListRuleNameSet(name);
+			Assert.assertTrue(validator.isValid(set, lexical, forwardApply));
+			Assert.assertTrue(validator.isValid(lexical, set, forwardApply));
+		}
+
+		// A composition rule name that is assigned an ID after the mask
+		// capacity is exhausted.
+		final RuleName forwardComposition = RuleName.create(
+				AbstractComposition.RULE_LABEL, Direction.FORWARD, 4);
+		Assert.assertEquals(RuleName.OVERFLOW_MASK_BIT,
+				forwardComposition.getMaskBit());
+		Assert.assertFalse(validator.isValid(
+				new ListRuleNameSet(forwardComposition), lexical,
+				forwardApply));
+		Assert.assertTrue(validator.isValid(lexical,
+				new ListRuleNameSet(forwardComposition), forwardApply));
+	}
+
+	private static class ListRuleNameSet implements IArrayRuleNameSet {
+		private final RuleName[] ruleNames;
+
+		public ListRuleNameSet(RuleName... ruleNames) {
+			this.ruleNames = ruleNames;
+		}
+
+		@Override
+		public RuleName getRuleName(int index) {
+			return ruleNames[index];
+		}
+
+		@Override
+		public long getRuleNameMask() {
+			long mask = 0L;
+			for (final RuleName ruleName : ruleNames) {
+				mask |= ruleName.getMaskBit();
+			}
+			return mask;
+		}
+
+		@Override
+		public int numRuleNames() {
+			return ruleNames.length;
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.reliabledist;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * Runs {@link ReliableManager} with local workers (see
+ * {@link EnslavedLocalManager} and {@link LocalWorkerPool}), where one of the
+ * workers is much slower than the others.
+ *
+ * @author Yoav Artzi
+ */
+public class ReliableManagerTest {
+
+	private static final String	SLOW_WORKER		= "slow";
+	private static final int	SLOWDOWN		= 40;
+	private static final long	TIME_PER_COST	= 50;
+	private static final long	WAIT_TIMEOUT	= 30000;
+
+	/**
+	 * Manager and workers don't support a clean shutdown, so all their threads
+	 * are daemons. Threads they create inherit it.
+	 */
+	private static ThreadFactory daemonThreads(String name) {
+		final LoggingThreadFactory factory = new LoggingThreadFactory(name);
+		return runnable -> {
+			final Thread thread = factory.newThread(runnable);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void waitFor(BooleanSupplier condition)
+			throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+		while (!condition.getAsBoolean()) {
+			Assert.assertTrue("Timed out",
+					System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	@Test
+	public void testSpeculativeExecution() throws Exception {
+		final int port = freePort();
+		final ReliableManager manager = new ReliableManager.Builder(
+				daemonThreads("master")).setPort(port)
+						.setPingFrequency(2000).setTimeout(10000)
+						.setSpeculationFactor(2.0).build();
+		manager.start();
+
+		// Two fast workers and a slow one, each with a single thread. The
+		// slowdown is detected by the job using the worker thread name.
+		final List<EnslavedLocalManager> workers = new ArrayList<EnslavedLocalManager>();
+		for (final String name : new String[] { "fast1", "fast2",
+				SLOW_WORKER }) {
+			final EnslavedLocalManager worker = new EnslavedLocalManager(
+					"localhost", port, 1, daemonThreads(name), name, null);
+			daemonThreads(name + "-manager").newThread(worker).start();
+			workers.add(worker);
+		}
+
+		try {
+			waitFor(() -> manager.numManagers() == 3);
+			Assert.assertTrue(manager.setupEnviroment(new TestEnvironment()));
+
+			// Each worker gets one of the tasks. The fast workers complete
+			// theirs, and one of them re-executes the task of the slow worker.
+			final List<JobFuture<String>> futures = new ArrayList<JobFuture<String>>();
+			for (int i = 0; i < 3; ++i) {
+				futures.add(manager.execute(new NamedSleepJob(), 1.0));
+			}
+			final long start = System.currentTimeMillis();
+			for (final JobFuture<String> future : futures) {
+				Assert.assertFalse(future.get().startsWith(SLOW_WORKER));
+			}
+			Assert.assertTrue(System.currentTimeMillis()
+					- start < TIME_PER_COST * SLOWDOWN);
+			Assert.assertTrue(manager.getSummary().getSpeculatedTasks() > 0);
+			Assert.assertEquals(0, manager.getRemainingOutstandingTasks());
+
+			// Wait for the slow copy to return. Its result is ignored.
+			waitFor(() -> {
+				for (final WorkerSummary worker : manager.getSummary()
+						.getWorkers()) {
+					if (worker.getCompleted() != worker.getAccepted()) {
+						return false;
+					}
+				}
+				return true;
+			});
+			final ManagerSummary summary = manager.getSummary();
+			int accepted = 0;
+			for (final WorkerSummary worker : summary.getWorkers()) {
+				accepted += worker.getAccepted();
+				if (worker.getName().equals(SLOW_WORKER)) {
+					Assert.assertEquals(1, worker.getCompleted());
+				}
+			}
+			Assert.assertEquals(3 + summary.getSpeculatedTasks(), accepted);
+			Assert.assertEquals(3, summary.getCompletedTasks());
+			Assert.assertEquals(0, manager.getRemainingOutstandingTasks());
+			for (final JobFuture<String> future : futures) {
+				Assert.assertFalse(future.get().startsWith(SLOW_WORKER));
+			}
+		} finally {
+			manager.shutdown();
+			for (final EnslavedLocalManager worker : workers) {
+				worker.terminate();
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of the executing thread. Slowed down on the slow
+	 * worker.
+	 */
+	public static class NamedSleepJob
+			implements Function<TestEnvironment, String>, Serializable {
+
+		private static final long serialVersionUID = -6022305232463311513L;
+
+		@Override
+		public String apply(TestEnvironment env) {
+			final String name = Thread.currentThread().getName();
+			try {
+				Thread.sleep(TIME_PER_COST
+						* (name.startsWith(SLOW_WORKER) ? SLOWDOWN : 1));
+			} catch (final InterruptedException e) {
+				// Ignore.
+			}
+			return name;
+		}
+
+	}
+
+	public static class TestEnvironment extends AbstractEnvironment {
+
+		private static final long serialVersionUID = 6911282447357811014L;
+
+		@Override
+		protected void applyUpdate(EnvironmentConfig<?> update) {
+			// Nothing to update.
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.data.singlesentence.SingleSentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.test.stats.ITestingStatistics;
+import edu.cornell.cs.nlp.utils.log.BufferingLog;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LogLevel;
+import edu.cornell.cs.nlp.utils.log.Logger;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThread;
+
+public class ParallelTestingServicesTest {
+
+	private static final ILogger	LOG			= new Logger(
+			ParallelTestingServicesTest.class.getSimpleName(), LogLevel.INFO);
+
+	private static final int		NUM_ITEMS	= 40;
+
+	public ParallelTestingServicesTest() {
+		// Make sure test services is initialized
+		TestServices.init();
+	}
+
+	private static List<SingleSentence> createDataset() {
+		final List<SingleSentence> dataset = new ArrayList<SingleSentence>();
+		for (int i = 0; i < NUM_ITEMS; ++i) {
+			dataset.add(new SingleSentence(new Sentence("item " + i),
+					LogicalConstant.read("boston:c")));
+		}
+		return dataset;
+	}
+
+	/**
+	 * Records the label of correct parses, and failures for all other items.
+	 * Items with more parsing "work" finish first, so workers complete out of
+	 * order.
+	 */
+	private static void testItem(int itemCounter, SingleSentence dataItem,
+			ITestingStatistics<Sentence, LogicalExpression, SingleSentence> stats) {
+		LOG.info("%d : start", itemCounter);
+		try {
+			Thread.sleep((NUM_ITEMS - itemCounter) % 7);
+		} catch (final InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+		if (itemCounter % 3 == 0) {
+			stats.recordNoParse(dataItem);
+		} else {
+			stats.recordParse(dataItem, dataItem.getLabel());
+		}
+		LOG.info("%d : end", itemCounter);
+	}
+
+	@Test
+	public void testException() {
+		try {
+			ParallelTestingServices.test(createDataset(), 4,
+					new OrderStatistics(), (itemCounter, dataItem, stats) -> {
+						if (itemCounter == 5) {
+							throw new IllegalStateException("item 5");
+						}
+					});
+			Assert.fail("Expected exception");
+		} catch (final IllegalStateException e) {
+			Assert.assertEquals("item 5", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLogGrouping() throws InterruptedException {
+		final BufferingLog log = new BufferingLog(
+				new PrintStream(new ByteArrayOutputStream()));
+		final LoggingThread thread = new LoggingThread(null,
+				() -> ParallelTestingServices.test(createDataset(), 4,
+						new OrderStatistics(),
+						ParallelTestingServicesTest::testItem),
+				"main-test", 0);
+		thread.setLog(log);
+		thread.start();
+		thread.join();
+
+		// The log of each item is written together, in the order of the
+		// dataset.
+		final List<String> lines = new ArrayList<String>();
+		for (final String line : log.getBuffer().split("\n")) {
+			final int index = line.indexOf(" :: ");
+			if (index >= 0) {
+				lines.add(line.substring(index + 4));
+			}
+		}
+		Assert.assertEquals(2 * NUM_ITEMS, lines.size());
+		for (int i = 0; i < NUM_ITEMS; ++i) {
+			Assert.assertEquals((i + 1) + " : start",
+					lines.get(2 * i));
+			Assert.assertEquals((i + 1) + " : end",
+					lines.get(2 * i + 1));
+		}
+	}
+
+	@Test
+	public void testParallelStatistics() {
+		final OrderStatistics sequential = new OrderStatistics();
+		ParallelTestingServices.test(createDataset(), 1, sequential,
+				ParallelTestingServicesTest::testItem);
+		final OrderStatistics parallel = new OrderStatistics();
+		ParallelTestingServices.test(createDataset(), 4, parallel,
+				ParallelTestingServicesTest::testItem);
+		Assert.assertEquals(NUM_ITEMS, sequential.records.size());
+		Assert.assertEquals(sequential.records, parallel.records);
+		Assert.assertEquals(Collections.singletonList(Thread.currentThread()),
+				parallel.threads);
+	}
+
+	/**
+	 * Records the order of calls, and the threads making them. Not thread
+	 * safe.
+	 */
+	private static class OrderStatistics implements
+			ITestingStatistics<Sentence, LogicalExpression, SingleSentence> {
+
+		private final List<String>	records	= new ArrayList<String>();
+		private final List<Thread>	threads	= new ArrayList<Thread>();
+
+		@Override
+		public void recordNoParse(SingleSentence dataItem) {
+			record("no parse", dataItem);
+		}
+
+		@Override
+		public void recordNoParseWithSkipping(SingleSentence dataItem) {
+			record("no parse with skipping", dataItem);
+		}
+
+		@Override
+		public void recordParse(SingleSentence dataItem,
+				LogicalExpression candidate) {
+			record("parse " + candidate, dataItem);
+		}
+
+		@Override
+		public void recordParses(SingleSentence dataItem,
+				List<LogicalExpression> candidates) {
+			record("parses " + candidates, dataItem);
+		}
+
+		@Override
+		public void recordParsesWithSkipping(SingleSentence dataItem,
+				List<LogicalExpression> candidates) {
+			record("parses with skipping " + candidates, dataItem);
+		}
+
+		@Override
+		public void recordParseWithSkipping(SingleSentence dataItem,
+				LogicalExpression candidate) {
+			record("parse with skipping " + candidate, dataItem);
+		}
+
+		@Override
+		public String toTabDelimitedString() {
+			return toString();
+		}
+
+		private void record(String record, SingleSentence dataItem) {
+			records.add(dataItem.getSample() + " :: " + record);
+			if (!threads.contains(Thread.currentThread())) {
+				threads.add(Thread.currentThread());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.utils.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.cornell.cs.nlp.spf.TestServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.Category;
+import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexiconImmutable;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.IDerivation;
+import edu.cornell.cs.nlp.spf.parser.IParser;
+import edu.cornell.cs.nlp.spf.parser.IParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ParsingOp;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IDataItemModel;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.utils.filter.IFilter;
+
+public class ParsingServiceTest {
+
+	public ParsingServiceTest() {
+		TestServices.init();
+	}
+
+	private static ParsingService<LogicalExpression> createService(
+			IParser<Sentence, LogicalExpression> parser, int batchSize,
+			long batchTimeout) {
+		return new ParsingService.Builder<LogicalExpression>(parser,
+				new Model.Builder<Sentence, LogicalExpression>().build())
+						.setBatchSize(batchSize).setBatchTimeout(batchTimeout)
+						.setNumThreads(2).build();
+	}
+
+	@Test
+	public void testBatchDeduplication() throws Exception {
+		// The batch is closed when full, long before the timeout.
+		final CountingParser parser = new CountingParser();
+		final ParsingService<LogicalExpression> service = createService(parser,
+				4, 60000);
+		final List<CompletableFuture<ParsingService.ParseResult<LogicalExpression>>> futures = new ArrayList<CompletableFuture<ParsingService.ParseResult<LogicalExpression>>>();
+		for (final String sentence : new String[] { "show me texas",
+				"show me ohio", "show me texas", "show me texas" }) {
+			futures.add(service.parse(sentence));
+		}
+		for (final CompletableFuture<ParsingService.ParseResult<LogicalExpression>> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		Assert.assertEquals("show me ohio",
+				futures.get(1).get().getSentence());
+		Assert.assertSame(futures.get(0).get(), futures.get(2).get());
+		Assert.assertEquals(2, parser.total.get());
+		Assert.assertEquals(1, parser.getCount("show me texas"));
+		service.shutdown();
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		final CountingParser parser = new CountingParser();
+		final ParsingService<LogicalExpression> service = createService(parser,
+				8, 1);
+		final ParsingService.ParseResult<LogicalExpression> result = service
+				.parse("show me texas").get(10, TimeUnit.SECONDS);
+		final CompletableFuture<ParsingService.ParseResult<LogicalExpression>> cached = service
+				.parse("show me texas");
+		Assert.assertTrue(cached.isDone());
+		Assert.assertSame(result, cached.get());
+		Assert.assertEquals(1, parser.total.get());
+		service.shutdown();
+	}
+
+	@Test
+	public void testConcurrentBatch() throws Exception {
+		// The distinct sentences of a batch are parsed concurrently. Each
+		// parse blocks until the other one started.
+		final CountDownLatch started = new CountDownLatch(2);
+		final IParser<Sentence, LogicalExpression> parser = new IParser<Sentence, LogicalExpression>() {
+			private static final long serialVersionUID = -3183734563217620135L;
+
+			@Override
+			public IParserOutput<LogicalExpression> parse(Sentence dataItem,
+					Predicate<ParsingOp<LogicalExpression>> filter,
+					IDataItemModel<LogicalExpression> model,
+					boolean allowWordSkipping,
+					ILexiconImmutable<LogicalExpression> tempLexicon,
+					Integer beamSize) {
+				started.countDown();
+				try {
+					if (!started.await(10, TimeUnit.SECONDS)) {
+						throw new IllegalStateException(
+								"Sentences parsed sequentially");
+					}
+				} catch (final InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				return new EmptyOutput();
+			}
+		};
+		final ParsingService<LogicalExpression> service = createService(parser,
+				2, 60000);
+		final CompletableFuture<ParsingService.ParseResult<LogicalExpression>> texas = service
+				.parse("show me texas");
+		final CompletableFuture<ParsingService.ParseResult<LogicalExpression>> ohio = service
+				.parse("show me ohio");
+		Assert.assertEquals("show me texas",
+				texas.get(20, TimeUnit.SECONDS).getSentence());
+		Assert.assertEquals("show me ohio",
+				ohio.get(20, TimeUnit.SECONDS).getSentence());
+		service.shutdown();
+	}
+
+	@Test
+	public void testException() throws Exception {
+		final CountingParser parser = new CountingParser();
+		final ParsingService<LogicalExpression> service = createService(parser,
+				8, 1);
+		try {
+			service.parse("fail").get(10, TimeUnit.SECONDS);
+			Assert.fail("Expected an exception");
+		} catch (final ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		// Failures are not cached, and don't affect other requests.
+		Assert.assertEquals("show me texas", service.parse("show me texas")
+				.get(10, TimeUnit.SECONDS).getSentence());
+		try {
+			service.parse("fail").get(10, TimeUnit.SECONDS);
+			Assert.fail("Expected an exception");
+		} catch (final ExecutionException e) {
+			// Expected.
+		}
+		Assert.assertEquals(2, parser.getCount("fail"));
+		service.shutdown();
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		// The request waits for the batch to fill, until the service is shut
+		// down.
+		final CountingParser parser = new CountingParser();
+		final ParsingService<LogicalExpression> service = createService(parser,
+				8, 60000);
+		final CompletableFuture<ParsingService.ParseResult<LogicalExpression>> pending = service
+				.parse("show me texas");
+		service.shutdown();
+		try {
+			pending.get(10, TimeUnit.SECONDS);
+			Assert.fail("Expected an exception");
+		} catch (final ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		Assert.assertTrue(service.parse("show me ohio").isCompletedExceptionally());
+		Assert.assertEquals(0, parser.total.get());
+	}
+
+	/**
+	 * Counts the parsed sentences. Fails on the sentence 'fail'.
+	 */
+	private static class CountingParser
+			implements IParser<Sentence, LogicalExpression> {
+
+		private static final long			serialVersionUID	= 2913622364154283587L;
+
+		private final Map<String, Integer>	counts				= new ConcurrentHashMap<String, Integer>();
+		private final AtomicInteger			total				= new AtomicInteger();
+
+		public int getCount(String sentence) {
+			return counts.getOrDefault(sentence, 0);
+		}
+
+		@Override
+		public IParserOutput<LogicalExpression> parse(Sentence dataItem,
+				Predicate<ParsingOp<LogicalExpression>> filter,
+				IDataItemModel<LogicalExpression> model,
+				boolean allowWordSkipping,
+				ILexiconImmutable<LogicalExpression> tempLexicon,
+				Integer beamSize) {
+			total.incrementAndGet();
+			counts.merge(dataItem.getString(), 1, Integer::sum);
+			if ("fail".equals(dataItem.getString())) {
+				throw new IllegalStateException("Failed to parse");
+			}
+			return new EmptyOutput();
+		}
+
+	}
+
+	private static class EmptyOutput
+			implements IParserOutput<LogicalExpression> {
+
+		@Override
+		public List<? extends IDerivation<LogicalExpression>> getAllDerivations() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<? extends IDerivation<LogicalExpression>> getBestDerivations() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<? extends IDerivation<LogicalExpression>> getDerivations(
+				IFilter<Category<LogicalExpression>> filter) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<? extends IDerivation<LogicalExpression>> getMaxDerivations(
+				IFilter<Category<LogicalExpression>> filter) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public long getParsingTime() {
+			return 0;
+		}
+
+		@Override
+		public boolean isExact() {
+			return true;
+		}
+
+	}
+
+}
@@ -16,8 +16,11 @@
  *******************************************************************************/
 package edu.cornell.cs.nlp.spf.utils.main;
 
+import edu.cornell.cs.nlp.spf.base.trace.TraceRenderer;
 import edu.cornell.cs.nlp.spf.geoquery.GeoMain;
 import edu.cornell.cs.nlp.spf.utils.parse.ParseUtil;
+import edu.cornell.cs.nlp.spf.utils.server.ParsingLoadTest;
+import edu.cornell.cs.nlp.spf.utils.server.ParsingServer;
 
 /**
  * Main entry point to the jar.
@@ -30,13 +33,25 @@ public class Main {
 		// Service class. No ctor.
 	}
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws Exception {
 		if (args.length == 0) {
 			usage();
 		} else if ("parse".equals(args[0])) {
 			final String[] parseArgs = new String[args.length - 1];
 			System.arraycopy(args, 1, parseArgs, 0, parseArgs.length);
 			ParseUtil.main(parseArgs);
+		} else if ("server".equals(args[0])) {
+			final String[] serverArgs = new String[args.length - 1];
+			System.arraycopy(args, 1, serverArgs, 0, serverArgs.length);
+			ParsingServer.main(serverArgs);
+		} else if ("loadtest".equals(args[0])) {
+			final String[] loadTestArgs = new String[args.length - 1];
+			System.arraycopy(args, 1, loadTestArgs, 0, loadTestArgs.length);
+			ParsingLoadTest.main(loadTestArgs);
+		} else if ("trace".equals(args[0])) {
+			final String[] traceArgs = new String[args.length - 1];
+			System.arraycopy(args, 1, traceArgs, 0, traceArgs.length);
+			TraceRenderer.main(traceArgs);
 		} else if (args.length == 1) {
 			GeoMain.main(args);
 		}
@@ -47,6 +62,15 @@ public class Main {
 		System.out.println("... parse <exp_file> <data_1> <data_2> ... ");
 		System.out
 				.println("\tParse util. exp_file contains defintions and parser setup.");
+		System.out.println("... server <exp_file>");
+		System.out.println(
+				"\tParsing server. exp_file contains definitions, parser and model setup.");
+		System.out.println(
+				"... loadtest <url> <sentences_file> [clients] [requests] [warmup]");
+		System.out.println("\tLoad test client for the parsing server.");
+		System.out.println("... trace <trace_file> [output_file]");
+		System.out.println(
+				"\tRender a trace file (set with the global 'trace' parameter) as log lines.");
 		System.out.println("... <geoquery_exp_file>");
 		System.out.println("\tGeoQuery example experiment.");
 	}
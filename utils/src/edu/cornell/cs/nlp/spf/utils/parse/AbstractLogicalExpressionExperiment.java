@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.utils.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
+import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax.SimpleSyntax;
+import edu.cornell.cs.nlp.spf.explat.DistributedExperiment;
+import edu.cornell.cs.nlp.spf.explat.resources.ResourceCreatorRepository;
+import edu.cornell.cs.nlp.spf.mr.lambda.FlexibleTypeComparator;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionReader;
+import edu.cornell.cs.nlp.spf.mr.lambda.SkolemId;
+import edu.cornell.cs.nlp.spf.mr.lambda.SkolemServices;
+import edu.cornell.cs.nlp.spf.mr.lambda.ccg.LogicalExpressionCategoryServices;
+import edu.cornell.cs.nlp.spf.mr.language.type.TypeRepository;
+
+/**
+ * Base class for utilities that parse with logical expressions and read their
+ * parser from an explat file (e.g., {@link ParseUtil}). Initializes the
+ * logical language from the global parameters: types, ont, closeOnt,
+ * numeral, skolemType, idPlaceholder and syntax.
+ *
+ * @author Yoav Artzi
+ */
+public abstract class AbstractLogicalExpressionExperiment
+		extends DistributedExperiment {
+
+	public AbstractLogicalExpressionExperiment(File expFile,
+			Map<String, String> envParams,
+			ResourceCreatorRepository creatorRepo) throws IOException {
+		super(expFile, envParams, creatorRepo);
+	}
+
+	/**
+	 * Initializes the lambda calculus system, the skolem services and the
+	 * custom syntactic categories, and stores the ontology and the category
+	 * services as resources.
+	 *
+	 * @return Category services for logical expressions.
+	 */
+	protected ICategoryServices<LogicalExpression> initLogicalLanguage() {
+
+		// //////////////////////////////////////////
+		// Init lambda calculus system.
+		// //////////////////////////////////////////
+
+		try {
+			// Get types files, if defined.
+			final LogicLanguageServices.Builder builder = new LogicLanguageServices.Builder(
+					globalParams.contains("types")
+							? new TypeRepository(
+									globalParams.getAsFile("types"))
+							: new TypeRepository(),
+					new FlexibleTypeComparator()).setUseOntology(true);
+
+			// Get constants ontology files, if defined.
+			if (globalParams.contains("ont")) {
+				builder.addConstantsToOntology(globalParams.getAsFiles("ont"));
+			}
+
+			// Close or open ontology.
+			builder.closeOntology(globalParams.getAsBoolean("closeOnt"));
+
+			// Get number type, if not defined, use default: i.
+			builder.setNumeralTypeName(globalParams.get("numeral", "i"));
+
+			// Build.
+			LogicLanguageServices.setInstance(builder.build());
+
+			// Store ontology.
+			storeResource(ONTOLOGY_RESOURCE,
+					LogicLanguageServices.getOntology());
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		// //////////////////////////////////////////
+		// Skolem services.
+		// //////////////////////////////////////////
+
+		if (globalParams.contains("skolemType")) {
+			SkolemServices
+					.setInstance(
+							new SkolemServices.Builder(
+									LogicLanguageServices.getTypeRepository()
+											.getType(globalParams
+													.get("skolemType")),
+							LogicalConstant
+									.read(globalParams.get("idPlaceholder")))
+											.build());
+			LogicalExpressionReader.register(new SkolemId.Reader());
+		}
+
+		// //////////////////////////////////////////////////
+		// Register custom primitive syntactic categories.
+		// //////////////////////////////////////////////////
+
+		if (globalParams.contains("syntax")) {
+			for (final String syntaxLabel : globalParams.getSplit("syntax")) {
+				Syntax.register(new SimpleSyntax(syntaxLabel));
+			}
+		}
+
+		// //////////////////////////////////////////////////
+		// Category services for logical expressions.
+		// //////////////////////////////////////////////////
+
+		final ICategoryServices<LogicalExpression> categoryServices = new LogicalExpressionCategoryServices(
+				true);
+		storeResource(CATEGORY_SERVICES_RESOURCE, categoryServices);
+		return categoryServices;
+	}
+
+}
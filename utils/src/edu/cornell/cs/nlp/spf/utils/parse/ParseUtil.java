@@ -29,31 +29,21 @@ import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory;
 import edu.cornell.cs.nlp.spf.base.hashvector.HashVectorFactory.Type;
 import edu.cornell.cs.nlp.spf.ccg.categories.Category;
 import edu.cornell.cs.nlp.spf.ccg.categories.ICategoryServices;
-import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax;
-import edu.cornell.cs.nlp.spf.ccg.categories.syntax.Syntax.SimpleSyntax;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.ILexicon;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.LexicalEntry;
 import edu.cornell.cs.nlp.spf.ccg.lexicon.Lexicon;
 import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
 import edu.cornell.cs.nlp.spf.data.singlesentence.lex.SingleSentenceLex;
 import edu.cornell.cs.nlp.spf.data.singlesentence.lex.SingleSentenceLexDataset;
-import edu.cornell.cs.nlp.spf.explat.DistributedExperiment;
 import edu.cornell.cs.nlp.spf.explat.resources.ResourceCreatorRepository;
-import edu.cornell.cs.nlp.spf.mr.lambda.FlexibleTypeComparator;
 import edu.cornell.cs.nlp.spf.mr.lambda.ILogicalExpressionComparator;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicLanguageServices;
-import edu.cornell.cs.nlp.spf.mr.lambda.LogicalConstant;
 import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
-import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpressionReader;
-import edu.cornell.cs.nlp.spf.mr.lambda.SkolemId;
-import edu.cornell.cs.nlp.spf.mr.lambda.SkolemServices;
-import edu.cornell.cs.nlp.spf.mr.lambda.ccg.LogicalExpressionCategoryServices;
 import edu.cornell.cs.nlp.spf.mr.lambda.ccg.SimpleFullParseFilter;
 import edu.cornell.cs.nlp.spf.mr.lambda.comparators.SkolemIdInsensitiveComparator;
 import edu.cornell.cs.nlp.spf.mr.lambda.comparators.StructureOnlyComaprator;
 import edu.cornell.cs.nlp.spf.mr.lambda.printers.ILogicalExpressionPrinter;
 import edu.cornell.cs.nlp.spf.mr.lambda.printers.LogicalExpressionToIndentedString;
-import edu.cornell.cs.nlp.spf.mr.language.type.TypeRepository;
 import edu.cornell.cs.nlp.spf.parser.IDerivation;
 import edu.cornell.cs.nlp.spf.parser.IParser;
 import edu.cornell.cs.nlp.spf.parser.IParserOutput;
@@ -88,7 +78,7 @@ import edu.cornell.cs.nlp.utils.log.Logger;
  *
  * @author Yoav Artzi
  */
-public class ParseUtil extends DistributedExperiment {
+public class ParseUtil extends AbstractLogicalExpressionExperiment {
 
 	private final ICategoryServices<LogicalExpression>	categoryServices;
 	private final ILogicalExpressionComparator			comparator;
@@ -123,92 +113,16 @@ public class ParseUtil extends DistributedExperiment {
 		HashVectorFactory.DEFAULT = Type.TREE;
 
 		// //////////////////////////////////////////
-		// Init lambda calculus system.
+		// Init lambda calculus system and category services.
 		// //////////////////////////////////////////
 
-		try {
-			// Get types files, if defined.
-			final LogicLanguageServices.Builder builder = new LogicLanguageServices.Builder(
-					globalParams.contains("types")
-							? new TypeRepository(
-									globalParams.getAsFile("types"))
-							: new TypeRepository(),
-					new FlexibleTypeComparator()).setUseOntology(true);
-
-			// Get constants ontology files, if defined.
-			if (globalParams.contains("ont")) {
-				builder.addConstantsToOntology(globalParams.getAsFiles("ont"));
-			}
-
-			// Close or open ontology.
-			builder.closeOntology(globalParams.getAsBoolean("closeOnt"));
-
-			// Get number type, if not defined, use default: i.
-			if (globalParams.contains("numeral")) {
-				builder.setNumeralTypeName(globalParams.get("numeral"));
-			} else {
-				builder.setNumeralTypeName("i");
-			}
-
-			// Build.
-			LogicLanguageServices.setInstance(builder.build());
-
-			// Store ontology.
-			storeResource(ONTOLOGY_RESOURCE,
-					LogicLanguageServices.getOntology());
-		} catch (final IOException e) {
-			throw new RuntimeException(e);
-		}
-
-		// //////////////////////////////////////////
-		// Skolem services.
-		// //////////////////////////////////////////
-
-		if (globalParams.contains("skolemType")) {
-			SkolemServices
-					.setInstance(
-							new SkolemServices.Builder(
-									LogicLanguageServices.getTypeRepository()
-											.getType(globalParams
-													.get("skolemType")),
-							LogicalConstant
-									.read(globalParams.get("idPlaceholder")))
-											.build());
-			LogicalExpressionReader.register(new SkolemId.Reader());
-		}
-
-		// //////////////////////////////////////////////////
-		// Register custom primitive syntactic categories.
-		// //////////////////////////////////////////////////
-
-		if (globalParams.contains("syntax")) {
-			for (final String syntaxLabel : globalParams.getSplit("syntax")) {
-				Syntax.register(new SimpleSyntax(syntaxLabel));
-			}
-		}
-
-		// //////////////////////////////////////////////////
-		// Category services for logical expressions.
-		// //////////////////////////////////////////////////
-
-		this.categoryServices = new LogicalExpressionCategoryServices(true);
-		storeResource(CATEGORY_SERVICES_RESOURCE, categoryServices);
+		this.categoryServices = initLogicalLanguage();
 
 		// //////////////////////////////////////////////////
 		// Read resources.
 		// //////////////////////////////////////////////////
 
-		for (final Parameters params : resourceParams) {
-			final String type = params.get("type");
-			final String id = params.get("id");
-			if (getCreator(type) == null) {
-				throw new IllegalArgumentException(
-						"Invalid resource type: " + type);
-			} else {
-				storeResource(id, getCreator(type).create(params, this));
-			}
-			LOG.info("Created resources %s of type %s", id, type);
-		}
+		readResrouces();
 
 		// //////////////////////////////////////////////////
 		// Get comparator for parse result.
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.utils.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test client for {@link ParsingServer}. Runs concurrent clients, each
+ * sending parse requests for sentences from a file (one sentence per line,
+ * assigned round-robin), and reports the throughput and the latency
+ * distribution. Warm up requests are sent before measuring to let the JIT
+ * compiler kick in on the server.
+ *
+ * @author Yoav Artzi
+ */
+public class ParsingLoadTest {
+
+	private ParsingLoadTest() {
+		// Usage only through main.
+	}
+
+	public static void main(String[] args) throws IOException,
+			InterruptedException, ExecutionException {
+		if (args.length < 2 || args.length > 5) {
+			usage();
+			return;
+		}
+
+		final URL url = new URL(args[0]);
+		final List<String> sentences = new ArrayList<String>();
+		for (final String line : Files.readAllLines(new File(args[1]).toPath(),
+				StandardCharsets.UTF_8)) {
+			if (!line.trim().isEmpty()) {
+				sentences.add(line.trim());
+			}
+		}
+		if (sentences.isEmpty()) {
+			throw new IllegalArgumentException("No sentences in " + args[1]);
+		}
+		final int numClients = args.length > 2 ? Integer.valueOf(args[2]) : 1;
+		final int numRequests = args.length > 3 ? Integer.valueOf(args[3])
+				: sentences.size();
+		final int numWarmup = args.length > 4 ? Integer.valueOf(args[4]) : 0;
+
+		// Warm up.
+		for (int i = 0; i < numWarmup; ++i) {
+			send(url, sentences.get(i % sentences.size()));
+		}
+
+		// Measure.
+		final AtomicInteger counter = new AtomicInteger();
+		final AtomicInteger errors = new AtomicInteger();
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(numClients);
+		final List<Future<List<Long>>> futures = new ArrayList<Future<List<Long>>>(
+				numClients);
+		final long start = System.nanoTime();
+		for (int i = 0; i < numClients; ++i) {
+			futures.add(executor.submit(() -> {
+				final List<Long> latencies = new ArrayList<Long>();
+				int request;
+				while ((request = counter.getAndIncrement()) < numRequests) {
+					final long requestStart = System.nanoTime();
+					try {
+						if (send(url, sentences
+								.get(request % sentences.size())) != 200) {
+							errors.incrementAndGet();
+						}
+					} catch (final IOException e) {
+						errors.incrementAndGet();
+					}
+					latencies.add(System.nanoTime() - requestStart);
+				}
+				return latencies;
+			}));
+		}
+		final List<Long> latencies = new ArrayList<Long>(numRequests);
+		for (final Future<List<Long>> future : futures) {
+			latencies.addAll(future.get());
+		}
+		final long total = System.nanoTime() - start;
+		executor.shutdown();
+
+		// Report.
+		final long[] sorted = new long[latencies.size()];
+		long sum = 0;
+		for (int i = 0; i < sorted.length; ++i) {
+			sorted[i] = latencies.get(i);
+			sum += sorted[i];
+		}
+		Arrays.sort(sorted);
+		System.out.println(String.format(
+				"Requests: %d (%d errors), clients: %d, warm up: %d",
+				sorted.length, errors.get(), numClients, numWarmup));
+		System.out.println(String.format("Throughput: %.2f requests/sec",
+				sorted.length / (total / 1e9)));
+		System.out.println(String.format(
+				"Latency (ms): mean=%.2f p50=%.2f p90=%.2f p95=%.2f p99=%.2f max=%.2f",
+				sorted.length == 0 ? 0.0 : sum / 1e6 / sorted.length,
+				percentile(sorted, 0.5), percentile(sorted, 0.9),
+				percentile(sorted, 0.95), percentile(sorted, 0.99),
+				percentile(sorted, 1.0)));
+	}
+
+	/**
+	 * @return The given percentile (nearest rank) of the sorted nano second
+	 *         values, in milliseconds.
+	 */
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		final int rank = (int) Math.ceil(p * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1e6;
+	}
+
+	private static int send(URL url, String sentence) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type",
+					"text/plain; charset=utf-8");
+			try (final OutputStream out = connection.getOutputStream()) {
+				out.write(sentence.getBytes(StandardCharsets.UTF_8));
+			}
+			final int code = connection.getResponseCode();
+			// Consume the response, so the connection can be re-used.
+			try (final InputStream in = code == 200
+					? connection.getInputStream()
+					: connection.getErrorStream()) {
+				if (in != null) {
+					final ByteArrayOutputStream body = new ByteArrayOutputStream();
+					final byte[] buffer = new byte[4096];
+					int len;
+					while ((len = in.read(buffer)) > 0) {
+						body.write(buffer, 0, len);
+					}
+				}
+			}
+			return code;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static void usage() {
+		System.out.println(String.format(
+				"Usage: ... %s <url> <sentences_file> [clients] [requests] [warmup]",
+				ParsingLoadTest.class.getSimpleName()));
+		System.out.println(
+				"\t<url>\tParsing server URL, e.g., http://localhost:8765/parse");
+		System.out.println(
+				"\t<sentences_file>\tFile with a sentence in each line");
+		System.out.println(
+				"\t[clients]\tNumber of concurrent clients (default: 1)");
+		System.out.println(
+				"\t[requests]\tNumber of measured requests (default: number of sentences)");
+		System.out.println(
+				"\t[warmup]\tNumber of sequential warm up requests (default: 0)");
+	}
+
+}
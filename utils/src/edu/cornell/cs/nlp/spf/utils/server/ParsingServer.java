@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.utils.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.explat.resources.ResourceCreatorRepository;
+import edu.cornell.cs.nlp.spf.mr.lambda.LogicalExpression;
+import edu.cornell.cs.nlp.spf.parser.IParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.cky.single.CKYParser;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelImmutable;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.Model;
+import edu.cornell.cs.nlp.spf.utils.parse.AbstractLogicalExpressionExperiment;
+import edu.cornell.cs.nlp.spf.utils.parse.ParseUtil;
+import edu.cornell.cs.nlp.spf.utils.parse.ParseUtil.ParseUtilResourceCreatorRepository;
+import edu.cornell.cs.nlp.spf.utils.server.ParsingService.ParseResult;
+import edu.cornell.cs.nlp.spf.utils.server.ParsingService.ScoredSemantics;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * HTTP front end for {@link ParsingService}. Loads the model and the parser
+ * once, and serves parse requests on the loopback interface until the process
+ * is terminated. The experiment file defines the logical language (same
+ * global parameters as {@link ParseUtil}), the parser (id 'parser') and the
+ * model (id 'model', usually loaded from a file). Endpoints:
+ * <ul>
+ * <li>/parse: parse the sentence given as the body of a POST request, or the
+ * 'sentence' query parameter of a GET request. Returns the highest scoring
+ * derivations and timing information as JSON.</li>
+ * <li>/stats: service counters.</li>
+ * </ul>
+ *
+ * @author Yoav Artzi
+ * @see ParsingLoadTest
+ */
+public class ParsingServer extends AbstractLogicalExpressionExperiment {
+
+	public static final int							DEFAULT_PORT	= 8765;
+
+	private static final String						MODEL_RESOURCE	= "model";
+
+	private final ExecutorService					httpExecutor;
+
+	private final HttpServer						server;
+
+	private final ParsingService<LogicalExpression>	service;
+
+	private ParsingServer(File expFile, Map<String, String> envParams,
+			ResourceCreatorRepository creatorRepo) throws IOException {
+		super(expFile, envParams, creatorRepo);
+
+		// //////////////////////////////////////////
+		// Init lambda calculus system and category services.
+		// //////////////////////////////////////////
+
+		initLogicalLanguage();
+
+		// //////////////////////////////////////////////////
+		// Read resources.
+		// //////////////////////////////////////////////////
+
+		readResrouces();
+
+		// //////////////////////////////////////////////////
+		// Create the parsing service and start the server.
+		// //////////////////////////////////////////////////
+
+		final IParser<Sentence, LogicalExpression> parser = get(
+				PARSER_RESOURCE);
+		final IModelImmutable<Sentence, LogicalExpression> model = get(
+				MODEL_RESOURCE);
+		final ParsingService.Builder<LogicalExpression> serviceBuilder = new ParsingService.Builder<LogicalExpression>(
+				parser, model);
+		if (globalParams.contains("threads")) {
+			serviceBuilder.setNumThreads(globalParams.getAsInteger("threads"));
+		}
+		if (globalParams.contains("batchSize")) {
+			serviceBuilder
+					.setBatchSize(globalParams.getAsInteger("batchSize"));
+		}
+		if (globalParams.contains("batchTimeout")) {
+			serviceBuilder
+					.setBatchTimeout(globalParams.getAsLong("batchTimeout"));
+		}
+		if (globalParams.contains("cache")) {
+			serviceBuilder.setCacheSize(globalParams.getAsInteger("cache"));
+		}
+		if (globalParams.contains("derivations")) {
+			serviceBuilder.setMaxDerivations(
+					globalParams.getAsInteger("derivations"));
+		}
+		this.service = serviceBuilder.build();
+
+		this.server = HttpServer.create(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(),
+						globalParams.getAsInteger("port", DEFAULT_PORT)),
+				0);
+		this.httpExecutor = Executors
+				.newCachedThreadPool(new LoggingThreadFactory("http"));
+		server.setExecutor(httpExecutor);
+		server.createContext("/parse", this::handleParse);
+		server.createContext("/stats", this::handleStats);
+		server.start();
+		LOG.info("Parsing server listening on http://%s:%d/parse",
+				server.getAddress().getHostString(),
+				server.getAddress().getPort());
+	}
+
+	public static void main(String[] args) {
+		main(args, new ParsingServerResourceCreatorRepository());
+	}
+
+	public static void main(String[] args,
+			ResourceCreatorRepository creatorRepo) {
+		if (args.length != 1) {
+			usage();
+			return;
+		}
+
+		try {
+			final Map<String, String> envParams = new HashMap<String, String>();
+			envParams.put("outputDir", ".");
+			final ParsingServer parsingServer = new ParsingServer(
+					new File(args[0]), envParams, creatorRepo);
+			Runtime.getRuntime()
+					.addShutdownHook(new Thread(parsingServer::stop));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String readQuery(HttpExchange exchange)
+			throws UnsupportedEncodingException {
+		final String query = exchange.getRequestURI().getRawQuery();
+		if (query != null) {
+			for (final String param : query.split("&")) {
+				if (param.startsWith("sentence=")) {
+					return URLDecoder.decode(
+							param.substring("sentence=".length()),
+							StandardCharsets.UTF_8.name());
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String readBody(HttpExchange exchange) throws IOException {
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		try (final InputStream in = exchange.getRequestBody()) {
+			final byte[] buffer = new byte[4096];
+			int len;
+			while ((len = in.read(buffer)) > 0) {
+				body.write(buffer, 0, len);
+			}
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void respond(HttpExchange exchange, int code,
+			String json) {
+		try {
+			final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type",
+					"application/json; charset=utf-8");
+			exchange.sendResponseHeaders(code, bytes.length);
+			try (final OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		} catch (final IOException e) {
+			// Client is gone.
+			LOG.warn("Failed to send response: %s", e);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String toJson(ParseResult<LogicalExpression> result,
+			long serverTime) {
+		final JSONArray derivations = new JSONArray();
+		for (final ScoredSemantics<LogicalExpression> derivation : result
+				.getDerivations()) {
+			final JSONObject object = new JSONObject();
+			object.put("semantics", derivation.getSemantics().toString());
+			object.put("score", derivation.getScore());
+			derivations.add(object);
+		}
+		final JSONObject object = new JSONObject();
+		object.put("sentence", result.getSentence());
+		object.put("derivations", derivations);
+		object.put("exact", result.isExact());
+		object.put("parseTime", result.getParsingTime());
+		object.put("serverTime", serverTime);
+		return object.toJSONString();
+	}
+
+	private static void usage() {
+		System.out.println(String.format("Usage: ... %s <exp_file>",
+				ParsingServer.class.getSimpleName()));
+		System.out.println(
+				"\t<exp_file>\tExplat file to define the logical language, the parser ('parser') and the model ('model'). Server global parameters: port, threads, batchSize, batchTimeout (ms), cache, derivations.");
+	}
+
+	private void handleParse(HttpExchange exchange) throws IOException {
+		final long start = System.currentTimeMillis();
+		final String sentence;
+		if ("POST".equals(exchange.getRequestMethod())) {
+			sentence = readBody(exchange).trim();
+		} else if ("GET".equals(exchange.getRequestMethod())) {
+			final String query = readQuery(exchange);
+			sentence = query == null ? null : query.trim();
+		} else {
+			respond(exchange, 405, error("Unsupported method"));
+			return;
+		}
+
+		if (sentence == null || sentence.isEmpty()) {
+			respond(exchange, 400, error("Missing sentence"));
+			return;
+		}
+
+		// Respond asynchronously, so HTTP threads are not blocked while
+		// parsing.
+		service.parse(sentence).whenComplete((result, t) -> {
+			if (t == null) {
+				respond(exchange, 200,
+						toJson(result, System.currentTimeMillis() - start));
+			} else {
+				final Throwable cause = t instanceof CompletionException
+						&& t.getCause() != null ? t.getCause() : t;
+				respond(exchange, 500, error(cause.toString()));
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private void handleStats(HttpExchange exchange) {
+		final JSONObject object = new JSONObject();
+		object.put("stats", service.toString());
+		respond(exchange, 200, object.toJSONString());
+	}
+
+	@SuppressWarnings("unchecked")
+	private String error(String message) {
+		final JSONObject object = new JSONObject();
+		object.put("error", message);
+		return object.toJSONString();
+	}
+
+	private void stop() {
+		LOG.info("Stopping parsing server: %s", service);
+		server.stop(0);
+		httpExecutor.shutdownNow();
+		service.shutdown();
+		end();
+	}
+
+	public static class ParsingServerResourceCreatorRepository
+			extends ParseUtilResourceCreatorRepository {
+
+		public ParsingServerResourceCreatorRepository() {
+			registerResourceCreator(
+					new CKYParser.Creator<Sentence, LogicalExpression>());
+			registerResourceCreator(
+					new Model.Creator<Sentence, LogicalExpression>());
+		}
+
+	}
+
+}
@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (C) 2011 - 2015 Yoav Artzi, All rights reserved.
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *******************************************************************************/
+package edu.cornell.cs.nlp.spf.utils.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.cornell.cs.nlp.spf.base.concurrency.DeadlineExecutorService;
+import edu.cornell.cs.nlp.spf.data.sentence.Sentence;
+import edu.cornell.cs.nlp.spf.parser.IDerivation;
+import edu.cornell.cs.nlp.spf.parser.IParser;
+import edu.cornell.cs.nlp.spf.parser.IParserOutput;
+import edu.cornell.cs.nlp.spf.parser.ccg.model.IModelImmutable;
+import edu.cornell.cs.nlp.utils.log.ILogger;
+import edu.cornell.cs.nlp.utils.log.LoggerFactory;
+import edu.cornell.cs.nlp.utils.log.thread.LoggingThreadFactory;
+
+/**
+ * Long-running parsing service. Keeps a parser and a model in memory, and
+ * accepts sentences from concurrent clients. Requests are queued and grouped
+ * into micro-batches: a batch is closed when it's full, or when the oldest
+ * request in it waited for the batch timeout. Requests for the same sentence
+ * within a batch are parsed once, and recent results are cached. Each
+ * distinct sentence is parsed as a separate task on a shared pool of
+ * threads. The parser and the model must support concurrent calls.
+ *
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class ParsingService<MR> {
+	public static final ILogger					LOG					= LoggerFactory
+			.create(ParsingService.class);
+
+	private static final String					THREAD_NAME_PREFIX	= "parse";
+
+	/**
+	 * Maximum number of requests in each batch.
+	 */
+	private final int							batchSize;
+
+	/**
+	 * Batches processed.
+	 */
+	private final LongAdder						batches				= new LongAdder();
+
+	/**
+	 * Maximum time (in milliseconds) to wait for a batch to fill.
+	 */
+	private final long							batchTimeout;
+
+	/**
+	 * Recent parsing results, keyed by sentence string.
+	 */
+	private final Map<String, ParseResult<MR>>	cache				= new ConcurrentHashMap<String, ParseResult<MR>>();
+
+	private final LongAdder						cacheHits			= new LongAdder();
+
+	/**
+	 * Maximum number of cached results. If 0, the cache is disabled.
+	 */
+	private final int							cacheSize;
+
+	private final Thread						dispatcher;
+
+	private final DeadlineExecutorService		executor;
+
+	/**
+	 * Maximum number of derivations to return. If 0, all the best
+	 * derivations are returned.
+	 */
+	private final int							maxDerivations;
+
+	private final IModelImmutable<Sentence, MR>	model;
+
+	private final IParser<Sentence, MR>			parser;
+
+	private final LongAdder						parsed				= new LongAdder();
+
+	private final BlockingQueue<Request<MR>>	queue				= new LinkedBlockingQueue<Request<MR>>();
+
+	private final LongAdder						requests			= new LongAdder();
+
+	private volatile boolean					running				= true;
+
+	private ParsingService(IParser<Sentence, MR> parser,
+			IModelImmutable<Sentence, MR> model, int numThreads,
+			int batchSize, long batchTimeout, int cacheSize,
+			int maxDerivations) {
+		this.parser = parser;
+		this.model = model;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+		this.cacheSize = cacheSize;
+		this.maxDerivations = maxDerivations;
+		this.executor = new DeadlineExecutorService(numThreads,
+				new LoggingThreadFactory(THREAD_NAME_PREFIX));
+		this.dispatcher = new Thread(this::dispatch,
+				THREAD_NAME_PREFIX + "-dispatcher");
+		this.dispatcher.setDaemon(true);
+		this.dispatcher.start();
+		LOG.info(
+				"Init ParsingService: numThreads=%d, batchSize=%d, batchTimeout=%dms, cacheSize=%d, maxDerivations=%d",
+				numThreads, batchSize, batchTimeout, cacheSize,
+				maxDerivations);
+	}
+
+	/**
+	 * Parse a sentence.
+	 *
+	 * @return Future of the result. Completed exceptionally if parsing
+	 *         failed.
+	 */
+	public CompletableFuture<ParseResult<MR>> parse(String sentence) {
+		requests.increment();
+		final ParseResult<MR> cached = cacheSize > 0 ? cache.get(sentence)
+				: null;
+		if (cached != null) {
+			cacheHits.increment();
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		final Request<MR> request = new Request<MR>(sentence);
+		queue.add(request);
+		if (!running && queue.remove(request)) {
+			// Shut down while queueing the request.
+			request.future.completeExceptionally(
+					new IllegalStateException("Parsing service is shut down"));
+		}
+		return request.future;
+	}
+
+	/**
+	 * Stop accepting requests. Queued requests are failed, and batches that
+	 * are being parsed are completed.
+	 */
+	public void shutdown() {
+		running = false;
+		dispatcher.interrupt();
+		executor.shutdown();
+		final List<Request<MR>> pending = new ArrayList<Request<MR>>();
+		queue.drainTo(pending);
+		for (final Request<MR> request : pending) {
+			request.future.completeExceptionally(
+					new IllegalStateException("Parsing service is shut down"));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%s [requests=%d, cacheHits=%d, parsed=%d, batches=%d, queued=%d]",
+				ParsingService.class.getSimpleName(), requests.sum(),
+				cacheHits.sum(), parsed.sum(), batches.sum(), queue.size());
+	}
+
+	private ParseResult<MR> createResult(String sentence,
+			IParserOutput<MR> output) {
+		final List<? extends IDerivation<MR>> best = output
+				.getBestDerivations();
+		final int len = maxDerivations > 0
+				? Math.min(maxDerivations, best.size()) : best.size();
+		final List<ScoredSemantics<MR>> derivations = new ArrayList<ScoredSemantics<MR>>(
+				len);
+		for (int i = 0; i < len; ++i) {
+			derivations.add(new ScoredSemantics<MR>(best.get(i).getSemantics(),
+					best.get(i).getScore()));
+		}
+		return new ParseResult<MR>(sentence, derivations, output.isExact(),
+				output.getParsingTime());
+	}
+
+	/**
+	 * Dispatcher loop. Collects batches from the queue, groups the requests
+	 * in each batch by sentence, and submits each group to the executor.
+	 */
+	private void dispatch() {
+		while (running) {
+			final List<Request<MR>> batch = new ArrayList<Request<MR>>(
+					batchSize);
+			try {
+				batch.add(queue.take());
+				final long deadline = System.nanoTime()
+						+ TimeUnit.MILLISECONDS.toNanos(batchTimeout);
+				while (batch.size() < batchSize) {
+					final Request<MR> request = queue.poll(
+							deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (request == null) {
+						break;
+					}
+					batch.add(request);
+				}
+			} catch (final InterruptedException e) {
+				// Shutting down.
+				for (final Request<MR> request : batch) {
+					request.future.completeExceptionally(
+							new IllegalStateException(
+									"Parsing service is shut down"));
+				}
+				return;
+			}
+			batches.increment();
+
+			// Each sentence is parsed once, even if it's requested multiple
+			// times in the batch.
+			final Map<String, List<Request<MR>>> grouped = new LinkedHashMap<String, List<Request<MR>>>();
+			for (final Request<MR> request : batch) {
+				grouped.computeIfAbsent(request.sentence,
+						s -> new ArrayList<Request<MR>>(1)).add(request);
+			}
+			for (final Entry<String, List<Request<MR>>> entry : grouped
+					.entrySet()) {
+				try {
+					executor.execute(
+							() -> process(entry.getKey(), entry.getValue()));
+				} catch (final RejectedExecutionException e) {
+					for (final Request<MR> request : entry.getValue()) {
+						request.future.completeExceptionally(e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parse a sentence and complete all the requests for it.
+	 */
+	private void process(String sentenceString, List<Request<MR>> requests) {
+		try {
+			final Sentence sentence = new Sentence(sentenceString);
+			final ParseResult<MR> result = createResult(sentenceString,
+					parser.parse(sentence, model.createDataItemModel(sentence)));
+			parsed.increment();
+			if (cacheSize > 0) {
+				if (cache.size() >= cacheSize) {
+					cache.clear();
+				}
+				cache.put(sentenceString, result);
+			}
+			for (final Request<MR> request : requests) {
+				request.future.complete(result);
+			}
+		} catch (final RuntimeException e) {
+			LOG.error("Failed to parse: %s", sentenceString);
+			LOG.error(e);
+			for (final Request<MR> request : requests) {
+				request.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	public static class Builder<MR> {
+
+		/** Maximum number of requests in each batch */
+		private int										batchSize		= 8;
+
+		/** Maximum time (in milliseconds) to wait for a batch to fill */
+		private long									batchTimeout	= 2;
+
+		/** Maximum number of cached results, 0 to disable */
+		private int										cacheSize		= 10000;
+
+		/** Maximum number of derivations to return, 0 for all */
+		private int										maxDerivations	= 0;
+
+		private final IModelImmutable<Sentence, MR>		model;
+
+		private int										numThreads		= Runtime
+				.getRuntime().availableProcessors();
+
+		private final IParser<Sentence, MR>				parser;
+
+		public Builder(IParser<Sentence, MR> parser,
+				IModelImmutable<Sentence, MR> model) {
+			this.parser = parser;
+			this.model = model;
+		}
+
+		public ParsingService<MR> build() {
+			return new ParsingService<MR>(parser, model, numThreads,
+					batchSize, batchTimeout, cacheSize, maxDerivations);
+		}
+
+		public Builder<MR> setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder<MR> setBatchTimeout(long batchTimeout) {
+			this.batchTimeout = batchTimeout;
+			return this;
+		}
+
+		public Builder<MR> setCacheSize(int cacheSize) {
+			this.cacheSize = cacheSize;
+			return this;
+		}
+
+		public Builder<MR> setMaxDerivations(int maxDerivations) {
+			this.maxDerivations = maxDerivations;
+			return this;
+		}
+
+		public Builder<MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
+		}
+	}
+
+	/**
+	 * The result of parsing a sentence: the semantics of the highest scoring
+	 * derivations. Immutable, and may be shared between requests.
+	 *
+	 * @author Yoav Artzi
+	 */
+	public static class ParseResult<MR> {
+		private final List<ScoredSemantics<MR>>	derivations;
+		private final boolean					exact;
+		private final long						parsingTime;
+		private final String					sentence;
+
+		public ParseResult(String sentence,
+				List<ScoredSemantics<MR>> derivations, boolean exact,
+				long parsingTime) {
+			this.sentence = sentence;
+			this.derivations = Collections.unmodifiableList(derivations);
+			this.exact = exact;
+			this.parsingTime = parsingTime;
+		}
+
+		public List<ScoredSemantics<MR>> getDerivations() {
+			return derivations;
+		}
+
+		/**
+		 * Parsing time in milliseconds.
+		 */
+		public long getParsingTime() {
+			return parsingTime;
+		}
+
+		public String getSentence() {
+			return sentence;
+		}
+
+		public boolean isExact() {
+			return exact;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s -> %s", sentence, derivations);
+		}
+	}
+
+	public static class ScoredSemantics<MR> {
+		private final double	score;
+		private final MR		semantics;
+
+		public ScoredSemantics(MR semantics, double score) {
+			this.semantics = semantics;
+			this.score = score;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		public MR getSemantics() {
+			return semantics;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("[%.2f] %s", score, semantics);
+		}
+	}
+
+	private static class Request<MR> {
+		private final CompletableFuture<ParseResult<MR>>	future	= new CompletableFuture<ParseResult<MR>>();
+		private final String								sentence;
+
+		public Request(String sentence) {
+			this.sentence = sentence;
+		}
+	}
+
+}